@@ -5,7 +5,8 @@ CREATE TABLE Garage (
     address VARCHAR(255) NOT NULL,
     town VARCHAR(100) NOT NULL,
     postCode VARCHAR(10) NOT NULL,
-    phoneNo VARCHAR(20) NOT NULL
+    phoneNo VARCHAR(20) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Create Customer table
@@ -15,16 +16,20 @@ CREATE TABLE Customer (
     surname VARCHAR(50) NOT NULL,
     address VARCHAR(255) NOT NULL,
     postCode VARCHAR(10) NOT NULL,
-    phoneNo VARCHAR(20) NOT NULL
+    phoneNo VARCHAR(20) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
--- Create Car table
+-- Create Car table (regNoKey is regNo upper-cased with whitespace removed, for lookups as typed)
 CREATE TABLE Car (
     regNo VARCHAR(20) PRIMARY KEY,
     make VARCHAR(50) NOT NULL,
     model VARCHAR(50) NOT NULL,
     year INT NOT NULL,
     customerId BIGINT NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    regNoKey VARCHAR(20) NOT NULL,
+    UNIQUE KEY uk_car_regNoKey (regNoKey),
     FOREIGN KEY (customerId) REFERENCES Customer(customerId) ON DELETE CASCADE
 );
 
@@ -36,6 +41,7 @@ CREATE TABLE Job (
     dateOut DATETIME,
     regNo VARCHAR(20) NOT NULL,
     cost DECIMAL(10,2),
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (garageId) REFERENCES Garage(garageId) ON DELETE RESTRICT,
     FOREIGN KEY (regNo) REFERENCES Car(regNo) ON DELETE CASCADE
 );
@@ -49,6 +55,17 @@ CREATE TABLE IF NOT EXISTS Activity (
     userId VARCHAR(100) NOT NULL,
     INDEX idx_timestamp (timestamp)
 );
+
+-- Activities older than the retention period, moved out of Activity by the application
+CREATE TABLE IF NOT EXISTS ActivityArchive (
+    activityId BIGINT PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    action VARCHAR(50) NOT NULL,
+    description VARCHAR(500) NOT NULL,
+    timestamp DATETIME NOT NULL,
+    userId VARCHAR(100) NOT NULL,
+    INDEX idx_activityArchive_timestamp (timestamp)
+);
 CREATE TABLE Payment (
     paymentId BIGINT PRIMARY KEY AUTO_INCREMENT,
     jobId BIGINT NOT NULL,
@@ -59,6 +76,24 @@ CREATE TABLE Payment (
     FOREIGN KEY (jobId) REFERENCES Job(jobId) ON DELETE CASCADE
 );
 
+-- Create DailyGarageSummary table (maintained incrementally by the service layer)
+CREATE TABLE DailyGarageSummary (
+    garageId BIGINT NOT NULL,
+    summaryDate DATE NOT NULL,
+    jobsOpened INT NOT NULL DEFAULT 0,
+    jobsClosed INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(12,2) NOT NULL DEFAULT 0,
+    serviceDays BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (garageId, summaryDate),
+    FOREIGN KEY (garageId) REFERENCES Garage(garageId) ON DELETE CASCADE
+);
+
+-- Create SyncCursor table (last offline journal entry replayed from each local store)
+CREATE TABLE SyncCursor (
+    storeId VARCHAR(36) PRIMARY KEY,
+    lastEntryId BIGINT NOT NULL
+);
+
 
 -- Insert Garages
 INSERT INTO Garage (garageId, garageName, address, town, postCode, phoneNo) VALUES
@@ -75,14 +110,14 @@ INSERT INTO Customer (customerId, forename, surname, address, postCode, phoneNo)
 (5, 'David', 'Taylor', '32 Birch Close', 'M20 1QQ', '07700-900127');
 
 -- Insert Cars
-INSERT INTO Car (regNo, make, model, year, customerId) VALUES
-('AB12 CDE', 'Toyota', 'Corolla', 2020, 1),
-('XY65 FGH', 'Ford', 'Focus', 2019, 1),
-('BC23 IJK', 'BMW', '320i', 2021, 2),
-('DE34 LMN', 'Volkswagen', 'Golf', 2018, 3),
-('FG45 OPQ', 'Audi', 'A4', 2022, 4),
-('HI56 RST', 'Mercedes', 'C-Class', 2020, 5),
-('JK67 UVW', 'Honda', 'Civic', 2019, 3);
+INSERT INTO Car (regNo, make, model, year, customerId, regNoKey) VALUES
+('AB12 CDE', 'Toyota', 'Corolla', 2020, 1, 'AB12CDE'),
+('XY65 FGH', 'Ford', 'Focus', 2019, 1, 'XY65FGH'),
+('BC23 IJK', 'BMW', '320i', 2021, 2, 'BC23IJK'),
+('DE34 LMN', 'Volkswagen', 'Golf', 2018, 3, 'DE34LMN'),
+('FG45 OPQ', 'Audi', 'A4', 2022, 4, 'FG45OPQ'),
+('HI56 RST', 'Mercedes', 'C-Class', 2020, 5, 'HI56RST'),
+('JK67 UVW', 'Honda', 'Civic', 2019, 3, 'JK67UVW');
 
 -- Insert Jobs (Including completed and ongoing jobs)
 -- Completed jobs (with payment required)
@@ -114,8 +149,26 @@ INSERT INTO Payment (jobId, amount, paymentDate, paymentMethod, paymentStatus) V
 (3, 150.75, '2025-03-16 17:00:00', 'CARD', 'PAID'),
 (4, 890.25, '2025-03-22 12:30:00', 'TRANSFER', 'PAID'),
 (5, 325.00, '2025-03-26 16:15:00', 'CASH', 'PAID');
+-- Backfill the daily summary from the sample jobs and payments
+INSERT INTO DailyGarageSummary (garageId, summaryDate, jobsOpened, jobsClosed, revenue, serviceDays)
+SELECT garageId, summaryDate, SUM(opened), SUM(closed), SUM(revenue), SUM(days)
+FROM (
+    SELECT garageId, DATE(dateIn) AS summaryDate, 1 AS opened, 0 AS closed, 0 AS revenue, 0 AS days
+    FROM Job
+    UNION ALL
+    SELECT garageId, DATE(dateOut), 0, 1, 0, TIMESTAMPDIFF(DAY, dateIn, dateOut) + 1
+    FROM Job WHERE dateOut IS NOT NULL
+    UNION ALL
+    SELECT j.garageId, DATE(p.paymentDate), 0, 0, p.amount, 0
+    FROM Payment p INNER JOIN Job j ON p.jobId = j.jobId WHERE p.paymentStatus = 'PAID'
+) AS activity
+GROUP BY garageId, summaryDate;
 -- Add indexes for better performance
 CREATE INDEX idx_customer_surname ON Customer(surname);
 CREATE INDEX idx_car_customer ON Car(customerId);
 CREATE INDEX idx_job_garage ON Job(garageId);
 CREATE INDEX idx_job_car ON Job(regNo);
+CREATE INDEX idx_summary_date ON DailyGarageSummary(summaryDate);
+CREATE INDEX idx_job_dateOut ON Job(dateOut);
+CREATE INDEX idx_payment_job ON Payment(jobId);
+CREATE INDEX idx_activity_type ON Activity(type);
@@ -1,5 +1,13 @@
 package com.carservice;
 
+import com.carservice.api.ApiServer;
+import com.carservice.config.ApplicationContext;
+import com.carservice.config.DatabaseConfig;
+import com.carservice.service.ServiceException;
+import com.carservice.util.StartupTimer;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -10,6 +18,17 @@ import javafx.stage.Stage;
  * the JavaFX application.
  */
 public class CarServiceApplication extends Application {
+  private ApplicationContext context;
+
+  /**
+   * Creates the shared services and starts warming up the database in the background, so opening
+   * connections overlaps with building the UI.
+   */
+  @Override
+  public void init() {
+    context = new ApplicationContext();
+    context.warmUp();
+  }
 
   /**
    * The entry point for the JavaFX application.
@@ -19,11 +38,15 @@ public class CarServiceApplication extends Application {
    */
   @Override
   public void start(Stage primaryStage) {
+    StartupTimer timer = context.getStartupTimer();
     try {
-      // Load the main view from the FXML file
+      // Load the main view from the FXML file; its content views load in the background
+      long start = timer.now();
       FXMLLoader fxmlLoader =
           new FXMLLoader(CarServiceApplication.class.getResource("/fxml/main-view.fxml"));
+      fxmlLoader.setControllerFactory(context::createController);
       Scene scene = new Scene(fxmlLoader.load(), 1024, 768);
+      timer.record("main view loaded", start);
 
       // Apply the application stylesheet
       scene
@@ -34,18 +57,93 @@ public class CarServiceApplication extends Application {
       primaryStage.setTitle("Car Service Management");
       primaryStage.setScene(scene);
       primaryStage.show();
+      timer.mark("window shown");
     } catch (Exception e) {
       // Print the stack trace if an exception occurs
       e.printStackTrace();
     }
   }
 
+  /** Closes the shared services and database connections when the application window is closed. */
+  @Override
+  public void stop() {
+    context.close();
+  }
+
   /**
-   * The main method, which serves as the entry point for the application.
+   * The main method, which serves as the entry point for the application. Passing {@code
+   * --rebuild-summary} rebuilds the daily garage summary and exits without starting the UI, and
+   * {@code --archive-activity} archives the activities older than the retention period and exits,
+   * and {@code --migrate} applies the pending schema migrations and exits. Passing {@code --server}
+   * starts the headless HTTP API instead of the UI.
    *
    * @param args the command-line arguments
    */
   public static void main(String[] args) {
+    if (Arrays.asList(args).contains("--rebuild-summary")) {
+      rebuildSummary();
+      return;
+    }
+    if (Arrays.asList(args).contains("--archive-activity")) {
+      archiveActivity();
+      return;
+    }
+    if (Arrays.asList(args).contains("--migrate")) {
+      migrate();
+      return;
+    }
+    if (Arrays.asList(args).contains("--server")) {
+      startServer();
+      return;
+    }
     launch(args);
   }
+
+  /** Starts the headless HTTP API server. */
+  private static void startServer() {
+    try {
+      ApiServer.runHeadless();
+    } catch (IOException | SQLException e) {
+      System.err.println("Could not start API server: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  /** Rebuilds the daily garage summary from the command line. */
+  private static void rebuildSummary() {
+    try (ApplicationContext context = new ApplicationContext()) {
+      int rows = context.getDailySummaryService().rebuild();
+      System.out.println("Daily summary rebuilt: " + rows + " row(s)");
+    } catch (ServiceException e) {
+      System.err.println(e.getMessage());
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+
+  /** Archives the activities older than the retention period from the command line. */
+  private static void archiveActivity() {
+    try (ApplicationContext context = new ApplicationContext()) {
+      int rows = context.getActivityArchiver().archive();
+      System.out.println("Activities archived: " + rows + " row(s)");
+    } catch (ServiceException e) {
+      System.err.println(e.getMessage());
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+
+  /** Applies the pending schema migrations from the command line. */
+  private static void migrate() {
+    try {
+      ApplicationContext.migrateSchema();
+      System.out.println("Schema is up to date");
+    } catch (SQLException e) {
+      System.err.println(e.getMessage());
+      e.printStackTrace();
+      System.exit(1);
+    } finally {
+      DatabaseConfig.shutdown();
+    }
+  }
 }
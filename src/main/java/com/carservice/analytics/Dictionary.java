@@ -0,0 +1,88 @@
+package com.carservice.analytics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps strings to dense integer IDs so a string column can be stored as an int column. The
+ * dictionary is persisted as a text file with one value per line, in ID order, and new values are
+ * appended to it.
+ */
+final class Dictionary {
+  private final Path file;
+  private final List<String> values = new ArrayList<>();
+  private final Map<String, Integer> ids = new HashMap<>();
+  private final List<String> pending = new ArrayList<>();
+
+  /**
+   * Loads a dictionary file, or starts an empty dictionary if the file does not exist.
+   *
+   * @param file the dictionary file
+   * @throws IOException if the file cannot be read
+   */
+  Dictionary(Path file) throws IOException {
+    this.file = file;
+    if (Files.exists(file)) {
+      for (String value : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+        ids.put(value, values.size());
+        values.add(value);
+      }
+    }
+  }
+
+  /**
+   * Returns the ID of a value, assigning the next ID if the value is new.
+   *
+   * @param value the value, never containing a line break
+   * @return the value's ID
+   */
+  int idOf(String value) {
+    Integer id = ids.get(value);
+    if (id == null) {
+      id = values.size();
+      ids.put(value, id);
+      values.add(value);
+      pending.add(value);
+    }
+    return id;
+  }
+
+  String valueOf(int id) {
+    return values.get(id);
+  }
+
+  int size() {
+    return values.size();
+  }
+
+  /**
+   * Appends the values added since the last flush to the file.
+   *
+   * @throws IOException if the file cannot be written
+   */
+  void flush() throws IOException {
+    if (pending.isEmpty()) {
+      return;
+    }
+    try (BufferedWriter writer =
+        Files.newBufferedWriter(
+            file,
+            StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND)) {
+      for (String value : pending) {
+        writer.write(value);
+        writer.newLine();
+      }
+    }
+    pending.clear();
+  }
+}
@@ -0,0 +1,59 @@
+package com.carservice.analytics;
+
+/**
+ * Aggregated figures for one group of jobs, such as all jobs of a garage or of a car make, as
+ * returned by {@link JobColumnStore}. Costs and service time only count completed jobs.
+ */
+public final class JobAggregate {
+  private final String key;
+  private final long jobs;
+  private final long completedJobs;
+  private final long totalCostMinor;
+  private final long totalServiceSeconds;
+
+  JobAggregate(
+      String key, long jobs, long completedJobs, long totalCostMinor, long totalServiceSeconds) {
+    this.key = key;
+    this.jobs = jobs;
+    this.completedJobs = completedJobs;
+    this.totalCostMinor = totalCostMinor;
+    this.totalServiceSeconds = totalServiceSeconds;
+  }
+
+  /** Returns the group, such as a garage ID or a car make. */
+  public String getKey() {
+    return key;
+  }
+
+  /** Returns the number of jobs in the group. */
+  public long getJobs() {
+    return jobs;
+  }
+
+  /** Returns the number of jobs in the group that have a date out. */
+  public long getCompletedJobs() {
+    return completedJobs;
+  }
+
+  /** Returns the total cost of the completed jobs. */
+  public double getTotalCost() {
+    return totalCostMinor / 100.0;
+  }
+
+  /** Returns the average cost of a completed job, or 0 if there are none. */
+  public double getAverageCost() {
+    return completedJobs == 0 ? 0 : totalCostMinor / 100.0 / completedJobs;
+  }
+
+  /** Returns the average time a completed job spent in the garage, in days. */
+  public double getAverageServiceDays() {
+    return completedJobs == 0 ? 0 : totalServiceSeconds / 86400.0 / completedJobs;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "%s: jobs=%d completed=%d totalCost=%.2f averageCost=%.2f averageDays=%.2f",
+        key, jobs, completedJobs, getTotalCost(), getAverageCost(), getAverageServiceDays());
+  }
+}
@@ -0,0 +1,482 @@
+package com.carservice.analytics;
+
+import com.carservice.dao.JobHistoryDAO;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Local, column-oriented copy of the job history for analytics. Each job attribute is stored in
+ * its own memory-mapped file of primitive values (job ID, garage ID, date in, date out, cost in
+ * minor units, and dictionary IDs for the registration number and car make), so aggregates run as
+ * tight loops over off-heap memory instead of mapping JDBC rows into objects.
+ *
+ * <p>Jobs are appended in job ID order. {@link #refresh()} appends jobs created since the last
+ * refresh and re-reads jobs that were still open, picking up their completion or deletion. Changes
+ * to jobs that were already complete are only picked up by {@link #rebuild()}.
+ *
+ * <p>Queries may run concurrently with each other and wait for a refresh in progress.
+ */
+public class JobColumnStore implements AutoCloseable {
+  private static final int FORMAT_VERSION = 1;
+  private static final long NULL_VALUE = Long.MIN_VALUE;
+  private static final byte DELETED = 1;
+  private static final int SCAN_CHUNK_ROWS = 64 * 1024;
+  private static final int RECHECK_BATCH_SIZE = 500;
+  private static final int INITIAL_ROWS = 1024;
+
+  private static final int BY_NOTHING = 0;
+  private static final int BY_GARAGE = 1;
+  private static final int BY_MAKE = 2;
+
+  // Accumulator slots per group: jobs, completed jobs, cost, service seconds
+  private static final int SLOTS = 4;
+
+  private final Path directory;
+  private final String source;
+  private final JobHistoryDAO historyDAO;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final MappedColumn jobIds;
+  private final MappedColumn garageIds;
+  private final MappedColumn datesIn;
+  private final MappedColumn datesOut;
+  private final MappedColumn costs;
+  private final MappedColumn regNoIds;
+  private final MappedColumn makeIds;
+  private final MappedColumn flags;
+  private final Dictionary regNos;
+  private final Dictionary makes;
+
+  private int rowCount;
+  private long maxJobId;
+  private long[] garageKeys = new long[0];
+  private int[] openRows = new int[0];
+
+  /**
+   * Opens the store in a directory, creating it if needed. If the directory holds a store built
+   * from a different database, or in an older format, it is discarded and rebuilt on the next
+   * refresh.
+   *
+   * @param directory the directory holding the column files
+   * @param source identifies the database the store is built from, such as its JDBC URL
+   * @param historyDAO the DAO that reads job history
+   * @throws IOException if the files cannot be opened
+   */
+  public JobColumnStore(Path directory, String source, JobHistoryDAO historyDAO)
+      throws IOException {
+    this.directory = directory;
+    this.source = source;
+    this.historyDAO = historyDAO;
+    Files.createDirectories(directory);
+
+    Properties meta = readMeta();
+    boolean compatible =
+        String.valueOf(FORMAT_VERSION).equals(meta.getProperty("formatVersion"))
+            && source.equals(meta.getProperty("source"));
+    if (!compatible) {
+      deleteFiles();
+    } else {
+      rowCount = Integer.parseInt(meta.getProperty("rows", "0"));
+      maxJobId = Long.parseLong(meta.getProperty("maxJobId", "0"));
+    }
+
+    int capacity = Math.max(INITIAL_ROWS, rowCount);
+    jobIds = new MappedColumn(directory.resolve("jobId.col"), 8, capacity);
+    garageIds = new MappedColumn(directory.resolve("garageId.col"), 8, capacity);
+    datesIn = new MappedColumn(directory.resolve("dateIn.col"), 8, capacity);
+    datesOut = new MappedColumn(directory.resolve("dateOut.col"), 8, capacity);
+    costs = new MappedColumn(directory.resolve("cost.col"), 8, capacity);
+    regNoIds = new MappedColumn(directory.resolve("regNo.col"), 4, capacity);
+    makeIds = new MappedColumn(directory.resolve("make.col"), 4, capacity);
+    flags = new MappedColumn(directory.resolve("flags.col"), 1, capacity);
+    regNos = new Dictionary(directory.resolve("regNo.dict"));
+    makes = new Dictionary(directory.resolve("make.dict"));
+    updateIndexes();
+  }
+
+  /**
+   * Brings the store up to date: appends new jobs and re-reads jobs that were open.
+   *
+   * @return the number of jobs appended or updated
+   * @throws SQLException if the job history cannot be read
+   * @throws IOException if the column files cannot be written
+   */
+  public int refresh() throws SQLException, IOException {
+    lock.writeLock().lock();
+    try {
+      int changed = recheckOpenJobs();
+      changed += (int) historyDAO.streamAfter(maxJobId, this::append);
+      commit();
+      return changed;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Discards the stored history and reloads every job.
+   *
+   * @return the number of jobs loaded
+   * @throws SQLException if the job history cannot be read
+   * @throws IOException if the column files cannot be written
+   */
+  public int rebuild() throws SQLException, IOException {
+    lock.writeLock().lock();
+    try {
+      rowCount = 0;
+      maxJobId = 0;
+      int loaded = (int) historyDAO.streamAfter(0, this::append);
+      commit();
+      return loaded;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of jobs in the store, including deleted ones that are skipped by queries.
+   *
+   * @return the number of stored rows
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return rowCount;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Aggregates all jobs that came in within a period.
+   *
+   * @param from the start of the period, inclusive, or null for no lower bound
+   * @param to the end of the period, exclusive, or null for no upper bound
+   * @return the aggregate, keyed "all"
+   */
+  public JobAggregate aggregateAll(LocalDateTime from, LocalDateTime to) {
+    return aggregate(BY_NOTHING, from, to).get(0);
+  }
+
+  /**
+   * Aggregates the jobs that came in within a period, per garage.
+   *
+   * @param from the start of the period, inclusive, or null for no lower bound
+   * @param to the end of the period, exclusive, or null for no upper bound
+   * @return one aggregate per garage with jobs in the period, keyed by garage ID
+   */
+  public List<JobAggregate> aggregateByGarage(LocalDateTime from, LocalDateTime to) {
+    return aggregate(BY_GARAGE, from, to);
+  }
+
+  /**
+   * Aggregates the jobs that came in within a period, per car make.
+   *
+   * @param from the start of the period, inclusive, or null for no lower bound
+   * @param to the end of the period, exclusive, or null for no upper bound
+   * @return one aggregate per make with jobs in the period, keyed by make
+   */
+  public List<JobAggregate> aggregateByMake(LocalDateTime from, LocalDateTime to) {
+    return aggregate(BY_MAKE, from, to);
+  }
+
+  @Override
+  public void close() throws IOException {
+    lock.writeLock().lock();
+    try {
+      for (MappedColumn column : columns()) {
+        column.close();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private List<JobAggregate> aggregate(int mode, LocalDateTime from, LocalDateTime to) {
+    lock.readLock().lock();
+    try {
+      long fromSecond = from != null ? toEpochSecond(from) : Long.MIN_VALUE;
+      long toSecond = to != null ? toEpochSecond(to) : Long.MAX_VALUE;
+      int groups = mode == BY_GARAGE ? garageKeys.length : mode == BY_MAKE ? makes.size() : 1;
+      int rows = rowCount;
+      int chunks = (rows + SCAN_CHUNK_ROWS - 1) / SCAN_CHUNK_ROWS;
+
+      // Each chunk is scanned into its own accumulator, and the accumulators are summed at the end
+      long[] totals =
+          IntStream.range(0, chunks)
+              .parallel()
+              .mapToObj(
+                  chunk ->
+                      scan(
+                          chunk * SCAN_CHUNK_ROWS,
+                          Math.min(rows, (chunk + 1) * SCAN_CHUNK_ROWS),
+                          mode,
+                          groups,
+                          fromSecond,
+                          toSecond))
+              .reduce(JobColumnStore::addInto)
+              .orElse(new long[groups * SLOTS]);
+
+      List<JobAggregate> result = new ArrayList<>();
+      for (int group = 0; group < groups; group++) {
+        int base = group * SLOTS;
+        if (totals[base] == 0 && mode != BY_NOTHING) {
+          continue;
+        }
+        result.add(
+            new JobAggregate(
+                keyOf(mode, group),
+                totals[base],
+                totals[base + 1],
+                totals[base + 2],
+                totals[base + 3]));
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private long[] scan(int start, int end, int mode, int groups, long fromSecond, long toSecond) {
+    long[] acc = new long[groups * SLOTS];
+    for (int row = start; row < end; row++) {
+      if (flags.getByte(row) == DELETED) {
+        continue;
+      }
+      long dateIn = datesIn.getLong(row);
+      if (dateIn < fromSecond || dateIn >= toSecond) {
+        continue;
+      }
+      int group;
+      if (mode == BY_GARAGE) {
+        group = Arrays.binarySearch(garageKeys, garageIds.getLong(row));
+      } else if (mode == BY_MAKE) {
+        group = makeIds.getInt(row);
+      } else {
+        group = 0;
+      }
+      int base = group * SLOTS;
+      acc[base]++;
+      long dateOut = datesOut.getLong(row);
+      if (dateOut != NULL_VALUE) {
+        acc[base + 1]++;
+        long cost = costs.getLong(row);
+        if (cost != NULL_VALUE) {
+          acc[base + 2] += cost;
+        }
+        acc[base + 3] += dateOut - dateIn;
+      }
+    }
+    return acc;
+  }
+
+  private static long[] addInto(long[] target, long[] source) {
+    for (int i = 0; i < target.length; i++) {
+      target[i] += source[i];
+    }
+    return target;
+  }
+
+  private String keyOf(int mode, int group) {
+    if (mode == BY_GARAGE) {
+      return String.valueOf(garageKeys[group]);
+    }
+    return mode == BY_MAKE ? makes.valueOf(group) : "all";
+  }
+
+  /**
+   * Re-reads the jobs that were open at the last refresh. Jobs that no longer exist are marked
+   * deleted.
+   *
+   * @return the number of jobs re-read
+   * @throws SQLException if the jobs cannot be read
+   */
+  private int recheckOpenJobs() throws SQLException {
+    int rechecked = 0;
+    for (int start = 0; start < openRows.length; start += RECHECK_BATCH_SIZE) {
+      int end = Math.min(openRows.length, start + RECHECK_BATCH_SIZE);
+      List<Long> batch = new ArrayList<>(end - start);
+      for (int i = start; i < end; i++) {
+        batch.add(jobIds.getLong(openRows[i]));
+      }
+      boolean[] found = new boolean[batch.size()];
+      int offset = start;
+      historyDAO.streamByIds(
+          batch,
+          rs -> {
+            int row = rowOf(rs.getLong(1));
+            if (row >= 0) {
+              writeRow(row, rs);
+              int index = Arrays.binarySearch(openRows, offset, offset + found.length, row);
+              if (index >= 0) {
+                found[index - offset] = true;
+              }
+            }
+          });
+      for (int i = 0; i < found.length; i++) {
+        if (!found[i]) {
+          flags.putByte(openRows[start + i], DELETED);
+        }
+      }
+      rechecked += batch.size();
+    }
+    return rechecked;
+  }
+
+  private void append(ResultSet rs) throws SQLException {
+    int row = rowCount;
+    try {
+      for (MappedColumn column : columns()) {
+        column.ensureCapacity(row + 1);
+      }
+    } catch (IOException e) {
+      throw new SQLException("Could not grow the analytics store", e);
+    }
+    long jobId = rs.getLong(1);
+    jobIds.putLong(row, jobId);
+    flags.putByte(row, (byte) 0);
+    writeRow(row, rs);
+    rowCount = row + 1;
+    maxJobId = jobId;
+  }
+
+  /**
+   * Writes the columns of a history row, in the order documented by {@link JobHistoryDAO}.
+   *
+   * @param row the row index to write
+   * @param rs the result set positioned on the row
+   * @throws SQLException if a column cannot be read
+   */
+  private void writeRow(int row, ResultSet rs) throws SQLException {
+    garageIds.putLong(row, rs.getLong(2));
+    datesIn.putLong(row, toEpochSecond(rs.getTimestamp(3).toLocalDateTime()));
+    Timestamp dateOut = rs.getTimestamp(4);
+    datesOut.putLong(row, dateOut != null ? toEpochSecond(dateOut.toLocalDateTime()) : NULL_VALUE);
+    BigDecimal cost = rs.getBigDecimal(5);
+    costs.putLong(row, cost != null ? cost.movePointRight(2).longValue() : NULL_VALUE);
+    regNoIds.putInt(row, regNos.idOf(singleLine(rs.getString(6))));
+    makeIds.putInt(row, makes.idOf(singleLine(rs.getString(7))));
+  }
+
+  private int rowOf(long jobId) {
+    int low = 0;
+    int high = rowCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      long value = jobIds.getLong(mid);
+      if (value < jobId) {
+        low = mid + 1;
+      } else if (value > jobId) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Makes the refreshed data durable: dictionaries and columns first, then the metadata that
+   * records how many rows are valid.
+   *
+   * @throws IOException if the files cannot be written
+   */
+  private void commit() throws IOException {
+    regNos.flush();
+    makes.flush();
+    for (MappedColumn column : columns()) {
+      column.force();
+    }
+    Properties meta = new Properties();
+    meta.setProperty("formatVersion", String.valueOf(FORMAT_VERSION));
+    meta.setProperty("source", source);
+    meta.setProperty("rows", String.valueOf(rowCount));
+    meta.setProperty("maxJobId", String.valueOf(maxJobId));
+    Path temp = directory.resolve("store.properties.tmp");
+    try (OutputStream out = Files.newOutputStream(temp)) {
+      meta.store(out, "Job column store");
+    }
+    Files.move(
+        temp,
+        directory.resolve("store.properties"),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    updateIndexes();
+  }
+
+  /** Rebuilds the sorted garage keys and the list of open rows after the columns change. */
+  private void updateIndexes() {
+    long[] garages = new long[rowCount];
+    int[] open = new int[rowCount];
+    int openCount = 0;
+    for (int row = 0; row < rowCount; row++) {
+      garages[row] = garageIds.getLong(row);
+      if (flags.getByte(row) != DELETED && datesOut.getLong(row) == NULL_VALUE) {
+        open[openCount++] = row;
+      }
+    }
+    garageKeys = Arrays.stream(garages).distinct().sorted().toArray();
+    openRows = Arrays.copyOf(open, openCount);
+  }
+
+  private Properties readMeta() throws IOException {
+    Properties meta = new Properties();
+    Path file = directory.resolve("store.properties");
+    if (Files.exists(file)) {
+      try (InputStream in = Files.newInputStream(file)) {
+        meta.load(in);
+      }
+    }
+    return meta;
+  }
+
+  private void deleteFiles() throws IOException {
+    String[] names = {
+      "store.properties",
+      "jobId.col",
+      "garageId.col",
+      "dateIn.col",
+      "dateOut.col",
+      "cost.col",
+      "regNo.col",
+      "make.col",
+      "flags.col",
+      "regNo.dict",
+      "make.dict"
+    };
+    for (String name : names) {
+      Files.deleteIfExists(directory.resolve(name));
+    }
+  }
+
+  private MappedColumn[] columns() {
+    return new MappedColumn[] {
+      jobIds, garageIds, datesIn, datesOut, costs, regNoIds, makeIds, flags
+    };
+  }
+
+  private static long toEpochSecond(LocalDateTime dateTime) {
+    return dateTime.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private static String singleLine(String value) {
+    return value == null ? "" : value.replace('\n', ' ').replace('\r', ' ');
+  }
+}
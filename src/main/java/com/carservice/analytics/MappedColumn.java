@@ -0,0 +1,89 @@
+package com.carservice.analytics;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A fixed-width column of primitive values in a memory-mapped file. The mapping grows in whole
+ * chunks as values are appended, so appends rarely remap. Reads use absolute offsets and may run
+ * on several threads at once; writes must be serialized by the caller.
+ */
+final class MappedColumn implements AutoCloseable {
+  private static final long GROWTH_CHUNK_BYTES = 8L * 1024 * 1024;
+
+  private final FileChannel channel;
+  private final int width;
+  private MappedByteBuffer buffer;
+
+  /**
+   * Opens or creates a column file.
+   *
+   * @param file the column file
+   * @param width the size of one value in bytes: 1, 4 or 8
+   * @param rows the number of values the column must hold initially
+   * @throws IOException if the file cannot be opened or mapped
+   */
+  MappedColumn(Path file, int width, int rows) throws IOException {
+    this.channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.width = width;
+    ensureCapacity(rows);
+  }
+
+  /**
+   * Grows the mapping so that it holds at least the given number of values.
+   *
+   * @param rows the number of values required
+   * @throws IOException if the file cannot be extended or remapped
+   */
+  void ensureCapacity(int rows) throws IOException {
+    long required = (long) rows * width;
+    if (buffer != null && buffer.capacity() >= required) {
+      return;
+    }
+    long size = (required / GROWTH_CHUNK_BYTES + 1) * GROWTH_CHUNK_BYTES;
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Column file would exceed 2 GB");
+    }
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+  }
+
+  long getLong(int row) {
+    return buffer.getLong(row * 8);
+  }
+
+  void putLong(int row, long value) {
+    buffer.putLong(row * 8, value);
+  }
+
+  int getInt(int row) {
+    return buffer.getInt(row * 4);
+  }
+
+  void putInt(int row, int value) {
+    buffer.putInt(row * 4, value);
+  }
+
+  byte getByte(int row) {
+    return buffer.get(row);
+  }
+
+  void putByte(int row, byte value) {
+    buffer.put(row, value);
+  }
+
+  /** Writes modified pages back to the file. */
+  void force() {
+    buffer.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    force();
+    channel.close();
+  }
+}
@@ -0,0 +1,130 @@
+package com.carservice.api;
+
+import com.carservice.util.Json;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/** An HTTP request routed to an API handler, with its path and query parameters decoded. */
+public class ApiRequest {
+  private final String method;
+  private final Map<String, String> pathParams;
+  private final Map<String, String> queryParams;
+  private final String body;
+
+  ApiRequest(String method, Map<String, String> pathParams, String rawQuery, String body) {
+    this.method = method;
+    this.pathParams = pathParams;
+    this.queryParams = parseQuery(rawQuery);
+    this.body = body;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * Returns a path parameter, such as the {@code id} in {@code /api/customers/{id}}.
+   *
+   * @param name the parameter name
+   * @return the decoded parameter value
+   */
+  public String pathParam(String name) {
+    return pathParams.get(name);
+  }
+
+  /**
+   * Returns a numeric path parameter.
+   *
+   * @param name the parameter name
+   * @return the parameter value
+   * @throws IllegalArgumentException if the value is not a whole number
+   */
+  public Long longPathParam(String name) {
+    return parseLong(name, pathParams.get(name));
+  }
+
+  /**
+   * Returns a query string parameter.
+   *
+   * @param name the parameter name
+   * @return the decoded value, or null if absent
+   */
+  public String queryParam(String name) {
+    return queryParams.get(name);
+  }
+
+  /**
+   * Returns a numeric query string parameter.
+   *
+   * @param name the parameter name
+   * @return the parameter value, or null if absent
+   * @throws IllegalArgumentException if the value is not a whole number
+   */
+  public Long longQueryParam(String name) {
+    String value = queryParams.get(name);
+    return value != null ? parseLong(name, value) : null;
+  }
+
+  /**
+   * Returns a date query string parameter.
+   *
+   * @param name the parameter name
+   * @return the parameter value, or null if absent
+   * @throws IllegalArgumentException if the value is not an ISO date such as 2024-01-31
+   */
+  public LocalDate dateQueryParam(String name) {
+    String value = queryParams.get(name);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return LocalDate.parse(value);
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException(name + " must be a date such as 2024-01-31");
+    }
+  }
+
+  /**
+   * Parses the request body as a JSON object.
+   *
+   * @return the parsed object
+   * @throws IllegalArgumentException if the body is empty or not a JSON object
+   */
+  public Map<String, Object> jsonBody() {
+    if (body == null || body.trim().isEmpty()) {
+      throw new IllegalArgumentException("Request body must be a JSON object");
+    }
+    return Json.parseObject(body);
+  }
+
+  private static Long parseLong(String name, String value) {
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Parameter '" + name + "' must be a whole number");
+    }
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) {
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> params = new HashMap<>();
+    for (String pair : rawQuery.split("&")) {
+      int eq = pair.indexOf('=');
+      String key = eq >= 0 ? pair.substring(0, eq) : pair;
+      String value = eq >= 0 ? pair.substring(eq + 1) : "";
+      params.put(decode(key), decode(value));
+    }
+    return params;
+  }
+
+  static String decode(String value) {
+    return URLDecoder.decode(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,38 @@
+package com.carservice.api;
+
+import java.util.Collections;
+
+/** A handler result with an explicit HTTP status. Plain handler results are sent as 200 OK. */
+public class ApiResponse {
+  private final int status;
+  private final Object body;
+
+  private ApiResponse(int status, Object body) {
+    this.status = status;
+    this.body = body;
+  }
+
+  public static ApiResponse ok(Object body) {
+    return new ApiResponse(200, body);
+  }
+
+  public static ApiResponse created(Object body) {
+    return new ApiResponse(201, body);
+  }
+
+  public static ApiResponse noContent() {
+    return new ApiResponse(204, null);
+  }
+
+  public static ApiResponse error(int status, String message) {
+    return new ApiResponse(status, Collections.singletonMap("error", message));
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public Object getBody() {
+    return body;
+  }
+}
@@ -0,0 +1,485 @@
+package com.carservice.api;
+
+import com.carservice.config.ApplicationContext;
+import com.carservice.config.DatabaseConfig;
+import com.carservice.dao.AsyncCrudDAO;
+import com.carservice.dao.CarDAO;
+import com.carservice.dao.CustomerDAO;
+import com.carservice.dao.JobDAO;
+import com.carservice.model.Car;
+import com.carservice.model.Customer;
+import com.carservice.model.Garage;
+import com.carservice.model.Job;
+import com.carservice.service.AnalyticsService;
+import com.carservice.service.CarService;
+import com.carservice.service.CustomerService;
+import com.carservice.service.GarageService;
+import com.carservice.service.JobService;
+import com.carservice.service.NotFoundException;
+import com.carservice.service.PaymentService;
+import com.carservice.service.ServiceException;
+import com.carservice.service.StaleEntityException;
+import com.carservice.util.Json;
+import com.carservice.util.ModelJson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless HTTP server exposing the service layer as JSON endpoints. Requests are handled on a
+ * bounded worker pool and share the application's connection pool. Responses always carry a
+ * Content-Length, so HTTP/1.1 clients can keep connections alive between requests. Request bodies
+ * larger than the configured limit are refused with 413 without being read into memory.
+ */
+public class ApiServer {
+  private static final String JSON = "application/json; charset=utf-8";
+
+  private final CustomerService customerService;
+  private final CarService carService;
+  private final GarageService garageService;
+  private final JobService jobService;
+  private final PaymentService paymentService;
+  private final AnalyticsService analyticsService;
+  private final AsyncCrudDAO<Customer, Long, CustomerDAO> asyncCustomerDAO;
+  private final AsyncCrudDAO<Car, String, CarDAO> asyncCarDAO;
+  private final AsyncCrudDAO<Job, Long, JobDAO> asyncJobDAO;
+
+  private final Router router = new Router();
+  private HttpServer server;
+  private ThreadPoolExecutor executor;
+  private int maxBodyBytes;
+
+  /**
+   * Constructs an ApiServer using the shared services of the application context and registers its
+   * routes.
+   *
+   * @param context the application context
+   */
+  public ApiServer(ApplicationContext context) {
+    this.customerService = context.getCustomerService();
+    this.carService = context.getCarService();
+    this.garageService = context.getGarageService();
+    this.jobService = context.getJobService();
+    this.paymentService = context.getPaymentService();
+    this.analyticsService = context.getAnalyticsService();
+    this.asyncCustomerDAO = context.getAsyncCustomerDAO();
+    this.asyncCarDAO = context.getAsyncCarDAO();
+    this.asyncJobDAO = context.getAsyncJobDAO();
+    registerCustomerRoutes();
+    registerCarRoutes();
+    registerGarageRoutes();
+    registerJobRoutes();
+    registerAnalyticsRoutes();
+  }
+
+  /**
+   * Starts listening on the given address and port.
+   *
+   * @param bindAddress the local address to listen on, such as 127.0.0.1 for this machine only or
+   *     0.0.0.0 for every interface
+   * @param port the TCP port to bind
+   * @param threads the number of worker threads handling requests
+   * @param queueSize the number of requests that may wait for a worker
+   * @param maxBodyBytes the largest request body accepted
+   * @throws IOException if the port cannot be bound
+   */
+  public void start(String bindAddress, int port, int threads, int queueSize, int maxBodyBytes)
+      throws IOException {
+    this.maxBodyBytes = maxBodyBytes;
+    AtomicInteger threadCount = new AtomicInteger();
+    executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            runnable -> {
+              Thread thread = new Thread(runnable, "api-worker-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            // When every worker is busy and the queue is full, the accepting thread handles the
+            // request itself, which slows down acceptance instead of dropping connections
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+
+    server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+    server.createContext("/api/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  /** Stops accepting requests, waits briefly for in-flight requests and stops the workers. */
+  public void stop() {
+    if (server != null) {
+      server.stop(2);
+    }
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Starts the server using the {@code api.*} configuration properties, together with activity
+   * archiving, after applying any pending schema migrations. The server's listener thread keeps the
+   * JVM running; the pool and workers are released when the JVM shuts down.
+   *
+   * @throws IOException if the port cannot be bound
+   * @throws SQLException if the schema cannot be migrated
+   */
+  public static void runHeadless() throws IOException, SQLException {
+    String bindAddress = DatabaseConfig.getProperty("api.bindAddress", "127.0.0.1");
+    int port = DatabaseConfig.getIntProperty("api.port", 8080);
+    ApplicationContext.migrateSchema();
+    ApplicationContext context = new ApplicationContext();
+    ApiServer apiServer = new ApiServer(context);
+    context.startActivityArchiving();
+    apiServer.start(
+        bindAddress,
+        port,
+        DatabaseConfig.getIntProperty("api.threads", 16),
+        DatabaseConfig.getIntProperty("api.queueSize", 256),
+        DatabaseConfig.getIntProperty("api.maxBodyBytes", 1_048_576));
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  apiServer.stop();
+                  context.close();
+                },
+                "api-shutdown"));
+    System.out.println("Car Service API listening on " + bindAddress + ":" + port);
+  }
+
+  private void registerCustomerRoutes() {
+    router
+        .get(
+            "/api/customers",
+            req -> {
+              String surname = req.queryParam("surname");
+              return surname != null
+                  ? customerService.findBySurname(surname)
+                  : customerService.findAll();
+            })
+        .get("/api/customers/{id}", req -> customerService.findById(req.longPathParam("id")))
+        .get("/api/customers/{id}/cars", req -> carService.findByCustomer(req.longPathParam("id")))
+        .get(
+            "/api/customers/{id}/average-cost",
+            req -> {
+              Long id = req.longPathParam("id");
+              Map<String, Object> result = new LinkedHashMap<>();
+              result.put("customerId", id);
+              result.put("averageCost", jobService.getAverageServiceCostByCustomer(id));
+              return result;
+            })
+        .get("/api/customers/{id}/overview", req -> customerOverview(req.longPathParam("id")))
+        .post(
+            "/api/customers",
+            req -> {
+              Customer customer = ModelJson.toCustomer(req.jsonBody());
+              customer.setCustomerId(customerService.save(customer));
+              return ApiResponse.created(customer);
+            })
+        .put(
+            "/api/customers/{id}",
+            req -> {
+              Customer customer = ModelJson.toCustomer(req.jsonBody());
+              customer.setCustomerId(req.longPathParam("id"));
+              return updated(customerService.update(customer), customer, "Customer");
+            })
+        .delete(
+            "/api/customers/{id}",
+            req -> deleted(customerService.delete(req.longPathParam("id")), "Customer"));
+  }
+
+  private void registerCarRoutes() {
+    router
+        .get("/api/cars", req -> carService.findAll())
+        .get("/api/cars/{regNo}", req -> carService.findById(req.pathParam("regNo")))
+        .get("/api/cars/{regNo}/jobs", req -> jobService.findByCar(req.pathParam("regNo")))
+        .get(
+            "/api/cars/{regNo}/service-days",
+            req -> {
+              String regNo = req.pathParam("regNo");
+              Map<String, Object> result = new LinkedHashMap<>();
+              result.put("regNo", regNo);
+              result.put("serviceDays", jobService.calculateTotalServiceDays(regNo));
+              return result;
+            })
+        .post(
+            "/api/cars",
+            req -> {
+              Car car = ModelJson.toCar(req.jsonBody());
+              carService.save(car);
+              return ApiResponse.created(car);
+            })
+        .put(
+            "/api/cars/{regNo}",
+            req -> {
+              Car car = ModelJson.toCar(req.jsonBody());
+              car.setRegNo(req.pathParam("regNo"));
+              return updated(carService.update(car), car, "Car");
+            })
+        .delete(
+            "/api/cars/{regNo}", req -> deleted(carService.delete(req.pathParam("regNo")), "Car"));
+  }
+
+  private void registerGarageRoutes() {
+    router
+        .get(
+            "/api/garages",
+            req -> {
+              String name = req.queryParam("name");
+              return name != null ? garageService.findByName(name) : garageService.findAll();
+            })
+        .get("/api/garages/{id}", req -> garageService.findById(req.longPathParam("id")))
+        .get("/api/garages/{id}/jobs", req -> jobService.findByGarage(req.longPathParam("id")))
+        .post(
+            "/api/garages",
+            req -> {
+              Garage garage = ModelJson.toGarage(req.jsonBody());
+              garage.setGarageId(garageService.save(garage));
+              return ApiResponse.created(garage);
+            })
+        .put(
+            "/api/garages/{id}",
+            req -> {
+              Garage garage = ModelJson.toGarage(req.jsonBody());
+              garage.setGarageId(req.longPathParam("id"));
+              return updated(garageService.update(garage), garage, "Garage");
+            })
+        .delete(
+            "/api/garages/{id}",
+            req -> deleted(garageService.delete(req.longPathParam("id")), "Garage"));
+  }
+
+  private void registerJobRoutes() {
+    router
+        .get(
+            "/api/jobs",
+            req -> {
+              String regNo = req.queryParam("regNo");
+              Long garageId = req.longQueryParam("garageId");
+              if (regNo != null) {
+                return jobService.findByCar(regNo);
+              }
+              return garageId != null ? jobService.findByGarage(garageId) : jobService.findAll();
+            })
+        .get("/api/jobs/{id}", req -> jobService.findById(req.longPathParam("id")))
+        .post(
+            "/api/jobs",
+            req -> {
+              Job job = ModelJson.toJob(req.jsonBody());
+              job.setJobId(jobService.save(job));
+              return ApiResponse.created(job);
+            })
+        .put(
+            "/api/jobs/{id}",
+            req -> {
+              Job job = ModelJson.toJob(req.jsonBody());
+              job.setJobId(req.longPathParam("id"));
+              return updated(jobService.update(job), job, "Job");
+            })
+        .delete("/api/jobs/{id}", req -> deleted(jobService.delete(req.longPathParam("id")), "Job"))
+        .get(
+            "/api/jobs/{id}/payment",
+            req -> {
+              Long id = req.longPathParam("id");
+              Map<String, Object> result = new LinkedHashMap<>();
+              result.put("jobId", id);
+              result.put("paid", paymentService.verifyPayment(id));
+              return result;
+            })
+        .post(
+            "/api/jobs/{id}/payment",
+            req -> {
+              String method = ModelJson.getString(req.jsonBody(), "paymentMethod");
+              if (method == null || method.trim().isEmpty()) {
+                throw new IllegalArgumentException("paymentMethod is required");
+              }
+              return ApiResponse.created(
+                  paymentService.processJobPayment(req.longPathParam("id"), method));
+            });
+  }
+
+  private void registerAnalyticsRoutes() {
+    router
+        .get(
+            "/api/analytics/garages",
+            req ->
+                analyticsService.getGarageStatistics(
+                    req.dateQueryParam("from"), req.dateQueryParam("to")))
+        .get(
+            "/api/analytics/makes",
+            req ->
+                analyticsService.getMakeStatistics(
+                    req.dateQueryParam("from"), req.dateQueryParam("to")));
+  }
+
+  /**
+   * Loads a customer with their cars and average service cost. The three queries run concurrently
+   * through the asynchronous DAOs, so the response takes as long as the slowest rather than all
+   * three. If one fails the others are cancelled, which stops their running statements.
+   *
+   * @param id the customer ID
+   * @return the customer, cars and averageCost
+   * @throws ServiceException if the customer does not exist or a query fails
+   */
+  private Object customerOverview(Long id) throws ServiceException {
+    CompletableFuture<Customer> customer = asyncCustomerDAO.findById(id);
+    CompletableFuture<List<Car>> cars = asyncCarDAO.query(dao -> dao.findByCustomer(id));
+    CompletableFuture<Double> averageCost =
+        asyncJobDAO.query(dao -> dao.getAverageServiceCostByCustomer(id));
+    try {
+      return customer
+          .thenCombine(
+              cars,
+              (found, list) -> {
+                if (found == null) {
+                  throw new CompletionException(
+                      new NotFoundException("Customer not found with ID: " + id));
+                }
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("customer", ModelJson.toMap(found));
+                result.put("cars", ModelJson.toJson(list));
+                return result;
+              })
+          .thenCombine(
+              averageCost,
+              (result, cost) -> {
+                result.put("averageCost", cost);
+                return result;
+              })
+          .join();
+    } catch (CompletionException e) {
+      customer.cancel(false);
+      cars.cancel(false);
+      averageCost.cancel(false);
+      Throwable cause = e.getCause();
+      if (cause instanceof ServiceException) {
+        throw (ServiceException) cause;
+      } else if (cause instanceof TimeoutException) {
+        throw new ServiceException("The database did not answer in time", cause);
+      } else if (cause instanceof RejectedExecutionException) {
+        throw new ServiceException("The server is busy; try again shortly", cause);
+      } else if (cause instanceof CancellationException) {
+        throw new ServiceException("Loading was cancelled", cause);
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ServiceException("Error loading overview for customer ID: " + id, cause);
+    }
+  }
+
+  private static Object updated(boolean updated, Object entity, String type)
+      throws ServiceException {
+    if (!updated) {
+      throw new NotFoundException(type + " not found");
+    }
+    return entity;
+  }
+
+  private static Object deleted(boolean deleted, String type) throws ServiceException {
+    if (!deleted) {
+      throw new NotFoundException(type + " not found");
+    }
+    return ApiResponse.noContent();
+  }
+
+  /**
+   * Dispatches an exchange to its route and writes the JSON response.
+   *
+   * @param exchange the HTTP exchange
+   * @throws IOException if the response cannot be written
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String body = readBody(exchange.getRequestBody(), maxBodyBytes);
+      if (body == null) {
+        // The rest of the body is not read, so the connection cannot be reused
+        exchange.getResponseHeaders().set("Connection", "close");
+        send(exchange, ApiResponse.error(413, "Request body exceeds " + maxBodyBytes + " bytes"));
+        return;
+      }
+      send(exchange, dispatch(exchange, body));
+    }
+  }
+
+  private ApiResponse dispatch(HttpExchange exchange, String body) {
+    String method = exchange.getRequestMethod();
+    Router.Match match = router.match(method, exchange.getRequestURI().getRawPath());
+    if (match.handler == null) {
+      return match.pathMatched
+          ? ApiResponse.error(405, "Method " + method + " not allowed")
+          : ApiResponse.error(404, "No such endpoint");
+    }
+    try {
+      ApiRequest request =
+          new ApiRequest(method, match.pathParams, exchange.getRequestURI().getRawQuery(), body);
+      Object result = match.handler.handle(request);
+      return result instanceof ApiResponse ? (ApiResponse) result : ApiResponse.ok(result);
+    } catch (NotFoundException e) {
+      return ApiResponse.error(404, e.getMessage());
+    } catch (StaleEntityException e) {
+      return ApiResponse.error(409, e.getMessage());
+    } catch (ServiceException e) {
+      // Service exceptions without a cause are business-rule or validation failures
+      return e.getCause() == null
+          ? ApiResponse.error(400, e.getMessage())
+          : ApiResponse.error(500, e.getMessage());
+    } catch (IllegalArgumentException e) {
+      return ApiResponse.error(400, e.getMessage());
+    } catch (RuntimeException e) {
+      e.printStackTrace();
+      return ApiResponse.error(500, "Internal server error");
+    }
+  }
+
+  private static void send(HttpExchange exchange, ApiResponse response) throws IOException {
+    if (response.getBody() == null) {
+      exchange.sendResponseHeaders(response.getStatus(), -1);
+      return;
+    }
+    byte[] bytes =
+        Json.write(ModelJson.toJson(response.getBody())).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", JSON);
+    exchange.sendResponseHeaders(response.getStatus(), bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Reads the whole request body, unless it is larger than the limit. The body must be consumed for
+   * the connection to be reused.
+   *
+   * @param in the request body stream
+   * @param maxBytes the largest body accepted
+   * @return the body as a string, or null if it is larger than {@code maxBytes}
+   * @throws IOException if the body cannot be read
+   */
+  private static String readBody(InputStream in, int maxBytes) throws IOException {
+    try (in) {
+      byte[] bytes = in.readNBytes(maxBytes + 1);
+      return bytes.length > maxBytes ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+  }
+}
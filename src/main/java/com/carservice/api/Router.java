@@ -0,0 +1,120 @@
+package com.carservice.api;
+
+import com.carservice.service.ServiceException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps HTTP methods and path templates such as {@code /api/customers/{id}} to handlers. Routes are
+ * matched segment by segment in registration order.
+ */
+public class Router {
+
+  /** Handles a routed request. */
+  @FunctionalInterface
+  public interface Handler {
+    /**
+     * Handles the request.
+     *
+     * @param request the routed request
+     * @return an {@link ApiResponse}, or any other value to send as JSON with status 200
+     * @throws ServiceException if the service layer reports an error
+     */
+    Object handle(ApiRequest request) throws ServiceException;
+  }
+
+  /** The outcome of matching a request against the routes. */
+  static final class Match {
+    final Handler handler;
+    final Map<String, String> pathParams;
+    final boolean pathMatched;
+
+    private Match(Handler handler, Map<String, String> pathParams, boolean pathMatched) {
+      this.handler = handler;
+      this.pathParams = pathParams;
+      this.pathMatched = pathMatched;
+    }
+  }
+
+  private final List<Route> routes = new ArrayList<>();
+
+  public Router get(String template, Handler handler) {
+    return add("GET", template, handler);
+  }
+
+  public Router post(String template, Handler handler) {
+    return add("POST", template, handler);
+  }
+
+  public Router put(String template, Handler handler) {
+    return add("PUT", template, handler);
+  }
+
+  public Router delete(String template, Handler handler) {
+    return add("DELETE", template, handler);
+  }
+
+  private Router add(String method, String template, Handler handler) {
+    routes.add(new Route(method, split(template), handler));
+    return this;
+  }
+
+  /**
+   * Finds the handler for a request.
+   *
+   * @param method the HTTP method
+   * @param path the raw request path
+   * @return the match; its handler is null if no route matched the method and path
+   */
+  Match match(String method, String path) {
+    String[] segments = split(path);
+    boolean pathMatched = false;
+    for (Route route : routes) {
+      Map<String, String> params = route.match(segments);
+      if (params == null) {
+        continue;
+      }
+      if (route.method.equals(method)) {
+        return new Match(route.handler, params, true);
+      }
+      pathMatched = true;
+    }
+    return new Match(null, null, pathMatched);
+  }
+
+  private static String[] split(String path) {
+    String trimmed = path.replaceAll("^/+|/+$", "");
+    return trimmed.isEmpty() ? new String[0] : trimmed.split("/");
+  }
+
+  /** A registered route. */
+  private static final class Route {
+    private final String method;
+    private final String[] template;
+    private final Handler handler;
+
+    private Route(String method, String[] template, Handler handler) {
+      this.method = method;
+      this.template = template;
+      this.handler = handler;
+    }
+
+    private Map<String, String> match(String[] segments) {
+      if (segments.length != template.length) {
+        return null;
+      }
+      Map<String, String> params = new HashMap<>();
+      for (int i = 0; i < template.length; i++) {
+        String part = template[i];
+        if (part.startsWith("{") && part.endsWith("}")) {
+          params.put(part.substring(1, part.length() - 1), ApiRequest.decode(segments[i]));
+        } else if (!part.equals(segments[i])) {
+          return null;
+        }
+      }
+      return params;
+    }
+  }
+}
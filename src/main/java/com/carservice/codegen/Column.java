@@ -0,0 +1,26 @@
+package com.carservice.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maps a field of a {@link Table} class to a column of the same name. Columns are read and written
+ * in the order the fields are declared.
+ *
+ * <p>Numbers are read with the primitive getters, so an SQL NULL reads as 0, and a null number is
+ * written as 0, unless the column is nullable; dates and strings keep null either way except that
+ * a non-nullable date must not be null when written.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Column {
+  /**
+   * Whether the column holds NULL for a null field value, such as a job's date out while it is
+   * open. Only fields of a reference type can be nullable.
+   *
+   * @return true if null is read and written as NULL
+   */
+  boolean nullable() default false;
+}
@@ -0,0 +1,37 @@
+package com.carservice.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a column of a {@link Table} class that has no field but is computed from one when the
+ * row is written, such as a normalized lookup key. It is written after the mapped columns and is
+ * never read.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface DerivedColumn {
+  /**
+   * The column name.
+   *
+   * @return the name of the column
+   */
+  String name();
+
+  /**
+   * The field the column is computed from.
+   *
+   * @return the name of a field mapped with {@link Id} or {@link Column}
+   */
+  String from();
+
+  /**
+   * The public static method computing the column from the field's value, which must return a
+   * String.
+   *
+   * @return the method's fully qualified name, such as {@code com.example.Keys.normalize}
+   */
+  String function();
+}
@@ -0,0 +1,21 @@
+package com.carservice.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the field of a {@link Table} class that maps to the primary key, which updates and deletes
+ * match on.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Id {
+  /**
+   * Whether the database assigns the key, so that inserts leave it out.
+   *
+   * @return true for an auto-increment key
+   */
+  boolean generated() default false;
+}
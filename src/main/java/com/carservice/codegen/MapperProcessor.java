@@ -0,0 +1,496 @@
+package com.carservice.codegen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a mapper for each {@link Table} class at compile time. The mapper for {@code Car} is
+ * the package-private class {@code com.carservice.dao.CarMapper}, holding:
+ *
+ * <ul>
+ *   <li>{@code COLUMNS}, the mapped columns in field order, and {@code SELECT}, which selects them
+ *       from the table, for DAO queries to extend with their own conditions;
+ *   <li>{@code INSERT}, {@code UPDATE}, {@code DELETE} and {@code EXISTS}, the CRUD statements;
+ *   <li>{@code map(ResultSet)}, which reads the current row, in {@code COLUMNS} order, by position;
+ *   <li>{@code bindInsert} and {@code bindUpdate}, which set a statement's parameters from a model.
+ * </ul>
+ *
+ * <p>The generated code calls the model's no-argument constructor, getters and setters directly,
+ * so mapping uses no reflection and allocates nothing beyond the model and its values. A mapped
+ * field without a public getter and setter, or of a type other than String, int, long, double,
+ * their wrappers and LocalDateTime, is reported as a compile error.
+ *
+ * <p>The processor is compiled in a separate step before the rest of the sources; see pom.xml.
+ */
+@SupportedAnnotationTypes("com.carservice.codegen.Table")
+public class MapperProcessor extends AbstractProcessor {
+  private static final String MAPPER_PACKAGE = "com.carservice.dao";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+    for (Element element : round.getElementsAnnotatedWith(Table.class)) {
+      Entity entity = readEntity((TypeElement) element);
+      if (entity == null) {
+        continue;
+      }
+      String mapper = MAPPER_PACKAGE + "." + entity.name + "Mapper";
+      try (Writer writer =
+          processingEnv.getFiler().createSourceFile(mapper, element).openWriter()) {
+        writer.write(generate(entity));
+      } catch (IOException e) {
+        error(element, "Could not write " + mapper + ": " + e.getMessage());
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads a {@link Table} class's mapped fields, reporting any that cannot be mapped.
+   *
+   * @param type the class
+   * @return the entity, or null if an error was reported
+   */
+  private Entity readEntity(TypeElement type) {
+    Entity entity = new Entity(type);
+    boolean valid = true;
+    if (!hasMethod(type, ElementKind.CONSTRUCTOR, "<init>", 0)) {
+      error(type, "A @Table class needs a public no-argument constructor");
+      valid = false;
+    }
+    for (Element member : type.getEnclosedElements()) {
+      Id id = member.getAnnotation(Id.class);
+      Column column = member.getAnnotation(Column.class);
+      boolean version = member.getAnnotation(Version.class) != null;
+      if (member.getKind() != ElementKind.FIELD || (id == null && column == null && !version)) {
+        continue;
+      }
+      Field field = new Field((VariableElement) member, column != null && column.nullable());
+      if (field.kind == null) {
+        error(member, "Unsupported column type " + field.type);
+        valid = false;
+        continue;
+      }
+      if (field.nullable && field.primitive) {
+        error(member, "A primitive field cannot be nullable");
+        valid = false;
+      }
+      if (!hasMethod(type, ElementKind.METHOD, "get" + field.property, 0)
+          || !hasMethod(type, ElementKind.METHOD, "set" + field.property, 1)) {
+        error(member, "A mapped field needs a public getter and setter");
+        valid = false;
+      }
+      if (id != null && entity.id != null) {
+        error(member, "Only one field can be the @Id");
+        valid = false;
+      }
+      entity.fields.add(field);
+      if (id != null) {
+        entity.id = field;
+        entity.generatedId = id.generated();
+      } else if (version) {
+        entity.version = field;
+      }
+    }
+    if (entity.id == null) {
+      error(type, "A @Table class needs an @Id field");
+      valid = false;
+    }
+    if (entity.derived != null && entity.field(entity.derived.from()) == null) {
+      error(type, "No mapped field " + entity.derived.from() + " for " + entity.derived.name());
+      valid = false;
+    } else if (entity.derived != null && !isStringFunction(entity.derived.function())) {
+      error(type, entity.derived.function() + " must be a public static method returning String");
+      valid = false;
+    }
+    return valid ? entity : null;
+  }
+
+  /**
+   * Generates the source of an entity's mapper.
+   *
+   * @param entity the entity
+   * @return the Java source
+   */
+  private String generate(Entity entity) {
+    List<Field> insertFields = new ArrayList<>();
+    List<Field> updateFields = new ArrayList<>();
+    for (Field field : entity.fields) {
+      if (field == entity.version) {
+        continue;
+      }
+      if (field != entity.id || !entity.generatedId) {
+        insertFields.add(field);
+      }
+      if (field != entity.id) {
+        updateFields.add(field);
+      }
+    }
+    List<String> insertColumns = names(insertFields);
+    List<String> assignments = new ArrayList<>();
+    for (String column : names(updateFields)) {
+      assignments.add(column + " = ?");
+    }
+    // A column derived from the ID never changes, so only inserts write it
+    boolean derivedOnUpdate =
+        entity.derived != null && !entity.derived.from().equals(entity.id.name);
+    if (entity.derived != null) {
+      insertColumns.add(entity.derived.name());
+    }
+    if (derivedOnUpdate) {
+      assignments.add(entity.derived.name() + " = ?");
+    }
+    String where = " WHERE " + entity.id.name + " = ?";
+    String update = "UPDATE " + entity.table + " SET " + String.join(", ", assignments);
+    if (entity.version != null) {
+      String version = entity.version.name;
+      update += ", " + version + " = " + version + " + 1" + where + " AND " + version + " = ?";
+    } else {
+      update += where;
+    }
+    List<Field> keys = new ArrayList<>();
+    keys.add(entity.id);
+    if (entity.version != null) {
+      keys.add(entity.version);
+    }
+    String columns = String.join(", ", names(entity.fields));
+
+    Source out = new Source();
+    out.line("package %s;", MAPPER_PACKAGE);
+    out.line("");
+    out.line("import %s;", entity.type.getQualifiedName());
+    out.line("import java.sql.PreparedStatement;");
+    out.line("import java.sql.ResultSet;");
+    out.line("import java.sql.SQLException;");
+    if (entity.fields.stream().anyMatch(field -> field.kind.equals("Timestamp"))) {
+      out.line("import java.sql.Timestamp;");
+    }
+    if (entity.fields.stream().anyMatch(field -> field.nullable && field.isNumber())) {
+      out.line("import java.sql.Types;");
+    }
+    out.line("import javax.annotation.processing.Generated;");
+    out.line("");
+    out.line("/**");
+    out.line(
+        " * Maps {@link %s} to the %s table. Generated from the model's annotations by",
+        entity.name,
+        entity.table);
+    out.line(" * {@code %s}; do not edit.", getClass().getName());
+    out.line(" */");
+    out.line("@Generated(\"%s\")", getClass().getName());
+    out.line("final class %sMapper {", entity.name);
+    out.constant(
+        "The mapped columns, in the order {@link #map(ResultSet)} reads them.", "COLUMNS", columns);
+    out.constant(
+        "Selects the mapped columns of every row; append a WHERE clause to narrow it.",
+        "SELECT",
+        "SELECT " + columns + " FROM " + entity.table);
+    out.constant(
+        "Inserts a row; bind it with {@link #bindInsert}.",
+        "INSERT",
+        "INSERT INTO "
+            + entity.table
+            + " ("
+            + String.join(", ", insertColumns)
+            + ") VALUES ("
+            + String.join(", ", Collections.nCopies(insertColumns.size(), "?"))
+            + ")");
+    out.constant(
+        entity.version != null
+            ? "Updates a row that still has the model's version; bind it with {@link #bindUpdate}."
+            : "Updates a row; bind it with {@link #bindUpdate}.",
+        "UPDATE",
+        update);
+    out.constant("Deletes a row by ID.", "DELETE", "DELETE FROM " + entity.table + where);
+    out.constant(
+        "Selects a row by ID if it exists.", "EXISTS", "SELECT 1 FROM " + entity.table + where);
+    out.line("");
+    out.line("  private %sMapper() {}", entity.name);
+
+    out.line("");
+    out.line("  /**");
+    out.line("   * Reads the current row, which must hold the {@link #COLUMNS} in order.");
+    out.line("   *");
+    out.line("   * @param rs the result set, positioned on a row");
+    out.line("   * @return a new model holding the row's values");
+    out.line("   * @throws SQLException if a database access error occurs");
+    out.line("   */");
+    out.line("  static %s map(ResultSet rs) throws SQLException {", entity.name);
+    out.line("    %s %s = new %s();", entity.name, entity.var, entity.name);
+    for (int i = 0; i < entity.fields.size(); i++) {
+      entity.fields.get(i).read(out, entity.var, i + 1);
+    }
+    out.line("    return %s;", entity.var);
+    out.line("  }");
+
+    binder(out, entity, "bindInsert", "INSERT", insertFields, entity.derived != null, List.of());
+    binder(out, entity, "bindUpdate", "UPDATE", updateFields, derivedOnUpdate, keys);
+    out.line("}");
+    return out.toString();
+  }
+
+  /**
+   * Generates a method setting a statement's parameters from a model: the given fields, then the
+   * derived column if it is bound, then the keys.
+   */
+  private static void binder(
+      Source out,
+      Entity entity,
+      String method,
+      String statement,
+      List<Field> fields,
+      boolean bindDerived,
+      List<Field> keys) {
+    out.line("");
+    out.line("  /**");
+    out.line("   * Sets the parameters of {@link #%s} from a model.", statement);
+    out.line("   *");
+    out.line("   * @param stmt the statement");
+    out.line("   * @param %s the model", entity.var);
+    out.line("   * @throws SQLException if a database access error occurs");
+    out.line("   */");
+    out.line(
+        "  static void %s(PreparedStatement stmt, %s %s) throws SQLException {",
+        method, entity.name, entity.var);
+    int index = 1;
+    for (Field field : fields) {
+      field.bind(out, entity.var, index++);
+    }
+    if (bindDerived) {
+      Field source = entity.field(entity.derived.from());
+      out.line(
+          "    stmt.setString(%d, %s(%s.get%s()));",
+          index++, entity.derived.function(), entity.var, source.property);
+    }
+    for (Field key : keys) {
+      key.bind(out, entity.var, index++);
+    }
+    out.line("  }");
+  }
+
+  private static List<String> names(List<Field> fields) {
+    return fields.stream().map(field -> field.name).collect(Collectors.toList());
+  }
+
+  private static boolean hasMethod(TypeElement type, ElementKind kind, String name, int params) {
+    for (Element member : type.getEnclosedElements()) {
+      if (member.getKind() == kind
+          && member.getSimpleName().contentEquals(name)
+          && member.getModifiers().contains(Modifier.PUBLIC)
+          && ((ExecutableElement) member).getParameters().size() == params) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks that a derived column's function is a public static one-argument method returning a
+   * String, the one column type that offline mode and every driver bind the same way.
+   */
+  private boolean isStringFunction(String function) {
+    int dot = function.lastIndexOf('.');
+    TypeElement owner =
+        dot > 0 ? processingEnv.getElementUtils().getTypeElement(function.substring(0, dot)) : null;
+    if (owner == null) {
+      return false;
+    }
+    for (Element member : owner.getEnclosedElements()) {
+      if (member.getKind() == ElementKind.METHOD
+          && member.getSimpleName().contentEquals(function.substring(dot + 1))
+          && member.getModifiers().contains(Modifier.PUBLIC)
+          && member.getModifiers().contains(Modifier.STATIC)
+          && ((ExecutableElement) member).getParameters().size() == 1
+          && ((ExecutableElement) member).getReturnType().toString().equals("java.lang.String")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+
+  /** Java source being generated, a line at a time. */
+  private static final class Source {
+    private final StringBuilder text = new StringBuilder();
+
+    private void line(String format, Object... args) {
+      text.append(String.format(Locale.ROOT, format, args)).append('\n');
+    }
+
+    private void constant(String doc, String name, String sql) {
+      line("");
+      line("  /** %s */", doc);
+      line("  static final String %s =", name);
+      line("      \"%s\";", sql);
+    }
+
+    @Override
+    public String toString() {
+      return text.toString();
+    }
+  }
+
+  /** A {@link Table} class and its mapped fields, in declaration order. */
+  private static final class Entity {
+    private final TypeElement type;
+    private final String name;
+    private final String var;
+    private final String table;
+    private final DerivedColumn derived;
+    private final List<Field> fields = new ArrayList<>();
+    private Field id;
+    private boolean generatedId;
+    private Field version;
+
+    private Entity(TypeElement type) {
+      this.type = type;
+      this.name = type.getSimpleName().toString();
+      this.var = Character.toLowerCase(name.charAt(0)) + name.substring(1);
+      this.table = type.getAnnotation(Table.class).value();
+      this.derived = type.getAnnotation(DerivedColumn.class);
+    }
+
+    private Field field(String fieldName) {
+      for (Field field : fields) {
+        if (field.name.equals(fieldName)) {
+          return field;
+        }
+      }
+      return null;
+    }
+  }
+
+  /** A mapped field and how its column is read and written. */
+  private static final class Field {
+    private final String name;
+    private final String property;
+    private final TypeMirror type;
+    private final boolean primitive;
+    private final boolean nullable;
+    /** The JDBC accessor suffix, such as "Long" for getLong and setLong; null if unsupported. */
+    private final String kind;
+
+    private Field(VariableElement element, boolean nullable) {
+      this.name = element.getSimpleName().toString();
+      this.property = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+      this.type = element.asType();
+      this.primitive = type.getKind().isPrimitive();
+      this.nullable = nullable;
+      this.kind = kindOf(type);
+    }
+
+    private static String kindOf(TypeMirror type) {
+      if (type.getKind() == TypeKind.INT) {
+        return "Int";
+      } else if (type.getKind() == TypeKind.LONG) {
+        return "Long";
+      } else if (type.getKind() == TypeKind.DOUBLE) {
+        return "Double";
+      }
+      switch (type.toString()) {
+        case "java.lang.String":
+          return "String";
+        case "java.lang.Integer":
+          return "Int";
+        case "java.lang.Long":
+          return "Long";
+        case "java.lang.Double":
+          return "Double";
+        case "java.time.LocalDateTime":
+          return "Timestamp";
+        default:
+          return null;
+      }
+    }
+
+    private boolean isNumber() {
+      return !kind.equals("String") && !kind.equals("Timestamp");
+    }
+
+    /** Generates the statements reading this field's column into the model. */
+    private void read(Source out, String var, int index) {
+      if (kind.equals("Timestamp") && nullable) {
+        out.line("    Timestamp %s = rs.getTimestamp(%d);", name, index);
+        out.line(
+            "    %s.set%s(%s != null ? %s.toLocalDateTime() : null);", var, property, name, name);
+      } else if (kind.equals("Timestamp")) {
+        out.line("    %s.set%s(rs.getTimestamp(%d).toLocalDateTime());", var, property, index);
+      } else if (nullable && isNumber()) {
+        out.line("    %s %s = rs.get%s(%d);", kind.toLowerCase(Locale.ROOT), name, kind, index);
+        out.line("    %s.set%s(rs.wasNull() ? null : %s);", var, property, name);
+      } else {
+        out.line("    %s.set%s(rs.get%s(%d));", var, property, kind, index);
+      }
+    }
+
+    /** Generates the statements setting a parameter from this field of the model. */
+    private void bind(Source out, String var, int index) {
+      String value = var + ".get" + property + "()";
+      if (kind.equals("Timestamp") && nullable) {
+        out.line(
+            "    stmt.setTimestamp(%d, %s != null ? Timestamp.valueOf(%s) : null);",
+            index, value, value);
+      } else if (kind.equals("Timestamp")) {
+        out.line("    stmt.setTimestamp(%d, Timestamp.valueOf(%s));", index, value);
+      } else if (nullable && isNumber()) {
+        out.line("    if (%s == null) {", value);
+        out.line("      stmt.setNull(%d, Types.%s);", index, sqlType());
+        out.line("    } else {");
+        out.line("      stmt.set%s(%d, %s);", kind, index, value);
+        out.line("    }");
+      } else if (isNumber() && !primitive) {
+        out.line("    stmt.set%s(%d, %s != null ? %s : %s);", kind, index, value, value, zero());
+      } else {
+        out.line("    stmt.set%s(%d, %s);", kind, index, value);
+      }
+    }
+
+    private String sqlType() {
+      switch (kind) {
+        case "Int":
+          return "INTEGER";
+        case "Long":
+          return "BIGINT";
+        default:
+          return "DOUBLE";
+      }
+    }
+
+    private String zero() {
+      switch (kind) {
+        case "Int":
+          return "0";
+        case "Long":
+          return "0L";
+        default:
+          return "0.0";
+      }
+    }
+  }
+}
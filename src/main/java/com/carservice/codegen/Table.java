@@ -0,0 +1,22 @@
+package com.carservice.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model class as stored in a table. {@link MapperProcessor} generates a mapper for it, with
+ * the CRUD SQL and the code that reads a row into a model and binds a model to statement
+ * parameters, from the fields marked {@link Id}, {@link Column} and {@link Version}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface Table {
+  /**
+   * The table name.
+   *
+   * @return the name of the table
+   */
+  String value();
+}
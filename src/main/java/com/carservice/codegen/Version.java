@@ -0,0 +1,15 @@
+package com.carservice.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the optimistic locking version of a {@link Table} class. Inserts leave it to the column's
+ * default; updates only match the row while it still has the version the model was read with, and
+ * increment it.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Version {}
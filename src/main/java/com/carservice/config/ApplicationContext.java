@@ -0,0 +1,456 @@
+package com.carservice.config;
+
+import com.carservice.dao.ActivityDAO;
+import com.carservice.dao.AsyncCrudDAO;
+import com.carservice.dao.CarDAO;
+import com.carservice.dao.CustomerDAO;
+import com.carservice.dao.DailyGarageSummaryDAO;
+import com.carservice.dao.ExportDAO;
+import com.carservice.dao.GarageDAO;
+import com.carservice.dao.JobDAO;
+import com.carservice.dao.JobHistoryDAO;
+import com.carservice.dao.PaymentDAO;
+import com.carservice.model.Car;
+import com.carservice.model.Customer;
+import com.carservice.model.Job;
+import com.carservice.offline.LocalStore;
+import com.carservice.offline.OfflineMode;
+import com.carservice.service.ActivityArchiver;
+import com.carservice.service.ActivityService;
+import com.carservice.service.AnalyticsService;
+import com.carservice.service.CarService;
+import com.carservice.service.ChangeTracker;
+import com.carservice.service.CustomerService;
+import com.carservice.service.DailySummaryService;
+import com.carservice.service.ExportService;
+import com.carservice.service.GarageService;
+import com.carservice.service.JobService;
+import com.carservice.service.OccupancyService;
+import com.carservice.service.PaymentService;
+import com.carservice.service.SearchService;
+import com.carservice.service.ServiceException;
+import com.carservice.util.StartupTimer;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the application's DAOs and services once and shares them. DAOs and services hold no
+ * per-request state, so a single instance of each is safe to use from the UI, the API workers and
+ * background tasks at the same time.
+ *
+ * <p>JavaFX controllers receive the context through {@link #createController(Class)}, which is
+ * installed as the FXMLLoader controller factory. Closing the context runs the registered close
+ * hooks in reverse order and then releases the database connections.
+ */
+public class ApplicationContext implements AutoCloseable {
+  private static final int BACKGROUND_THREADS = 4;
+
+  private final ActivityDAO activityDAO = new ActivityDAO();
+  private final CarDAO carDAO = new CarDAO();
+  private final CustomerDAO customerDAO = new CustomerDAO();
+  private final DailyGarageSummaryDAO summaryDAO = new DailyGarageSummaryDAO();
+  private final ExportDAO exportDAO = new ExportDAO();
+  private final GarageDAO garageDAO = new GarageDAO();
+  private final JobDAO jobDAO = new JobDAO();
+  private final JobHistoryDAO jobHistoryDAO = new JobHistoryDAO();
+  private final PaymentDAO paymentDAO = new PaymentDAO();
+
+  private final ActivityService activityService;
+  private final ActivityArchiver activityArchiver;
+  private final CustomerService customerService;
+  private final CarService carService;
+  private final GarageService garageService;
+  private final JobService jobService;
+  private final PaymentService paymentService;
+  private final DailySummaryService dailySummaryService;
+  private final ExportService exportService;
+  private final AnalyticsService analyticsService;
+  private final SearchService searchService;
+  private final OccupancyService occupancyService;
+
+  private final StartupTimer startupTimer = new StartupTimer();
+  private final ExecutorService backgroundExecutor;
+  private final DatabaseExecutor databaseExecutor;
+  private final AsyncCrudDAO<Customer, Long, CustomerDAO> asyncCustomerDAO;
+  private final AsyncCrudDAO<Car, String, CarDAO> asyncCarDAO;
+  private final AsyncCrudDAO<Job, Long, JobDAO> asyncJobDAO;
+  private final OfflineMode offlineMode;
+  private final Deque<Runnable> closeHooks = new ArrayDeque<>();
+  private CompletableFuture<List<String>> warmUp;
+  private boolean archiving;
+  private boolean closed;
+
+  /** Creates the DAOs and services. No database connection is opened until one is needed. */
+  public ApplicationContext() {
+    long start = startupTimer.now();
+    activityService = new ActivityService(activityDAO);
+    activityArchiver =
+        new ActivityArchiver(
+            activityService,
+            DatabaseConfig.getIntProperty("activity.retentionDays", 365),
+            DatabaseConfig.getIntProperty("activity.archiveBatchSize", 500));
+    onClose(activityArchiver::close);
+    occupancyService =
+        new OccupancyService(
+            jobDAO, DatabaseConfig.getIntProperty("occupancy.rebuildSeconds", 300) * 1000L);
+    ChangeTracker.addListener(occupancyService);
+    onClose(() -> ChangeTracker.removeListener(occupancyService));
+    jobService = new JobService(jobDAO, paymentDAO, summaryDAO, activityService, occupancyService);
+    customerService = new CustomerService(customerDAO, activityService, jobService);
+    carService = new CarService(carDAO, activityService, jobService);
+    garageService = new GarageService(garageDAO, activityService);
+    paymentService = new PaymentService(paymentDAO, summaryDAO, jobService);
+    dailySummaryService = new DailySummaryService(summaryDAO, activityService);
+    exportService = new ExportService(exportDAO, activityService);
+    analyticsService = new AnalyticsService(jobHistoryDAO);
+    searchService =
+        new SearchService(
+            customerDAO,
+            carDAO,
+            garageDAO,
+            jobDAO,
+            DatabaseConfig.getIntProperty("search.rebuildSeconds", 300) * 1000L);
+    ChangeTracker.addListener(searchService);
+    onClose(() -> ChangeTracker.removeListener(searchService));
+
+    AtomicInteger threadCount = new AtomicInteger();
+    backgroundExecutor =
+        Executors.newFixedThreadPool(
+            BACKGROUND_THREADS,
+            runnable -> {
+              Thread thread = new Thread(runnable, "background-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    onClose(backgroundExecutor::shutdownNow);
+    databaseExecutor = DatabaseExecutor.fromProperties();
+    onClose(databaseExecutor::close);
+    asyncCustomerDAO = new AsyncCrudDAO<>(customerDAO, databaseExecutor);
+    asyncCarDAO = new AsyncCrudDAO<>(carDAO, databaseExecutor);
+    asyncJobDAO = new AsyncCrudDAO<>(jobDAO, databaseExecutor);
+
+    offlineMode = openOfflineMode();
+    if (offlineMode != null) {
+      DatabaseConfig.setOfflineMode(offlineMode);
+      offlineMode.start(DatabaseConfig.getIntProperty("offline.syncSeconds", 30) * 1000L);
+      onClose(
+          () -> {
+            DatabaseConfig.setOfflineMode(null);
+            offlineMode.close();
+          });
+    }
+
+    onClose(
+        () -> {
+          try {
+            analyticsService.close();
+          } catch (ServiceException e) {
+            System.err.println(e.getMessage());
+          }
+        });
+    startupTimer.record("create services", start);
+  }
+
+  /**
+   * Applies the pending schema migrations unless {@code db.migration.enabled} is false, such as
+   * when the database user may not change the schema. Each applied migration is logged.
+   *
+   * @throws SQLException if the database cannot be reached or a migration fails
+   */
+  public static void migrateSchema() throws SQLException {
+    if (!Boolean.parseBoolean(DatabaseConfig.getProperty("db.migration.enabled", "true"))) {
+      return;
+    }
+    for (String migration : MigrationRunner.migrate()) {
+      System.out.println("Applied schema migration " + migration);
+    }
+  }
+
+  /**
+   * Starts warming up the database on background threads: opening pooled connections runs in
+   * parallel with migrating and then checking the schema. Once the pool is ready the recent
+   * activities are loaded, the search and occupancy indexes are built in the background and
+   * activity archiving starts. Later calls return the same result.
+   *
+   * @return completes with a description of each schema problem, including a failed migration,
+   *     empty if there are none, or exceptionally if the database cannot be reached
+   */
+  public synchronized CompletableFuture<List<String>> warmUp() {
+    if (warmUp == null) {
+      CompletableFuture<Void> pool =
+          CompletableFuture.runAsync(
+              () -> {
+                long start = startupTimer.now();
+                try {
+                  DatabaseConfig.warmUp(DatabaseConfig.getIntProperty("db.pool.warmUp", 2));
+                } catch (SQLException e) {
+                  if (offlineMode == null || !OfflineMode.isConnectionFailure(e)) {
+                    throw new CompletionException(e);
+                  }
+                  offlineMode.goOffline();
+                }
+                startupTimer.record("connection pool warm-up", start);
+              },
+              backgroundExecutor);
+      CompletableFuture<List<String>> schema =
+          CompletableFuture.supplyAsync(
+              () -> {
+                List<String> problems = new ArrayList<>();
+                long migrationStart = startupTimer.now();
+                try {
+                  migrateSchema();
+                } catch (SQLException e) {
+                  if (!OfflineMode.isConnectionFailure(e)) {
+                    problems.add(e.getMessage());
+                  } else if (offlineMode == null) {
+                    throw new CompletionException(e);
+                  }
+                } finally {
+                  startupTimer.record("schema migration", migrationStart);
+                }
+                long start = startupTimer.now();
+                try {
+                  problems.addAll(SchemaValidator.validate());
+                  return problems;
+                } catch (SQLException e) {
+                  throw new CompletionException(e);
+                } finally {
+                  startupTimer.record("schema check", start);
+                }
+              },
+              backgroundExecutor);
+      pool.thenRun(
+          () -> {
+            long activityStart = startupTimer.now();
+            try {
+              // Loads them unless the dashboard got there first
+              activityService.getRecentActivity();
+              startupTimer.record("recent activity", activityStart);
+            } catch (ServiceException e) {
+              // The dashboard retries when it is shown
+              System.err.println(e.getMessage());
+            }
+            long start = startupTimer.now();
+            searchService
+                .start(backgroundExecutor)
+                .thenRun(() -> startupTimer.record("search index", start));
+            occupancyService
+                .start(backgroundExecutor)
+                .thenRun(() -> startupTimer.record("occupancy index", start));
+            startActivityArchiving();
+          });
+      warmUp = pool.thenCombine(schema, (ignored, problems) -> problems);
+    }
+    return warmUp;
+  }
+
+  /**
+   * Starts moving activities older than {@code activity.retentionDays} (default 365) to the archive
+   * every {@code activity.archiveIntervalMinutes} (default 60). A retention of 0 or less keeps
+   * every activity in the Activity table, and an interval of 0 or less is reported and not
+   * scheduled. Later calls do nothing.
+   */
+  public synchronized void startActivityArchiving() {
+    if (archiving) {
+      return;
+    }
+    archiving = true;
+    activityArchiver.start(
+        DatabaseConfig.getIntProperty("activity.archiveIntervalMinutes", 60) * 60_000L);
+  }
+
+  /**
+   * Opens the local store for offline mode if {@code offline.enabled} is set. A store that cannot
+   * be opened is reported and the application runs without offline mode.
+   *
+   * @return the offline mode, or null if it is disabled or unavailable
+   */
+  private static OfflineMode openOfflineMode() {
+    if (!Boolean.parseBoolean(DatabaseConfig.getProperty("offline.enabled", "false"))) {
+      return null;
+    }
+    Path directory =
+        Paths.get(
+            DatabaseConfig.getProperty(
+                "offline.dir",
+                Paths.get(System.getProperty("user.home"), ".carservice", "offline").toString()));
+    try {
+      return new OfflineMode(
+          new LocalStore(directory),
+          DatabaseConfig.getIntProperty("offline.syncBatchSize", 100),
+          DatabaseConfig.getIntProperty("offline.snapshotSeconds", 300) * 1000L);
+    } catch (IOException | SQLException e) {
+      System.err.println("Offline mode unavailable: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Creates a JavaFX controller. Controllers with a constructor taking an ApplicationContext
+   * receive this context; others are created with their no-argument constructor. Pass this method
+   * to {@code FXMLLoader.setControllerFactory}.
+   *
+   * @param type the controller class named in the FXML file
+   * @return the new controller
+   * @throws IllegalStateException if the controller cannot be created
+   */
+  public Object createController(Class<?> type) {
+    try {
+      try {
+        return type.getConstructor(ApplicationContext.class).newInstance(this);
+      } catch (NoSuchMethodException e) {
+        return type.getConstructor().newInstance();
+      }
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot create controller " + type.getName(), e);
+    }
+  }
+
+  /**
+   * Registers a hook to run when the context is closed. Hooks run in the reverse order of
+   * registration, before the database connections are released.
+   *
+   * @param hook the hook to run
+   */
+  public synchronized void onClose(Runnable hook) {
+    closeHooks.push(hook);
+  }
+
+  /** Runs the close hooks and releases the database connections. Later calls do nothing. */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    while (!closeHooks.isEmpty()) {
+      try {
+        closeHooks.pop().run();
+      } catch (RuntimeException e) {
+        // A failing hook must not stop the others or leave connections open
+        e.printStackTrace();
+      }
+    }
+    DatabaseConfig.shutdown();
+  }
+
+  /**
+   * Returns the executor for short background work such as startup tasks and view preloading.
+   * Its threads are daemons and it is shut down when the context closes.
+   *
+   * @return the background executor
+   */
+  public Executor getBackgroundExecutor() {
+    return backgroundExecutor;
+  }
+
+  /**
+   * Returns the bounded executor for running database calls asynchronously, such as independent
+   * queries that are to run concurrently. It is shut down when the context closes.
+   *
+   * @return the database executor
+   */
+  public DatabaseExecutor getDatabaseExecutor() {
+    return databaseExecutor;
+  }
+
+  /**
+   * Returns the customer DAO running its calls on the database executor.
+   *
+   * @return the asynchronous customer DAO
+   */
+  public AsyncCrudDAO<Customer, Long, CustomerDAO> getAsyncCustomerDAO() {
+    return asyncCustomerDAO;
+  }
+
+  /**
+   * Returns the car DAO running its calls on the database executor.
+   *
+   * @return the asynchronous car DAO
+   */
+  public AsyncCrudDAO<Car, String, CarDAO> getAsyncCarDAO() {
+    return asyncCarDAO;
+  }
+
+  /**
+   * Returns the job DAO running its calls on the database executor.
+   *
+   * @return the asynchronous job DAO
+   */
+  public AsyncCrudDAO<Job, Long, JobDAO> getAsyncJobDAO() {
+    return asyncJobDAO;
+  }
+
+  /**
+   * Returns the offline mode, if enabled.
+   *
+   * @return the offline mode, or null if {@code offline.enabled} is not set
+   */
+  public OfflineMode getOfflineMode() {
+    return offlineMode;
+  }
+
+  public StartupTimer getStartupTimer() {
+    return startupTimer;
+  }
+
+  public ActivityService getActivityService() {
+    return activityService;
+  }
+
+  public ActivityArchiver getActivityArchiver() {
+    return activityArchiver;
+  }
+
+  public CustomerService getCustomerService() {
+    return customerService;
+  }
+
+  public CarService getCarService() {
+    return carService;
+  }
+
+  public GarageService getGarageService() {
+    return garageService;
+  }
+
+  public JobService getJobService() {
+    return jobService;
+  }
+
+  public PaymentService getPaymentService() {
+    return paymentService;
+  }
+
+  public DailySummaryService getDailySummaryService() {
+    return dailySummaryService;
+  }
+
+  public ExportService getExportService() {
+    return exportService;
+  }
+
+  public AnalyticsService getAnalyticsService() {
+    return analyticsService;
+  }
+
+  public SearchService getSearchService() {
+    return searchService;
+  }
+
+  public OccupancyService getOccupancyService() {
+    return occupancyService;
+  }
+}
@@ -0,0 +1,136 @@
+package com.carservice.config;
+
+/**
+ * Stops calls to a database that keeps failing, so callers fail at once instead of each waiting for
+ * a connect or query timeout. After {@code failureThreshold} consecutive failures the breaker
+ * opens and rejects every request. Once {@code openMillis} have passed it lets a single probe
+ * through: if the probe succeeds the breaker closes again, otherwise it stays open for another
+ * {@code openMillis}.
+ */
+public class CircuitBreaker {
+  /** The states of a circuit breaker. */
+  public enum State {
+    /** Requests are allowed. */
+    CLOSED,
+    /** Requests are rejected. */
+    OPEN,
+    /** One probe request is in flight; others are rejected until it completes. */
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openMillis;
+  private volatile State state = State.CLOSED;
+  private volatile int consecutiveFailures;
+  private long openedAt;
+  private long openings;
+  private long rejected;
+  private long failures;
+
+  /**
+   * Creates a closed circuit breaker.
+   *
+   * @param failureThreshold the number of consecutive failures that opens the breaker
+   * @param openMillis how long the breaker stays open before it lets a probe through
+   */
+  public CircuitBreaker(int failureThreshold, long openMillis) {
+    this.failureThreshold = failureThreshold;
+    this.openMillis = openMillis;
+  }
+
+  /**
+   * Checks whether a request may go ahead. While the breaker is open this returns false, except
+   * for the first call after the open period, which becomes the probe and moves the breaker to
+   * {@link State#HALF_OPEN}; its outcome must be reported with {@link #recordSuccess()} or {@link
+   * #recordFailure()}.
+   *
+   * @return true if the request may go ahead
+   */
+  public boolean allowRequest() {
+    if (state == State.CLOSED) {
+      return true;
+    }
+    synchronized (this) {
+      if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+        state = State.HALF_OPEN;
+        return true;
+      }
+      if (state == State.CLOSED) {
+        return true;
+      }
+      rejected++;
+      return false;
+    }
+  }
+
+  /** Records a successful call, closing the breaker. */
+  public void recordSuccess() {
+    if (state == State.CLOSED && consecutiveFailures == 0) {
+      return;
+    }
+    synchronized (this) {
+      consecutiveFailures = 0;
+      state = State.CLOSED;
+    }
+  }
+
+  /** Records a failed call, opening the breaker if the probe failed or the threshold is reached. */
+  public synchronized void recordFailure() {
+    failures++;
+    consecutiveFailures++;
+    if (state == State.HALF_OPEN
+        || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+      state = State.OPEN;
+      openedAt = System.currentTimeMillis();
+      openings++;
+    }
+  }
+
+  /**
+   * Returns the current state.
+   *
+   * @return the state
+   */
+  public State getState() {
+    return state;
+  }
+
+  /**
+   * Returns how long until an open breaker lets a probe through.
+   *
+   * @return the remaining open time in milliseconds, 0 if the breaker is not open
+   */
+  public synchronized long getRetryInMillis() {
+    if (state != State.OPEN) {
+      return 0;
+    }
+    return Math.max(0, openMillis - (System.currentTimeMillis() - openedAt));
+  }
+
+  /**
+   * Returns the number of times the breaker has opened.
+   *
+   * @return the number of openings
+   */
+  public synchronized long getOpenings() {
+    return openings;
+  }
+
+  /**
+   * Returns the number of requests rejected while the breaker was open.
+   *
+   * @return the number of rejected requests
+   */
+  public synchronized long getRejected() {
+    return rejected;
+  }
+
+  /**
+   * Returns the number of failed calls recorded.
+   *
+   * @return the number of failures
+   */
+  public synchronized long getFailures() {
+    return failures;
+  }
+}
@@ -0,0 +1,606 @@
+package com.carservice.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small, thread-safe JDBC connection pool. Callers borrow connections with {@link
+ * #getConnection()} and return them by closing them as usual; the returned connection is a proxy
+ * whose close() hands the physical connection back to the pool.
+ *
+ * <p>Statements created through a pooled connection get the pool's default query timeout, which a
+ * DAO may override with {@link Statement#setQueryTimeout(int)}, and can be cancelled through the
+ * {@link QueryCanceller} of the thread that executes them. If the pool has a {@link
+ * CircuitBreaker}, failures to connect, connection errors and query timeouts count towards opening
+ * it, and while it is open borrowing fails at once. A {@linkplain #setWriteListener write listener}
+ * is told when a change made through the pool is committed.
+ */
+public class ConnectionPool {
+  private static final long VALIDATE_AFTER_IDLE_MILLIS = 5_000;
+  private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+  private final String url;
+  private final Properties driverProperties;
+  private final int maxSize;
+  private final long timeoutMillis;
+  private final int queryTimeoutSeconds;
+  private final CircuitBreaker breaker;
+  private final Semaphore permits;
+  private final BlockingDeque<IdleConnection> idle = new LinkedBlockingDeque<>();
+  private volatile boolean closed;
+  private volatile Runnable writeListener;
+
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicInteger peakActive = new AtomicInteger();
+  private final AtomicLong borrowed = new AtomicLong();
+  private final AtomicLong created = new AtomicLong();
+  private final AtomicLong waitNanos = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+  private final AtomicLong queryTimeouts = new AtomicLong();
+  private final AtomicLong cancelledQueries = new AtomicLong();
+
+  /**
+   * Creates a pool. Physical connections are opened lazily, up to {@code maxSize}.
+   *
+   * @param url the JDBC URL
+   * @param username the database user
+   * @param password the database password
+   * @param maxSize the maximum number of connections in use at once
+   * @param timeoutMillis how long a caller waits for a free connection before failing
+   */
+  public ConnectionPool(
+      String url, String username, String password, int maxSize, long timeoutMillis) {
+    this(url, credentials(username, password), maxSize, timeoutMillis, 0, null);
+  }
+
+  /**
+   * Creates a pool with query timeouts and a circuit breaker. Physical connections are opened
+   * lazily, up to {@code maxSize}.
+   *
+   * @param url the JDBC URL
+   * @param driverProperties the properties passed to the driver, including "user" and "password"
+   *     and any driver-specific settings such as connect and socket timeouts
+   * @param maxSize the maximum number of connections in use at once
+   * @param timeoutMillis how long a caller waits for a free connection before failing
+   * @param queryTimeoutSeconds the default query timeout of new statements, 0 for none
+   * @param breaker the circuit breaker guarding the database, or null for none
+   */
+  public ConnectionPool(
+      String url,
+      Properties driverProperties,
+      int maxSize,
+      long timeoutMillis,
+      int queryTimeoutSeconds,
+      CircuitBreaker breaker) {
+    this.url = url;
+    this.driverProperties = driverProperties;
+    this.maxSize = maxSize;
+    this.timeoutMillis = timeoutMillis;
+    this.queryTimeoutSeconds = queryTimeoutSeconds;
+    this.breaker = breaker;
+    this.permits = new Semaphore(maxSize, true);
+  }
+
+  /**
+   * Builds driver properties holding a user name and password.
+   *
+   * @param username the database user, or null
+   * @param password the database password, or null
+   * @return the driver properties
+   */
+  public static Properties credentials(String username, String password) {
+    Properties properties = new Properties();
+    if (username != null) {
+      properties.setProperty("user", username);
+    }
+    if (password != null) {
+      properties.setProperty("password", password);
+    }
+    return properties;
+  }
+
+  /**
+   * Borrows a connection from the pool, opening a new one if no idle connection is available.
+   *
+   * @return a pooled connection; closing it returns it to the pool
+   * @throws SQLException if the pool is closed, the circuit breaker is open, no connection becomes
+   *     free in time, or a new connection cannot be opened
+   */
+  public Connection getConnection() throws SQLException {
+    if (closed) {
+      throw new SQLException("Connection pool is closed");
+    }
+    if (breaker != null && !breaker.allowRequest()) {
+      throw new SQLTransientConnectionException(
+          "Database unavailable after repeated failures; retrying in "
+              + breaker.getRetryInMillis()
+              + "ms",
+          "08001");
+    }
+    // Only the probe gets through while half open, and it must report an outcome
+    boolean probe = breaker != null && breaker.getState() == CircuitBreaker.State.HALF_OPEN;
+    try {
+      Connection connection = borrow(probe);
+      if (probe) {
+        breaker.recordSuccess();
+      }
+      return connection;
+    } catch (SQLException | RuntimeException e) {
+      // A failed connect has already reopened the breaker
+      if (probe && breaker.getState() == CircuitBreaker.State.HALF_OPEN) {
+        breaker.recordFailure();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Waits for a permit and hands out an idle or new connection.
+   *
+   * @param validate true to check an idle connection with the database before handing it out
+   * @return a pooled connection
+   * @throws SQLException if no connection becomes free in time or one cannot be opened
+   */
+  private Connection borrow(boolean validate) throws SQLException {
+    long start = System.nanoTime();
+    try {
+      if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        timeouts.incrementAndGet();
+        throw new SQLTransientConnectionException(
+            "Timed out after " + timeoutMillis + "ms waiting for a database connection");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLTransientConnectionException("Interrupted waiting for a database connection", e);
+    } finally {
+      waitNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    try {
+      Connection physical = takeIdleConnection(validate);
+      if (physical == null) {
+        physical = openConnection();
+      }
+      borrowed.incrementAndGet();
+      int nowActive = active.incrementAndGet();
+      peakActive.accumulateAndGet(nowActive, Math::max);
+      return wrap(physical);
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens connections until the pool holds at least {@code count} idle connections, so the first
+   * callers do not pay the connection set-up cost.
+   *
+   * @param count the number of connections to open, capped at the pool size
+   * @throws SQLException if a connection cannot be opened
+   */
+  public void warmUp(int count) throws SQLException {
+    int target = Math.min(count, maxSize);
+    while (idle.size() < target && !closed) {
+      idle.offerLast(new IdleConnection(openConnection()));
+    }
+  }
+
+  /**
+   * Opens a physical connection, reporting the outcome to the circuit breaker.
+   *
+   * @return the new connection
+   * @throws SQLException if the connection cannot be opened
+   */
+  private Connection openConnection() throws SQLException {
+    Connection physical;
+    try {
+      physical = DriverManager.getConnection(url, driverProperties);
+    } catch (SQLException e) {
+      if (breaker != null) {
+        breaker.recordFailure();
+      }
+      throw e;
+    }
+    created.incrementAndGet();
+    if (breaker != null) {
+      breaker.recordSuccess();
+    }
+    return physical;
+  }
+
+  /** Closes every idle connection and rejects further borrowing. */
+  public void close() {
+    closed = true;
+    IdleConnection connection;
+    while ((connection = idle.pollFirst()) != null) {
+      closeQuietly(connection.physical);
+    }
+  }
+
+  /**
+   * Returns a snapshot of the pool's usage counters.
+   *
+   * @return the current pool statistics
+   */
+  public Stats getStats() {
+    return new Stats(
+        maxSize,
+        active.get(),
+        idle.size(),
+        peakActive.get(),
+        borrowed.get(),
+        created.get(),
+        timeouts.get(),
+        TimeUnit.NANOSECONDS.toMillis(waitNanos.get()),
+        queryTimeouts.get(),
+        cancelledQueries.get(),
+        breaker != null ? breaker.getState() : CircuitBreaker.State.CLOSED,
+        breaker != null ? breaker.getOpenings() : 0,
+        breaker != null ? breaker.getRejected() : 0);
+  }
+
+  /**
+   * Takes the most recently used idle connection, validating it if it has been idle for a while.
+   *
+   * @param validate true to validate the connection however briefly it has been idle
+   * @return a usable physical connection, or null if none is idle
+   */
+  private Connection takeIdleConnection(boolean validate) {
+    IdleConnection connection;
+    while ((connection = idle.pollFirst()) != null) {
+      long idleMillis = System.currentTimeMillis() - connection.idleSince;
+      try {
+        if ((!validate && idleMillis < VALIDATE_AFTER_IDLE_MILLIS)
+            || connection.physical.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+          return connection.physical;
+        }
+      } catch (SQLException e) {
+        // Treat as invalid and fall through to discard it
+      }
+      closeQuietly(connection.physical);
+    }
+    return null;
+  }
+
+  /**
+   * Returns a physical connection to the pool after resetting its transaction state.
+   *
+   * @param physical the physical connection
+   */
+  private void release(Connection physical) {
+    try {
+      if (closed || physical.isClosed()) {
+        closeQuietly(physical);
+        return;
+      }
+      if (!physical.getAutoCommit()) {
+        physical.rollback();
+        physical.setAutoCommit(true);
+      }
+      idle.offerFirst(new IdleConnection(physical));
+    } catch (SQLException e) {
+      closeQuietly(physical);
+    } finally {
+      active.decrementAndGet();
+      permits.release();
+    }
+  }
+
+  /**
+   * Sets the callback run each time a change made through the pool is committed: when a statement
+   * that updates rows completes in auto-commit mode, or a connection that ran one commits.
+   *
+   * @param listener the callback, or null for none
+   */
+  public void setWriteListener(Runnable listener) {
+    writeListener = listener;
+  }
+
+  /**
+   * Wraps a physical connection in a proxy whose close() returns it to the pool.
+   *
+   * @param physical the physical connection
+   * @return the proxy handed to callers
+   */
+  private Connection wrap(Connection physical) {
+    AtomicBoolean returned = new AtomicBoolean();
+    AtomicBoolean uncommittedWrite = new AtomicBoolean();
+    InvocationHandler handler =
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "close":
+              if (returned.compareAndSet(false, true)) {
+                release(physical);
+              }
+              return null;
+            case "isClosed":
+              return returned.get() || physical.isClosed();
+            default:
+              if (returned.get()) {
+                throw new SQLException("Connection has been returned to the pool");
+              }
+              Object result = invoke(physical, method, args);
+              if (method.getName().equals("commit") && uncommittedWrite.getAndSet(false)) {
+                notifyWrite();
+              } else if (method.getName().equals("rollback") && args == null) {
+                uncommittedWrite.set(false);
+              }
+              return result instanceof Statement
+                  ? wrapStatement(
+                      (Statement) result,
+                      method.getReturnType(),
+                      (Connection) proxy,
+                      uncommittedWrite)
+                  : result;
+          }
+        };
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[] {Connection.class}, handler);
+  }
+
+  /**
+   * Applies the default query timeout to a new statement and wraps it in a proxy that registers
+   * each execution with the thread's {@link QueryCanceller} and reports its outcome to the circuit
+   * breaker.
+   *
+   * @param physical the statement created by the physical connection
+   * @param type the statement interface the caller asked for
+   * @param connection the pooled connection, returned by the statement's getConnection()
+   * @param uncommittedWrite set when the statement updates rows in a transaction not yet committed
+   * @return the proxy handed to callers
+   * @throws SQLException if the query timeout cannot be set
+   */
+  private Statement wrapStatement(
+      Statement physical, Class<?> type, Connection connection, AtomicBoolean uncommittedWrite)
+      throws SQLException {
+    if (queryTimeoutSeconds > 0) {
+      physical.setQueryTimeout(queryTimeoutSeconds);
+    }
+    InvocationHandler handler =
+        (proxy, method, args) -> {
+          String name = method.getName();
+          if (name.equals("getConnection")) {
+            return connection;
+          }
+          if (!name.startsWith("execute")) {
+            return invoke(physical, method, args);
+          }
+          QueryCanceller canceller = QueryCanceller.current();
+          if (canceller != null) {
+            canceller.register(physical);
+          }
+          try {
+            Object result = invoke(physical, method, args);
+            if (breaker != null) {
+              breaker.recordSuccess();
+            }
+            // execute() returns false when the statement produced an update count
+            if (!name.equals("executeQuery") && !Boolean.TRUE.equals(result)) {
+              if (connection.getAutoCommit()) {
+                notifyWrite();
+              } else {
+                uncommittedWrite.set(true);
+              }
+            }
+            return result;
+          } catch (SQLException e) {
+            recordStatementFailure(e, canceller);
+            throw e;
+          } finally {
+            if (canceller != null) {
+              canceller.unregister(physical);
+            }
+          }
+        };
+    return (Statement)
+        Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {type}, handler);
+  }
+
+  /** Runs the write listener, if one is set. */
+  private void notifyWrite() {
+    Runnable listener = writeListener;
+    if (listener != null) {
+      listener.run();
+    }
+  }
+
+  /**
+   * Counts a failed statement as cancelled or timed out, and reports timeouts and connection
+   * errors to the circuit breaker. Other failures, such as constraint violations, show that the
+   * database is answering and are not counted.
+   *
+   * @param e the exception the statement threw
+   * @param canceller the canceller the statement ran under, or null
+   */
+  private void recordStatementFailure(SQLException e, QueryCanceller canceller) {
+    if (canceller != null && canceller.isCancelled()) {
+      cancelledQueries.incrementAndGet();
+      return;
+    }
+    boolean timedOut = e instanceof SQLTimeoutException;
+    if (timedOut) {
+      queryTimeouts.incrementAndGet();
+    }
+    if (breaker != null
+        && (timedOut || (e.getSQLState() != null && e.getSQLState().startsWith("08")))) {
+      breaker.recordFailure();
+    }
+  }
+
+  /**
+   * Invokes a method on a physical connection or statement, unwrapping reflection exceptions.
+   *
+   * @param physical the physical connection or statement
+   * @param method the method to invoke
+   * @param args the method arguments
+   * @return the method's result
+   * @throws Throwable the exception thrown by the method
+   */
+  private static Object invoke(Object physical, Method method, Object[] args)
+      throws Throwable {
+    try {
+      return method.invoke(physical, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Closes a physical connection, ignoring errors.
+   *
+   * @param physical the connection to close
+   */
+  private static void closeQuietly(Connection physical) {
+    try {
+      physical.close();
+    } catch (SQLException e) {
+      // Nothing useful can be done with a connection that fails to close
+    }
+  }
+
+  /** An idle physical connection and the time it was returned to the pool. */
+  private static final class IdleConnection {
+    private final Connection physical;
+    private final long idleSince;
+
+    private IdleConnection(Connection physical) {
+      this.physical = physical;
+      this.idleSince = System.currentTimeMillis();
+    }
+  }
+
+  /** Snapshot of the pool's usage counters. */
+  public static final class Stats {
+    private final int maxSize;
+    private final int active;
+    private final int idle;
+    private final int peakActive;
+    private final long borrowed;
+    private final long created;
+    private final long timeouts;
+    private final long totalWaitMillis;
+    private final long queryTimeouts;
+    private final long cancelledQueries;
+    private final CircuitBreaker.State circuitState;
+    private final long circuitOpenings;
+    private final long circuitRejected;
+
+    Stats(
+        int maxSize,
+        int active,
+        int idle,
+        int peakActive,
+        long borrowed,
+        long created,
+        long timeouts,
+        long totalWaitMillis,
+        long queryTimeouts,
+        long cancelledQueries,
+        CircuitBreaker.State circuitState,
+        long circuitOpenings,
+        long circuitRejected) {
+      this.maxSize = maxSize;
+      this.active = active;
+      this.idle = idle;
+      this.peakActive = peakActive;
+      this.borrowed = borrowed;
+      this.created = created;
+      this.timeouts = timeouts;
+      this.totalWaitMillis = totalWaitMillis;
+      this.queryTimeouts = queryTimeouts;
+      this.cancelledQueries = cancelledQueries;
+      this.circuitState = circuitState;
+      this.circuitOpenings = circuitOpenings;
+      this.circuitRejected = circuitRejected;
+    }
+
+    public int getMaxSize() {
+      return maxSize;
+    }
+
+    public int getActive() {
+      return active;
+    }
+
+    public int getIdle() {
+      return idle;
+    }
+
+    public int getPeakActive() {
+      return peakActive;
+    }
+
+    public long getBorrowed() {
+      return borrowed;
+    }
+
+    public long getCreated() {
+      return created;
+    }
+
+    public long getTimeouts() {
+      return timeouts;
+    }
+
+    public long getTotalWaitMillis() {
+      return totalWaitMillis;
+    }
+
+    public long getQueryTimeouts() {
+      return queryTimeouts;
+    }
+
+    public long getCancelledQueries() {
+      return cancelledQueries;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+      return circuitState;
+    }
+
+    public long getCircuitOpenings() {
+      return circuitOpenings;
+    }
+
+    public long getCircuitRejected() {
+      return circuitRejected;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "active=%d idle=%d peak=%d/%d borrowed=%d created=%d timeouts=%d wait=%dms"
+              + " queryTimeouts=%d cancelled=%d circuit=%s openings=%d rejected=%d",
+          active,
+          idle,
+          peakActive,
+          maxSize,
+          borrowed,
+          created,
+          timeouts,
+          totalWaitMillis,
+          queryTimeouts,
+          cancelledQueries,
+          circuitState,
+          circuitOpenings,
+          circuitRejected);
+    }
+  }
+}
@@ -1,17 +1,47 @@
 package com.carservice.config;
 
+import com.carservice.offline.OfflineMode;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Configuration class for managing database connections. This class loads database properties from
- * a properties file and provides a method to establish a connection to the database.
+ * a properties file and provides a method to obtain a pooled connection to the database. Any
+ * property can be overridden with a JVM system property of the same name (for example {@code
+ * -Ddb.url=...}).
+ *
+ * <p>Writes always use the primary database. If {@code db.replica.urls} lists one or more read
+ * replicas, {@link #getReadConnection()} spreads reads across them in turn. For {@code
+ * db.replica.stickyMillis} after a change is committed on the primary, every read goes to the
+ * primary, so a user sees their own changes even while the replicas are catching up. The time of
+ * the last change is kept for the whole process rather than per thread, as a change and the reads
+ * that follow it often run on different threads, such as the API's workers and the {@link
+ * DatabaseExecutor}'s.
+ *
+ * <p>Connections to the primary and to each replica have a connect timeout ({@code
+ * db.connectTimeoutMillis}), a socket read timeout ({@code db.socketTimeoutMillis}) and a default
+ * query timeout ({@code db.query.timeoutSeconds}), so a hung server cannot block a caller
+ * indefinitely. Each server also has a {@link CircuitBreaker}: after {@code
+ * db.circuit.failureThreshold} consecutive connection failures or timeouts, borrowing fails at once
+ * for {@code db.circuit.openMillis} before a single probe is let through.
+ *
+ * <p>When an {@link OfflineMode} is installed and the primary cannot be reached, both methods hand
+ * out connections to the local store instead until the offline mode switches back.
  */
 public class DatabaseConfig {
   private static final Properties properties = new Properties();
+  private static volatile long lastWriteNanos;
+  private static final AtomicInteger nextReplica = new AtomicInteger();
+  private static volatile ConnectionPool pool;
+  private static volatile List<ConnectionPool> replicaPools;
+  private static volatile OfflineMode offlineMode;
 
   static {
     try {
@@ -25,15 +55,273 @@ public class DatabaseConfig {
   }
 
   /**
-   * Establishes and returns a connection to the database.
+   * Borrows a connection from the connection pool. Closing the connection returns it to the pool.
    *
    * @return a {@link Connection} object for interacting with the database
    * @throws SQLException if a database access error occurs
    */
   public static Connection getConnection() throws SQLException {
-    return DriverManager.getConnection(
-        properties.getProperty("db.url"),
-        properties.getProperty("db.username"),
-        properties.getProperty("db.password"));
+    OfflineMode offline = offlineMode;
+    if (offline != null && offline.isOffline()) {
+      return offline.getStore().getConnection();
+    }
+    try {
+      return getPool().getConnection();
+    } catch (SQLException e) {
+      if (offline == null || !OfflineMode.isConnectionFailure(e)) {
+        throw e;
+      }
+      offline.goOffline();
+      return offline.getStore().getConnection();
+    }
+  }
+
+  /**
+   * Borrows a connection to the primary database even while offline mode is active, for the
+   * offline mode's own syncing.
+   *
+   * @return a pooled connection to the primary
+   * @throws SQLException if a database access error occurs
+   */
+  public static Connection getServerConnection() throws SQLException {
+    return getPool().getConnection();
+  }
+
+  /**
+   * Borrows a connection for read-only queries. Uses a read replica when one is configured and no
+   * change has been committed on the primary recently; otherwise uses the primary. If the chosen
+   * replica cannot provide a connection, the read falls back to the primary.
+   *
+   * @return a {@link Connection} that must only be used for reading
+   * @throws SQLException if a database access error occurs
+   */
+  public static Connection getReadConnection() throws SQLException {
+    OfflineMode offline = offlineMode;
+    if (offline != null && offline.isOffline()) {
+      return offline.getStore().getReadConnection();
+    }
+    List<ConnectionPool> replicas = getReplicaPools();
+    if (!replicas.isEmpty() && !isStickyToPrimary()) {
+      ConnectionPool replica =
+          replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+      try {
+        return replica.getConnection();
+      } catch (SQLException e) {
+        // Fall back to the primary
+      }
+    }
+    try {
+      return getPool().getConnection();
+    } catch (SQLException e) {
+      if (offline == null || !OfflineMode.isConnectionFailure(e)) {
+        throw e;
+      }
+      offline.goOffline();
+      return offline.getStore().getReadConnection();
+    }
+  }
+
+  /**
+   * Installs the offline mode that takes over when the primary cannot be reached.
+   *
+   * @param mode the offline mode, or null to always use the primary
+   */
+  public static void setOfflineMode(OfflineMode mode) {
+    offlineMode = mode;
+  }
+
+  /**
+   * Checks whether connections are currently handed out from the local store.
+   *
+   * @return true if an offline mode is installed and the primary is unreachable
+   */
+  public static boolean isOffline() {
+    OfflineMode offline = offlineMode;
+    return offline != null && offline.isOffline();
+  }
+
+  /**
+   * Returns the value of a configuration property, preferring a JVM system property of the same
+   * name over the properties file.
+   *
+   * @param key the property name
+   * @param defaultValue the value to use if the property is not set
+   * @return the property value
+   */
+  public static String getProperty(String key, String defaultValue) {
+    return System.getProperty(key, properties.getProperty(key, defaultValue));
+  }
+
+  /**
+   * Returns an integer configuration property.
+   *
+   * @param key the property name
+   * @param defaultValue the value to use if the property is not set
+   * @return the property value
+   */
+  public static int getIntProperty(String key, int defaultValue) {
+    return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)).trim());
+  }
+
+  /**
+   * Returns a snapshot of the connection pool's usage counters.
+   *
+   * @return the current pool statistics
+   */
+  public static ConnectionPool.Stats getPoolStats() {
+    return getPool().getStats();
+  }
+
+  /**
+   * Returns a snapshot of each read replica pool's usage counters, in configuration order.
+   *
+   * @return the replica pool statistics, empty if no replicas are configured
+   */
+  public static List<ConnectionPool.Stats> getReplicaPoolStats() {
+    List<ConnectionPool.Stats> stats = new ArrayList<>();
+    for (ConnectionPool replica : getReplicaPools()) {
+      stats.add(replica.getStats());
+    }
+    return stats;
+  }
+
+  /**
+   * Opens connections ahead of demand in the primary pool and in each replica pool, so the first
+   * queries do not wait for connection set-up.
+   *
+   * @param count the number of idle connections to open per pool, capped at the pool size
+   * @throws SQLException if a connection to the primary cannot be opened
+   */
+  public static void warmUp(int count) throws SQLException {
+    getPool().warmUp(count);
+    for (ConnectionPool replica : getReplicaPools()) {
+      try {
+        replica.warmUp(count);
+      } catch (SQLException e) {
+        // Reads fall back to the primary while a replica is unreachable
+      }
+    }
+  }
+
+  /** Closes the connection pools. Further calls to {@link #getConnection()} open new pools. */
+  public static synchronized void shutdown() {
+    if (pool != null) {
+      pool.close();
+      pool = null;
+    }
+    if (replicaPools != null) {
+      for (ConnectionPool replica : replicaPools) {
+        replica.close();
+      }
+      replicaPools = null;
+    }
+  }
+
+  /**
+   * Checks whether a change was committed on the primary recently enough that a replica might not
+   * have it yet.
+   *
+   * @return true if reads should go to the primary
+   */
+  private static boolean isStickyToPrimary() {
+    long lastWrite = lastWriteNanos;
+    if (lastWrite == 0) {
+      return false;
+    }
+    long stickyNanos =
+        TimeUnit.MILLISECONDS.toNanos(getIntProperty("db.replica.stickyMillis", 5000));
+    return System.nanoTime() - lastWrite < stickyNanos;
+  }
+
+  /** Records that a change has just been committed on the primary. */
+  private static void recordWrite() {
+    lastWriteNanos = System.nanoTime();
+  }
+
+  /**
+   * Returns the connection pool, creating it on first use.
+   *
+   * @return the connection pool
+   */
+  private static ConnectionPool getPool() {
+    ConnectionPool current = pool;
+    if (current == null) {
+      synchronized (DatabaseConfig.class) {
+        current = pool;
+        if (current == null) {
+          current =
+              createPool(
+                  getProperty("db.url", null),
+                  getProperty("db.username", null),
+                  getProperty("db.password", null),
+                  getIntProperty("db.pool.maxSize", 10));
+          current.setWriteListener(DatabaseConfig::recordWrite);
+          pool = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Returns the read replica pools, creating them on first use.
+   *
+   * @return the replica pools, empty if no replicas are configured
+   */
+  private static List<ConnectionPool> getReplicaPools() {
+    List<ConnectionPool> current = replicaPools;
+    if (current == null) {
+      synchronized (DatabaseConfig.class) {
+        current = replicaPools;
+        if (current == null) {
+          List<ConnectionPool> pools = new ArrayList<>();
+          String urls = getProperty("db.replica.urls", "");
+          for (String url : urls.trim().split("\\s+")) {
+            if (!url.trim().isEmpty()) {
+              pools.add(
+                  createPool(
+                      url.trim(),
+                      getProperty("db.replica.username", getProperty("db.username", null)),
+                      getProperty("db.replica.password", getProperty("db.password", null)),
+                      getIntProperty(
+                          "db.replica.pool.maxSize", getIntProperty("db.pool.maxSize", 10))));
+            }
+          }
+          current = Collections.unmodifiableList(pools);
+          replicaPools = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Creates a connection pool for a database server with the configured timeouts and its own
+   * circuit breaker. The connect and socket timeouts are passed to the driver as its {@code
+   * connectTimeout} and {@code socketTimeout} properties, which MariaDB Connector/J reads in
+   * milliseconds.
+   *
+   * @param url the JDBC URL
+   * @param username the database user
+   * @param password the database password
+   * @param maxSize the maximum number of connections in use at once
+   * @return the pool
+   */
+  private static ConnectionPool createPool(
+      String url, String username, String password, int maxSize) {
+    Properties driverProperties = ConnectionPool.credentials(username, password);
+    driverProperties.setProperty(
+        "connectTimeout", String.valueOf(getIntProperty("db.connectTimeoutMillis", 5000)));
+    driverProperties.setProperty(
+        "socketTimeout", String.valueOf(getIntProperty("db.socketTimeoutMillis", 60000)));
+    return new ConnectionPool(
+        url,
+        driverProperties,
+        maxSize,
+        getIntProperty("db.pool.timeoutMillis", 5000),
+        getIntProperty("db.query.timeoutSeconds", 30),
+        new CircuitBreaker(
+            getIntProperty("db.circuit.failureThreshold", 5),
+            getIntProperty("db.circuit.openMillis", 10000)));
   }
 }
@@ -0,0 +1,178 @@
+package com.carservice.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs blocking database calls on a dedicated, bounded pool of threads and returns their results as
+ * {@link CompletableFuture}s, so that independent queries can run concurrently and be composed,
+ * such as loading a customer's cars and average cost at the same time.
+ *
+ * <p>Each call runs under its own {@link QueryCanceller}. Cancelling the returned future, or the
+ * future timing out, cancels the statement the call is executing and makes its later statements
+ * fail straight away; a call still waiting in the queue is removed from it. The future completes
+ * exceptionally with {@link CancellationException} or {@link TimeoutException} respectively, and
+ * otherwise with whatever the call threw. Futures derived from it with {@code thenApply} and
+ * similar do not pass their own cancellation back, so cancel the future returned here.
+ *
+ * <p>There are as many threads as {@code db.async.threads} (by default the connection pool's
+ * {@code db.pool.maxSize}), so calls do not queue for connections. When {@code db.async.queueSize}
+ * calls are already waiting, further calls fail at once with {@link RejectedExecutionException}.
+ */
+public final class DatabaseExecutor implements AutoCloseable {
+  private static final long CANCEL_RETRY_MILLIS = 200;
+  private static final Executor CANCEL_RETRY =
+      CompletableFuture.delayedExecutor(CANCEL_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+
+  private final ThreadPoolExecutor executor;
+  private final long timeoutMillis;
+
+  /**
+   * Creates an executor.
+   *
+   * @param threads the number of threads running calls
+   * @param queueSize the number of calls that may wait for a thread
+   * @param timeoutMillis how long a call may take, including its time in the queue, 0 for no limit
+   */
+  public DatabaseExecutor(int threads, int queueSize, long timeoutMillis) {
+    AtomicInteger threadCount = new AtomicInteger();
+    executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            runnable -> {
+              Thread thread = new Thread(runnable, "db-async-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Creates an executor configured by the {@code db.async.*} properties.
+   *
+   * @return the executor
+   */
+  public static DatabaseExecutor fromProperties() {
+    return new DatabaseExecutor(
+        DatabaseConfig.getIntProperty(
+            "db.async.threads", DatabaseConfig.getIntProperty("db.pool.maxSize", 10)),
+        DatabaseConfig.getIntProperty("db.async.queueSize", 100),
+        DatabaseConfig.getIntProperty("db.async.timeoutMillis", 30_000));
+  }
+
+  /**
+   * Runs a call with the default timeout.
+   *
+   * @param call the call, typically a DAO or service method
+   * @param <T> the type of the call's result
+   * @return a future completing with the call's result or exception
+   */
+  public <T> CompletableFuture<T> submit(Callable<T> call) {
+    return submit(call, timeoutMillis);
+  }
+
+  /**
+   * Runs a call with the given timeout.
+   *
+   * @param call the call, typically a DAO or service method
+   * @param timeoutMillis how long the call may take, including its time in the queue, 0 for no
+   *     limit
+   * @param <T> the type of the call's result
+   * @return a future completing with the call's result or exception
+   */
+  public <T> CompletableFuture<T> submit(Callable<T> call, long timeoutMillis) {
+    Call<T> task = new Call<>(call);
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      task.future.completeExceptionally(e);
+      return task.future;
+    }
+    if (timeoutMillis > 0) {
+      task.future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    task.future.whenComplete(
+        (result, error) -> {
+          if (error instanceof CancellationException || error instanceof TimeoutException) {
+            if (executor.remove(task)) {
+              task.finished.complete(null);
+            }
+            // The thread is not interrupted, as an interrupt can leave a JDBC connection unusable
+            cancelUntilFinished(task.canceller, task.finished);
+          }
+        });
+    return task.future;
+  }
+
+  /**
+   * Cancels a call's statements, and again every {@link #CANCEL_RETRY_MILLIS} until the call has
+   * returned: a cancel that reaches the driver just before it starts executing a statement can be
+   * lost, and H2 for one forgets it when the statement starts.
+   *
+   * @param canceller the call's canceller
+   * @param finished completes once the call has returned or was removed from the queue
+   */
+  private static void cancelUntilFinished(
+      QueryCanceller canceller, CompletableFuture<Void> finished) {
+    if (!finished.isDone()) {
+      canceller.cancel();
+      CompletableFuture.runAsync(() -> cancelUntilFinished(canceller, finished), CANCEL_RETRY);
+    }
+  }
+
+  /** Stops accepting calls and cancels the ones still queued. Running calls finish. */
+  @Override
+  public void close() {
+    for (Runnable queued : executor.shutdownNow()) {
+      Call<?> call = (Call<?>) queued;
+      call.finished.complete(null);
+      call.future.cancel(false);
+    }
+  }
+
+  /**
+   * A submitted call and its future.
+   *
+   * @param <T> the type of the call's result
+   */
+  private static final class Call<T> implements Runnable {
+    private final Callable<T> callable;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+    private final QueryCanceller canceller = new QueryCanceller();
+
+    private Call(Callable<T> callable) {
+      this.callable = callable;
+    }
+
+    @Override
+    public void run() {
+      canceller.run(
+          () -> {
+            try {
+              // Cancelled or timed out while queued
+              if (!future.isDone()) {
+                future.complete(callable.call());
+              }
+            } catch (Exception e) {
+              future.completeExceptionally(e);
+            } finally {
+              finished.complete(null);
+            }
+          });
+    }
+  }
+}
@@ -0,0 +1,285 @@
+package com.carservice.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Brings the database schema up to date by applying the numbered SQL scripts bundled under {@code
+ * db/migration}. A script named {@code V3__performance_indexes.sql} is migration 3; migrations are
+ * applied in order of their number, each once, and recorded in the {@code schema_version} table
+ * with a checksum of the script, so a script edited after it was applied is reported rather than
+ * silently skipped.
+ *
+ * <p>Several instances may start at once, so on MariaDB the runner holds a named lock ({@code
+ * GET_LOCK}) while it works and waits up to {@code db.migration.lockTimeoutSeconds} (default 60)
+ * for another instance to finish. MariaDB commits each schema change on its own, so a migration
+ * that fails part way is not rolled back; scripts use {@code IF NOT EXISTS} and similar guards so
+ * that they can simply be run again once the cause is fixed. The guards also make the migrations
+ * harmless on databases created from a current init.sql, which already has their changes.
+ *
+ * <p>Indexes are built online: on MariaDB every {@code CREATE INDEX} statement is run with {@code
+ * ALGORITHM=INPLACE LOCK=NONE}, so the table stays readable and writable while the index is built,
+ * and the statement fails instead of locking the table if that is impossible. A schema change waits
+ * at most {@code db.migration.ddlLockWaitSeconds} (default 10) for queries already using the table
+ * to finish, since queries arriving meanwhile queue behind it. Statements have no query or socket
+ * timeout, as building an index on a large table can take minutes.
+ */
+public final class MigrationRunner {
+  private static final String LOCATION = "db/migration";
+  private static final String LOCK_NAME = "carservice.migration";
+  private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+  private static final Pattern CREATE_INDEX =
+      Pattern.compile("(?i)CREATE\\s+(UNIQUE\\s+)?INDEX\\b.*", Pattern.DOTALL);
+  private static final String CREATE_TABLE =
+      "CREATE TABLE IF NOT EXISTS schema_version ("
+          + "version INT PRIMARY KEY, "
+          + "description VARCHAR(200) NOT NULL, "
+          + "checksum BIGINT NOT NULL, "
+          + "installedOn DATETIME NOT NULL, "
+          + "executionMillis BIGINT NOT NULL)";
+  private static final String FIND_APPLIED = "SELECT version, checksum FROM schema_version";
+  private static final String RECORD =
+      "INSERT INTO schema_version"
+          + " (version, description, checksum, installedOn, executionMillis)"
+          + " VALUES (?, ?, ?, ?, ?)";
+
+  private MigrationRunner() {}
+
+  /**
+   * Applies the migrations the primary database has not had yet. Does nothing while offline mode
+   * is active, so the local store is never migrated.
+   *
+   * @return a description of each migration applied, in order; empty if the schema was current
+   * @throws SQLException if the database cannot be reached, the lock is not granted in time, an
+   *     applied script was changed or a migration fails
+   */
+  public static List<String> migrate() throws SQLException {
+    List<String> applied = new ArrayList<>();
+    if (DatabaseConfig.isOffline()) {
+      return applied;
+    }
+    List<Migration> migrations;
+    try {
+      migrations = findMigrations();
+    } catch (IOException e) {
+      throw new SQLException("Could not read the migration scripts", e);
+    }
+
+    try (Connection conn = DatabaseConfig.getServerConnection()) {
+      boolean mariaDb = !conn.getMetaData().getDatabaseProductName().contains("H2");
+      int networkTimeout = conn.getNetworkTimeout();
+      conn.setNetworkTimeout(Runnable::run, 0);
+      try (Statement stmt = conn.createStatement()) {
+        stmt.setQueryTimeout(0);
+        if (mariaDb) {
+          lock(stmt);
+          stmt.execute(
+              "SET SESSION lock_wait_timeout = "
+                  + DatabaseConfig.getIntProperty("db.migration.ddlLockWaitSeconds", 10));
+        }
+        try {
+          stmt.execute(CREATE_TABLE);
+          Map<Integer, Long> checksums = findApplied(stmt);
+          for (Migration migration : migrations) {
+            Long checksum = checksums.get(migration.version);
+            if (checksum == null) {
+              applied.add(apply(conn, stmt, migration, mariaDb));
+            } else if (checksum != migration.checksum) {
+              throw new SQLException(
+                  "Migration V"
+                      + migration.version
+                      + " ("
+                      + migration.description
+                      + ") was changed after it was applied; add a new migration instead");
+            }
+          }
+        } finally {
+          if (mariaDb) {
+            // The connection goes back to the pool, so undo the session changes
+            stmt.execute("SET SESSION lock_wait_timeout = DEFAULT");
+            stmt.execute("DO RELEASE_LOCK('" + LOCK_NAME + "')");
+          }
+        }
+      } finally {
+        conn.setNetworkTimeout(Runnable::run, networkTimeout);
+      }
+    }
+    return applied;
+  }
+
+  /**
+   * Waits for the migration lock, which MariaDB releases by itself if the connection is lost.
+   *
+   * @param stmt a statement on the connection that is to hold the lock
+   * @throws SQLException if the lock is not granted in time
+   */
+  private static void lock(Statement stmt) throws SQLException {
+    int timeout = DatabaseConfig.getIntProperty("db.migration.lockTimeoutSeconds", 60);
+    try (ResultSet rs =
+        stmt.executeQuery("SELECT GET_LOCK('" + LOCK_NAME + "', " + timeout + ")")) {
+      if (!rs.next() || rs.getInt(1) != 1) {
+        throw new SQLException(
+            "Timed out after " + timeout + "s waiting for another instance to migrate the schema");
+      }
+    }
+  }
+
+  private static Map<Integer, Long> findApplied(Statement stmt) throws SQLException {
+    Map<Integer, Long> checksums = new HashMap<>();
+    try (ResultSet rs = stmt.executeQuery(FIND_APPLIED)) {
+      while (rs.next()) {
+        checksums.put(rs.getInt("version"), rs.getLong("checksum"));
+      }
+    }
+    return checksums;
+  }
+
+  /**
+   * Runs a migration's statements and records it as applied.
+   *
+   * @param conn the connection holding the lock
+   * @param stmt a statement on that connection
+   * @param migration the migration
+   * @param mariaDb whether indexes can be built online
+   * @return a description of the migration and how long it took
+   * @throws SQLException if a statement fails
+   */
+  private static String apply(Connection conn, Statement stmt, Migration migration, boolean mariaDb)
+      throws SQLException {
+    long start = System.currentTimeMillis();
+    for (String sql : migration.statements) {
+      if (mariaDb && CREATE_INDEX.matcher(sql).matches()) {
+        sql += " ALGORITHM=INPLACE LOCK=NONE";
+      }
+      try {
+        stmt.execute(sql);
+      } catch (SQLException e) {
+        throw new SQLException(
+            "Migration V"
+                + migration.version
+                + " ("
+                + migration.description
+                + ") failed: "
+                + e.getMessage(),
+            e.getSQLState(),
+            e);
+      }
+    }
+    long millis = System.currentTimeMillis() - start;
+    try (PreparedStatement record = conn.prepareStatement(RECORD)) {
+      record.setInt(1, migration.version);
+      record.setString(2, migration.description);
+      record.setLong(3, migration.checksum);
+      record.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+      record.setLong(5, millis);
+      record.executeUpdate();
+    }
+    return "V" + migration.version + " " + migration.description + " (" + millis + " ms)";
+  }
+
+  /**
+   * Reads the migration scripts from the class path, from a directory or from the application jar.
+   *
+   * @return the migrations, in order of their number
+   * @throws IOException if a script cannot be read or two scripts share a number
+   */
+  private static List<Migration> findMigrations() throws IOException {
+    List<String> names = new ArrayList<>();
+    Enumeration<URL> roots = MigrationRunner.class.getClassLoader().getResources(LOCATION);
+    while (roots.hasMoreElements()) {
+      URL root = roots.nextElement();
+      if ("jar".equals(root.getProtocol())) {
+        try (JarFile jar = ((JarURLConnection) root.openConnection()).getJarFile()) {
+          for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+            String name = entries.nextElement().getName();
+            if (name.startsWith(LOCATION + "/")) {
+              names.add(name.substring(LOCATION.length() + 1));
+            }
+          }
+        }
+      } else {
+        String[] files = new File(root.getPath()).list();
+        for (String name : files != null ? files : new String[0]) {
+          names.add(name);
+        }
+      }
+    }
+
+    Map<Integer, Migration> migrations = new TreeMap<>();
+    for (String name : names) {
+      Matcher matcher = SCRIPT_NAME.matcher(name);
+      if (!matcher.matches()) {
+        continue;
+      }
+      String script;
+      try (InputStream in =
+          MigrationRunner.class.getClassLoader().getResourceAsStream(LOCATION + "/" + name)) {
+        if (in == null) {
+          throw new IOException("Migration script not found: " + name);
+        }
+        script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      }
+      Migration migration =
+          new Migration(
+              Integer.parseInt(matcher.group(1)),
+              matcher.group(2).replace('_', ' ').toLowerCase(Locale.ROOT),
+              script);
+      if (migrations.put(migration.version, migration) != null) {
+        throw new IOException("Two migration scripts are numbered " + migration.version);
+      }
+    }
+    return new ArrayList<>(migrations.values());
+  }
+
+  private static final class Migration {
+    private final int version;
+    private final String description;
+    private final long checksum;
+    private final List<String> statements = new ArrayList<>();
+
+    private Migration(int version, String description, String script) {
+      this.version = version;
+      this.description = description;
+      // Line endings depend on how the script was checked out, not on what it does
+      String normalized = script.replace("\r\n", "\n");
+      CRC32 crc = new CRC32();
+      crc.update(normalized.getBytes(StandardCharsets.UTF_8));
+      this.checksum = crc.getValue();
+
+      // Statements end with a semicolon at the end of a line; lines starting with -- are comments
+      StringBuilder body = new StringBuilder();
+      for (String line : normalized.split("\n")) {
+        if (!line.trim().startsWith("--")) {
+          body.append(line).append('\n');
+        }
+      }
+      for (String sql : body.toString().split(";\\s*\n")) {
+        if (!sql.trim().isEmpty()) {
+          statements.add(sql.trim());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package com.carservice.config;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets the user interface cancel the database work of a background task. The task's work runs
+ * inside {@link #run(Runnable)}; every pooled statement executed on that thread in the meantime is
+ * registered here while it runs. {@link #cancel()}, typically called from a Cancel button, cancels
+ * the statements that are running and makes later ones fail straight away.
+ */
+public final class QueryCanceller {
+  /** SQLState reported for a statement rejected because its work was cancelled. */
+  public static final String CANCELLED_STATE = "HY008";
+
+  private static final ThreadLocal<QueryCanceller> current = new ThreadLocal<>();
+
+  private final Set<Statement> running = ConcurrentHashMap.newKeySet();
+  private volatile boolean cancelled;
+
+  /**
+   * Runs work on the current thread with its statements registered for cancellation.
+   *
+   * @param work the work to run
+   */
+  public void run(Runnable work) {
+    QueryCanceller previous = current.get();
+    current.set(this);
+    try {
+      work.run();
+    } finally {
+      if (previous != null) {
+        current.set(previous);
+      } else {
+        current.remove();
+      }
+    }
+  }
+
+  /** Cancels the statements that are running and rejects further statements. */
+  public void cancel() {
+    cancelled = true;
+    for (Statement statement : running) {
+      cancelQuietly(statement);
+    }
+  }
+
+  /**
+   * Checks whether {@link #cancel()} has been called.
+   *
+   * @return true if the work has been cancelled
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Returns the canceller the current thread's work runs under.
+   *
+   * @return the canceller, or null if the thread is not running cancellable work
+   */
+  static QueryCanceller current() {
+    return current.get();
+  }
+
+  /**
+   * Registers a statement that is about to execute.
+   *
+   * @param statement the physical statement
+   * @throws SQLException if the work has already been cancelled
+   */
+  void register(Statement statement) throws SQLException {
+    running.add(statement);
+    // Checked after adding, so a concurrent cancel() either sees the statement or is seen here
+    if (cancelled) {
+      running.remove(statement);
+      throw new SQLException("Query cancelled", CANCELLED_STATE);
+    }
+  }
+
+  /**
+   * Removes a statement that has finished executing.
+   *
+   * @param statement the physical statement
+   */
+  void unregister(Statement statement) {
+    running.remove(statement);
+  }
+
+  private static void cancelQuietly(Statement statement) {
+    try {
+      statement.cancel();
+    } catch (SQLException e) {
+      // The statement may have finished in the meantime
+    }
+  }
+}
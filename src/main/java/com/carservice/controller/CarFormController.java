@@ -1,5 +1,6 @@
 package com.carservice.controller;
 
+import com.carservice.config.ApplicationContext;
 import com.carservice.model.Car;
 import com.carservice.model.Customer;
 import com.carservice.service.CarService;
@@ -23,15 +24,23 @@ public class CarFormController {
   @FXML private TextField yearField;
   @FXML private ComboBox<Customer> customerComboBox;
 
-  private CarService carService;
+  private final CarService carService;
   private Car car;
   private boolean isEditMode;
   private Runnable onSaveCallback;
 
+  /**
+   * Constructs the controller with the shared services of the application context.
+   *
+   * @param context the application context
+   */
+  public CarFormController(ApplicationContext context) {
+    this.carService = context.getCarService();
+  }
+
   /** Initializes the controller and sets up the customer combo box. */
   @FXML
   public void initialize() {
-    carService = new CarService();
     setupCustomerComboBox();
   }
 
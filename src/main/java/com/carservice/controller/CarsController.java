@@ -1,5 +1,6 @@
 package com.carservice.controller;
 
+import com.carservice.config.ApplicationContext;
 import com.carservice.model.Car;
 import com.carservice.model.Customer;
 import com.carservice.service.CarService;
@@ -26,7 +27,8 @@ import javafx.util.StringConverter;
  * Controller class for managing the Cars view. Handles user interactions, data loading, and
  * communication with services.
  */
-public class CarsController {
+public class CarsController implements RefreshableController {
+  private final ApplicationContext context;
   private final CarService carService;
   private final JobService jobService;
   private final CustomerService customerService;
@@ -44,11 +46,16 @@ public class CarsController {
   @FXML private TableColumn<Car, Long> totalServiceDaysColumn;
   @FXML private TableColumn<Car, Void> actionsColumn;
 
-  /** Constructor for initializing service dependencies. */
-  public CarsController() {
-    this.carService = new CarService();
-    this.jobService = new JobService();
-    this.customerService = new CustomerService();
+  /**
+   * Constructs the controller with the shared services of the application context.
+   *
+   * @param context the application context
+   */
+  public CarsController(ApplicationContext context) {
+    this.context = context;
+    this.carService = context.getCarService();
+    this.jobService = context.getJobService();
+    this.customerService = context.getCustomerService();
   }
 
   /** Initializes the controller and sets up the UI components. */
@@ -184,6 +191,24 @@ public class CarsController {
     }
   }
 
+  /** Reloads the customers and cars, keeping the selected customer filter. */
+  @Override
+  public void refresh() {
+    Customer selected = customerFilter.getValue();
+    loadCustomers();
+    if (selected == null) {
+      loadCars();
+      return;
+    }
+    // Select the same customer from the reloaded list; the filter listener then reloads the cars
+    Customer reloaded =
+        customerList.stream()
+            .filter(customer -> customer.getCustomerId().equals(selected.getCustomerId()))
+            .findFirst()
+            .orElse(null);
+    customerFilter.setValue(reloaded);
+  }
+
   /**
    * Loads the list of cars filtered by the selected customer.
    *
@@ -213,6 +238,23 @@ public class CarsController {
     loadCars();
   }
 
+  /**
+   * Clears the customer filter and selects a car, scrolling the table to it. Used to open a result
+   * of the global search.
+   *
+   * @param regNo the registration number of the car to select
+   */
+  public void selectCar(String regNo) {
+    handleClearFilter();
+    for (Car car : carList) {
+      if (car.getRegNo().equals(regNo)) {
+        carTable.getSelectionModel().select(car);
+        carTable.scrollTo(car);
+        return;
+      }
+    }
+  }
+
   /**
    * Handles the action for editing a car. Opens the car form in edit mode.
    *
@@ -266,6 +308,7 @@ public class CarsController {
   private void showCarForm(Car car) {
     try {
       FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/car-form.fxml"));
+      loader.setControllerFactory(context::createController);
       Parent root = loader.load();
 
       CarFormController controller = loader.getController();
@@ -1,5 +1,6 @@
 package com.carservice.controller;
 
+import com.carservice.config.ApplicationContext;
 import com.carservice.model.Customer;
 import com.carservice.service.CustomerService;
 import com.carservice.service.ServiceException;
@@ -19,14 +20,18 @@ public class CustomerFormController {
   @FXML private TextField postCodeField;
   @FXML private TextField phoneField;
 
-  private CustomerService customerService;
+  private final CustomerService customerService;
   private Customer customer;
   private boolean isEditMode;
   private Runnable onSaveCallback;
 
-  /** Initializes the controller and sets up the CustomerService instance. */
-  public void initialize() {
-    customerService = new CustomerService();
+  /**
+   * Constructs the controller with the shared services of the application context.
+   *
+   * @param context the application context
+   */
+  public CustomerFormController(ApplicationContext context) {
+    this.customerService = context.getCustomerService();
   }
 
   /**
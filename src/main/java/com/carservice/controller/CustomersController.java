@@ -1,5 +1,6 @@
 package com.carservice.controller;
 
+import com.carservice.config.ApplicationContext;
 import com.carservice.model.Customer;
 import com.carservice.service.CustomerService;
 import com.carservice.service.JobService;
@@ -22,7 +23,8 @@ import javafx.stage.Stage;
  * Controller class for managing the Customers view. Handles user interactions, data loading, and
  * communication with services.
  */
-public class CustomersController {
+public class CustomersController implements RefreshableController {
+  private final ApplicationContext context;
   private final CustomerService customerService;
   private final JobService jobService;
   private final ObservableList<Customer> customerList = FXCollections.observableArrayList();
@@ -39,10 +41,15 @@ public class CustomersController {
   @FXML private TableColumn<Customer, Double> avgServiceCostColumn;
   @FXML private TableColumn<Customer, Void> actionsColumn;
 
-  /** Constructor for initializing service dependencies. */
-  public CustomersController() {
-    this.customerService = new CustomerService();
-    this.jobService = new JobService();
+  /**
+   * Constructs the controller with the shared services of the application context.
+   *
+   * @param context the application context
+   */
+  public CustomersController(ApplicationContext context) {
+    this.context = context;
+    this.customerService = context.getCustomerService();
+    this.jobService = context.getJobService();
   }
 
   /** Initializes the controller and sets up the UI components. */
@@ -140,6 +147,12 @@ public class CustomersController {
     }
   }
 
+  /** Reloads the customers, keeping the current surname search. */
+  @Override
+  public void refresh() {
+    handleSearch();
+  }
+
   /**
    * Opens the customer form for adding or editing a customer.
    *
@@ -148,6 +161,7 @@ public class CustomersController {
   private void showCustomerForm(Customer customer) {
     try {
       FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/customer-form.fxml"));
+      loader.setControllerFactory(context::createController);
       Parent root = loader.load();
 
       CustomerFormController controller = loader.getController();
@@ -191,6 +205,23 @@ public class CustomersController {
     loadCustomers();
   }
 
+  /**
+   * Clears the search and selects a customer, scrolling the table to it. Used to open a result of
+   * the global search.
+   *
+   * @param customerId the ID of the customer to select
+   */
+  public void selectCustomer(Long customerId) {
+    handleClearFilter();
+    for (Customer customer : customerList) {
+      if (customer.getCustomerId().equals(customerId)) {
+        customerTable.getSelectionModel().select(customer);
+        customerTable.scrollTo(customer);
+        return;
+      }
+    }
+  }
+
   /** Handles the action for adding a new customer. Opens the customer form in add mode. */
   @FXML
   public void handleAddCustomer() {
@@ -1,5 +1,6 @@
 package com.carservice.controller;
 
+import com.carservice.config.ApplicationContext;
 import com.carservice.model.Activity;
 import com.carservice.service.*;
 import java.time.LocalDateTime;
@@ -14,12 +15,12 @@ import javafx.scene.control.cell.PropertyValueFactory;
  * Controller class for managing the Dashboard view. Handles the display of statistics, recent
  * activities, and navigation to other views.
  */
-public class DashboardController {
+public class DashboardController implements RefreshableController {
   private final CustomerService customerService;
   private final CarService carService;
-  private final JobService jobService;
   private final GarageService garageService;
   private final ActivityService activityService;
+  private final DailySummaryService dailySummaryService;
 
   @FXML private Label customerCount;
   @FXML private Label carCount;
@@ -33,13 +34,17 @@ public class DashboardController {
 
   private MainController mainController;
 
-  /** Constructor for initializing service dependencies. */
-  public DashboardController() {
-    this.customerService = new CustomerService();
-    this.carService = new CarService();
-    this.jobService = new JobService();
-    this.garageService = new GarageService();
-    this.activityService = new ActivityService();
+  /**
+   * Constructs the controller with the shared services of the application context.
+   *
+   * @param context the application context
+   */
+  public DashboardController(ApplicationContext context) {
+    this.customerService = context.getCustomerService();
+    this.carService = context.getCarService();
+    this.garageService = context.getGarageService();
+    this.activityService = context.getActivityService();
+    this.dailySummaryService = context.getDailySummaryService();
   }
 
   /** Initializes the controller and sets up the dashboard components. */
@@ -120,14 +125,12 @@ public class DashboardController {
    */
   private void loadStatistics() {
     try {
-      customerCount.setText(String.valueOf(customerService.findAll().size()));
-      carCount.setText(String.valueOf(carService.findAll().size()));
+      customerCount.setText(String.valueOf(customerService.findAllCompact().size()));
+      carCount.setText(String.valueOf(carService.findAllCompact().size()));
       garageCount.setText(String.valueOf(garageService.findAll().size()));
 
-      // Count only active jobs (where dateOut is null)
-      long activeJobs =
-          jobService.findAll().stream().filter(job -> job.getDateOut() == null).count();
-      activeJobCount.setText(String.valueOf(activeJobs));
+      // Active jobs come from the daily summary rather than scanning every job
+      activeJobCount.setText(String.valueOf(dailySummaryService.getActiveJobCount()));
     } catch (ServiceException e) {
       showError("Error loading statistics: " + e.getMessage());
     }
@@ -143,6 +146,13 @@ public class DashboardController {
     }
   }
 
+  /** Reloads the statistics and the recent activity. */
+  @Override
+  public void refresh() {
+    loadStatistics();
+    loadRecentActivity();
+  }
+
   /** Refreshes the recent activity table. */
   public void refreshActivity() {
     loadRecentActivity();
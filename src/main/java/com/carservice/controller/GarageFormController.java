@@ -1,5 +1,6 @@
 package com.carservice.controller;
 
+import com.carservice.config.ApplicationContext;
 import com.carservice.model.Garage;
 import com.carservice.service.GarageService;
 import com.carservice.service.ServiceException;
@@ -19,15 +20,18 @@ public class GarageFormController {
   @FXML private TextField postCodeField;
   @FXML private TextField phoneField;
 
-  private GarageService garageService;
+  private final GarageService garageService;
   private Garage garage;
   private boolean isEditMode;
   private Runnable onSaveCallback;
 
-  /** Initializes the controller and sets up the GarageService instance. */
-  @FXML
-  public void initialize() {
-    garageService = new GarageService();
+  /**
+   * Constructs the controller with the shared services of the application context.
+   *
+   * @param context the application context
+   */
+  public GarageFormController(ApplicationContext context) {
+    this.garageService = context.getGarageService();
   }
 
   /**
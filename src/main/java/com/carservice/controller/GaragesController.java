@@ -1,5 +1,6 @@
 package com.carservice.controller;
 
+import com.carservice.config.ApplicationContext;
 import com.carservice.model.Garage;
 import com.carservice.service.GarageService;
 import com.carservice.service.ServiceException;
@@ -21,7 +22,8 @@ import javafx.stage.Stage;
  * Controller class for managing the Garages view. Handles user interactions, data loading, and
  * communication with the GarageService.
  */
-public class GaragesController {
+public class GaragesController implements RefreshableController {
+  private final ApplicationContext context;
   private final GarageService garageService;
   private final ObservableList<Garage> garageList = FXCollections.observableArrayList();
 
@@ -36,9 +38,14 @@ public class GaragesController {
   @FXML private TableColumn<Garage, String> phoneColumn;
   @FXML private TableColumn<Garage, Void> actionsColumn;
 
-  /** Constructor for initializing the GarageService dependency. */
-  public GaragesController() {
-    this.garageService = new GarageService();
+  /**
+   * Constructs the controller with the shared services of the application context.
+   *
+   * @param context the application context
+   */
+  public GaragesController(ApplicationContext context) {
+    this.context = context;
+    this.garageService = context.getGarageService();
   }
 
   /** Initializes the controller and sets up the UI components. */
@@ -107,6 +114,12 @@ public class GaragesController {
     }
   }
 
+  /** Reloads the garages, keeping the current name search. */
+  @Override
+  public void refresh() {
+    handleSearch();
+  }
+
   /** Handles the search action by filtering garages based on the search term. */
   @FXML
   private void handleSearch() {
@@ -134,6 +147,23 @@ public class GaragesController {
     loadGarages();
   }
 
+  /**
+   * Clears the search and selects a garage, scrolling the table to it. Used to open a result of
+   * the global search.
+   *
+   * @param garageId the ID of the garage to select
+   */
+  public void selectGarage(Long garageId) {
+    handleClearFilter();
+    for (Garage garage : garageList) {
+      if (garage.getGarageId().equals(garageId)) {
+        garageTable.getSelectionModel().select(garage);
+        garageTable.scrollTo(garage);
+        return;
+      }
+    }
+  }
+
   /** Handles the action for adding a new garage. Opens the garage form in add mode. */
   @FXML
   public void handleAddGarage() {
@@ -186,6 +216,7 @@ public class GaragesController {
   private void showGarageForm(Garage garage) {
     try {
       FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/garage-form.fxml"));
+      loader.setControllerFactory(context::createController);
       Parent root = loader.load();
 
       GarageFormController controller = loader.getController();
@@ -1,12 +1,17 @@
 package com.carservice.controller;
 
+import com.carservice.config.ApplicationContext;
 import com.carservice.model.Job;
+import com.carservice.service.CarService;
 import com.carservice.service.JobService;
+import com.carservice.service.NotFoundException;
 import com.carservice.service.PaymentService;
+import com.carservice.service.SearchService;
 import com.carservice.service.ServiceException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.List;
 import java.util.Optional;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
@@ -25,16 +30,26 @@ public class JobFormController {
   @FXML private TextField timeOutField;
   @FXML private TextField costField;
 
-  private JobService jobService;
-  private PaymentService paymentService = new PaymentService();
+  private static final int REG_NO_SUGGESTIONS = 3;
+
+  private final JobService jobService;
+  private final PaymentService paymentService;
+  private final CarService carService;
+  private final SearchService searchService;
   private Job job;
   private boolean isEditMode;
   private Runnable onSaveCallback;
 
-  /** Initializes the controller and sets up the JobService instance. */
-  @FXML
-  public void initialize() {
-    jobService = new JobService();
+  /**
+   * Constructs the controller with the shared services of the application context.
+   *
+   * @param context the application context
+   */
+  public JobFormController(ApplicationContext context) {
+    this.jobService = context.getJobService();
+    this.paymentService = context.getPaymentService();
+    this.carService = context.getCarService();
+    this.searchService = context.getSearchService();
   }
 
   /**
@@ -134,7 +149,7 @@ public class JobFormController {
   private void populateJobData(Job job) throws ServiceException {
     try {
       job.setGarageId(Long.parseLong(garageIdField.getText().trim()));
-      job.setRegNo(regNoField.getText().trim());
+      job.setRegNo(resolveRegNo(regNoField.getText().trim()));
 
       // Combine date and time for job start
       LocalDateTime dateIn = combineDateTime(dateInPicker.getValue(), timeInField.getText());
@@ -156,6 +171,27 @@ public class JobFormController {
     }
   }
 
+  /**
+   * Finds the car a registration number was typed for, ignoring case and spaces, so "ab12cde"
+   * selects the car registered as "AB12 CDE". If there is no such car, the error suggests the
+   * registration numbers within one typo of it.
+   *
+   * @param typed the registration number as typed
+   * @return the registration number as stored
+   * @throws ServiceException if no car has the registration number
+   */
+  private String resolveRegNo(String typed) throws ServiceException {
+    try {
+      return carService.findById(typed).getRegNo();
+    } catch (NotFoundException e) {
+      List<String> similar = searchService.findSimilarRegNos(typed, REG_NO_SUGGESTIONS);
+      throw new ServiceException(
+          "No car is registered as "
+              + typed
+              + (similar.isEmpty() ? "" : ". Did you mean " + String.join(" or ", similar) + "?"));
+    }
+  }
+
   /**
    * Combines a date and time string into a LocalDateTime object.
    *
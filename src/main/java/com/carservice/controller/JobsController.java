@@ -1,12 +1,17 @@
 package com.carservice.controller;
 
+import com.carservice.config.ApplicationContext;
 import com.carservice.model.Job;
+import com.carservice.schedule.OccupancyIndex;
 import com.carservice.service.JobService;
+import com.carservice.service.NotFoundException;
 import com.carservice.service.PaymentService;
 import com.carservice.service.ServiceException;
+import com.carservice.util.RegNumbers;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import javafx.collections.FXCollections;
@@ -25,8 +30,10 @@ import javafx.stage.Stage;
  * Controller class for managing the Jobs view. Handles user interactions, data loading, and
  * communication with services.
  */
-public class JobsController {
+public class JobsController implements RefreshableController {
+  private final ApplicationContext context;
   private final JobService jobService;
+  private final PaymentService paymentService;
   private final ObservableList<Job> jobList = FXCollections.observableArrayList();
   private static final DateTimeFormatter DATE_FORMATTER =
       DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
@@ -43,9 +50,15 @@ public class JobsController {
   @FXML private TableColumn<Job, Double> costColumn;
   @FXML private TableColumn<Job, Void> actionsColumn;
 
-  /** Constructor for initializing the JobService dependency. */
-  public JobsController() {
-    this.jobService = new JobService();
+  /**
+   * Constructs the controller with the shared services of the application context.
+   *
+   * @param context the application context
+   */
+  public JobsController(ApplicationContext context) {
+    this.context = context;
+    this.jobService = context.getJobService();
+    this.paymentService = context.getPaymentService();
   }
 
   /** Initializes the controller and sets up the UI components. */
@@ -69,7 +82,8 @@ public class JobsController {
 
   /** Configures the filter type ComboBox with options and sets up a listener for filtering jobs. */
   private void setupFilterType() {
-    filterType.setItems(FXCollections.observableArrayList("All", "By Car", "By Garage"));
+    filterType.setItems(
+        FXCollections.observableArrayList("All", "By Car", "By Garage", "In Garage Now"));
     filterType.setValue("All");
 
     filterType.setOnAction(e -> handleSearch());
@@ -168,6 +182,12 @@ public class JobsController {
     }
   }
 
+  /** Reloads the jobs, keeping the current search and filter type. */
+  @Override
+  public void refresh() {
+    handleSearch();
+  }
+
   /** Handles the search action by filtering jobs based on the search term and filter type. */
   @FXML
   private void handleSearch() {
@@ -183,11 +203,17 @@ public class JobsController {
 
       if (filter.equals("By Car")) {
         jobs = jobService.findByCar(searchTerm);
-      } else { // By Garage
+        if (jobs.isEmpty()) {
+          suggestRegNos(searchTerm);
+        }
+      } else { // By Garage or In Garage Now
         Long garageId;
         try {
           garageId = Long.parseLong(searchTerm);
-          jobs = jobService.findByGarage(garageId);
+          jobs =
+              filter.equals("In Garage Now")
+                  ? findJobsInGarageNow(garageId)
+                  : jobService.findByGarage(garageId);
         } catch (NumberFormatException e) {
           showError("Please enter a valid garage ID");
           return;
@@ -199,6 +225,52 @@ public class JobsController {
     }
   }
 
+  /**
+   * Finds the jobs whose car is in a garage now, using the occupancy index rather than loading
+   * every job of the garage.
+   *
+   * @param garageId the ID of the garage
+   * @return the jobs, in order of date in
+   * @throws ServiceException if a job cannot be loaded
+   */
+  private List<Job> findJobsInGarageNow(long garageId) throws ServiceException {
+    List<Job> jobs = new ArrayList<>();
+    for (OccupancyIndex.Booking booking :
+        context.getOccupancyService().findInGarageAt(garageId, LocalDateTime.now())) {
+      try {
+        jobs.add(jobService.findById(booking.getJobId()));
+      } catch (NotFoundException e) {
+        // Deleted by someone else since the index was built
+      }
+    }
+    return jobs;
+  }
+
+  /**
+   * Suggests the registration numbers within one typo of one that has no car, in case it was
+   * mistyped.
+   *
+   * @param regNo the registration number searched for
+   */
+  private void suggestRegNos(String regNo) {
+    List<String> similar = context.getSearchService().findSimilarRegNos(regNo, 3);
+    // An exact match means the car exists and simply has no jobs
+    String key = RegNumbers.normalize(regNo);
+    if (similar.isEmpty() || RegNumbers.normalize(similar.get(0)).equals(key)) {
+      return;
+    }
+    Alert alert = new Alert(Alert.AlertType.INFORMATION);
+    alert.setTitle("No Such Car");
+    alert.setHeaderText(null);
+    alert.setContentText(
+        "No car is registered as "
+            + regNo
+            + ". Did you mean "
+            + String.join(" or ", similar)
+            + "?");
+    alert.showAndWait();
+  }
+
   /**
    * Handles the action for clearing the search filter. Resets the search field and filter type,
    * then reloads all jobs.
@@ -210,6 +282,23 @@ public class JobsController {
     loadJobs();
   }
 
+  /**
+   * Clears the search and filter and selects a job, scrolling the table to it. Used to open a
+   * result of the global search.
+   *
+   * @param jobId the ID of the job to select
+   */
+  public void selectJob(Long jobId) {
+    handleClearFilter();
+    for (Job job : jobList) {
+      if (job.getJobId().equals(jobId)) {
+        jobTable.getSelectionModel().select(job);
+        jobTable.scrollTo(job);
+        return;
+      }
+    }
+  }
+
   /** Handles the action for adding a new job. Opens the job form in add mode. */
   @FXML
   public void handleAddJob() {
@@ -313,7 +402,6 @@ public class JobsController {
                         jobService.update(job);
 
                         // Process the payment
-                        PaymentService paymentService = new PaymentService();
                         paymentService.processJobPayment(job.getJobId(), paymentMethod);
 
                         // Refresh the table
@@ -335,6 +423,7 @@ public class JobsController {
   private void showJobForm(Job job) {
     try {
       FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/job-form.fxml"));
+      loader.setControllerFactory(context::createController);
       Parent root = loader.load();
 
       JobFormController controller = loader.getController();
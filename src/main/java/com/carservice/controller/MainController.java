@@ -1,17 +1,40 @@
 package com.carservice.controller;
 
+import com.carservice.config.ApplicationContext;
+import com.carservice.config.DatabaseConfig;
+import com.carservice.config.QueryCanceller;
+import com.carservice.dao.ExportTable;
+import com.carservice.offline.OfflineMode;
+import com.carservice.offline.SyncResult;
+import com.carservice.search.SearchResult;
+import com.carservice.service.ChangeTracker;
+import com.carservice.service.ServiceException;
+import com.carservice.util.StartupTimer;
+import java.io.File;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
+import javafx.geometry.Side;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceDialog;
+import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Label;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.StackPane;
+import javafx.stage.FileChooser;
 import javafx.util.Duration;
 
 /**
@@ -24,28 +47,148 @@ public class MainController {
   @FXML private Label timeLabel;
   @FXML private Label userLabel;
   @FXML private HBox statusBar;
+  @FXML private ProgressBar taskProgress;
+  @FXML private Button cancelTaskButton;
+  @FXML private TextField globalSearchField;
 
-  private CustomersController customersController;
-  private CarsController carsController;
-  private JobsController jobsController;
-  private GaragesController garagesController;
+  private final ApplicationContext context;
+  private final ViewCache viewCache;
   private final String currentUser;
+  private Task<?> runningTask;
+  private QueryCanceller taskCanceller;
+  private SyncResult reportedSync;
+  private final ContextMenu searchResults = new ContextMenu();
+  private List<SearchResult> currentResults = Collections.emptyList();
+  private static final int SEARCH_RESULT_LIMIT = 15;
   private static final DateTimeFormatter DATE_FORMATTER =
       DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
   /**
    * Constructor for initializing the current user. In a real application, this would be dynamically
    * set based on authentication.
+   *
+   * @param context the application context providing the services and creating view controllers
    */
-  public MainController() {
+  public MainController(ApplicationContext context) {
+    this.context = context;
     this.currentUser = "BougaStefa"; // Placeholder for authenticated user
+    this.viewCache =
+        new ViewCache(
+            DatabaseConfig.getIntProperty("ui.viewRefreshSeconds", 60) * 1000L,
+            context::createController,
+            controller -> {
+              if (controller instanceof DashboardController) {
+                ((DashboardController) controller).setMainController(this);
+              }
+            });
   }
 
-  /** Initializes the controller and sets up the status bar and dashboard view. */
+  /**
+   * Initializes the controller and sets up the status bar. The views, including the dashboard, are
+   * loaded in parallel in the background so the window can be shown before the database answers;
+   * the dashboard is shown as soon as it is ready.
+   */
   @FXML
   private void initialize() {
     setupStatusBar();
+    setupGlobalSearch();
+    updateStatus("Loading...");
+    viewCache.preloadInBackground(context.getBackgroundExecutor(), this::onViewPreloaded);
+    context
+        .warmUp()
+        .whenComplete(
+            (problems, error) -> Platform.runLater(() -> reportWarmUp(problems, error)));
+    OfflineMode offlineMode = context.getOfflineMode();
+    if (offlineMode != null) {
+      offlineMode.addListener(() -> Platform.runLater(this::onOfflineModeChanged));
+    }
+  }
+
+  /**
+   * Called when the application goes offline or back online, and after a sync. Marks every view
+   * stale, reloads the recent activities and rebuilds the search and occupancy indexes, since the
+   * data now comes from a different database or was changed by the sync, and reports the new state
+   * and any conflicts.
+   */
+  private void onOfflineModeChanged() {
+    for (String type : new String[] {"CUSTOMER", "CAR", "GARAGE", "JOB", "PAYMENT"}) {
+      ChangeTracker.recordChange(type);
+    }
+    context
+        .getBackgroundExecutor()
+        .execute(
+            () -> {
+              try {
+                context.getActivityService().reloadRecentActivity();
+              } catch (ServiceException e) {
+                System.err.println(e.getMessage());
+              } finally {
+                ChangeTracker.recordChange(ChangeTracker.ACTIVITY);
+              }
+            });
+    context.getSearchService().rebuildInBackground();
+    context.getOccupancyService().rebuildInBackground();
+
+    OfflineMode offlineMode = context.getOfflineMode();
+    if (offlineMode.isOffline()) {
+      updateStatus("Offline - changes will be synced when the database is back");
+      return;
+    }
+    SyncResult lastSync = offlineMode.getLastSync();
+    updateStatus(lastSync != null ? "Online - " + lastSync : "Online");
+    if (lastSync != null && lastSync != reportedSync && !lastSync.getConflicts().isEmpty()) {
+      reportedSync = lastSync;
+      Alert alert = new Alert(Alert.AlertType.WARNING);
+      alert.setTitle("Offline Changes Not Synced");
+      alert.setHeaderText(null);
+      alert.setContentText(String.join("\n\n", lastSync.getConflicts()));
+      alert.show();
+    }
+  }
+
+  /**
+   * Reports a failed database warm-up or an incomplete schema to the user.
+   *
+   * @param problems the schema problems found, or null if the warm-up failed
+   * @param error the reason the warm-up failed, or null if it succeeded
+   */
+  private void reportWarmUp(List<String> problems, Throwable error) {
+    if (error != null) {
+      showError("Cannot connect to the database: " + rootMessage(error));
+    } else if (!problems.isEmpty()) {
+      showError("The database schema is incomplete:\n" + String.join("\n", problems));
+    }
+  }
+
+  /**
+   * Called once each background view load has finished. Shows the dashboard when it is ready,
+   * unless the user has already opened another view, and reports the startup timing.
+   *
+   * @param view the view that was loaded or failed to load
+   */
+  private void onViewPreloaded(ViewCache.View view) {
+    if (view != ViewCache.View.DASHBOARD || !contentArea.getChildren().isEmpty()) {
+      return;
+    }
     showDashboard();
+    StartupTimer timer = context.getStartupTimer();
+    timer.mark("interactive");
+    System.out.print(timer.report());
+    updateStatus("Ready in " + timer.elapsedMillis() + " ms");
+  }
+
+  /**
+   * Returns the message of the innermost cause of an exception.
+   *
+   * @param error the exception
+   * @return the root cause's message
+   */
+  private static String rootMessage(Throwable error) {
+    Throwable cause = error;
+    while (cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause.getMessage();
   }
 
   /** Sets up the status bar with a clock and user information. */
@@ -62,74 +205,120 @@ public class MainController {
     updateClock();
   }
 
+  /**
+   * Sets up the global search field. Results are looked up in the in-memory search index as the
+   * user types and listed below the field; Enter opens the best match and Escape closes the list.
+   */
+  private void setupGlobalSearch() {
+    globalSearchField
+        .textProperty()
+        .addListener((obs, oldText, text) -> showSearchResults(text));
+    globalSearchField.setOnKeyPressed(
+        event -> {
+          if (event.getCode() == KeyCode.ENTER && !currentResults.isEmpty()) {
+            openSearchResult(currentResults.get(0));
+          } else if (event.getCode() == KeyCode.ESCAPE) {
+            searchResults.hide();
+          }
+        });
+  }
+
+  /** Moves the focus to the global search field. */
+  @FXML
+  private void focusGlobalSearch() {
+    globalSearchField.requestFocus();
+    globalSearchField.selectAll();
+  }
+
+  /**
+   * Lists the records matching the text in the global search field.
+   *
+   * @param text the search text
+   */
+  private void showSearchResults(String text) {
+    currentResults = context.getSearchService().search(text, SEARCH_RESULT_LIMIT);
+    if (currentResults.isEmpty()) {
+      searchResults.hide();
+      if (!text.trim().isEmpty() && !context.getSearchService().isReady()) {
+        updateStatus("Search index is still loading...");
+      }
+      return;
+    }
+    List<MenuItem> items = new ArrayList<>(currentResults.size());
+    for (SearchResult result : currentResults) {
+      MenuItem item = new MenuItem(result.getType() + ": " + result);
+      item.setOnAction(event -> openSearchResult(result));
+      items.add(item);
+    }
+    searchResults.getItems().setAll(items);
+    if (!searchResults.isShowing()) {
+      searchResults.show(globalSearchField, Side.BOTTOM, 0, 0);
+    }
+  }
+
+  /**
+   * Shows the view for a search result and selects the record in it.
+   *
+   * @param result the result to open
+   */
+  private void openSearchResult(SearchResult result) {
+    searchResults.hide();
+    switch (result.getType()) {
+      case CUSTOMER:
+        Object customers =
+            showView(ViewCache.View.CUSTOMERS, "Viewing Customers", "customers view");
+        if (customers != null) {
+          ((CustomersController) customers).selectCustomer((Long) result.getId());
+        }
+        break;
+      case CAR:
+        Object cars = showView(ViewCache.View.CARS, "Viewing Cars", "cars view");
+        if (cars != null) {
+          ((CarsController) cars).selectCar((String) result.getId());
+        }
+        break;
+      case GARAGE:
+        Object garages = showView(ViewCache.View.GARAGES, "Viewing Garages", "garages view");
+        if (garages != null) {
+          ((GaragesController) garages).selectGarage((Long) result.getId());
+        }
+        break;
+      case JOB:
+        Object jobs = showView(ViewCache.View.JOBS, "Viewing Jobs", "jobs view");
+        if (jobs != null) {
+          ((JobsController) jobs).selectJob((Long) result.getId());
+        }
+        break;
+    }
+  }
+
   /** Updates the clock label with the current UTC time. */
   private void updateClock() {
     timeLabel.setText("UTC: " + LocalDateTime.now().format(DATE_FORMATTER));
   }
 
-  /**
-   * Displays the Customers view. Loads the FXML file and sets the content area to the Customers
-   * view.
-   */
+  /** Displays the Customers view, loading it on first use. */
   @FXML
   public void showCustomers() {
-    try {
-      FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/customers-view.fxml"));
-      Parent view = loader.load();
-      customersController = loader.getController();
-      contentArea.getChildren().clear();
-      contentArea.getChildren().add(view);
-      updateStatus("Viewing Customers");
-    } catch (IOException e) {
-      showError("Error loading customers view: " + e.getMessage());
-    }
+    showView(ViewCache.View.CUSTOMERS, "Viewing Customers", "customers view");
   }
 
-  /** Displays the Cars view. Loads the FXML file and sets the content area to the Cars view. */
+  /** Displays the Cars view, loading it on first use. */
   @FXML
   public void showCars() {
-    try {
-      FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/cars-view.fxml"));
-      Parent view = loader.load();
-      carsController = loader.getController();
-      contentArea.getChildren().clear();
-      contentArea.getChildren().add(view);
-      updateStatus("Viewing Cars");
-    } catch (IOException e) {
-      showError("Error loading cars view: " + e.getMessage());
-    }
+    showView(ViewCache.View.CARS, "Viewing Cars", "cars view");
   }
 
-  /**
-   * Displays the Garages view. Loads the FXML file and sets the content area to the Garages view.
-   */
+  /** Displays the Garages view, loading it on first use. */
   @FXML
   public void showGarages() {
-    try {
-      FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/garages-view.fxml"));
-      Parent view = loader.load();
-      garagesController = loader.getController();
-      contentArea.getChildren().clear();
-      contentArea.getChildren().add(view);
-      updateStatus("Viewing Garages");
-    } catch (IOException e) {
-      showError("Error loading garages view: " + e.getMessage());
-    }
+    showView(ViewCache.View.GARAGES, "Viewing Garages", "garages view");
   }
 
-  /** Displays the Jobs view. Loads the FXML file and sets the content area to the Jobs view. */
+  /** Displays the Jobs view, loading it on first use. */
   @FXML
   public void showJobs() {
-    try {
-      FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/jobs-view.fxml"));
-      Parent view = loader.load();
-      jobsController = loader.getController();
-      contentArea.getChildren().clear();
-      contentArea.getChildren().add(view);
-      updateStatus("Viewing Jobs");
-    } catch (IOException e) {
-      showError("Error loading jobs view: " + e.getMessage());
-    }
+    showView(ViewCache.View.JOBS, "Viewing Jobs", "jobs view");
   }
 
   /**
@@ -137,9 +326,9 @@ public class MainController {
    * customer action.
    */
   public void showNewCustomerForm() {
-    showCustomers();
-    if (customersController != null) {
-      customersController.handleAddCustomer();
+    Object controller = showView(ViewCache.View.CUSTOMERS, "Viewing Customers", "customers view");
+    if (controller != null) {
+      ((CustomersController) controller).handleAddCustomer();
     }
   }
 
@@ -147,9 +336,9 @@ public class MainController {
    * Opens the form to add a new car. Navigates to the Cars view and triggers the add car action.
    */
   public void showNewCarForm() {
-    showCars();
-    if (carsController != null) {
-      carsController.handleAddCar();
+    Object controller = showView(ViewCache.View.CARS, "Viewing Cars", "cars view");
+    if (controller != null) {
+      ((CarsController) controller).handleAddCar();
     }
   }
 
@@ -157,9 +346,9 @@ public class MainController {
    * Opens the form to add a new job. Navigates to the Jobs view and triggers the add job action.
    */
   public void showNewJobForm() {
-    showJobs();
-    if (jobsController != null) {
-      jobsController.handleAddJob();
+    Object controller = showView(ViewCache.View.JOBS, "Viewing Jobs", "jobs view");
+    if (controller != null) {
+      ((JobsController) controller).handleAddJob();
     }
   }
 
@@ -168,10 +357,172 @@ public class MainController {
    * action.
    */
   public void showNewGarageForm() {
-    showGarages();
-    if (garagesController != null) {
-      garagesController.handleAddGarage();
+    Object controller = showView(ViewCache.View.GARAGES, "Viewing Garages", "garages view");
+    if (controller != null) {
+      ((GaragesController) controller).handleAddGarage();
+    }
+  }
+
+  /**
+   * Rebuilds the daily garage summary from the Job and Payment tables. The rebuild runs on a
+   * background thread, can be cancelled from the status bar, and reports its outcome there.
+   */
+  @FXML
+  private void handleRebuildSummary() {
+    if (runningTask != null) {
+      showError("Another task is already running");
+      return;
+    }
+
+    Task<Integer> task =
+        new Task<>() {
+          @Override
+          protected Integer call() throws Exception {
+            return context.getDailySummaryService().rebuild();
+          }
+        };
+    task.setOnSucceeded(
+        event -> {
+          finishTask();
+          updateStatus("Daily summary rebuilt: " + task.getValue() + " row(s)");
+        });
+    task.setOnFailed(
+        event -> {
+          finishTask();
+          showError("Error rebuilding daily summary: " + task.getException().getMessage());
+        });
+    task.setOnCancelled(
+        event -> {
+          finishTask();
+          updateStatus("Daily summary rebuild cancelled");
+        });
+
+    startTask(task, "summary-rebuild");
+    updateStatus("Rebuilding daily summary...");
+  }
+
+  /**
+   * Exports a table to a CSV file chosen by the user. A ".gz" file name produces a gzip-compressed
+   * file. The export runs on a background thread with its progress shown in the status bar, and
+   * can be cancelled from there.
+   */
+  @FXML
+  private void handleExport() {
+    if (runningTask != null) {
+      showError("Another task is already running");
+      return;
+    }
+
+    ChoiceDialog<ExportTable> dialog = new ChoiceDialog<>(ExportTable.JOB, ExportTable.values());
+    dialog.setTitle("Export");
+    dialog.setHeaderText("Select the data to export");
+    ExportTable table = dialog.showAndWait().orElse(null);
+    if (table == null) {
+      return;
+    }
+
+    FileChooser chooser = new FileChooser();
+    chooser.setTitle("Export " + table);
+    chooser.setInitialFileName(table.getTableName().toLowerCase() + ".csv");
+    chooser
+        .getExtensionFilters()
+        .addAll(
+            new FileChooser.ExtensionFilter("CSV files", "*.csv"),
+            new FileChooser.ExtensionFilter("Gzipped CSV files", "*.csv.gz"));
+    File file = chooser.showSaveDialog(contentArea.getScene().getWindow());
+    if (file == null) {
+      return;
     }
+    boolean gzip = file.getName().endsWith(".gz");
+
+    Task<Long> task =
+        new Task<>() {
+          @Override
+          protected Long call() throws Exception {
+            return context
+                .getExportService()
+                .export(
+                    table,
+                    file.toPath(),
+                    gzip,
+                    (written, total) -> {
+                      updateProgress(written, total);
+                      updateMessage("Exporting " + table + ": " + written + " of " + total);
+                    },
+                    this::isCancelled);
+          }
+        };
+    task.messageProperty().addListener((obs, oldMessage, message) -> updateStatus(message));
+    task.setOnSucceeded(
+        event -> {
+          finishTask();
+          updateStatus(table + " exported: " + task.getValue() + " row(s) to " + file.getName());
+        });
+    task.setOnFailed(
+        event -> {
+          finishTask();
+          showError("Error exporting " + table + ": " + task.getException().getMessage());
+        });
+    task.setOnCancelled(
+        event -> {
+          finishTask();
+          updateStatus("Export cancelled");
+        });
+
+    startTask(task, "export");
+    updateStatus("Exporting " + table + "...");
+  }
+
+  /**
+   * Cancels the background task currently shown in the status bar, including any query it is
+   * waiting on.
+   */
+  @FXML
+  private void handleCancelTask() {
+    if (runningTask != null) {
+      runningTask.cancel();
+      taskCanceller.cancel();
+    }
+  }
+
+  /**
+   * Starts a cancellable background task and shows its progress in the status bar. The task's
+   * queries run under a {@link QueryCanceller}, so cancelling the task also stops a query that is
+   * running.
+   *
+   * @param task the task to run
+   * @param name the name of the worker thread
+   */
+  private void startTask(Task<?> task, String name) {
+    runningTask = task;
+    QueryCanceller canceller = new QueryCanceller();
+    taskCanceller = canceller;
+    taskProgress.progressProperty().bind(task.progressProperty());
+    setTaskControlsVisible(true);
+
+    Thread thread = new Thread(() -> canceller.run(task), name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Hides the status bar progress controls once the running task has finished. */
+  private void finishTask() {
+    taskProgress.progressProperty().unbind();
+    setTaskControlsVisible(false);
+    runningTask = null;
+    taskCanceller = null;
+  }
+
+  /**
+   * Shows or hides the progress bar and cancel button in the status bar.
+   *
+   * @param visible true to show the controls
+   */
+  private void setTaskControlsVisible(boolean visible) {
+    taskProgress.setVisible(visible);
+    taskProgress.setManaged(visible);
+    cancelTaskButton.setVisible(visible);
+    cancelTaskButton.setManaged(visible);
   }
 
   /** Exits the application. */
@@ -190,22 +541,31 @@ public class MainController {
     alert.showAndWait();
   }
 
-  /**
-   * Displays the Dashboard view. Loads the FXML file and sets the content area to the Dashboard
-   * view.
-   */
+  /** Displays the Dashboard view, loading it on first use. */
   @FXML
   public void showDashboard() {
+    showView(
+        ViewCache.View.DASHBOARD, "Welcome to Car Service Management System", "dashboard");
+  }
+
+  /**
+   * Shows a view in the content area. The view is taken from the cache, and its data is reloaded
+   * only if it has changed since the view was last shown.
+   *
+   * @param view the view to show
+   * @param status the status message to display
+   * @param description the view's name for error messages
+   * @return the view's controller, or null if the view could not be loaded
+   */
+  private Object showView(ViewCache.View view, String status, String description) {
     try {
-      FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/dashboard-view.fxml"));
-      Parent view = loader.load();
-      DashboardController dashboardController = loader.getController();
-      dashboardController.setMainController(this);
-      contentArea.getChildren().clear();
-      contentArea.getChildren().add(view);
-      updateStatus("Welcome to Car Service Management System");
+      ViewCache.CachedView cached = viewCache.get(view);
+      contentArea.getChildren().setAll(cached.getRoot());
+      updateStatus(status);
+      return cached.getController();
     } catch (IOException e) {
-      showError("Error loading dashboard: " + e.getMessage());
+      showError("Error loading " + description + ": " + e.getMessage());
+      return null;
     }
   }
 
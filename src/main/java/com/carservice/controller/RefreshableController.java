@@ -0,0 +1,9 @@
+package com.carservice.controller;
+
+/**
+ * A controller whose view is kept between visits and brought up to date when it is shown again.
+ */
+public interface RefreshableController {
+  /** Reloads the data shown by the view, keeping the user's current search or filter. */
+  void refresh();
+}
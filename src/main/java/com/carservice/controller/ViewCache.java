@@ -0,0 +1,165 @@
+package com.carservice.controller;
+
+import com.carservice.service.ChangeTracker;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.util.Callback;
+
+/**
+ * Keeps the main views and their controllers loaded between visits, so switching views does not
+ * parse FXML or re-query the database each time. A cached view is refreshed when it is shown again
+ * only if data it displays has changed since it was loaded, according to {@link ChangeTracker}, or
+ * if it is older than the maximum age, which catches changes made by other users.
+ *
+ * <p>All methods except the background preload must be called on the JavaFX application thread.
+ */
+final class ViewCache {
+
+  /** The views kept in the cache, with the data types each one displays. */
+  enum View {
+    DASHBOARD("/fxml/dashboard-view.fxml", ChangeTracker.ACTIVITY),
+    CUSTOMERS("/fxml/customers-view.fxml", "CUSTOMER", "JOB"),
+    CARS("/fxml/cars-view.fxml", "CAR", "CUSTOMER", "JOB"),
+    GARAGES("/fxml/garages-view.fxml", "GARAGE"),
+    JOBS("/fxml/jobs-view.fxml", "JOB", "PAYMENT");
+
+    private final String fxml;
+    private final String[] dataTypes;
+
+    View(String fxml, String... dataTypes) {
+      this.fxml = fxml;
+      this.dataTypes = dataTypes;
+    }
+  }
+
+  /** A loaded view and the change version its data was loaded at. */
+  static final class CachedView {
+    private final Parent root;
+    private final Object controller;
+    private long version;
+    private long loadedAtMillis;
+
+    private CachedView(Parent root, Object controller, long version) {
+      this.root = root;
+      this.controller = controller;
+      this.version = version;
+      this.loadedAtMillis = System.currentTimeMillis();
+    }
+
+    Parent getRoot() {
+      return root;
+    }
+
+    Object getController() {
+      return controller;
+    }
+  }
+
+  private final Map<View, CachedView> views = new ConcurrentHashMap<>();
+  private final long maxAgeMillis;
+  private final Callback<Class<?>, Object> controllerFactory;
+  private final Consumer<Object> controllerSetup;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param maxAgeMillis the age after which a cached view is refreshed even without local changes
+   * @param controllerFactory creates the controllers named in the FXML files
+   * @param controllerSetup called on the application thread with each controller before its view
+   *     is first shown, for example to give it a reference to the main controller
+   */
+  ViewCache(
+      long maxAgeMillis,
+      Callback<Class<?>, Object> controllerFactory,
+      Consumer<Object> controllerSetup) {
+    this.maxAgeMillis = maxAgeMillis;
+    this.controllerFactory = controllerFactory;
+    this.controllerSetup = controllerSetup;
+  }
+
+  /**
+   * Returns a view ready to be shown: loaded on first use, refreshed if its data is stale, or
+   * returned as it is.
+   *
+   * @param view the view to show
+   * @return the cached view
+   * @throws IOException if the view has to be loaded and its FXML cannot be read
+   */
+  CachedView get(View view) throws IOException {
+    CachedView cached = views.get(view);
+    if (cached == null) {
+      cached = load(view);
+      controllerSetup.accept(cached.controller);
+      views.put(view, cached);
+      return cached;
+    }
+
+    long version = ChangeTracker.version(view.dataTypes);
+    boolean expired = System.currentTimeMillis() - cached.loadedAtMillis > maxAgeMillis;
+    if ((version != cached.version || expired)
+        && cached.controller instanceof RefreshableController) {
+      ((RefreshableController) cached.controller).refresh();
+      cached.version = version;
+      cached.loadedAtMillis = System.currentTimeMillis();
+    }
+    return cached;
+  }
+
+  /**
+   * Loads every view that is not cached yet in parallel on the given executor, and adds each to
+   * the cache on the application thread. Loading a view also loads the reference data its
+   * controller displays. A view that fails to load here, for example because the database is
+   * unavailable, is loaded when it is first shown instead.
+   *
+   * @param executor runs one load task per view
+   * @param onAttempted called on the application thread after each view has been added to the
+   *     cache or has failed to load
+   */
+  void preloadInBackground(Executor executor, Consumer<View> onAttempted) {
+    for (View view : View.values()) {
+      if (views.containsKey(view)) {
+        continue;
+      }
+      executor.execute(
+          () -> {
+            CachedView loaded = null;
+            try {
+              loaded = load(view);
+            } catch (IOException | RuntimeException e) {
+              // Left for the application thread to load on first use
+            }
+            CachedView result = loaded;
+            Platform.runLater(
+                () -> {
+                  // The view may have been shown, and so loaded, in the meantime
+                  if (result != null && views.putIfAbsent(view, result) == null) {
+                    controllerSetup.accept(result.controller);
+                  }
+                  onAttempted.accept(view);
+                });
+          });
+    }
+  }
+
+  /**
+   * Parses a view's FXML, which also creates its controller and loads its data.
+   *
+   * @param view the view to load
+   * @return the loaded view
+   * @throws IOException if the FXML cannot be read
+   */
+  private CachedView load(View view) throws IOException {
+    // Read the version first, so a change made while the data loads triggers a later refresh
+    long version = ChangeTracker.version(view.dataTypes);
+    FXMLLoader loader = new FXMLLoader(getClass().getResource(view.fxml));
+    loader.setControllerFactory(controllerFactory);
+    Parent root = loader.load();
+    return new CachedView(root, loader.getController(), version);
+  }
+}
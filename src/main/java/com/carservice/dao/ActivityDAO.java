@@ -3,18 +3,28 @@ package com.carservice.dao;
 import com.carservice.config.DatabaseConfig;
 import com.carservice.model.Activity;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Data Access Object for handling Activity entity operations with the database. Provides methods
- * for saving and retrieving activity records.
+ * for saving and retrieving activity records, and for moving old records to the ActivityArchive
+ * table so the Activity table only holds recent ones.
  */
 public class ActivityDAO {
-  private static final String INSERT =
-      "INSERT INTO Activity (type, action, description, timestamp, userId) VALUES (?, ?, ?, ?, ?)";
   private static final String FIND_RECENT =
-      "SELECT * FROM Activity ORDER BY timestamp DESC LIMIT ?";
+      ActivityMapper.SELECT + " ORDER BY timestamp DESC LIMIT ?";
+  private static final String FIND_OLDEST_BEFORE =
+      "SELECT activityId FROM Activity WHERE timestamp < ? ORDER BY timestamp LIMIT ? FOR UPDATE";
+  private static final String COPY_TO_ARCHIVE =
+      "INSERT INTO ActivityArchive ("
+          + ActivityMapper.COLUMNS
+          + ") SELECT "
+          + ActivityMapper.COLUMNS
+          + " FROM Activity WHERE activityId IN ";
+  private static final String DELETE_IDS = "DELETE FROM Activity WHERE activityId IN ";
 
   /**
    * Saves a new activity record to the database.
@@ -25,14 +35,9 @@ public class ActivityDAO {
    */
   public Long save(Activity activity) throws SQLException {
     try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
-
-      stmt.setString(1, activity.getType());
-      stmt.setString(2, activity.getAction());
-      stmt.setString(3, activity.getDescription());
-      stmt.setTimestamp(4, Timestamp.valueOf(activity.getTimestamp()));
-      stmt.setString(5, activity.getUserId());
-
+        PreparedStatement stmt =
+            conn.prepareStatement(ActivityMapper.INSERT, Statement.RETURN_GENERATED_KEYS)) {
+      ActivityMapper.bindInsert(stmt, activity);
       stmt.executeUpdate();
 
       try (ResultSet rs = stmt.getGeneratedKeys()) {
@@ -53,14 +58,14 @@ public class ActivityDAO {
    */
   public List<Activity> findRecent(int limit) throws SQLException {
     List<Activity> activities = new ArrayList<>();
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         PreparedStatement stmt = conn.prepareStatement(FIND_RECENT)) {
 
       stmt.setInt(1, limit);
 
       try (ResultSet rs = stmt.executeQuery()) {
         while (rs.next()) {
-          activities.add(mapRowToActivity(rs));
+          activities.add(ActivityMapper.map(rs));
         }
       }
     }
@@ -68,19 +73,42 @@ public class ActivityDAO {
   }
 
   /**
-   * Maps a database result set row to an Activity object.
+   * Moves the oldest activities logged before a cutoff from the Activity table to the
+   * ActivityArchive table, in one transaction. At most {@code limit} rows are moved, so the rows
+   * are locked only briefly and activities can still be logged while a large backlog is archived.
    *
-   * @param rs The result set containing activity data
-   * @return A new Activity object populated with the result set data
-   * @throws SQLException if a database access error occurs
+   * @param cutoff activities logged before this time are moved
+   * @param limit the maximum number of activities to move
+   * @return the number of activities moved; less than the limit once none are left
+   * @throws SQLException if a database access error occurs; nothing is moved
    */
-  private Activity mapRowToActivity(ResultSet rs) throws SQLException {
-    return new Activity(
-        rs.getLong("activityId"),
-        rs.getString("type"),
-        rs.getString("action"),
-        rs.getString("description"),
-        rs.getTimestamp("timestamp").toLocalDateTime(),
-        rs.getString("userId"));
+  public int archiveBefore(LocalDateTime cutoff, int limit) throws SQLException {
+    return Transactions.execute(
+        conn -> {
+          List<Long> ids = new ArrayList<>();
+          try (PreparedStatement stmt = conn.prepareStatement(FIND_OLDEST_BEFORE)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+              while (rs.next()) {
+                ids.add(rs.getLong(1));
+              }
+            }
+          }
+          if (ids.isEmpty()) {
+            return 0;
+          }
+          String in = "(" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+          try (PreparedStatement copy = conn.prepareStatement(COPY_TO_ARCHIVE + in);
+              PreparedStatement delete = conn.prepareStatement(DELETE_IDS + in)) {
+            for (int i = 0; i < ids.size(); i++) {
+              copy.setLong(i + 1, ids.get(i));
+              delete.setLong(i + 1, ids.get(i));
+            }
+            copy.executeUpdate();
+            delete.executeUpdate();
+          }
+          return ids.size();
+        });
   }
 }
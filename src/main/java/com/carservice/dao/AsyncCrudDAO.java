@@ -0,0 +1,136 @@
+package com.carservice.dao;
+
+import com.carservice.config.DatabaseExecutor;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous view of a {@link CrudDAO}: each operation runs the blocking DAO method on a {@link
+ * DatabaseExecutor} and returns a future of its result. A failed operation completes the future
+ * exceptionally with the DAO's {@link SQLException}. Cancelling a returned future, or its timing
+ * out, cancels the statement it is running.
+ *
+ * <p>Finders beyond the CRUD operations go through {@link #query(Finder)}, for example {@code
+ * cars.query(dao -> dao.findByCustomer(customerId))}.
+ *
+ * @param <T> the type of entity being managed
+ * @param <ID> the type of the entity's identifier
+ * @param <D> the type of the DAO
+ */
+public class AsyncCrudDAO<T, ID, D extends CrudDAO<T, ID>> {
+
+  /**
+   * A call on the DAO, such as one of its finders.
+   *
+   * @param <D> the type of the DAO
+   * @param <R> the type of the result
+   */
+  @FunctionalInterface
+  public interface Finder<D, R> {
+    /**
+     * Runs the call.
+     *
+     * @param dao the DAO
+     * @return the result of the call
+     * @throws SQLException if a database access error occurs
+     */
+    R find(D dao) throws SQLException;
+  }
+
+  private final D dao;
+  private final DatabaseExecutor executor;
+
+  /**
+   * Creates an asynchronous view of a DAO.
+   *
+   * @param dao the DAO
+   * @param executor the executor running its calls
+   */
+  public AsyncCrudDAO(D dao, DatabaseExecutor executor) {
+    this.dao = dao;
+    this.executor = executor;
+  }
+
+  /**
+   * Retrieves an entity by its ID.
+   *
+   * @param id the identifier of the entity to retrieve
+   * @return a future of the entity, or of null if not found
+   */
+  public CompletableFuture<T> findById(ID id) {
+    return executor.submit(() -> dao.findById(id));
+  }
+
+  /**
+   * Retrieves all entities.
+   *
+   * @return a future of the list of all entities
+   */
+  public CompletableFuture<List<T>> findAll() {
+    return executor.submit(dao::findAll);
+  }
+
+  /**
+   * Saves a new entity.
+   *
+   * @param entity the entity to save
+   * @return a future of the identifier of the saved entity
+   */
+  public CompletableFuture<ID> save(T entity) {
+    return executor.submit(() -> dao.save(entity));
+  }
+
+  /**
+   * Updates an existing entity.
+   *
+   * @param entity the entity to update
+   * @return a future of true if the entity was updated, false otherwise
+   */
+  public CompletableFuture<Boolean> update(T entity) {
+    return executor.submit(() -> dao.update(entity));
+  }
+
+  /**
+   * Deletes an entity by its ID.
+   *
+   * @param id the identifier of the entity to delete
+   * @return a future of true if the entity was deleted, false otherwise
+   */
+  public CompletableFuture<Boolean> delete(ID id) {
+    return executor.submit(() -> dao.delete(id));
+  }
+
+  /**
+   * Runs any call on the DAO, such as a finder, with the executor's default timeout.
+   *
+   * @param finder the call
+   * @param <R> the type of the result
+   * @return a future of the call's result
+   */
+  public <R> CompletableFuture<R> query(Finder<? super D, R> finder) {
+    return executor.submit(() -> finder.find(dao));
+  }
+
+  /**
+   * Runs any call on the DAO, such as a finder, with the given timeout.
+   *
+   * @param finder the call
+   * @param timeoutMillis how long the call may take, including its time in the queue, 0 for no
+   *     limit
+   * @param <R> the type of the result
+   * @return a future of the call's result
+   */
+  public <R> CompletableFuture<R> query(Finder<? super D, R> finder, long timeoutMillis) {
+    return executor.submit(() -> finder.find(dao), timeoutMillis);
+  }
+
+  /**
+   * Returns the wrapped DAO, for blocking calls.
+   *
+   * @return the DAO
+   */
+  public D getDao() {
+    return dao;
+  }
+}
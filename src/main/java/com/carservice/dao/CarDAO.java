@@ -2,6 +2,9 @@ package com.carservice.dao;
 
 import com.carservice.config.DatabaseConfig;
 import com.carservice.model.Car;
+import com.carservice.model.CompactCar;
+import com.carservice.util.RegNumbers;
+import com.carservice.util.StringPool;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -9,19 +12,20 @@ import java.util.List;
 /**
  * Data Access Object for handling Car entity operations with the database. Implements CRUD
  * operations for Car entities using the registration number as the primary identifier.
+ *
+ * <p>Each row also stores the normalized registration number in the indexed {@code regNoKey}
+ * column (see {@link RegNumbers#normalize(String)}), and cars are looked up by that key, so
+ * "ab12cde" finds the car registered as "AB12 CDE".
  */
 public class CarDAO implements CrudDAO<Car, String> {
-  private static final String FIND_BY_ID = "SELECT * FROM Car WHERE regNo = ?";
-  private static final String FIND_ALL = "SELECT * FROM Car";
-  private static final String INSERT =
-      "INSERT INTO Car (regNo, make, model, year, customerId) VALUES (?, ?, ?, ?, ?)";
-  private static final String UPDATE =
-      "UPDATE Car SET make = ?, model = ?, year = ?, customerId = ? WHERE regNo = ?";
-  private static final String DELETE = "DELETE FROM Car WHERE regNo = ?";
-  private static final String FIND_BY_CUSTOMER = "SELECT * FROM Car WHERE customerId = ?";
+  private static final int COMPACT_FETCH_SIZE = 1000;
+  private static final String FIND_BY_ID = CarMapper.SELECT + " WHERE regNoKey = ?";
+  private static final String FIND_BY_CUSTOMER = CarMapper.SELECT + " WHERE customerId = ?";
+  private static final String FIND_ALL_COMPACT =
+      "SELECT regNo, make, model, year, customerId FROM Car";
 
   /**
-   * Finds a car by its registration number.
+   * Finds a car by its registration number, ignoring case and whitespace.
    *
    * @param regNo the registration number of the car to find
    * @return the Car object if found, null otherwise
@@ -29,12 +33,12 @@ public class CarDAO implements CrudDAO<Car, String> {
    */
   @Override
   public Car findById(String regNo) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID)) {
-      stmt.setString(1, regNo);
+      stmt.setString(1, RegNumbers.normalize(regNo));
       try (ResultSet rs = stmt.executeQuery()) {
         if (rs.next()) {
-          return mapRowToCar(rs);
+          return CarMapper.map(rs);
         }
       }
     }
@@ -50,11 +54,40 @@ public class CarDAO implements CrudDAO<Car, String> {
   @Override
   public List<Car> findAll() throws SQLException {
     List<Car> cars = new ArrayList<>();
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery(FIND_ALL)) {
+        ResultSet rs = stmt.executeQuery(CarMapper.SELECT)) {
       while (rs.next()) {
-        cars.add(mapRowToCar(rs));
+        cars.add(CarMapper.map(rs));
+      }
+    }
+    return cars;
+  }
+
+  /**
+   * Retrieves all cars in their compact form, for bulk paths that hold many of them in memory at
+   * once. Repeated make and model values are shared between rows.
+   *
+   * @return a list of all cars as CompactCar objects
+   * @throws SQLException if a database access error occurs
+   */
+  public List<CompactCar> findAllCompact() throws SQLException {
+    List<CompactCar> cars = new ArrayList<>();
+    StringPool strings = new StringPool();
+    try (Connection conn = DatabaseConfig.getReadConnection();
+        Statement stmt =
+            conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+      stmt.setFetchSize(COMPACT_FETCH_SIZE);
+      try (ResultSet rs = stmt.executeQuery(FIND_ALL_COMPACT)) {
+        while (rs.next()) {
+          cars.add(
+              new CompactCar(
+                  rs.getString(1),
+                  strings.get(rs.getString(2)),
+                  strings.get(rs.getString(3)),
+                  rs.getInt(4),
+                  rs.getLong(5)));
+        }
       }
     }
     return cars;
@@ -69,12 +102,12 @@ public class CarDAO implements CrudDAO<Car, String> {
    */
   public List<Car> findByCustomer(Long customerId) throws SQLException {
     List<Car> cars = new ArrayList<>();
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         PreparedStatement stmt = conn.prepareStatement(FIND_BY_CUSTOMER)) {
       stmt.setLong(1, customerId);
       try (ResultSet rs = stmt.executeQuery()) {
         while (rs.next()) {
-          cars.add(mapRowToCar(rs));
+          cars.add(CarMapper.map(rs));
         }
       }
     }
@@ -91,29 +124,27 @@ public class CarDAO implements CrudDAO<Car, String> {
   @Override
   public String save(Car car) throws SQLException {
     try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(INSERT)) {
-      setCarParameters(stmt, car);
+        PreparedStatement stmt = conn.prepareStatement(CarMapper.INSERT)) {
+      CarMapper.bindInsert(stmt, car);
       stmt.executeUpdate();
       return car.getRegNo();
     }
   }
 
   /**
-   * Updates an existing car in the database.
+   * Updates an existing car in the database, provided its row still has the version the car was
+   * loaded with. The row's version is incremented.
    *
    * @param car the Car object with updated information
-   * @return true if the car was successfully updated, false otherwise
+   * @return true if the car was successfully updated, false if it does not exist or was changed
+   *     since it was loaded
    * @throws SQLException if a database access error occurs
    */
   @Override
   public boolean update(Car car) throws SQLException {
     try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(UPDATE)) {
-      stmt.setString(1, car.getMake());
-      stmt.setString(2, car.getModel());
-      stmt.setInt(3, car.getYear());
-      stmt.setLong(4, car.getCustomerId());
-      stmt.setString(5, car.getRegNo());
+        PreparedStatement stmt = conn.prepareStatement(CarMapper.UPDATE)) {
+      CarMapper.bindUpdate(stmt, car);
       return stmt.executeUpdate() > 0;
     }
   }
@@ -127,41 +158,42 @@ public class CarDAO implements CrudDAO<Car, String> {
    */
   @Override
   public boolean delete(String regNo) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(DELETE)) {
-      stmt.setString(1, regNo);
-      return stmt.executeUpdate() > 0;
+    try (Connection conn = DatabaseConfig.getConnection()) {
+      return delete(conn, regNo);
     }
   }
 
   /**
-   * Maps a database result set row to a Car object.
+   * Deletes a car using the given transactional connection. The car's jobs, and their payments,
+   * are deleted with it by the foreign keys.
    *
-   * @param rs the ResultSet containing car data
-   * @return a new Car object populated with the result set data
+   * @param conn the connection to use
+   * @param regNo the registration number of the car to delete
+   * @return true if the car was successfully deleted, false otherwise
    * @throws SQLException if a database access error occurs
    */
-  private Car mapRowToCar(ResultSet rs) throws SQLException {
-    return new Car(
-        rs.getString("regNo"),
-        rs.getString("make"),
-        rs.getString("model"),
-        rs.getInt("year"),
-        rs.getLong("customerId"));
+  public boolean delete(Connection conn, String regNo) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(CarMapper.DELETE)) {
+      stmt.setString(1, regNo);
+      return stmt.executeUpdate() > 0;
+    }
   }
 
   /**
-   * Sets the parameters of a PreparedStatement using the data from a Car object.
+   * Checks whether a car exists. Reads from the primary database, so the answer reflects
+   * changes that have not yet reached a read replica.
    *
-   * @param stmt the PreparedStatement to set parameters for
-   * @param car the Car object containing the data
+   * @param regNo the registration number of the car to check
+   * @return true if the car exists, false otherwise
    * @throws SQLException if a database access error occurs
    */
-  private void setCarParameters(PreparedStatement stmt, Car car) throws SQLException {
-    stmt.setString(1, car.getRegNo());
-    stmt.setString(2, car.getMake());
-    stmt.setString(3, car.getModel());
-    stmt.setInt(4, car.getYear());
-    stmt.setLong(5, car.getCustomerId());
+  public boolean exists(String regNo) throws SQLException {
+    try (Connection conn = DatabaseConfig.getConnection();
+        PreparedStatement stmt = conn.prepareStatement(CarMapper.EXISTS)) {
+      stmt.setString(1, regNo);
+      try (ResultSet rs = stmt.executeQuery()) {
+        return rs.next();
+      }
+    }
   }
 }
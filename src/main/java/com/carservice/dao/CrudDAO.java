@@ -6,6 +6,10 @@ import java.util.List;
 /**
  * Generic interface for basic CRUD (Create, Read, Update, Delete) operations.
  *
+ * <p>Implementations build their statements on the {@code <Model>Mapper} class generated for the
+ * entity from its annotations (see {@code com.carservice.codegen}), which also maps rows to models
+ * without reflection.
+ *
  * @param <T> the type of entity being managed
  * @param <ID> the type of the entity's identifier
  */
@@ -1,7 +1,9 @@
 package com.carservice.dao;
 
 import com.carservice.config.DatabaseConfig;
+import com.carservice.model.CompactCustomer;
 import com.carservice.model.Customer;
+import com.carservice.util.StringPool;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,15 +13,11 @@ import java.util.List;
  * operations for Customer entities using Long as the identifier type.
  */
 public class CustomerDAO implements CrudDAO<Customer, Long> {
-  private static final String FIND_BY_ID = "SELECT * FROM Customer WHERE customerId = ?";
-  private static final String FIND_ALL = "SELECT * FROM Customer";
-  private static final String INSERT =
-      "INSERT INTO Customer (forename, surname, address, postCode, phoneNo) VALUES (?, ?, ?, ?, ?)";
-  private static final String UPDATE =
-      "UPDATE Customer SET forename = ?, surname = ?, address = ?, postCode = ?, phoneNo = ? WHERE"
-          + " customerId = ?";
-  private static final String DELETE = "DELETE FROM Customer WHERE customerId = ?";
-  private static final String FIND_BY_SURNAME = "SELECT * FROM Customer WHERE surname LIKE ?";
+  private static final int COMPACT_FETCH_SIZE = 1000;
+  private static final String FIND_BY_ID = CustomerMapper.SELECT + " WHERE customerId = ?";
+  private static final String FIND_BY_SURNAME = CustomerMapper.SELECT + " WHERE surname LIKE ?";
+  private static final String FIND_ALL_COMPACT =
+      "SELECT customerId, forename, surname, address, postCode, phoneNo FROM Customer";
 
   /**
    * Finds a customer by their ID.
@@ -30,12 +28,12 @@ public class CustomerDAO implements CrudDAO<Customer, Long> {
    */
   @Override
   public Customer findById(Long id) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID)) {
       stmt.setLong(1, id);
       try (ResultSet rs = stmt.executeQuery()) {
         if (rs.next()) {
-          return mapRowToCustomer(rs);
+          return CustomerMapper.map(rs);
         }
       }
     }
@@ -51,11 +49,41 @@ public class CustomerDAO implements CrudDAO<Customer, Long> {
   @Override
   public List<Customer> findAll() throws SQLException {
     List<Customer> customers = new ArrayList<>();
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery(FIND_ALL)) {
+        ResultSet rs = stmt.executeQuery(CustomerMapper.SELECT)) {
       while (rs.next()) {
-        customers.add(mapRowToCustomer(rs));
+        customers.add(CustomerMapper.map(rs));
+      }
+    }
+    return customers;
+  }
+
+  /**
+   * Retrieves all customers in their compact form, for bulk paths that hold many of them in memory
+   * at once. Repeated forename, surname and post code values are shared between rows.
+   *
+   * @return a list of all customers as CompactCustomer objects
+   * @throws SQLException if a database access error occurs
+   */
+  public List<CompactCustomer> findAllCompact() throws SQLException {
+    List<CompactCustomer> customers = new ArrayList<>();
+    StringPool strings = new StringPool();
+    try (Connection conn = DatabaseConfig.getReadConnection();
+        Statement stmt =
+            conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+      stmt.setFetchSize(COMPACT_FETCH_SIZE);
+      try (ResultSet rs = stmt.executeQuery(FIND_ALL_COMPACT)) {
+        while (rs.next()) {
+          customers.add(
+              new CompactCustomer(
+                  rs.getLong(1),
+                  strings.get(rs.getString(2)),
+                  strings.get(rs.getString(3)),
+                  rs.getString(4),
+                  strings.get(rs.getString(5)),
+                  rs.getString(6)));
+        }
       }
     }
     return customers;
@@ -70,12 +98,12 @@ public class CustomerDAO implements CrudDAO<Customer, Long> {
    */
   public List<Customer> findBySurname(String surname) throws SQLException {
     List<Customer> customers = new ArrayList<>();
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         PreparedStatement stmt = conn.prepareStatement(FIND_BY_SURNAME)) {
       stmt.setString(1, surname + "%");
       try (ResultSet rs = stmt.executeQuery()) {
         while (rs.next()) {
-          customers.add(mapRowToCustomer(rs));
+          customers.add(CustomerMapper.map(rs));
         }
       }
     }
@@ -92,8 +120,9 @@ public class CustomerDAO implements CrudDAO<Customer, Long> {
   @Override
   public Long save(Customer customer) throws SQLException {
     try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
-      setCustomerParameters(stmt, customer);
+        PreparedStatement stmt =
+            conn.prepareStatement(CustomerMapper.INSERT, Statement.RETURN_GENERATED_KEYS)) {
+      CustomerMapper.bindInsert(stmt, customer);
       stmt.executeUpdate();
       try (ResultSet rs = stmt.getGeneratedKeys()) {
         if (rs.next()) {
@@ -105,18 +134,19 @@ public class CustomerDAO implements CrudDAO<Customer, Long> {
   }
 
   /**
-   * Updates an existing customer in the database.
+   * Updates an existing customer in the database, provided its row still has the version the
+   * customer was loaded with. The row's version is incremented.
    *
    * @param customer the Customer object with updated information
-   * @return true if the customer was successfully updated, false otherwise
+   * @return true if the customer was successfully updated, false if it does not exist or was
+   *     changed since it was loaded
    * @throws SQLException if a database access error occurs
    */
   @Override
   public boolean update(Customer customer) throws SQLException {
     try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(UPDATE)) {
-      setCustomerParameters(stmt, customer);
-      stmt.setLong(6, customer.getCustomerId());
+        PreparedStatement stmt = conn.prepareStatement(CustomerMapper.UPDATE)) {
+      CustomerMapper.bindUpdate(stmt, customer);
       return stmt.executeUpdate() > 0;
     }
   }
@@ -130,43 +160,42 @@ public class CustomerDAO implements CrudDAO<Customer, Long> {
    */
   @Override
   public boolean delete(Long id) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(DELETE)) {
-      stmt.setLong(1, id);
-      return stmt.executeUpdate() > 0;
+    try (Connection conn = DatabaseConfig.getConnection()) {
+      return delete(conn, id);
     }
   }
 
   /**
-   * Maps a database result set row to a Customer object.
+   * Deletes a customer using the given transactional connection. The customer's cars, with their
+   * jobs and payments, are deleted with it by the foreign keys.
    *
-   * @param rs the ResultSet containing customer data
-   * @return a new Customer object populated with the result set data
+   * @param conn the connection to use
+   * @param id the ID of the customer to delete
+   * @return true if the customer was successfully deleted, false otherwise
    * @throws SQLException if a database access error occurs
    */
-  private Customer mapRowToCustomer(ResultSet rs) throws SQLException {
-    return new Customer(
-        rs.getLong("customerId"),
-        rs.getString("forename"),
-        rs.getString("surname"),
-        rs.getString("address"),
-        rs.getString("postCode"),
-        rs.getString("phoneNo"));
+  public boolean delete(Connection conn, Long id) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(CustomerMapper.DELETE)) {
+      stmt.setLong(1, id);
+      return stmt.executeUpdate() > 0;
+    }
   }
 
   /**
-   * Sets the common parameters of a PreparedStatement using the data from a Customer object.
+   * Checks whether a customer exists. Reads from the primary database, so the answer reflects
+   * changes that have not yet reached a read replica.
    *
-   * @param stmt the PreparedStatement to set parameters for
-   * @param customer the Customer object containing the data
+   * @param id the ID of the customer to check
+   * @return true if the customer exists, false otherwise
    * @throws SQLException if a database access error occurs
    */
-  private void setCustomerParameters(PreparedStatement stmt, Customer customer)
-      throws SQLException {
-    stmt.setString(1, customer.getForename());
-    stmt.setString(2, customer.getSurname());
-    stmt.setString(3, customer.getAddress());
-    stmt.setString(4, customer.getPostCode());
-    stmt.setString(5, customer.getPhoneNo());
+  public boolean exists(Long id) throws SQLException {
+    try (Connection conn = DatabaseConfig.getConnection();
+        PreparedStatement stmt = conn.prepareStatement(CustomerMapper.EXISTS)) {
+      stmt.setLong(1, id);
+      try (ResultSet rs = stmt.executeQuery()) {
+        return rs.next();
+      }
+    }
   }
 }
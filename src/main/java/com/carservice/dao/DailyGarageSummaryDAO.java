@@ -0,0 +1,139 @@
+package com.carservice.dao;
+
+import com.carservice.config.DatabaseConfig;
+import com.carservice.model.Job;
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Data Access Object for the DailyGarageSummary table. The summary holds per garage, per day
+ * counters derived from Job and Payment rows. It is maintained incrementally by applying deltas on
+ * the caller's transactional connection, and can be rebuilt from scratch when needed.
+ */
+public class DailyGarageSummaryDAO {
+  private static final String APPLY_DELTA =
+      "INSERT INTO DailyGarageSummary "
+          + "(garageId, summaryDate, jobsOpened, jobsClosed, revenue, serviceDays) "
+          + "VALUES (?, ?, ?, ?, ?, ?) "
+          + "ON DUPLICATE KEY UPDATE "
+          + "jobsOpened = jobsOpened + VALUES(jobsOpened), "
+          + "jobsClosed = jobsClosed + VALUES(jobsClosed), "
+          + "revenue = revenue + VALUES(revenue), "
+          + "serviceDays = serviceDays + VALUES(serviceDays)";
+  private static final String DELETE_ALL = "DELETE FROM DailyGarageSummary";
+  private static final String REBUILD =
+      "INSERT INTO DailyGarageSummary "
+          + "(garageId, summaryDate, jobsOpened, jobsClosed, revenue, serviceDays) "
+          + "SELECT garageId, summaryDate, SUM(opened), SUM(closed), SUM(revenue), SUM(days) "
+          + "FROM ("
+          + "SELECT garageId, DATE(dateIn) AS summaryDate, 1 AS opened, 0 AS closed, "
+          + "0 AS revenue, 0 AS days FROM Job "
+          + "UNION ALL "
+          + "SELECT garageId, DATE(dateOut), 0, 1, 0, TIMESTAMPDIFF(DAY, dateIn, dateOut) + 1 "
+          + "FROM Job WHERE dateOut IS NOT NULL "
+          + "UNION ALL "
+          + "SELECT j.garageId, DATE(p.paymentDate), 0, 0, p.amount, 0 "
+          + "FROM Payment p INNER JOIN Job j ON p.jobId = j.jobId "
+          + "WHERE p.paymentStatus = 'PAID'"
+          + ") AS activity "
+          + "GROUP BY garageId, summaryDate";
+  private static final String GET_ACTIVE_JOB_COUNT =
+      "SELECT COALESCE(SUM(jobsOpened), 0) - COALESCE(SUM(jobsClosed), 0) "
+          + "FROM DailyGarageSummary";
+
+  /**
+   * Adds or removes a job's contribution to the summary. A job counts as opened on the day of its
+   * date in and, once it has a date out, as closed on that day together with its service days.
+   *
+   * @param conn the transactional connection to use
+   * @param job the job whose contribution is applied
+   * @param sign 1 to add the job's contribution, -1 to remove it
+   * @throws SQLException if a database access error occurs
+   */
+  public void applyJob(Connection conn, Job job, int sign) throws SQLException {
+    applyDelta(conn, job.getGarageId(), job.getDateIn().toLocalDate(), sign, 0, 0.0, 0);
+    if (job.getDateOut() != null) {
+      long days = Duration.between(job.getDateIn(), job.getDateOut()).toDays() + 1;
+      applyDelta(
+          conn, job.getGarageId(), job.getDateOut().toLocalDate(), 0, sign, 0.0, sign * days);
+    }
+  }
+
+  /**
+   * Adds a payment amount to the revenue of a garage on the day the payment was made.
+   *
+   * @param conn the transactional connection to use
+   * @param garageId the ID of the garage that carried out the job
+   * @param paymentDate the date and time of the payment
+   * @param amount the amount to add (negative to reverse a payment)
+   * @throws SQLException if a database access error occurs
+   */
+  public void applyRevenue(Connection conn, Long garageId, LocalDateTime paymentDate, double amount)
+      throws SQLException {
+    applyDelta(conn, garageId, paymentDate.toLocalDate(), 0, 0, amount, 0);
+  }
+
+  /**
+   * Rebuilds the whole summary table from the Job and Payment tables in a single transaction.
+   *
+   * @return the number of summary rows written
+   * @throws SQLException if a database access error occurs
+   */
+  public int rebuild() throws SQLException {
+    return Transactions.execute(
+        conn -> {
+          try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(DELETE_ALL);
+            return stmt.executeUpdate(REBUILD);
+          }
+        });
+  }
+
+  /**
+   * Calculates the number of jobs that have been opened but not yet closed across all garages.
+   *
+   * @return the number of active jobs
+   * @throws SQLException if a database access error occurs
+   */
+  public long getActiveJobCount() throws SQLException {
+    try (Connection conn = DatabaseConfig.getReadConnection();
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(GET_ACTIVE_JOB_COUNT)) {
+      return rs.next() ? rs.getLong(1) : 0;
+    }
+  }
+
+  /**
+   * Upserts a delta into the summary row for a garage and day.
+   *
+   * @param conn the transactional connection to use
+   * @param garageId the ID of the garage
+   * @param date the summary day
+   * @param opened the change in jobs opened
+   * @param closed the change in jobs closed
+   * @param revenue the change in revenue
+   * @param serviceDays the change in service days
+   * @throws SQLException if a database access error occurs
+   */
+  private void applyDelta(
+      Connection conn,
+      Long garageId,
+      LocalDate date,
+      int opened,
+      int closed,
+      double revenue,
+      long serviceDays)
+      throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(APPLY_DELTA)) {
+      stmt.setLong(1, garageId);
+      stmt.setDate(2, Date.valueOf(date));
+      stmt.setInt(3, opened);
+      stmt.setInt(4, closed);
+      stmt.setDouble(5, revenue);
+      stmt.setLong(6, serviceDays);
+      stmt.executeUpdate();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.carservice.dao;
+
+import com.carservice.config.DatabaseConfig;
+import java.sql.*;
+
+/**
+ * Data Access Object for exporting whole tables. Rows are read through a forward-only, read-only
+ * cursor with a fetch size, so the driver streams them instead of loading the full result set.
+ * The stream has no query timeout; run it under a {@link com.carservice.config.QueryCanceller} to
+ * be able to stop it.
+ */
+public class ExportDAO {
+  private static final int FETCH_SIZE = 500;
+
+  /**
+   * Callback invoked for every row of an export.
+   *
+   * <p>The result set is positioned on the current row and must not be advanced or closed.
+   */
+  @FunctionalInterface
+  public interface RowCallback {
+    /**
+     * Handles one row.
+     *
+     * @param rs the result set positioned on the current row
+     * @return true to continue with the next row, false to stop streaming
+     * @throws SQLException if a database access error occurs
+     */
+    boolean onRow(ResultSet rs) throws SQLException;
+  }
+
+  /**
+   * Counts the rows of a table so progress can be reported.
+   *
+   * @param table the table to count
+   * @return the number of rows
+   * @throws SQLException if a database access error occurs
+   */
+  public long count(ExportTable table) throws SQLException {
+    try (Connection conn = DatabaseConfig.getReadConnection();
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(table.countSql())) {
+      return rs.next() ? rs.getLong(1) : 0;
+    }
+  }
+
+  /**
+   * Streams every row of a table to the callback, in key order.
+   *
+   * @param table the table to export
+   * @param callback the callback invoked for each row
+   * @return the number of rows passed to the callback
+   * @throws SQLException if a database access error occurs
+   */
+  public long stream(ExportTable table, RowCallback callback) throws SQLException {
+    long rows = 0;
+    try (Connection conn = DatabaseConfig.getReadConnection();
+        Statement stmt =
+            conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+      stmt.setFetchSize(FETCH_SIZE);
+      // Streaming a large table can outlast the default query timeout; exports are cancelled from
+      // the status bar instead
+      stmt.setQueryTimeout(0);
+      try (ResultSet rs = stmt.executeQuery(table.selectSql())) {
+        while (rs.next()) {
+          rows++;
+          if (!callback.onRow(rs)) {
+            break;
+          }
+        }
+      }
+    }
+    return rows;
+  }
+}
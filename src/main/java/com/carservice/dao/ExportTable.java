@@ -0,0 +1,73 @@
+package com.carservice.dao;
+
+/**
+ * Tables that can be exported, together with the columns written for each one. The column list is
+ * also used as the CSV header row.
+ */
+public enum ExportTable {
+  JOB("Jobs", "Job", "jobId", "garageId", "regNo", "dateIn", "dateOut", "cost"),
+  CAR("Cars", "Car", "regNo", "make", "model", "year", "customerId"),
+  CUSTOMER(
+      "Customers", "Customer", "customerId", "forename", "surname", "address", "postCode", "phoneNo"),
+  PAYMENT(
+      "Payments",
+      "Payment",
+      "paymentId",
+      "jobId",
+      "amount",
+      "paymentDate",
+      "paymentMethod",
+      "paymentStatus"),
+  ACTIVITY(
+      "Activities", "Activity", "activityId", "type", "action", "description", "timestamp", "userId"),
+  ACTIVITY_ARCHIVE(
+      "Archived Activities",
+      "ActivityArchive",
+      "activityId",
+      "type",
+      "action",
+      "description",
+      "timestamp",
+      "userId");
+
+  private final String displayName;
+  private final String tableName;
+  private final String[] columns;
+
+  ExportTable(String displayName, String tableName, String... columns) {
+    this.displayName = displayName;
+    this.tableName = tableName;
+    this.columns = columns;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  public String[] getColumns() {
+    return columns.clone();
+  }
+
+  /**
+   * Builds the query that selects every exported column, ordered by the table's key.
+   *
+   * @return the SELECT statement for this table
+   */
+  String selectSql() {
+    return "SELECT " + String.join(", ", columns) + " FROM " + tableName + " ORDER BY " + columns[0];
+  }
+
+  /**
+   * Builds the query that counts the rows of this table.
+   *
+   * @return the COUNT statement for this table
+   */
+  String countSql() {
+    return "SELECT COUNT(*) FROM " + tableName;
+  }
+
+  @Override
+  public String toString() {
+    return displayName;
+  }
+}
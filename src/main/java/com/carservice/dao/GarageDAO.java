@@ -11,16 +11,10 @@ import java.util.List;
  * operations for Garage entities using Long as the identifier type.
  */
 public class GarageDAO implements CrudDAO<Garage, Long> {
-  private static final String FIND_BY_ID = "SELECT * FROM Garage WHERE garageId = ?";
-  private static final String FIND_ALL = "SELECT * FROM Garage";
-  private static final String INSERT =
-      "INSERT INTO Garage (garageName, address, town, postCode, phoneNo) VALUES (?, ?, ?, ?, ?)";
-  private static final String UPDATE =
-      "UPDATE Garage SET garageName = ?, address = ?, town = ?, postCode = ?, phoneNo = ? WHERE"
-          + " garageId = ?";
-  private static final String DELETE = "DELETE FROM Garage WHERE garageId = ?";
+  private static final String FIND_BY_ID = GarageMapper.SELECT + " WHERE garageId = ?";
   private static final String CHECK_EXISTING_JOBS = "SELECT COUNT(*) FROM Job WHERE garageId = ?";
-  private static final String FIND_BY_NAME = "SELECT * FROM Garage WHERE LOWER(garageName) LIKE ?";
+  private static final String FIND_BY_NAME =
+      GarageMapper.SELECT + " WHERE LOWER(garageName) LIKE ?";
 
   /**
    * Finds garages by name, supporting partial and case-insensitive matches.
@@ -31,12 +25,12 @@ public class GarageDAO implements CrudDAO<Garage, Long> {
    */
   public List<Garage> findByName(String name) throws SQLException {
     List<Garage> garages = new ArrayList<>();
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         PreparedStatement stmt = conn.prepareStatement(FIND_BY_NAME)) {
       stmt.setString(1, "%" + name.toLowerCase() + "%");
       try (ResultSet rs = stmt.executeQuery()) {
         while (rs.next()) {
-          garages.add(mapRowToGarage(rs));
+          garages.add(GarageMapper.map(rs));
         }
       }
     }
@@ -52,12 +46,12 @@ public class GarageDAO implements CrudDAO<Garage, Long> {
    */
   @Override
   public Garage findById(Long id) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID)) {
       stmt.setLong(1, id);
       try (ResultSet rs = stmt.executeQuery()) {
         if (rs.next()) {
-          return mapRowToGarage(rs);
+          return GarageMapper.map(rs);
         }
       }
     }
@@ -73,11 +67,11 @@ public class GarageDAO implements CrudDAO<Garage, Long> {
   @Override
   public List<Garage> findAll() throws SQLException {
     List<Garage> garages = new ArrayList<>();
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery(FIND_ALL)) {
+        ResultSet rs = stmt.executeQuery(GarageMapper.SELECT)) {
       while (rs.next()) {
-        garages.add(mapRowToGarage(rs));
+        garages.add(GarageMapper.map(rs));
       }
     }
     return garages;
@@ -93,8 +87,9 @@ public class GarageDAO implements CrudDAO<Garage, Long> {
   @Override
   public Long save(Garage garage) throws SQLException {
     try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
-      setGarageParameters(stmt, garage);
+        PreparedStatement stmt =
+            conn.prepareStatement(GarageMapper.INSERT, Statement.RETURN_GENERATED_KEYS)) {
+      GarageMapper.bindInsert(stmt, garage);
       stmt.executeUpdate();
       try (ResultSet rs = stmt.getGeneratedKeys()) {
         if (rs.next()) {
@@ -106,7 +101,8 @@ public class GarageDAO implements CrudDAO<Garage, Long> {
   }
 
   /**
-   * Checks if a garage has any associated jobs.
+   * Counts the jobs associated with a garage, such as to explain why it cannot be deleted. Reads
+   * from the primary database, so the count reflects writes just made.
    *
    * @param garageId the ID of the garage to check
    * @return the number of jobs associated with this garage
@@ -123,67 +119,56 @@ public class GarageDAO implements CrudDAO<Garage, Long> {
   }
 
   /**
-   * Updates an existing garage in the database.
+   * Updates an existing garage in the database, provided its row still has the version the garage
+   * was loaded with. The row's version is incremented.
    *
    * @param garage the Garage object with updated information
-   * @return true if the garage was successfully updated, false otherwise
+   * @return true if the garage was successfully updated, false if it does not exist or was changed
+   *     since it was loaded
    * @throws SQLException if a database access error occurs
    */
   @Override
   public boolean update(Garage garage) throws SQLException {
     try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(UPDATE)) {
-      setGarageParameters(stmt, garage);
-      stmt.setLong(6, garage.getGarageId());
+        PreparedStatement stmt = conn.prepareStatement(GarageMapper.UPDATE)) {
+      GarageMapper.bindUpdate(stmt, garage);
       return stmt.executeUpdate() > 0;
     }
   }
 
   /**
-   * Deletes a garage from the database.
+   * Deletes a garage from the database in a single statement. The Job table's foreign key refuses
+   * the delete while any job refers to the garage, so there is no need to check for jobs first.
    *
    * @param id the ID of the garage to delete
-   * @return true if the garage was successfully deleted, false otherwise
-   * @throws SQLException if a database access error occurs
+   * @return true if the garage was successfully deleted, false if it does not exist
+   * @throws SQLException if a database access error occurs, with an SQLState of class 23
+   *     (integrity constraint violation) if jobs refer to the garage
    */
   @Override
   public boolean delete(Long id) throws SQLException {
     try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(DELETE)) {
+        PreparedStatement stmt = conn.prepareStatement(GarageMapper.DELETE)) {
       stmt.setLong(1, id);
       return stmt.executeUpdate() > 0;
     }
   }
 
   /**
-   * Maps a database result set row to a Garage object.
+   * Checks whether a garage exists. Reads from the primary database, so the answer reflects
+   * changes that have not yet reached a read replica.
    *
-   * @param rs the ResultSet containing garage data
-   * @return a new Garage object populated with the result set data
+   * @param id the ID of the garage to check
+   * @return true if the garage exists, false otherwise
    * @throws SQLException if a database access error occurs
    */
-  private Garage mapRowToGarage(ResultSet rs) throws SQLException {
-    return new Garage(
-        rs.getLong("garageId"),
-        rs.getString("garageName"),
-        rs.getString("address"),
-        rs.getString("town"),
-        rs.getString("postCode"),
-        rs.getString("phoneNo"));
-  }
-
-  /**
-   * Sets the common parameters of a PreparedStatement using the data from a Garage object.
-   *
-   * @param stmt the PreparedStatement to set parameters for
-   * @param garage the Garage object containing the data
-   * @throws SQLException if a database access error occurs
-   */
-  private void setGarageParameters(PreparedStatement stmt, Garage garage) throws SQLException {
-    stmt.setString(1, garage.getGarageName());
-    stmt.setString(2, garage.getAddress());
-    stmt.setString(3, garage.getTown());
-    stmt.setString(4, garage.getPostCode());
-    stmt.setString(5, garage.getPhoneNo());
+  public boolean exists(Long id) throws SQLException {
+    try (Connection conn = DatabaseConfig.getConnection();
+        PreparedStatement stmt = conn.prepareStatement(GarageMapper.EXISTS)) {
+      stmt.setLong(1, id);
+      try (ResultSet rs = stmt.executeQuery()) {
+        return rs.next();
+      }
+    }
   }
 }
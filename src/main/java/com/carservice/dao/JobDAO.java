@@ -1,7 +1,10 @@
 package com.carservice.dao;
 
 import com.carservice.config.DatabaseConfig;
+import com.carservice.model.CompactJob;
 import com.carservice.model.Job;
+import com.carservice.util.RegNumbers;
+import com.carservice.util.StringPool;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,15 +15,18 @@ import java.util.List;
  * for searching jobs by car, garage, and calculating customer costs.
  */
 public class JobDAO implements CrudDAO<Job, Long> {
-  private static final String FIND_BY_ID = "SELECT * FROM Job WHERE jobId = ?";
-  private static final String FIND_ALL = "SELECT * FROM Job";
-  private static final String INSERT =
-      "INSERT INTO Job (garageId, dateIn, dateOut, regNo, cost) VALUES (?, ?, ?, ?, ?)";
-  private static final String UPDATE =
-      "UPDATE Job SET garageId = ?, dateIn = ?, dateOut = ?, regNo = ?, cost = ? WHERE jobId = ?";
-  private static final String DELETE = "DELETE FROM Job WHERE jobId = ?";
-  private static final String FIND_BY_CAR = "SELECT * FROM Job WHERE regNo = ?";
-  private static final String FIND_BY_GARAGE = "SELECT * FROM Job WHERE garageId = ?";
+  private static final int COMPACT_FETCH_SIZE = 1000;
+  private static final String FIND_BY_ID = JobMapper.SELECT + " WHERE jobId = ?";
+  private static final String FIND_BY_ID_FOR_UPDATE =
+      JobMapper.SELECT + " WHERE jobId = ? FOR UPDATE";
+  private static final String FIND_BY_REG_NO_FOR_UPDATE =
+      JobMapper.SELECT + " WHERE regNo = ? FOR UPDATE";
+  private static final String FIND_BY_CUSTOMER_FOR_UPDATE =
+      JobMapper.SELECT + " WHERE regNo IN (SELECT regNo FROM Car WHERE customerId = ?) FOR UPDATE";
+  private static final String FIND_BY_CAR =
+      "SELECT j.jobId, j.garageId, j.dateIn, j.dateOut, j.regNo, j.cost, j.version"
+          + " FROM Job j INNER JOIN Car c ON j.regNo = c.regNo WHERE c.regNoKey = ?";
+  private static final String FIND_BY_GARAGE = JobMapper.SELECT + " WHERE garageId = ?";
   private static final String GET_AVG_COST_BY_CUSTOMER =
       "SELECT AVG(j.cost) as avgCost "
           + "FROM Job j "
@@ -28,6 +34,8 @@ public class JobDAO implements CrudDAO<Job, Long> {
           + "WHERE c.customerId = ? "
           + "AND j.cost IS NOT NULL "
           + "AND j.dateOut IS NOT NULL";
+  private static final String FIND_ALL_COMPACT =
+      "SELECT jobId, garageId, dateIn, dateOut, regNo, cost FROM Job";
 
   /**
    * Finds a job by its ID.
@@ -38,18 +46,72 @@ public class JobDAO implements CrudDAO<Job, Long> {
    */
   @Override
   public Job findById(Long id) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID)) {
       stmt.setLong(1, id);
       try (ResultSet rs = stmt.executeQuery()) {
         if (rs.next()) {
-          return mapRowToJob(rs);
+          return JobMapper.map(rs);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds a job by its ID on the given transactional connection and locks its row until the
+   * transaction ends.
+   *
+   * @param conn the transactional connection to use
+   * @param id the job ID to search for
+   * @return the Job object if found, null otherwise
+   * @throws SQLException if a database access error occurs
+   */
+  public Job findByIdForUpdate(Connection conn, Long id) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(FIND_BY_ID_FOR_UPDATE)) {
+      stmt.setLong(1, id);
+      try (ResultSet rs = stmt.executeQuery()) {
+        if (rs.next()) {
+          return JobMapper.map(rs);
         }
       }
     }
     return null;
   }
 
+  /**
+   * Finds the jobs of a car on the given transactional connection and locks their rows until the
+   * transaction ends, such as before deleting the car, which deletes its jobs too.
+   *
+   * @param conn the transactional connection to use
+   * @param regNo the registration number of the car, exactly as stored
+   * @return the car's jobs
+   * @throws SQLException if a database access error occurs
+   */
+  public List<Job> findByRegNoForUpdate(Connection conn, String regNo) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(FIND_BY_REG_NO_FOR_UPDATE)) {
+      stmt.setString(1, regNo);
+      return mapAll(stmt);
+    }
+  }
+
+  /**
+   * Finds the jobs of all cars of a customer on the given transactional connection and locks their
+   * rows until the transaction ends, such as before deleting the customer, which deletes the cars
+   * and their jobs too.
+   *
+   * @param conn the transactional connection to use
+   * @param customerId the ID of the customer
+   * @return the jobs of the customer's cars
+   * @throws SQLException if a database access error occurs
+   */
+  public List<Job> findByCustomerForUpdate(Connection conn, Long customerId) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(FIND_BY_CUSTOMER_FOR_UPDATE)) {
+      stmt.setLong(1, customerId);
+      return mapAll(stmt);
+    }
+  }
+
   /**
    * Retrieves all jobs from the database.
    *
@@ -59,18 +121,51 @@ public class JobDAO implements CrudDAO<Job, Long> {
   @Override
   public List<Job> findAll() throws SQLException {
     List<Job> jobs = new ArrayList<>();
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         Statement stmt = conn.createStatement();
-        ResultSet rs = stmt.executeQuery(FIND_ALL)) {
+        ResultSet rs = stmt.executeQuery(JobMapper.SELECT)) {
       while (rs.next()) {
-        jobs.add(mapRowToJob(rs));
+        jobs.add(JobMapper.map(rs));
+      }
+    }
+    return jobs;
+  }
+
+  /**
+   * Retrieves all jobs in their compact form, for bulk paths that hold many of them in memory at
+   * once. Repeated registration number values are shared between rows.
+   *
+   * @return a list of all jobs as CompactJob objects
+   * @throws SQLException if a database access error occurs
+   */
+  public List<CompactJob> findAllCompact() throws SQLException {
+    List<CompactJob> jobs = new ArrayList<>();
+    StringPool strings = new StringPool();
+    try (Connection conn = DatabaseConfig.getReadConnection();
+        Statement stmt =
+            conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+      stmt.setFetchSize(COMPACT_FETCH_SIZE);
+      try (ResultSet rs = stmt.executeQuery(FIND_ALL_COMPACT)) {
+        while (rs.next()) {
+          Timestamp dateOut = rs.getTimestamp(4);
+          double cost = rs.getDouble(6);
+          jobs.add(
+              new CompactJob(
+                  rs.getLong(1),
+                  rs.getLong(2),
+                  rs.getTimestamp(3).toLocalDateTime(),
+                  dateOut != null ? dateOut.toLocalDateTime() : null,
+                  strings.get(rs.getString(5)),
+                  rs.wasNull() ? null : cost));
+        }
       }
     }
     return jobs;
   }
 
   /**
-   * Finds all jobs for a specific car by registration number.
+   * Finds all jobs for a specific car by registration number, ignoring case and whitespace. The car
+   * is found through its indexed normalized registration number.
    *
    * @param regNo the registration number of the car
    * @return a list of jobs associated with the specified car
@@ -78,12 +173,12 @@ public class JobDAO implements CrudDAO<Job, Long> {
    */
   public List<Job> findByCar(String regNo) throws SQLException {
     List<Job> jobs = new ArrayList<>();
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         PreparedStatement stmt = conn.prepareStatement(FIND_BY_CAR)) {
-      stmt.setString(1, regNo);
+      stmt.setString(1, RegNumbers.normalize(regNo));
       try (ResultSet rs = stmt.executeQuery()) {
         while (rs.next()) {
-          jobs.add(mapRowToJob(rs));
+          jobs.add(JobMapper.map(rs));
         }
       }
     }
@@ -99,12 +194,12 @@ public class JobDAO implements CrudDAO<Job, Long> {
    */
   public List<Job> findByGarage(Long garageId) throws SQLException {
     List<Job> jobs = new ArrayList<>();
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         PreparedStatement stmt = conn.prepareStatement(FIND_BY_GARAGE)) {
       stmt.setLong(1, garageId);
       try (ResultSet rs = stmt.executeQuery()) {
         while (rs.next()) {
-          jobs.add(mapRowToJob(rs));
+          jobs.add(JobMapper.map(rs));
         }
       }
     }
@@ -120,9 +215,23 @@ public class JobDAO implements CrudDAO<Job, Long> {
    */
   @Override
   public Long save(Job job) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
-      setJobParameters(stmt, job);
+    try (Connection conn = DatabaseConfig.getConnection()) {
+      return save(conn, job);
+    }
+  }
+
+  /**
+   * Saves a new job using the given transactional connection.
+   *
+   * @param conn the connection to use
+   * @param job the Job object to save
+   * @return the generated job ID, or null if the operation fails
+   * @throws SQLException if a database access error occurs
+   */
+  public Long save(Connection conn, Job job) throws SQLException {
+    try (PreparedStatement stmt =
+        conn.prepareStatement(JobMapper.INSERT, Statement.RETURN_GENERATED_KEYS)) {
+      JobMapper.bindInsert(stmt, job);
       stmt.executeUpdate();
       try (ResultSet rs = stmt.getGeneratedKeys()) {
         if (rs.next()) {
@@ -134,18 +243,34 @@ public class JobDAO implements CrudDAO<Job, Long> {
   }
 
   /**
-   * Updates an existing job in the database.
+   * Updates an existing job in the database, provided its row still has the version the job was
+   * loaded with. The row's version is incremented.
    *
    * @param job the Job object with updated information
-   * @return true if the job was successfully updated, false otherwise
+   * @return true if the job was successfully updated, false if it does not exist or was changed
+   *     since it was loaded
    * @throws SQLException if a database access error occurs
    */
   @Override
   public boolean update(Job job) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(UPDATE)) {
-      setJobParameters(stmt, job);
-      stmt.setLong(6, job.getJobId());
+    try (Connection conn = DatabaseConfig.getConnection()) {
+      return update(conn, job);
+    }
+  }
+
+  /**
+   * Updates an existing job using the given transactional connection, provided its row still has
+   * the version the job was loaded with. The row's version is incremented.
+   *
+   * @param conn the connection to use
+   * @param job the Job object with updated information
+   * @return true if the job was successfully updated, false if it does not exist or was changed
+   *     since it was loaded
+   * @throws SQLException if a database access error occurs
+   */
+  public boolean update(Connection conn, Job job) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(JobMapper.UPDATE)) {
+      JobMapper.bindUpdate(stmt, job);
       return stmt.executeUpdate() > 0;
     }
   }
@@ -159,13 +284,44 @@ public class JobDAO implements CrudDAO<Job, Long> {
    */
   @Override
   public boolean delete(Long id) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(DELETE)) {
+    try (Connection conn = DatabaseConfig.getConnection()) {
+      return delete(conn, id);
+    }
+  }
+
+  /**
+   * Deletes a job using the given transactional connection.
+   *
+   * @param conn the connection to use
+   * @param id the ID of the job to delete
+   * @return true if the job was successfully deleted, false otherwise
+   * @throws SQLException if a database access error occurs
+   */
+  public boolean delete(Connection conn, Long id) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(JobMapper.DELETE)) {
       stmt.setLong(1, id);
       return stmt.executeUpdate() > 0;
     }
   }
 
+  /**
+   * Checks whether a job exists. Reads from the primary database, so the answer reflects
+   * changes that have not yet reached a read replica.
+   *
+   * @param id the ID of the job to check
+   * @return true if the job exists, false otherwise
+   * @throws SQLException if a database access error occurs
+   */
+  public boolean exists(Long id) throws SQLException {
+    try (Connection conn = DatabaseConfig.getConnection();
+        PreparedStatement stmt = conn.prepareStatement(JobMapper.EXISTS)) {
+      stmt.setLong(1, id);
+      try (ResultSet rs = stmt.executeQuery()) {
+        return rs.next();
+      }
+    }
+  }
+
   /**
    * Calculates the average service cost for a specific customer. Only considers completed jobs with
    * non-null costs.
@@ -175,12 +331,12 @@ public class JobDAO implements CrudDAO<Job, Long> {
    * @throws SQLException if a database access error occurs
    */
   public Double getAverageServiceCostByCustomer(Long customerId) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
+    try (Connection conn = DatabaseConfig.getReadConnection();
         PreparedStatement stmt = conn.prepareStatement(GET_AVG_COST_BY_CUSTOMER)) {
       stmt.setLong(1, customerId);
       try (ResultSet rs = stmt.executeQuery()) {
         if (rs.next()) {
-          double avgCost = rs.getDouble("avgCost");
+          double avgCost = rs.getDouble(1);
           return rs.wasNull() ? 0.0 : avgCost;
         }
       }
@@ -188,35 +344,13 @@ public class JobDAO implements CrudDAO<Job, Long> {
     return 0.0;
   }
 
-  /**
-   * Maps a database result set row to a Job object.
-   *
-   * @param rs the ResultSet containing job data
-   * @return a new Job object populated with the result set data
-   * @throws SQLException if a database access error occurs
-   */
-  private Job mapRowToJob(ResultSet rs) throws SQLException {
-    return new Job(
-        rs.getLong("jobId"),
-        rs.getLong("garageId"),
-        rs.getTimestamp("dateIn").toLocalDateTime(),
-        rs.getTimestamp("dateOut") != null ? rs.getTimestamp("dateOut").toLocalDateTime() : null,
-        rs.getString("regNo"),
-        rs.getDouble("cost"));
-  }
-
-  /**
-   * Sets the common parameters of a PreparedStatement using the data from a Job object.
-   *
-   * @param stmt the PreparedStatement to set parameters for
-   * @param job the Job object containing the data
-   * @throws SQLException if a database access error occurs
-   */
-  private void setJobParameters(PreparedStatement stmt, Job job) throws SQLException {
-    stmt.setLong(1, job.getGarageId());
-    stmt.setTimestamp(2, Timestamp.valueOf(job.getDateIn()));
-    stmt.setTimestamp(3, job.getDateOut() != null ? Timestamp.valueOf(job.getDateOut()) : null);
-    stmt.setString(4, job.getRegNo());
-    stmt.setDouble(5, job.getCost() != null ? job.getCost() : 0.0);
+  private static List<Job> mapAll(PreparedStatement stmt) throws SQLException {
+    List<Job> jobs = new ArrayList<>();
+    try (ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        jobs.add(JobMapper.map(rs));
+      }
+    }
+    return jobs;
   }
 }
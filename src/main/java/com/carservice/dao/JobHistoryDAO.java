@@ -0,0 +1,89 @@
+package com.carservice.dao;
+
+import com.carservice.config.DatabaseConfig;
+import java.sql.*;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Data Access Object that feeds the local analytics store with job history. Rows are streamed in
+ * job ID order through a forward-only cursor, each with the make of the job's car.
+ *
+ * <p>Both queries return the columns jobId, garageId, dateIn, dateOut, cost, regNo and make, in
+ * that order.
+ */
+public class JobHistoryDAO {
+  private static final int FETCH_SIZE = 1000;
+  private static final String SELECT_COLUMNS =
+      "SELECT j.jobId, j.garageId, j.dateIn, j.dateOut, j.cost, j.regNo, c.make "
+          + "FROM Job j INNER JOIN Car c ON j.regNo = c.regNo ";
+  private static final String FIND_AFTER = SELECT_COLUMNS + "WHERE j.jobId > ? ORDER BY j.jobId";
+  private static final String FIND_BY_IDS = SELECT_COLUMNS + "WHERE j.jobId IN (%s)";
+
+  /**
+   * Callback invoked for every streamed row.
+   *
+   * <p>The result set is positioned on the current row and must not be advanced or closed.
+   */
+  @FunctionalInterface
+  public interface RowCallback {
+    /**
+     * Handles one row.
+     *
+     * @param rs the result set positioned on the current row
+     * @throws SQLException if a database access error occurs
+     */
+    void onRow(ResultSet rs) throws SQLException;
+  }
+
+  /**
+   * Streams every job with an ID greater than the given one, in ID order.
+   *
+   * @param afterJobId the highest job ID already seen
+   * @param callback the callback invoked for each row
+   * @return the number of rows streamed
+   * @throws SQLException if a database access error occurs
+   */
+  public long streamAfter(long afterJobId, RowCallback callback) throws SQLException {
+    long rows = 0;
+    try (Connection conn = DatabaseConfig.getReadConnection();
+        PreparedStatement stmt =
+            conn.prepareStatement(
+                FIND_AFTER, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+      stmt.setFetchSize(FETCH_SIZE);
+      stmt.setLong(1, afterJobId);
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          rows++;
+          callback.onRow(rs);
+        }
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Streams the current state of the given jobs. Jobs that no longer exist are not returned.
+   *
+   * @param jobIds the IDs of the jobs to read
+   * @param callback the callback invoked for each row
+   * @throws SQLException if a database access error occurs
+   */
+  public void streamByIds(List<Long> jobIds, RowCallback callback) throws SQLException {
+    if (jobIds.isEmpty()) {
+      return;
+    }
+    String placeholders = String.join(", ", Collections.nCopies(jobIds.size(), "?"));
+    try (Connection conn = DatabaseConfig.getReadConnection();
+        PreparedStatement stmt = conn.prepareStatement(String.format(FIND_BY_IDS, placeholders))) {
+      for (int i = 0; i < jobIds.size(); i++) {
+        stmt.setLong(i + 1, jobIds.get(i));
+      }
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          callback.onRow(rs);
+        }
+      }
+    }
+  }
+}
@@ -1,20 +1,25 @@
 package com.carservice.dao;
 
 import com.carservice.config.DatabaseConfig;
+import com.carservice.model.CompactPayment;
 import com.carservice.model.Payment;
+import com.carservice.util.StringPool;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Data Access Object for handling Payment entity operations with the database. Provides
  * functionality for managing payment records including creation, retrieval, and status updates.
  */
 public class PaymentDAO {
-  private static final String INSERT =
-      "INSERT INTO Payment (jobId, amount, paymentDate, paymentMethod, paymentStatus) "
-          + "VALUES (?, ?, ?, ?, ?)";
-  private static final String FIND_BY_JOB = "SELECT * FROM Payment WHERE jobId = ?";
+  private static final int COMPACT_FETCH_SIZE = 1000;
+  private static final String FIND_BY_JOB = PaymentMapper.SELECT + " WHERE jobId = ?";
+  private static final String FIND_BY_JOB_FOR_UPDATE = FIND_BY_JOB + " FOR UPDATE";
   private static final String UPDATE_STATUS =
       "UPDATE Payment SET paymentStatus = ? WHERE paymentId = ?";
+  private static final String FIND_ALL_COMPACT =
+      "SELECT paymentId, jobId, amount, paymentDate, paymentMethod, paymentStatus FROM Payment";
 
   /**
    * Saves a new payment record to the database.
@@ -24,14 +29,23 @@ public class PaymentDAO {
    * @throws SQLException if a database access error occurs
    */
   public Long save(Payment payment) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
-      stmt.setLong(1, payment.getJobId());
-      stmt.setDouble(2, payment.getAmount());
-      stmt.setTimestamp(3, Timestamp.valueOf(payment.getPaymentDate()));
-      stmt.setString(4, payment.getPaymentMethod());
-      stmt.setString(5, payment.getPaymentStatus());
+    try (Connection conn = DatabaseConfig.getConnection()) {
+      return save(conn, payment);
+    }
+  }
 
+  /**
+   * Saves a new payment record using the given transactional connection.
+   *
+   * @param conn the connection to use
+   * @param payment the Payment object to save
+   * @return the generated payment ID, or null if the operation fails
+   * @throws SQLException if a database access error occurs
+   */
+  public Long save(Connection conn, Payment payment) throws SQLException {
+    try (PreparedStatement stmt =
+        conn.prepareStatement(PaymentMapper.INSERT, Statement.RETURN_GENERATED_KEYS)) {
+      PaymentMapper.bindInsert(stmt, payment);
       stmt.executeUpdate();
       try (ResultSet rs = stmt.getGeneratedKeys()) {
         if (rs.next()) {
@@ -50,18 +64,79 @@ public class PaymentDAO {
    * @throws SQLException if a database access error occurs
    */
   public Payment findByJob(Long jobId) throws SQLException {
-    try (Connection conn = DatabaseConfig.getConnection();
-        PreparedStatement stmt = conn.prepareStatement(FIND_BY_JOB)) {
+    try (Connection conn = DatabaseConfig.getReadConnection()) {
+      return findByJob(conn, jobId);
+    }
+  }
+
+  /**
+   * Finds a payment record associated with a specific job using the given transactional
+   * connection.
+   *
+   * @param conn the connection to use
+   * @param jobId the ID of the job to find the payment for
+   * @return the Payment object if found, null otherwise
+   * @throws SQLException if a database access error occurs
+   */
+  public Payment findByJob(Connection conn, Long jobId) throws SQLException {
+    return findOne(conn, FIND_BY_JOB, jobId);
+  }
+
+  /**
+   * Finds the payment record of a job on the given transactional connection and locks its row
+   * until the transaction ends.
+   *
+   * @param conn the transactional connection to use
+   * @param jobId the ID of the job to find the payment for
+   * @return the Payment object if found, null otherwise
+   * @throws SQLException if a database access error occurs
+   */
+  public Payment findByJobForUpdate(Connection conn, Long jobId) throws SQLException {
+    return findOne(conn, FIND_BY_JOB_FOR_UPDATE, jobId);
+  }
+
+  private static Payment findOne(Connection conn, String sql, Long jobId) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
       stmt.setLong(1, jobId);
       try (ResultSet rs = stmt.executeQuery()) {
         if (rs.next()) {
-          return mapRowToPayment(rs);
+          return PaymentMapper.map(rs);
         }
       }
     }
     return null;
   }
 
+  /**
+   * Retrieves all payments in their compact form, for bulk paths that hold many of them in memory
+   * at once. Repeated payment method and status values are shared between rows.
+   *
+   * @return a list of all payments as CompactPayment objects
+   * @throws SQLException if a database access error occurs
+   */
+  public List<CompactPayment> findAllCompact() throws SQLException {
+    List<CompactPayment> payments = new ArrayList<>();
+    StringPool strings = new StringPool();
+    try (Connection conn = DatabaseConfig.getReadConnection();
+        Statement stmt =
+            conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+      stmt.setFetchSize(COMPACT_FETCH_SIZE);
+      try (ResultSet rs = stmt.executeQuery(FIND_ALL_COMPACT)) {
+        while (rs.next()) {
+          payments.add(
+              new CompactPayment(
+                  rs.getLong(1),
+                  rs.getLong(2),
+                  rs.getDouble(3),
+                  rs.getTimestamp(4).toLocalDateTime(),
+                  strings.get(rs.getString(5)),
+                  strings.get(rs.getString(6))));
+        }
+      }
+    }
+    return payments;
+  }
+
   /**
    * Updates the status of an existing payment.
    *
@@ -78,21 +153,4 @@ public class PaymentDAO {
       return stmt.executeUpdate() > 0;
     }
   }
-
-  /**
-   * Maps a database result set row to a Payment object.
-   *
-   * @param rs the ResultSet containing payment data
-   * @return a new Payment object populated with the result set data
-   * @throws SQLException if a database access error occurs
-   */
-  private Payment mapRowToPayment(ResultSet rs) throws SQLException {
-    return new Payment(
-        rs.getLong("paymentId"),
-        rs.getLong("jobId"),
-        rs.getDouble("amount"),
-        rs.getTimestamp("paymentDate").toLocalDateTime(),
-        rs.getString("paymentMethod"),
-        rs.getString("paymentStatus"));
-  }
 }
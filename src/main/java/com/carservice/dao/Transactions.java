@@ -0,0 +1,56 @@
+package com.carservice.dao;
+
+import com.carservice.config.DatabaseConfig;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Helper for running several DAO calls on one connection inside a single database transaction. The
+ * work is committed if it completes normally and rolled back if it throws.
+ */
+public final class Transactions {
+
+  /**
+   * A unit of work executed against a transactional connection.
+   *
+   * @param <T> the type of the result produced by the work
+   */
+  @FunctionalInterface
+  public interface SqlWork<T> {
+    /**
+     * Executes the work.
+     *
+     * @param conn the connection the work must use for all statements
+     * @return the result of the work
+     * @throws SQLException if a database access error occurs
+     */
+    T execute(Connection conn) throws SQLException;
+  }
+
+  private Transactions() {}
+
+  /**
+   * Runs the given work in a new transaction.
+   *
+   * @param work the work to execute
+   * @param <T> the type of the result produced by the work
+   * @return the result of the work
+   * @throws SQLException if a database access error occurs; the transaction is rolled back
+   */
+  public static <T> T execute(SqlWork<T> work) throws SQLException {
+    try (Connection conn = DatabaseConfig.getConnection()) {
+      boolean autoCommit = conn.getAutoCommit();
+      conn.setAutoCommit(false);
+      try {
+        T result = work.execute(conn);
+        conn.commit();
+        return result;
+      } catch (SQLException | RuntimeException e) {
+        conn.rollback();
+        throw e;
+      } finally {
+        conn.setAutoCommit(autoCommit);
+      }
+    }
+  }
+}
@@ -1,15 +1,27 @@
 package com.carservice.model;
 
+import com.carservice.codegen.Column;
+import com.carservice.codegen.Id;
+import com.carservice.codegen.Table;
 import java.time.LocalDateTime;
 
+@Table("Activity")
 public class Activity {
+  @Id(generated = true)
   private Long activityId;
+  @Column
   private String type; // "CUSTOMER", "CAR", "JOB", "GARAGE"
+  @Column
   private String action; // "CREATE", "UPDATE", "DELETE"
+  @Column
   private String description;
+  @Column
   private LocalDateTime timestamp;
+  @Column
   private String userId;
 
+  public Activity() {}
+
   public Activity(
       Long activityId,
       String type,
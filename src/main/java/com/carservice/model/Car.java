@@ -1,14 +1,31 @@
 package com.carservice.model;
 
+import com.carservice.codegen.Column;
+import com.carservice.codegen.DerivedColumn;
+import com.carservice.codegen.Id;
+import com.carservice.codegen.Table;
+import com.carservice.codegen.Version;
 import java.util.ArrayList;
 import java.util.List;
 
+@Table("Car")
+@DerivedColumn(
+    name = "regNoKey",
+    from = "regNo",
+    function = "com.carservice.util.RegNumbers.normalize")
 public class Car {
+  @Id
   private String regNo;
+  @Column
   private String make;
+  @Column
   private String model;
+  @Column
   private int year;
+  @Column
   private Long customerId;
+  @Version
+  private long version;
   private List<Job> jobs;
 
   // Default constructor
@@ -67,6 +84,14 @@ public class Car {
     this.customerId = customerId;
   }
 
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
   public List<Job> getJobs() {
     return jobs;
   }
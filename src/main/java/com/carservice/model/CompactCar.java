@@ -0,0 +1,48 @@
+package com.carservice.model;
+
+/**
+ * Read-only, primitive-backed form of {@link Car} for bulk loads. Unlike Car it carries no job
+ * list, so an empty list is not allocated for every row.
+ */
+public final class CompactCar {
+  private final String regNo;
+  private final String make;
+  private final String model;
+  private final long customerId;
+  private final short year;
+
+  // Constructor with fields
+  public CompactCar(String regNo, String make, String model, int year, long customerId) {
+    this.regNo = regNo;
+    this.make = make;
+    this.model = model;
+    this.year = (short) year;
+    this.customerId = customerId;
+  }
+
+  // Getters
+  public String getRegNo() {
+    return regNo;
+  }
+
+  public String getMake() {
+    return make;
+  }
+
+  public String getModel() {
+    return model;
+  }
+
+  public int getYear() {
+    return year;
+  }
+
+  public long getCustomerId() {
+    return customerId;
+  }
+
+  // Expands this car into a full Car object
+  public Car toCar() {
+    return new Car(regNo, make, model, year, customerId);
+  }
+}
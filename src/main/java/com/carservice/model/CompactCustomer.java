@@ -0,0 +1,60 @@
+package com.carservice.model;
+
+/**
+ * Read-only, primitive-backed form of {@link Customer} for bulk loads. Unlike Customer it carries
+ * no car list, so an empty list is not allocated for every row.
+ */
+public final class CompactCustomer {
+  private final long customerId;
+  private final String forename;
+  private final String surname;
+  private final String address;
+  private final String postCode;
+  private final String phoneNo;
+
+  // Constructor with fields
+  public CompactCustomer(
+      long customerId,
+      String forename,
+      String surname,
+      String address,
+      String postCode,
+      String phoneNo) {
+    this.customerId = customerId;
+    this.forename = forename;
+    this.surname = surname;
+    this.address = address;
+    this.postCode = postCode;
+    this.phoneNo = phoneNo;
+  }
+
+  // Getters
+  public long getCustomerId() {
+    return customerId;
+  }
+
+  public String getForename() {
+    return forename;
+  }
+
+  public String getSurname() {
+    return surname;
+  }
+
+  public String getAddress() {
+    return address;
+  }
+
+  public String getPostCode() {
+    return postCode;
+  }
+
+  public String getPhoneNo() {
+    return phoneNo;
+  }
+
+  // Expands this customer into a full Customer object
+  public Customer toCustomer() {
+    return new Customer(customerId, forename, surname, address, postCode, phoneNo);
+  }
+}
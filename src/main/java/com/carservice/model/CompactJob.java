@@ -0,0 +1,89 @@
+package com.carservice.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Read-only, primitive-backed form of {@link Job} for bulk loads. Timestamps are held as epoch
+ * seconds of the local date-time, the cost in minor units (pence), and the nullable columns are
+ * tracked in a bit set rather than with boxed values.
+ */
+public final class CompactJob {
+  private static final byte HAS_DATE_OUT = 1;
+  private static final byte HAS_COST = 2;
+
+  private final long jobId;
+  private final long garageId;
+  private final long dateIn;
+  private final long dateOut;
+  private final long costMinor;
+  private final String regNo;
+  private final byte flags;
+
+  // Constructor with fields
+  public CompactJob(
+      long jobId,
+      long garageId,
+      LocalDateTime dateIn,
+      LocalDateTime dateOut,
+      String regNo,
+      Double cost) {
+    this.jobId = jobId;
+    this.garageId = garageId;
+    this.dateIn = dateIn.toEpochSecond(ZoneOffset.UTC);
+    this.dateOut = dateOut != null ? dateOut.toEpochSecond(ZoneOffset.UTC) : 0;
+    this.costMinor = cost != null ? Math.round(cost * 100) : 0;
+    this.regNo = regNo;
+    this.flags = (byte) ((dateOut != null ? HAS_DATE_OUT : 0) | (cost != null ? HAS_COST : 0));
+  }
+
+  // Getters
+  public long getJobId() {
+    return jobId;
+  }
+
+  public long getGarageId() {
+    return garageId;
+  }
+
+  public String getRegNo() {
+    return regNo;
+  }
+
+  public long getDateInEpochSecond() {
+    return dateIn;
+  }
+
+  public LocalDateTime getDateIn() {
+    return LocalDateTime.ofEpochSecond(dateIn, 0, ZoneOffset.UTC);
+  }
+
+  public boolean hasDateOut() {
+    return (flags & HAS_DATE_OUT) != 0;
+  }
+
+  public long getDateOutEpochSecond() {
+    return dateOut;
+  }
+
+  public LocalDateTime getDateOut() {
+    return hasDateOut() ? LocalDateTime.ofEpochSecond(dateOut, 0, ZoneOffset.UTC) : null;
+  }
+
+  public boolean hasCost() {
+    return (flags & HAS_COST) != 0;
+  }
+
+  public long getCostMinor() {
+    return costMinor;
+  }
+
+  public Double getCost() {
+    return hasCost() ? costMinor / 100.0 : null;
+  }
+
+  // Expands this job into a full Job object
+  public Job toJob() {
+    return new Job(jobId, garageId, getDateIn(), getDateOut(), regNo, getCost());
+  }
+}
@@ -0,0 +1,72 @@
+package com.carservice.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Read-only, primitive-backed form of {@link Payment} for bulk loads. The payment date is held as
+ * epoch seconds of the local date-time and the amount in minor units (pence).
+ */
+public final class CompactPayment {
+  private final long paymentId;
+  private final long jobId;
+  private final long amountMinor;
+  private final long paymentDate;
+  private final String paymentMethod;
+  private final String paymentStatus;
+
+  // Constructor with fields
+  public CompactPayment(
+      long paymentId,
+      long jobId,
+      double amount,
+      LocalDateTime paymentDate,
+      String paymentMethod,
+      String paymentStatus) {
+    this.paymentId = paymentId;
+    this.jobId = jobId;
+    this.amountMinor = Math.round(amount * 100);
+    this.paymentDate = paymentDate.toEpochSecond(ZoneOffset.UTC);
+    this.paymentMethod = paymentMethod;
+    this.paymentStatus = paymentStatus;
+  }
+
+  // Getters
+  public long getPaymentId() {
+    return paymentId;
+  }
+
+  public long getJobId() {
+    return jobId;
+  }
+
+  public long getAmountMinor() {
+    return amountMinor;
+  }
+
+  public double getAmount() {
+    return amountMinor / 100.0;
+  }
+
+  public long getPaymentDateEpochSecond() {
+    return paymentDate;
+  }
+
+  public LocalDateTime getPaymentDate() {
+    return LocalDateTime.ofEpochSecond(paymentDate, 0, ZoneOffset.UTC);
+  }
+
+  public String getPaymentMethod() {
+    return paymentMethod;
+  }
+
+  public String getPaymentStatus() {
+    return paymentStatus;
+  }
+
+  // Expands this payment into a full Payment object
+  public Payment toPayment() {
+    return new Payment(
+        paymentId, jobId, getAmount(), getPaymentDate(), paymentMethod, paymentStatus);
+  }
+}
@@ -1,15 +1,28 @@
 package com.carservice.model;
 
+import com.carservice.codegen.Column;
+import com.carservice.codegen.Id;
+import com.carservice.codegen.Table;
+import com.carservice.codegen.Version;
 import java.util.ArrayList;
 import java.util.List;
 
+@Table("Customer")
 public class Customer {
+  @Id(generated = true)
   private Long customerId;
+  @Column
   private String forename;
+  @Column
   private String surname;
+  @Column
   private String address;
+  @Column
   private String postCode;
+  @Column
   private String phoneNo;
+  @Version
+  private long version;
   private List<Car> cars;
 
   // Default constructor
@@ -83,6 +96,14 @@ public class Customer {
     this.phoneNo = phoneNo;
   }
 
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
+
   public List<Car> getCars() {
     return cars;
   }
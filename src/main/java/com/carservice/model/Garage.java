@@ -1,12 +1,25 @@
 package com.carservice.model;
 
+import com.carservice.codegen.Column;
+import com.carservice.codegen.Id;
+import com.carservice.codegen.Table;
+import com.carservice.codegen.Version;
+@Table("Garage")
 public class Garage {
+  @Id(generated = true)
   private Long garageId;
+  @Column
   private String garageName;
+  @Column
   private String address;
+  @Column
   private String town;
+  @Column
   private String postCode;
+  @Column
   private String phoneNo;
+  @Version
+  private long version;
 
   // Default constructor
   public Garage() {}
@@ -75,4 +88,12 @@ public class Garage {
   public void setPhoneNo(String phoneNo) {
     this.phoneNo = phoneNo;
   }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
 }
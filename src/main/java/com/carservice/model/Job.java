@@ -1,14 +1,27 @@
 package com.carservice.model;
 
+import com.carservice.codegen.Column;
+import com.carservice.codegen.Id;
+import com.carservice.codegen.Table;
+import com.carservice.codegen.Version;
 import java.time.LocalDateTime;
 
+@Table("Job")
 public class Job {
+  @Id(generated = true)
   private Long jobId;
+  @Column
   private Long garageId;
+  @Column
   private LocalDateTime dateIn;
+  @Column(nullable = true)
   private LocalDateTime dateOut;
+  @Column
   private String regNo;
+  @Column
   private Double cost;
+  @Version
+  private long version;
 
   // Default constructor
   public Job() {}
@@ -77,4 +90,12 @@ public class Job {
   public void setCost(Double cost) {
     this.cost = cost;
   }
+
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
 }
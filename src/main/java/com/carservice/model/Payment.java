@@ -1,13 +1,23 @@
 package com.carservice.model;
 
+import com.carservice.codegen.Column;
+import com.carservice.codegen.Id;
+import com.carservice.codegen.Table;
 import java.time.LocalDateTime;
 
+@Table("Payment")
 public class Payment {
+  @Id(generated = true)
   private Long paymentId;
+  @Column
   private Long jobId;
+  @Column
   private Double amount;
+  @Column
   private LocalDateTime paymentDate;
+  @Column
   private String paymentMethod;
+  @Column
   private String paymentStatus;
 
   // Default constructor
@@ -0,0 +1,251 @@
+package com.carservice.offline;
+
+import com.carservice.util.Json;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A write made while offline, as recorded in the local SyncJournal table: the SQL statement the DAO
+ * executed, its parameters, and the ID the local store generated for it, if any.
+ */
+final class JournalEntry {
+  private static final Pattern TARGET_TABLE =
+      Pattern.compile(
+          "^\\s*(?:INSERT\\s+INTO|UPDATE|DELETE\\s+FROM)\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+  private final long entryId;
+  private final long txId;
+  private final String sql;
+  private final List<Param> params;
+  private final Long localKey;
+  private final int localRows;
+
+  JournalEntry(
+      long entryId, long txId, String sql, List<Param> params, Long localKey, int localRows) {
+    this.entryId = entryId;
+    this.txId = txId;
+    this.sql = sql;
+    this.params = params;
+    this.localKey = localKey;
+    this.localRows = localRows;
+  }
+
+  long getEntryId() {
+    return entryId;
+  }
+
+  long getTxId() {
+    return txId;
+  }
+
+  String getSql() {
+    return sql;
+  }
+
+  List<Param> getParams() {
+    return params;
+  }
+
+  Long getLocalKey() {
+    return localKey;
+  }
+
+  int getLocalRows() {
+    return localRows;
+  }
+
+  /**
+   * Returns the table the statement writes to.
+   *
+   * @return the table name, or the statement itself if it cannot be parsed
+   */
+  String getTable() {
+    Matcher matcher = TARGET_TABLE.matcher(sql);
+    return matcher.find() ? matcher.group(1) : sql;
+  }
+
+  /**
+   * Checks whether the statement is an INSERT.
+   *
+   * @return true if the statement inserts rows
+   */
+  boolean isInsert() {
+    return sql.trim().toUpperCase(Locale.ROOT).startsWith("INSERT");
+  }
+
+  /**
+   * Returns the index of the first parameter in the statement's WHERE clause, which for the DAOs'
+   * UPDATE and DELETE statements is the row's key.
+   *
+   * @return the zero-based parameter index, or -1 if the statement has no WHERE parameter
+   */
+  int getFirstWhereParam() {
+    int where = sql.toUpperCase(Locale.ROOT).indexOf(" WHERE ");
+    if (where < 0) {
+      return -1;
+    }
+    int index = 0;
+    for (int i = 0; i < where; i++) {
+      if (sql.charAt(i) == '?') {
+        index++;
+      }
+    }
+    return index < params.size() ? index : -1;
+  }
+
+  /**
+   * Checks whether a statement writes data and so must be journaled.
+   *
+   * @param sql the statement
+   * @return true for INSERT, UPDATE and DELETE statements
+   */
+  static boolean isWrite(String sql) {
+    String start = sql.trim().toUpperCase(Locale.ROOT);
+    return start.startsWith("INSERT") || start.startsWith("UPDATE") || start.startsWith("DELETE");
+  }
+
+  /**
+   * Encodes parameters for the params column.
+   *
+   * @param params the parameters in order
+   * @return the JSON text
+   */
+  static String encode(List<Param> params) {
+    List<List<String>> encoded = new ArrayList<>();
+    for (Param param : params) {
+      encoded.add(Arrays.asList(param.type, param.text));
+    }
+    return Json.write(encoded);
+  }
+
+  /**
+   * Decodes parameters written by {@link #encode(List)}.
+   *
+   * @param text the JSON text
+   * @return the parameters in order
+   */
+  static List<Param> decode(String text) {
+    List<Param> params = new ArrayList<>();
+    for (Object item : (List<?>) Json.parse(text)) {
+      List<?> pair = (List<?>) item;
+      params.add(new Param((String) pair.get(0), (String) pair.get(1)));
+    }
+    return params;
+  }
+
+  /** A statement parameter, stored as a type code and its value as text. */
+  static final class Param {
+    private final String type;
+    private final String text;
+
+    private Param(String type, String text) {
+      this.type = type;
+      this.text = text;
+    }
+
+    /**
+     * Captures the value passed to one of the PreparedStatement setters.
+     *
+     * @param setter the setter's name, such as "setLong"
+     * @param value the value passed, or the SQL type for setNull
+     * @return the parameter
+     * @throws SQLFeatureNotSupportedException if the setter is not supported
+     */
+    static Param of(String setter, Object value) throws SQLFeatureNotSupportedException {
+      if (setter.equals("setNull")) {
+        return new Param("N", String.valueOf(value));
+      }
+      if (value == null) {
+        return new Param("N", String.valueOf(Types.NULL));
+      }
+      switch (setter) {
+        case "setLong":
+          return new Param("L", value.toString());
+        case "setInt":
+          return new Param("I", value.toString());
+        case "setDouble":
+          return new Param("D", value.toString());
+        case "setString":
+          return new Param("S", value.toString());
+        case "setTimestamp":
+          return new Param("T", value.toString());
+        case "setDate":
+          return new Param("DT", value.toString());
+        case "setBigDecimal":
+          return new Param("BD", value.toString());
+        default:
+          throw new SQLFeatureNotSupportedException(setter + " is not supported in offline mode");
+      }
+    }
+
+    /**
+     * Returns a copy of this parameter with a different long value.
+     *
+     * @param value the new value
+     * @return the new parameter
+     */
+    Param withLong(long value) {
+      return new Param("L", Long.toString(value));
+    }
+
+    /**
+     * Returns the value if this is a long parameter.
+     *
+     * @return the value, or null for other types
+     */
+    Long longValue() {
+      return type.equals("L") ? Long.valueOf(text) : null;
+    }
+
+    /**
+     * Binds the parameter to a statement.
+     *
+     * @param stmt the statement
+     * @param index the one-based parameter index
+     * @throws SQLException if a database access error occurs
+     */
+    void bind(PreparedStatement stmt, int index) throws SQLException {
+      switch (type) {
+        case "L":
+          stmt.setLong(index, Long.parseLong(text));
+          break;
+        case "I":
+          stmt.setInt(index, Integer.parseInt(text));
+          break;
+        case "D":
+          stmt.setDouble(index, Double.parseDouble(text));
+          break;
+        case "S":
+          stmt.setString(index, text);
+          break;
+        case "T":
+          stmt.setTimestamp(index, Timestamp.valueOf(text));
+          break;
+        case "DT":
+          stmt.setDate(index, Date.valueOf(text));
+          break;
+        case "BD":
+          stmt.setBigDecimal(index, new BigDecimal(text));
+          break;
+        default:
+          stmt.setNull(index, Integer.parseInt(text));
+      }
+    }
+
+    @Override
+    public String toString() {
+      return type.equals("N") ? "null" : type.equals("S") ? "'" + text + "'" : text;
+    }
+  }
+}
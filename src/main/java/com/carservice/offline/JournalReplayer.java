@@ -0,0 +1,305 @@
+package com.carservice.offline;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replays the offline journal on the server in batches. Each batch is one server transaction,
+ * which also advances this store's row in the SyncCursor table, so an interrupted sync never
+ * applies an entry twice.
+ *
+ * <p>Writes are replayed with the transactions they were made in. A transaction is skipped, and
+ * logged as a SYNC conflict activity, when one of its writes:
+ *
+ * <ul>
+ *   <li>changes no rows on the server although it changed rows locally, which is how the DAOs'
+ *       version checks report a row that someone else changed or deleted;
+ *   <li>violates a constraint, such as a registration number someone else has registered;
+ *   <li>refers to a row created offline whose own transaction was skipped; or
+ *   <li>updates or deletes a row that an earlier skipped transaction wrote.
+ * </ul>
+ *
+ * <p>Rows created offline have local IDs, which are replaced with the IDs the server issues for
+ * them wherever later writes refer to them.
+ */
+final class JournalReplayer {
+  private static final String FIND_CURSOR = "SELECT lastEntryId FROM SyncCursor WHERE storeId = ?";
+  private static final String SAVE_CURSOR =
+      "INSERT INTO SyncCursor (storeId, lastEntryId) VALUES (?, ?)"
+          + " ON DUPLICATE KEY UPDATE lastEntryId = ?";
+  private static final String LOG_CONFLICT =
+      "INSERT INTO Activity (type, action, description, timestamp, userId)"
+          + " VALUES ('SYNC', 'CONFLICT', ?, ?, ?)";
+  private static final String SYNC_USER = "offline-sync";
+  private static final int MAX_DESCRIPTION_LENGTH = 500;
+
+  private final LocalStore store;
+  private final int batchSize;
+
+  /**
+   * Creates a replayer for a store's journal.
+   *
+   * @param store the local store
+   * @param batchSize the number of entries applied per server transaction; a batch is extended to
+   *     the end of its last transaction
+   */
+  JournalReplayer(LocalStore store, int batchSize) {
+    this.store = store;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Replays every journal entry on the server and removes it from the journal.
+   *
+   * @param server a connection to the server
+   * @return the number of entries applied and the conflicts found
+   * @throws SQLException if the server cannot be written; entries not yet committed stay in the
+   *     journal
+   */
+  SyncResult replay(Connection server) throws SQLException {
+    long cursor = readCursor(server);
+    // Entries up to the cursor were committed on the server before the journal could be trimmed
+    store.markReplayed(cursor, Collections.emptyMap());
+
+    Map<Long, Long> ids = store.readIdMap();
+    Set<String> skippedRows = new HashSet<>();
+    List<String> conflicts = new ArrayList<>();
+    int applied = 0;
+
+    boolean autoCommit = server.getAutoCommit();
+    server.setAutoCommit(false);
+    try {
+      List<JournalEntry> batch;
+      while (!(batch = store.readJournal(cursor, batchSize)).isEmpty()) {
+        Map<Long, Long> newIds = new LinkedHashMap<>();
+        int start = 0;
+        while (start < batch.size()) {
+          int end = start + 1;
+          while (end < batch.size() && batch.get(end).getTxId() == batch.get(start).getTxId()) {
+            end++;
+          }
+          List<JournalEntry> tx = batch.subList(start, end);
+          String conflict = applyTransaction(server, tx, ids, newIds, skippedRows);
+          if (conflict == null) {
+            applied += tx.size();
+          } else {
+            conflicts.add(conflict);
+            logConflict(server, conflict);
+          }
+          start = end;
+        }
+        cursor = batch.get(batch.size() - 1).getEntryId();
+        saveCursor(server, cursor);
+        server.commit();
+        store.markReplayed(cursor, newIds);
+      }
+    } catch (SQLException | RuntimeException e) {
+      server.rollback();
+      throw e;
+    } finally {
+      server.setAutoCommit(autoCommit);
+    }
+    return new SyncResult(applied, conflicts);
+  }
+
+  /**
+   * Applies the writes of one offline transaction, or none of them if any conflicts.
+   *
+   * @param server the server connection, inside a transaction
+   * @param tx the transaction's journal entries
+   * @param ids server IDs issued so far, keyed by local ID; updated with the transaction's inserts
+   * @param newIds collects the server IDs issued in the current batch
+   * @param skippedRows keys of rows written by skipped transactions; updated if this one is skipped
+   * @return a description of the conflict, or null if the transaction was applied
+   * @throws SQLException if a database access error other than a conflict occurs
+   */
+  private String applyTransaction(
+      Connection server,
+      List<JournalEntry> tx,
+      Map<Long, Long> ids,
+      Map<Long, Long> newIds,
+      Set<String> skippedRows)
+      throws SQLException {
+    Savepoint savepoint = server.setSavepoint();
+    List<Long> issued = new ArrayList<>();
+    String conflict = null;
+    for (JournalEntry entry : tx) {
+      conflict = apply(server, entry, ids, issued, skippedRows);
+      if (conflict != null) {
+        break;
+      }
+    }
+    if (conflict == null) {
+      server.releaseSavepoint(savepoint);
+      for (Long localId : issued) {
+        newIds.put(localId, ids.get(localId));
+      }
+      return null;
+    }
+
+    server.rollback(savepoint);
+    for (Long localId : issued) {
+      ids.remove(localId);
+    }
+    for (JournalEntry entry : tx) {
+      String rowKey = rowKey(entry, ids);
+      if (rowKey != null) {
+        skippedRows.add(rowKey);
+      }
+    }
+    return conflict;
+  }
+
+  /**
+   * Applies one journal entry.
+   *
+   * @param server the server connection
+   * @param entry the entry
+   * @param ids server IDs issued so far, keyed by local ID
+   * @param issued collects the local IDs given server IDs by this entry
+   * @param skippedRows keys of rows written by skipped transactions
+   * @return a description of the conflict, or null if the entry was applied
+   * @throws SQLException if a database access error other than a conflict occurs
+   */
+  private String apply(
+      Connection server,
+      JournalEntry entry,
+      Map<Long, Long> ids,
+      List<Long> issued,
+      Set<String> skippedRows)
+      throws SQLException {
+    List<JournalEntry.Param> params = new ArrayList<>();
+    for (JournalEntry.Param param : entry.getParams()) {
+      JournalEntry.Param mapped = remap(param, ids);
+      if (mapped == null) {
+        return describe(entry, "it refers to a new row that could not be synced");
+      }
+      params.add(mapped);
+    }
+    if (!entry.isInsert() && skippedRows.contains(rowKey(entry, ids))) {
+      return describe(entry, "an earlier offline change to the same row could not be synced");
+    }
+
+    Long localKey = entry.getLocalKey();
+    try (PreparedStatement stmt =
+        localKey != null
+            ? server.prepareStatement(entry.getSql(), Statement.RETURN_GENERATED_KEYS)
+            : server.prepareStatement(entry.getSql())) {
+      for (int i = 0; i < params.size(); i++) {
+        params.get(i).bind(stmt, i + 1);
+      }
+      if (stmt.executeUpdate() == 0 && entry.getLocalRows() > 0) {
+        return describe(entry, "the row was changed or deleted on the server");
+      }
+      if (localKey != null) {
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+          if (keys.next()) {
+            ids.put(localKey, keys.getLong(1));
+            issued.add(localKey);
+          }
+        }
+      }
+      return null;
+    } catch (SQLException e) {
+      if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+        return describe(entry, e.getMessage());
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Replaces a local ID parameter with the server ID issued for it.
+   *
+   * @param param the parameter
+   * @param ids server IDs issued so far, keyed by local ID
+   * @return the parameter to bind, or null if it is a local ID with no server ID
+   */
+  private static JournalEntry.Param remap(JournalEntry.Param param, Map<Long, Long> ids) {
+    Long value = param.longValue();
+    if (value == null || !LocalStore.isLocalId(value)) {
+      return param;
+    }
+    Long serverId = ids.get(value);
+    return serverId != null ? param.withLong(serverId) : null;
+  }
+
+  /**
+   * Identifies the row an entry writes: the table and, for UPDATE and DELETE, the first WHERE
+   * parameter, or for an INSERT without a generated key, its first value.
+   *
+   * @param entry the entry
+   * @param ids server IDs issued so far, keyed by local ID
+   * @return the row key, or null if the row cannot be identified
+   */
+  private static String rowKey(JournalEntry entry, Map<Long, Long> ids) {
+    int index;
+    if (entry.isInsert()) {
+      index = entry.getLocalKey() == null ? 0 : -1;
+    } else {
+      index = entry.getFirstWhereParam();
+    }
+    if (index < 0 || index >= entry.getParams().size()) {
+      return null;
+    }
+    JournalEntry.Param param = entry.getParams().get(index);
+    JournalEntry.Param mapped = remap(param, ids);
+    return entry.getTable().toLowerCase(Locale.ROOT) + "#" + (mapped != null ? mapped : param);
+  }
+
+  private static String describe(JournalEntry entry, String reason) {
+    return "Offline change to "
+        + entry.getTable()
+        + " not synced because "
+        + reason
+        + ": "
+        + entry.getSql()
+        + " "
+        + entry.getParams();
+  }
+
+  private void logConflict(Connection server, String conflict) throws SQLException {
+    try (PreparedStatement stmt = server.prepareStatement(LOG_CONFLICT)) {
+      stmt.setString(
+          1,
+          conflict.length() > MAX_DESCRIPTION_LENGTH
+              ? conflict.substring(0, MAX_DESCRIPTION_LENGTH)
+              : conflict);
+      stmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+      stmt.setString(3, SYNC_USER);
+      stmt.executeUpdate();
+    }
+  }
+
+  private long readCursor(Connection server) throws SQLException {
+    try (PreparedStatement stmt = server.prepareStatement(FIND_CURSOR)) {
+      stmt.setString(1, store.getStoreId());
+      try (ResultSet rs = stmt.executeQuery()) {
+        return rs.next() ? rs.getLong(1) : 0;
+      }
+    }
+  }
+
+  private void saveCursor(Connection server, long lastEntryId) throws SQLException {
+    try (PreparedStatement stmt = server.prepareStatement(SAVE_CURSOR)) {
+      stmt.setString(1, store.getStoreId());
+      stmt.setLong(2, lastEntryId);
+      stmt.setLong(3, lastEntryId);
+      stmt.executeUpdate();
+    }
+  }
+}
@@ -0,0 +1,302 @@
+package com.carservice.offline;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A connection to the local store that records every successful INSERT, UPDATE and DELETE in the
+ * journal, in the same local transaction as the write itself. DAOs use it exactly like a server
+ * connection; reads and transaction control pass straight through.
+ *
+ * <p>Writes made on one transaction share a transaction ID in the journal, so they are replayed on
+ * the server as one unit. A write made in auto-commit mode is its own transaction.
+ */
+final class JournalingConnection implements InvocationHandler {
+  private static final String GENERATED_KEY = "SELECT CAST(? AS BIGINT) AS id";
+  private static final String NO_GENERATED_KEY = "SELECT CAST(NULL AS BIGINT) AS id WHERE 1 = 0";
+
+  /** A write performed on the underlying statement. */
+  @FunctionalInterface
+  private interface Write {
+    int execute() throws SQLException;
+  }
+
+  private final Connection local;
+  private final LocalStore store;
+  private long txId;
+
+  private JournalingConnection(Connection local, LocalStore store) {
+    this.local = local;
+    this.store = store;
+  }
+
+  /**
+   * Wraps a local store connection so that its writes are journaled.
+   *
+   * @param local the local connection; closing the wrapper closes it
+   * @param store the store whose journal records the writes
+   * @return the journaling connection
+   */
+  static Connection wrap(Connection local, LocalStore store) {
+    return (Connection)
+        Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class},
+            new JournalingConnection(local, store));
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    switch (method.getName()) {
+      case "prepareStatement":
+        String sql = (String) args[0];
+        if (JournalEntry.isWrite(sql)) {
+          return prepareWrite(sql, args);
+        }
+        break;
+      case "createStatement":
+        Statement real = (Statement) forward(local, method, args);
+        return proxy(Statement.class, new StatementHandler(real));
+      case "commit":
+        txId = 0;
+        break;
+      case "rollback":
+        if (args == null) {
+          txId = 0;
+        }
+        break;
+      case "setAutoCommit":
+        if ((Boolean) args[0]) {
+          txId = 0;
+        }
+        break;
+      default:
+        break;
+    }
+    return forward(local, method, args);
+  }
+
+  /**
+   * Prepares a write statement whose execution is journaled. INSERTs are always prepared to return
+   * generated keys, so the local ID of a new row is known even if the caller did not ask for it.
+   *
+   * @param sql the statement
+   * @param args the arguments passed to prepareStatement
+   * @return the journaling statement
+   * @throws SQLException if the statement cannot be prepared, or asks for options offline mode
+   *     does not support
+   */
+  private PreparedStatement prepareWrite(String sql, Object[] args) throws SQLException {
+    boolean keysRequested =
+        args.length == 2
+            && args[1] instanceof Integer
+            && (Integer) args[1] == Statement.RETURN_GENERATED_KEYS;
+    if (args.length > 1 && !keysRequested) {
+      throw new SQLFeatureNotSupportedException(
+          "Only plain and generated-key statements are supported in offline mode");
+    }
+    PreparedStatement real =
+        isInsert(sql)
+            ? local.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+            : local.prepareStatement(sql);
+    return proxy(PreparedStatement.class, new PreparedStatementHandler(real, sql));
+  }
+
+  /**
+   * Reads the ID the local store generated for an inserted row.
+   *
+   * @param real the statement that performed the insert
+   * @return the local ID, or null if the table's key is not generated locally
+   * @throws SQLException if a database access error occurs
+   */
+  private static Long readLocalKey(Statement real) throws SQLException {
+    try (ResultSet keys = real.getGeneratedKeys()) {
+      if (keys.next()) {
+        Object key = keys.getObject(1);
+        if (key instanceof Number && LocalStore.isLocalId(((Number) key).longValue())) {
+          return ((Number) key).longValue();
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean isInsert(String sql) {
+    return sql.trim().regionMatches(true, 0, "INSERT", 0, 6);
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(
+        Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+
+  private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  /** Base for statement handlers: runs writes and journals them. */
+  private abstract class WriteHandler implements InvocationHandler {
+    private Long localKey;
+
+    /**
+     * Runs a write and journals it if it changed any rows. In auto-commit mode the write and its
+     * journal entry are committed together.
+     *
+     * @param sql the statement
+     * @param params the statement's parameters
+     * @param real the statement that performs the write
+     * @param write performs the write and returns the number of rows changed
+     * @return the number of rows changed
+     * @throws SQLException if the write or the journal entry fails
+     */
+    int journaled(String sql, List<JournalEntry.Param> params, Statement real, Write write)
+        throws SQLException {
+      boolean autoCommit = local.getAutoCommit();
+      if (autoCommit) {
+        local.setAutoCommit(false);
+      }
+      try {
+        int rows = write.execute();
+        localKey = isInsert(sql) ? readLocalKey(real) : null;
+        if (rows > 0) {
+          if (autoCommit || txId == 0) {
+            txId = store.nextTxId();
+          }
+          store.journal(local, txId, sql, params, localKey, rows);
+        }
+        if (autoCommit) {
+          local.commit();
+          txId = 0;
+        }
+        return rows;
+      } catch (SQLException | RuntimeException e) {
+        if (autoCommit) {
+          local.rollback();
+          txId = 0;
+        }
+        throw e;
+      } finally {
+        if (autoCommit) {
+          local.setAutoCommit(true);
+        }
+      }
+    }
+
+    /**
+     * Returns a result set holding the key generated by the last write, standing in for the
+     * statement's own generated keys, which were already read for the journal.
+     *
+     * @return a result set with one row holding the key, or no rows
+     * @throws SQLException if a database access error occurs
+     */
+    ResultSet generatedKeys() throws SQLException {
+      PreparedStatement stmt =
+          local.prepareStatement(localKey != null ? GENERATED_KEY : NO_GENERATED_KEY);
+      if (localKey != null) {
+        stmt.setLong(1, localKey);
+      }
+      stmt.closeOnCompletion();
+      return stmt.executeQuery();
+    }
+  }
+
+  /** Journals writes executed through a plain statement. */
+  private final class StatementHandler extends WriteHandler {
+    private final Statement real;
+
+    private StatementHandler(Statement real) {
+      this.real = real;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if ((name.equals("executeUpdate") || name.equals("execute"))
+          && args != null
+          && JournalEntry.isWrite((String) args[0])) {
+        if (args.length > 1 && !Integer.valueOf(Statement.RETURN_GENERATED_KEYS).equals(args[1])) {
+          throw new SQLFeatureNotSupportedException(
+              "Only plain and generated-key statements are supported in offline mode");
+        }
+        String sql = (String) args[0];
+        int rows =
+            journaled(
+                sql,
+                new ArrayList<>(),
+                real,
+                () ->
+                    isInsert(sql)
+                        ? real.executeUpdate(sql, Statement.RETURN_GENERATED_KEYS)
+                        : real.executeUpdate(sql));
+        return name.equals("execute") ? Boolean.FALSE : (Object) rows;
+      }
+      switch (name) {
+        case "addBatch":
+          throw new SQLFeatureNotSupportedException(
+              "Batched writes are not supported in offline mode");
+        case "getGeneratedKeys":
+          return generatedKeys();
+        default:
+          return forward(real, method, args);
+      }
+    }
+  }
+
+  /** Captures the parameters of a write statement and journals each execution. */
+  private final class PreparedStatementHandler extends WriteHandler {
+    private final PreparedStatement real;
+    private final String sql;
+    private final Map<Integer, JournalEntry.Param> params = new TreeMap<>();
+
+    private PreparedStatementHandler(PreparedStatement real, String sql) {
+      this.real = real;
+      this.sql = sql;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      boolean setter = name.startsWith("set") && args != null && args.length >= 2;
+      if (setter && args[0] instanceof Integer) {
+        params.put((Integer) args[0], JournalEntry.Param.of(name, args[1]));
+        return forward(real, method, args);
+      }
+      switch (name) {
+        case "clearParameters":
+          params.clear();
+          break;
+        case "executeUpdate":
+        case "execute":
+          if (args == null) {
+            int rows = journaled(sql, new ArrayList<>(params.values()), real, real::executeUpdate);
+            return name.equals("execute") ? Boolean.FALSE : (Object) rows;
+          }
+          break;
+        case "addBatch":
+          throw new SQLFeatureNotSupportedException(
+              "Batched writes are not supported in offline mode");
+        case "getGeneratedKeys":
+          return generatedKeys();
+        default:
+          break;
+      }
+      return forward(real, method, args);
+    }
+  }
+}
@@ -0,0 +1,456 @@
+package com.carservice.offline;
+
+import com.carservice.config.ConnectionPool;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded database on local disk that stands in for the server while it is unreachable. It holds
+ * a copy of the Customer, Garage, Car and Job tables, taken with {@link #snapshot(Connection)}
+ * while the server is reachable, and a journal of the writes made while offline, which {@link
+ * JournalReplayer} replays on the server once it is back.
+ *
+ * <p>The store uses H2 in MariaDB compatibility mode, so the DAOs run their usual SQL against it.
+ */
+public class LocalStore implements AutoCloseable {
+  private static final String URL_OPTIONS =
+      ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;"
+          + "NON_KEYWORDS=YEAR,VALUE";
+  /**
+   * The first ID the store generates for a new row. Local IDs count down from here, far below any
+   * value a DAO writes, so a local ID in a journaled write can be told apart from other numbers.
+   */
+  static final long FIRST_LOCAL_ID = -1_000_000_000_000L;
+
+  private static final int POOL_SIZE = 10;
+  private static final int POOL_TIMEOUT_MILLIS = 5000;
+  private static final int SNAPSHOT_FETCH_SIZE = 1000;
+  private static final int SNAPSHOT_BATCH_SIZE = 500;
+
+  /** Tables copied from the server, parents first, with the columns copied. */
+  private static final Map<String, String> REPLICATED_COLUMNS = new LinkedHashMap<>();
+
+  /** Tables that only hold rows written offline; emptied when a new snapshot is taken. */
+  private static final String[] LOCAL_ONLY_TABLES = {"DailyGarageSummary", "Payment", "Activity"};
+
+  static {
+    REPLICATED_COLUMNS.put(
+        "Garage", "garageId, garageName, address, town, postCode, phoneNo, version");
+    REPLICATED_COLUMNS.put(
+        "Customer", "customerId, forename, surname, address, postCode, phoneNo, version");
+    REPLICATED_COLUMNS.put("Car", "regNo, make, model, year, customerId, version, regNoKey");
+    REPLICATED_COLUMNS.put("Job", "jobId, garageId, dateIn, dateOut, regNo, cost, version");
+  }
+
+  private static final String INSERT_JOURNAL =
+      "INSERT INTO SyncJournal (txId, sqlText, params, localKey, localRows) VALUES (?, ?, ?, ?, ?)";
+  private static final String FIND_JOURNAL =
+      "SELECT entryId, txId, sqlText, params, localKey, localRows FROM SyncJournal"
+          + " WHERE entryId > ? ORDER BY entryId LIMIT ?";
+  private static final String FIND_JOURNAL_TX =
+      "SELECT entryId, txId, sqlText, params, localKey, localRows FROM SyncJournal"
+          + " WHERE entryId > ? AND txId = ? ORDER BY entryId";
+  private static final String COUNT_JOURNAL = "SELECT COUNT(*) FROM SyncJournal";
+  private static final String MAX_TX_ID = "SELECT COALESCE(MAX(txId), 0) FROM SyncJournal";
+  private static final String DELETE_JOURNAL = "DELETE FROM SyncJournal WHERE entryId <= ?";
+  private static final String FIND_ID_MAP = "SELECT localId, serverId FROM SyncIdMap";
+  private static final String INSERT_ID_MAP =
+      "INSERT INTO SyncIdMap (localId, serverId) VALUES (?, ?)";
+  private static final String DELETE_ID_MAP = "DELETE FROM SyncIdMap";
+  private static final String FIND_STATE = "SELECT storeId, snapshotAt FROM SyncState";
+  private static final String INSERT_STATE = "INSERT INTO SyncState (storeId) VALUES (?)";
+  private static final String UPDATE_SNAPSHOT_AT = "UPDATE SyncState SET snapshotAt = ?";
+
+  private final ConnectionPool pool;
+  private final String storeId;
+  private final AtomicLong lastTxId;
+
+  /**
+   * Opens the store in a directory, creating the directory and the database if needed.
+   *
+   * @param directory the directory holding the database files
+   * @throws IOException if the directory or the schema script cannot be read
+   * @throws SQLException if the database cannot be opened or its schema created
+   */
+  public LocalStore(Path directory) throws IOException, SQLException {
+    Files.createDirectories(directory);
+    String url = "jdbc:h2:file:" + directory.resolve("local").toAbsolutePath() + URL_OPTIONS;
+    pool = new ConnectionPool(url, "sa", "", POOL_SIZE, POOL_TIMEOUT_MILLIS);
+    try (Connection conn = pool.getConnection();
+        Statement stmt = conn.createStatement()) {
+      for (String sql : readSchema()) {
+        stmt.execute(sql);
+      }
+      storeId = readOrCreateStoreId(conn);
+      try (ResultSet rs = stmt.executeQuery(MAX_TX_ID)) {
+        rs.next();
+        lastTxId = new AtomicLong(rs.getLong(1));
+      }
+    }
+  }
+
+  /**
+   * Borrows a connection to the store whose writes are recorded in the journal. Closing it returns
+   * it to the store's pool.
+   *
+   * @return a journaling connection
+   * @throws SQLException if a connection cannot be opened
+   */
+  public Connection getConnection() throws SQLException {
+    return JournalingConnection.wrap(pool.getConnection(), this);
+  }
+
+  /**
+   * Borrows a connection to the store for read-only queries.
+   *
+   * @return a connection that must only be used for reading
+   * @throws SQLException if a connection cannot be opened
+   */
+  public Connection getReadConnection() throws SQLException {
+    return pool.getConnection();
+  }
+
+  /**
+   * Replaces the replicated tables with the server's current rows. Offline-only tables and the ID
+   * map are cleared. Only allowed while the journal is empty, since local changes not yet synced
+   * would otherwise be lost.
+   *
+   * @param server a connection to the server
+   * @return the number of rows copied, or -1 if the journal is not empty and nothing was copied
+   * @throws SQLException if a database access error occurs; the store is left unchanged
+   */
+  public int snapshot(Connection server) throws SQLException {
+    try (Connection conn = pool.getConnection()) {
+      conn.setAutoCommit(false);
+      try {
+        if (countJournal(conn) > 0) {
+          conn.rollback();
+          return -1;
+        }
+        try (Statement stmt = conn.createStatement()) {
+          for (String table : LOCAL_ONLY_TABLES) {
+            stmt.executeUpdate("DELETE FROM " + table);
+          }
+          List<String> tables = new ArrayList<>(REPLICATED_COLUMNS.keySet());
+          for (int i = tables.size() - 1; i >= 0; i--) {
+            stmt.executeUpdate("DELETE FROM " + tables.get(i));
+          }
+          stmt.executeUpdate(DELETE_ID_MAP);
+        }
+        int rows = 0;
+        for (Map.Entry<String, String> table : REPLICATED_COLUMNS.entrySet()) {
+          rows += copyTable(server, conn, table.getKey(), table.getValue());
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(UPDATE_SNAPSHOT_AT)) {
+          stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+          stmt.executeUpdate();
+        }
+        conn.commit();
+        return rows;
+      } catch (SQLException | RuntimeException e) {
+        conn.rollback();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of writes waiting to be replayed on the server.
+   *
+   * @return the number of journal entries
+   * @throws SQLException if a database access error occurs
+   */
+  public long pendingChanges() throws SQLException {
+    try (Connection conn = pool.getConnection()) {
+      return countJournal(conn);
+    }
+  }
+
+  /**
+   * Returns when the replicated tables were last copied from the server.
+   *
+   * @return the time of the last snapshot, or null if none has been taken
+   * @throws SQLException if a database access error occurs
+   */
+  public LocalDateTime getSnapshotTime() throws SQLException {
+    try (Connection conn = pool.getConnection();
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(FIND_STATE)) {
+      Timestamp snapshotAt = rs.next() ? rs.getTimestamp(2) : null;
+      return snapshotAt != null ? snapshotAt.toLocalDateTime() : null;
+    }
+  }
+
+  /**
+   * Checks whether a value is an ID generated by a local store for a row created offline.
+   *
+   * @param value the value
+   * @return true if the value is in the local ID range
+   */
+  public static boolean isLocalId(long value) {
+    return value <= FIRST_LOCAL_ID;
+  }
+
+  /** Closes the store's connections, which closes the embedded database. */
+  @Override
+  public void close() {
+    pool.close();
+  }
+
+  /**
+   * Returns the ID that identifies this store to the server, so that the server can record how
+   * much of this store's journal it has applied.
+   *
+   * @return the store ID
+   */
+  String getStoreId() {
+    return storeId;
+  }
+
+  /**
+   * Allocates a transaction ID for journal entries.
+   *
+   * @return a new transaction ID
+   */
+  long nextTxId() {
+    return lastTxId.incrementAndGet();
+  }
+
+  /**
+   * Records a write in the journal, using the connection that made the write so that both commit
+   * or roll back together.
+   *
+   * @param conn the local connection that made the write
+   * @param txId the write's transaction ID
+   * @param sql the statement
+   * @param params the statement's parameters
+   * @param localKey the ID generated locally for an inserted row, or null
+   * @param rows the number of rows the write changed locally
+   * @throws SQLException if a database access error occurs
+   */
+  void journal(
+      Connection conn,
+      long txId,
+      String sql,
+      List<JournalEntry.Param> params,
+      Long localKey,
+      int rows)
+      throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(INSERT_JOURNAL)) {
+      stmt.setLong(1, txId);
+      stmt.setString(2, sql);
+      stmt.setString(3, JournalEntry.encode(params));
+      if (localKey != null) {
+        stmt.setLong(4, localKey);
+      } else {
+        stmt.setNull(4, Types.BIGINT);
+      }
+      stmt.setInt(5, rows);
+      stmt.executeUpdate();
+    }
+  }
+
+  /**
+   * Reads journal entries in order, extending the result to the end of the last transaction so
+   * that a transaction is never split.
+   *
+   * @param afterEntryId read entries after this one
+   * @param limit the number of entries to read, before completing the last transaction
+   * @return the entries, empty if there are no more
+   * @throws SQLException if a database access error occurs
+   */
+  List<JournalEntry> readJournal(long afterEntryId, int limit) throws SQLException {
+    List<JournalEntry> entries = new ArrayList<>();
+    try (Connection conn = pool.getConnection()) {
+      try (PreparedStatement stmt = conn.prepareStatement(FIND_JOURNAL)) {
+        stmt.setLong(1, afterEntryId);
+        stmt.setInt(2, limit);
+        readEntries(stmt, entries);
+      }
+      if (!entries.isEmpty()) {
+        JournalEntry last = entries.get(entries.size() - 1);
+        try (PreparedStatement stmt = conn.prepareStatement(FIND_JOURNAL_TX)) {
+          stmt.setLong(1, last.getEntryId());
+          stmt.setLong(2, last.getTxId());
+          readEntries(stmt, entries);
+        }
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Reads the server IDs already issued for rows created offline.
+   *
+   * @return the server IDs keyed by local ID
+   * @throws SQLException if a database access error occurs
+   */
+  Map<Long, Long> readIdMap() throws SQLException {
+    Map<Long, Long> ids = new HashMap<>();
+    try (Connection conn = pool.getConnection();
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(FIND_ID_MAP)) {
+      while (rs.next()) {
+        ids.put(rs.getLong(1), rs.getLong(2));
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Removes replayed entries from the journal and records the server IDs issued for them, in one
+   * local transaction.
+   *
+   * @param lastEntryId the last entry replayed
+   * @param newIds server IDs issued while replaying, keyed by local ID
+   * @throws SQLException if a database access error occurs
+   */
+  void markReplayed(long lastEntryId, Map<Long, Long> newIds) throws SQLException {
+    try (Connection conn = pool.getConnection()) {
+      conn.setAutoCommit(false);
+      try {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_ID_MAP)) {
+          for (Map.Entry<Long, Long> id : newIds.entrySet()) {
+            stmt.setLong(1, id.getKey());
+            stmt.setLong(2, id.getValue());
+            stmt.addBatch();
+          }
+          stmt.executeBatch();
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(DELETE_JOURNAL)) {
+          stmt.setLong(1, lastEntryId);
+          stmt.executeUpdate();
+        }
+        conn.commit();
+      } catch (SQLException | RuntimeException e) {
+        conn.rollback();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Copies every row of a table from the server into the store.
+   *
+   * @param server the server connection
+   * @param conn the local connection
+   * @param table the table name
+   * @param columns the columns to copy
+   * @return the number of rows copied
+   * @throws SQLException if a database access error occurs
+   */
+  private static int copyTable(Connection server, Connection conn, String table, String columns)
+      throws SQLException {
+    int columnCount = columns.split(",").length;
+    String placeholders = String.join(", ", Collections.nCopies(columnCount, "?"));
+    String insert = "INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")";
+    int rows = 0;
+    try (Statement select =
+            server.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        PreparedStatement stmt = conn.prepareStatement(insert)) {
+      select.setFetchSize(SNAPSHOT_FETCH_SIZE);
+      try (ResultSet rs = select.executeQuery("SELECT " + columns + " FROM " + table)) {
+        while (rs.next()) {
+          for (int i = 1; i <= columnCount; i++) {
+            stmt.setObject(i, rs.getObject(i));
+          }
+          stmt.addBatch();
+          if (++rows % SNAPSHOT_BATCH_SIZE == 0) {
+            stmt.executeBatch();
+          }
+        }
+      }
+      stmt.executeBatch();
+    }
+    return rows;
+  }
+
+  private static long countJournal(Connection conn) throws SQLException {
+    try (Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(COUNT_JOURNAL)) {
+      rs.next();
+      return rs.getLong(1);
+    }
+  }
+
+  private static void readEntries(PreparedStatement stmt, List<JournalEntry> entries)
+      throws SQLException {
+    try (ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        long key = rs.getLong(5);
+        Long localKey = rs.wasNull() ? null : key;
+        entries.add(
+            new JournalEntry(
+                rs.getLong(1),
+                rs.getLong(2),
+                rs.getString(3),
+                JournalEntry.decode(rs.getString(4)),
+                localKey,
+                rs.getInt(6)));
+      }
+    }
+  }
+
+  private static String readOrCreateStoreId(Connection conn) throws SQLException {
+    try (Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(FIND_STATE)) {
+      if (rs.next()) {
+        return rs.getString(1);
+      }
+    }
+    String storeId = UUID.randomUUID().toString();
+    try (PreparedStatement stmt = conn.prepareStatement(INSERT_STATE)) {
+      stmt.setString(1, storeId);
+      stmt.executeUpdate();
+    }
+    return storeId;
+  }
+
+  /**
+   * Reads the schema script bundled with the application and splits it into statements.
+   *
+   * @return the statements in order
+   * @throws IOException if the script cannot be read
+   */
+  private static List<String> readSchema() throws IOException {
+    String script;
+    try (InputStream in = LocalStore.class.getResourceAsStream("/offline/schema.sql")) {
+      if (in == null) {
+        throw new IOException("Offline schema script not found");
+      }
+      script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+    StringBuilder body = new StringBuilder();
+    for (String line : script.split("\n")) {
+      if (!line.trim().startsWith("--")) {
+        body.append(line).append('\n');
+      }
+    }
+    List<String> statements = new ArrayList<>();
+    for (String sql : body.toString().split(";\\s*\n")) {
+      if (!sql.trim().isEmpty()) {
+        statements.add(sql.trim());
+      }
+    }
+    return statements;
+  }
+}
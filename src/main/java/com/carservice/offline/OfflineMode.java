@@ -0,0 +1,186 @@
+package com.carservice.offline;
+
+import com.carservice.config.DatabaseConfig;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Switches the application between the server and its {@link LocalStore}. While online, the store
+ * is refreshed from the server every snapshot interval. When the server cannot be reached, {@link
+ * DatabaseConfig} hands out local connections instead: reads see the last snapshot plus local
+ * changes, and writes are journaled. A background task checks for the server at a fixed interval;
+ * once it answers, the journal is replayed, the application goes back online and a fresh snapshot
+ * is taken.
+ *
+ * <p>Listeners are told when the application goes offline or back online, and after a sync that
+ * applied changes. They are called on the thread that noticed the change and must hand any UI work
+ * to the UI thread.
+ */
+public class OfflineMode implements AutoCloseable {
+  private final LocalStore store;
+  private final JournalReplayer replayer;
+  private final long snapshotIntervalMillis;
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "offline-sync");
+            thread.setDaemon(true);
+            return thread;
+          });
+  private volatile boolean offline;
+  private volatile SyncResult lastSync;
+  private long lastSnapshotMillis;
+
+  /**
+   * Creates the offline mode for a local store. Call {@link #start(long)} to begin checking the
+   * server.
+   *
+   * @param store the local store
+   * @param batchSize the number of journal entries replayed per server transaction
+   * @param snapshotIntervalMillis how often the store is refreshed from the server while online
+   */
+  public OfflineMode(LocalStore store, int batchSize, long snapshotIntervalMillis) {
+    this.store = store;
+    this.replayer = new JournalReplayer(store, batchSize);
+    this.snapshotIntervalMillis = snapshotIntervalMillis;
+  }
+
+  /**
+   * Starts the background task that syncs with the server, first straight away and then at the
+   * given interval.
+   *
+   * @param syncIntervalMillis the time between syncs
+   */
+  public void start(long syncIntervalMillis) {
+    scheduler.scheduleWithFixedDelay(
+        this::syncQuietly, 0, syncIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Checks whether the application is working from the local store.
+   *
+   * @return true while the server is unreachable
+   */
+  public boolean isOffline() {
+    return offline;
+  }
+
+  /**
+   * Returns the outcome of the last sync that applied changes or found conflicts.
+   *
+   * @return the last sync result, or null if no changes have been synced
+   */
+  public SyncResult getLastSync() {
+    return lastSync;
+  }
+
+  public LocalStore getStore() {
+    return store;
+  }
+
+  /**
+   * Registers a listener for changes of state and completed syncs.
+   *
+   * @param listener the listener
+   */
+  public void addListener(Runnable listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Switches to the local store. Called by {@link DatabaseConfig} when a server connection cannot
+   * be opened; the background task switches back once the server answers.
+   */
+  public void goOffline() {
+    if (!offline) {
+      offline = true;
+      notifyListeners();
+    }
+  }
+
+  /**
+   * Replays the journal on the server, switches back online, and refreshes the local store on the
+   * first sync and whenever it is due. Runs on the background task; tools may also call it
+   * directly.
+   *
+   * @return the outcome of replaying the journal
+   * @throws SQLException if the server cannot be reached or written; the journal keeps every
+   *     entry not yet applied
+   */
+  public synchronized SyncResult sync() throws SQLException {
+    try (Connection server = DatabaseConfig.getServerConnection()) {
+      boolean wasOffline = offline;
+      SyncResult result = replayer.replay(server);
+      boolean changed = result.getApplied() > 0 || !result.getConflicts().isEmpty();
+      if (changed) {
+        lastSync = result;
+      }
+      // Writes journaled between the replay and this switch are replayed by the next sync
+      offline = false;
+
+      long now = System.currentTimeMillis();
+      if (wasOffline
+          || lastSnapshotMillis == 0
+          || now - lastSnapshotMillis >= snapshotIntervalMillis) {
+        if (store.snapshot(server) >= 0) {
+          lastSnapshotMillis = now;
+        }
+      }
+      if (wasOffline || changed) {
+        notifyListeners();
+      }
+      return result;
+    }
+  }
+
+  /** Stops the background task and closes the local store. */
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    try {
+      scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    store.close();
+  }
+
+  /**
+   * Checks whether an exception means the server could not be reached, as opposed to a failed
+   * statement.
+   *
+   * @param e the exception
+   * @return true for SQLState class 08 (connection exception)
+   */
+  public static boolean isConnectionFailure(SQLException e) {
+    return e.getSQLState() != null && e.getSQLState().startsWith("08");
+  }
+
+  /** Runs a sync from the background task, going offline if the server cannot be reached. */
+  private void syncQuietly() {
+    try {
+      sync();
+    } catch (SQLException e) {
+      if (isConnectionFailure(e)) {
+        goOffline();
+      } else {
+        System.err.println("Offline sync failed: " + e.getMessage());
+      }
+    } catch (RuntimeException e) {
+      // Keep the scheduled task alive
+      e.printStackTrace();
+    }
+  }
+
+  private void notifyListeners() {
+    for (Runnable listener : listeners) {
+      listener.run();
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.carservice.offline;
+
+import java.util.Collections;
+import java.util.List;
+
+/** The outcome of replaying the offline journal on the server. */
+public final class SyncResult {
+  private final int applied;
+  private final List<String> conflicts;
+
+  SyncResult(int applied, List<String> conflicts) {
+    this.applied = applied;
+    this.conflicts = Collections.unmodifiableList(conflicts);
+  }
+
+  /**
+   * Returns the number of offline writes applied on the server.
+   *
+   * @return the number of journal entries applied
+   */
+  public int getApplied() {
+    return applied;
+  }
+
+  /**
+   * Returns a description of each offline change that was not applied because it conflicted with
+   * the server's data. Each is also logged as a SYNC activity on the server.
+   *
+   * @return the conflict descriptions, empty if there were none
+   */
+  public List<String> getConflicts() {
+    return conflicts;
+  }
+
+  @Override
+  public String toString() {
+    return applied + " change(s) synced, " + conflicts.size() + " conflict(s)";
+  }
+}
@@ -0,0 +1,195 @@
+package com.carservice.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A balanced binary search tree of half-open intervals {@code [start, end)}, each identified by a
+ * long ID. Nodes are ordered by start and ID and record the latest end in their subtree, so a
+ * search for the intervals overlapping a window skips every subtree that ends before the window
+ * starts or begins after it ends. Adding, removing and finding overlaps take O(log n) time, plus
+ * the number of overlaps found.
+ *
+ * <p>Not thread-safe; {@link OccupancyIndex} guards its trees with a lock.
+ */
+final class IntervalTree {
+  private Node root;
+  private int size;
+
+  /**
+   * Adds an interval. An interval with the same start and ID must not already be in the tree.
+   *
+   * @param start the start of the interval, inclusive
+   * @param end the end of the interval, exclusive; {@link Long#MAX_VALUE} for an open interval
+   * @param id the ID of the interval
+   */
+  void add(long start, long end, long id) {
+    root = add(root, start, end, id);
+    size++;
+  }
+
+  /**
+   * Removes an interval.
+   *
+   * @param start the start the interval was added with
+   * @param id the ID of the interval
+   * @return true if the interval was in the tree
+   */
+  boolean remove(long start, long id) {
+    int before = size;
+    root = remove(root, start, id);
+    return size < before;
+  }
+
+  /**
+   * Finds the intervals overlapping a window.
+   *
+   * @param from the start of the window, inclusive
+   * @param to the end of the window, exclusive
+   * @return the IDs of the overlapping intervals, in order of start
+   */
+  List<Long> overlapping(long from, long to) {
+    List<Long> ids = new ArrayList<>();
+    collect(root, from, to, ids);
+    return ids;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  private static void collect(Node node, long from, long to, List<Long> ids) {
+    if (node == null || node.maxEnd <= from) {
+      return;
+    }
+    collect(node.left, from, to, ids);
+    if (node.start < to) {
+      if (from < node.end) {
+        ids.add(node.id);
+      }
+      // Later nodes start no earlier than this one, so they can only overlap if it starts in time
+      collect(node.right, from, to, ids);
+    }
+  }
+
+  private static Node add(Node node, long start, long end, long id) {
+    if (node == null) {
+      return new Node(start, end, id);
+    }
+    if (compare(start, id, node) < 0) {
+      node.left = add(node.left, start, end, id);
+    } else {
+      node.right = add(node.right, start, end, id);
+    }
+    return balance(node);
+  }
+
+  private Node remove(Node node, long start, long id) {
+    if (node == null) {
+      return null;
+    }
+    int order = compare(start, id, node);
+    if (order < 0) {
+      node.left = remove(node.left, start, id);
+    } else if (order > 0) {
+      node.right = remove(node.right, start, id);
+    } else {
+      size--;
+      if (node.left == null || node.right == null) {
+        return node.left != null ? node.left : node.right;
+      }
+      Node successor = node.right;
+      while (successor.left != null) {
+        successor = successor.left;
+      }
+      node.right = removeFirst(node.right);
+      successor.left = node.left;
+      successor.right = node.right;
+      return balance(successor);
+    }
+    return balance(node);
+  }
+
+  private static Node removeFirst(Node node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    node.left = removeFirst(node.left);
+    return balance(node);
+  }
+
+  private static int compare(long start, long id, Node node) {
+    int order = Long.compare(start, node.start);
+    return order != 0 ? order : Long.compare(id, node.id);
+  }
+
+  /** Restores the AVL height invariant at a node whose subtrees differ in height by up to two. */
+  private static Node balance(Node node) {
+    update(node);
+    int skew = height(node.left) - height(node.right);
+    if (skew > 1) {
+      if (height(node.left.left) < height(node.left.right)) {
+        node.left = rotateLeft(node.left);
+      }
+      return rotateRight(node);
+    }
+    if (skew < -1) {
+      if (height(node.right.right) < height(node.right.left)) {
+        node.right = rotateRight(node.right);
+      }
+      return rotateLeft(node);
+    }
+    return node;
+  }
+
+  private static Node rotateRight(Node node) {
+    Node left = node.left;
+    node.left = left.right;
+    left.right = node;
+    update(node);
+    update(left);
+    return left;
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node right = node.right;
+    node.right = right.left;
+    right.left = node;
+    update(node);
+    update(right);
+    return right;
+  }
+
+  private static void update(Node node) {
+    node.height = 1 + Math.max(height(node.left), height(node.right));
+    long maxEnd = node.end;
+    if (node.left != null) {
+      maxEnd = Math.max(maxEnd, node.left.maxEnd);
+    }
+    if (node.right != null) {
+      maxEnd = Math.max(maxEnd, node.right.maxEnd);
+    }
+    node.maxEnd = maxEnd;
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static final class Node {
+    private final long start;
+    private final long end;
+    private final long id;
+    private long maxEnd;
+    private int height = 1;
+    private Node left;
+    private Node right;
+
+    private Node(long start, long end, long id) {
+      this.start = start;
+      this.end = end;
+      this.id = id;
+      this.maxEnd = end;
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package com.carservice.schedule;
+
+import com.carservice.util.RegNumbers;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory index of when each car is in a garage, built from the jobs' date in and date out.
+ * A job occupies its car and garage from its date in until its date out, or indefinitely while it
+ * is open; a job that ends when another starts does not overlap it. Each car and each garage has
+ * its own {@link IntervalTree}, so overlap questions are answered in logarithmic time without
+ * loading any jobs. Registration numbers are compared by their normalized key.
+ *
+ * <p>The index is safe for concurrent use; queries run in parallel and block only while it is
+ * updated.
+ */
+public final class OccupancyIndex {
+  private static final long OPEN = Long.MAX_VALUE;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Long, Booking> bookings = new HashMap<>();
+  private final Map<String, IntervalTree> byCar = new HashMap<>();
+  private final Map<Long, IntervalTree> byGarage = new HashMap<>();
+
+  /**
+   * Adds a job, replacing any earlier version of it.
+   *
+   * @param jobId the job's ID
+   * @param garageId the garage the car is in
+   * @param regNo the car's registration number
+   * @param dateIn when the car came in
+   * @param dateOut when the car left, or null while the job is open
+   */
+  public void put(
+      long jobId, long garageId, String regNo, LocalDateTime dateIn, LocalDateTime dateOut) {
+    Booking booking = new Booking(jobId, garageId, regNo, dateIn, dateOut);
+    lock.writeLock().lock();
+    try {
+      unlink(bookings.put(jobId, booking));
+      byCar
+          .computeIfAbsent(booking.carKey, key -> new IntervalTree())
+          .add(booking.start, booking.end, jobId);
+      byGarage
+          .computeIfAbsent(garageId, key -> new IntervalTree())
+          .add(booking.start, booking.end, jobId);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a job.
+   *
+   * @param jobId the job's ID
+   */
+  public void remove(long jobId) {
+    lock.writeLock().lock();
+    try {
+      unlink(bookings.remove(jobId));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes every job of a car, as deleting the car does.
+   *
+   * @param regNo the car's registration number
+   */
+  public void removeCar(String regNo) {
+    lock.writeLock().lock();
+    try {
+      IntervalTree jobs = byCar.get(RegNumbers.normalize(regNo));
+      if (jobs != null) {
+        for (long jobId : jobs.overlapping(Long.MIN_VALUE, OPEN)) {
+          unlink(bookings.remove(jobId));
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the jobs that have a car in a garage at some point of a period.
+   *
+   * @param regNo the car's registration number
+   * @param from the start of the period
+   * @param to the end of the period, or null for a period that has not ended
+   * @return the overlapping jobs, in order of date in
+   */
+  public List<Booking> findCarOverlaps(String regNo, LocalDateTime from, LocalDateTime to) {
+    lock.readLock().lock();
+    try {
+      return find(byCar.get(RegNumbers.normalize(regNo)), toSeconds(from), endSeconds(to));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the jobs in a garage at a moment.
+   *
+   * @param garageId the garage's ID
+   * @param time the moment
+   * @return the jobs whose car is in the garage then, in order of date in
+   */
+  public List<Booking> findInGarageAt(long garageId, LocalDateTime time) {
+    long second = toSeconds(time);
+    lock.readLock().lock();
+    try {
+      return find(byGarage.get(garageId), second, second + 1);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of jobs in the index.
+   *
+   * @return the job count
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return bookings.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private List<Booking> find(IntervalTree tree, long from, long to) {
+    List<Booking> found = new ArrayList<>();
+    if (tree != null) {
+      for (long jobId : tree.overlapping(from, to)) {
+        found.add(bookings.get(jobId));
+      }
+    }
+    return found;
+  }
+
+  private void unlink(Booking booking) {
+    if (booking == null) {
+      return;
+    }
+    IntervalTree carJobs = byCar.get(booking.carKey);
+    carJobs.remove(booking.start, booking.jobId);
+    if (carJobs.isEmpty()) {
+      byCar.remove(booking.carKey);
+    }
+    IntervalTree garageJobs = byGarage.get(booking.garageId);
+    garageJobs.remove(booking.start, booking.jobId);
+    if (garageJobs.isEmpty()) {
+      byGarage.remove(booking.garageId);
+    }
+  }
+
+  private static long toSeconds(LocalDateTime time) {
+    // Only the order matters, so the time zone is irrelevant
+    return time.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  private static long endSeconds(LocalDateTime time) {
+    return time == null ? OPEN : toSeconds(time);
+  }
+
+  /** A job's stay: the car, the garage and the period. */
+  public static final class Booking {
+    private final long jobId;
+    private final long garageId;
+    private final String regNo;
+    private final String carKey;
+    private final LocalDateTime dateIn;
+    private final LocalDateTime dateOut;
+    private final long start;
+    private final long end;
+
+    private Booking(
+        long jobId, long garageId, String regNo, LocalDateTime dateIn, LocalDateTime dateOut) {
+      this.jobId = jobId;
+      this.garageId = garageId;
+      this.regNo = regNo;
+      this.carKey = RegNumbers.normalize(regNo);
+      this.dateIn = dateIn;
+      this.dateOut = dateOut;
+      this.start = toSeconds(dateIn);
+      this.end = endSeconds(dateOut);
+    }
+
+    public long getJobId() {
+      return jobId;
+    }
+
+    public long getGarageId() {
+      return garageId;
+    }
+
+    public String getRegNo() {
+      return regNo;
+    }
+
+    public LocalDateTime getDateIn() {
+      return dateIn;
+    }
+
+    /**
+     * Returns when the car left.
+     *
+     * @return the date out, or null while the job is open
+     */
+    public LocalDateTime getDateOut() {
+      return dateOut;
+    }
+  }
+}
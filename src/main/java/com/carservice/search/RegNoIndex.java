@@ -0,0 +1,177 @@
+package com.carservice.search;
+
+import com.carservice.util.RegNumbers;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Finds registration numbers within one typo of what was typed, for suggestions such as "did you
+ * mean AB12 CDE?". Registration numbers are compared by their normalized key, so case and spaces
+ * never count as typos; a typo is one character wrong, missing or extra, or two neighbouring
+ * characters swapped.
+ *
+ * <p>Each key is stored under itself and under every string made by deleting one of its
+ * characters. Two keys within one typo of each other always share one of these, so a lookup only
+ * probes the few strings made from the typed key and never compares it with every registration
+ * number. The candidates found are then checked exactly.
+ */
+public final class RegNoIndex {
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<String, String> regNos = new HashMap<>();
+  private final Map<String, Set<String>> variants = new HashMap<>();
+
+  /**
+   * Adds a registration number, replacing any with the same key.
+   *
+   * @param regNo the registration number as stored
+   */
+  public void add(String regNo) {
+    String key = RegNumbers.normalize(regNo);
+    if (key == null || key.isEmpty()) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      if (regNos.put(key, regNo) == null) {
+        for (String variant : variants(key)) {
+          variants.computeIfAbsent(variant, k -> new HashSet<>(2)).add(key);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a registration number.
+   *
+   * @param regNo the registration number, in any case and spacing
+   */
+  public void remove(String regNo) {
+    String key = RegNumbers.normalize(regNo);
+    if (key == null) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      if (regNos.remove(key) != null) {
+        for (String variant : variants(key)) {
+          Set<String> keys = variants.get(variant);
+          if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+              variants.remove(variant);
+            }
+          }
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the registration numbers within one typo of the typed one.
+   *
+   * @param typed the registration number as typed
+   * @return the matches as stored, an exact match first and then in alphabetical order
+   */
+  public List<String> findSimilar(String typed) {
+    String key = RegNumbers.normalize(typed);
+    if (key == null || key.isEmpty()) {
+      return Collections.emptyList();
+    }
+    lock.readLock().lock();
+    try {
+      String exact = regNos.get(key);
+      List<String> similar = new ArrayList<>();
+      Set<String> checked = new HashSet<>();
+      for (String variant : variants(key)) {
+        Set<String> keys = variants.get(variant);
+        if (keys == null) {
+          continue;
+        }
+        for (String candidate : keys) {
+          if (!candidate.equals(key) && checked.add(candidate) && withinOneTypo(key, candidate)) {
+            similar.add(regNos.get(candidate));
+          }
+        }
+      }
+      Collections.sort(similar);
+      if (exact != null) {
+        similar.add(0, exact);
+      }
+      return similar;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of registration numbers in the index.
+   *
+   * @return the count
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return regNos.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a key and every string made by deleting one of its characters.
+   *
+   * @param key the key
+   * @return the distinct variants
+   */
+  private static Set<String> variants(String key) {
+    Set<String> variants = new LinkedHashSet<>();
+    variants.add(key);
+    for (int i = 0; i < key.length(); i++) {
+      variants.add(key.substring(0, i) + key.substring(i + 1));
+    }
+    return variants;
+  }
+
+  /**
+   * Checks whether two different keys are one substitution, insertion, deletion or swap of
+   * neighbouring characters apart.
+   */
+  private static boolean withinOneTypo(String a, String b) {
+    if (a.length() < b.length()) {
+      String shorter = a;
+      a = b;
+      b = shorter;
+    }
+    if (a.length() - b.length() > 1) {
+      return false;
+    }
+    int prefix = 0;
+    while (prefix < b.length() && a.charAt(prefix) == b.charAt(prefix)) {
+      prefix++;
+    }
+    if (a.length() != b.length()) {
+      // One extra character in the longer key
+      return a.regionMatches(prefix + 1, b, prefix, b.length() - prefix);
+    }
+    if (a.regionMatches(prefix + 1, b, prefix + 1, a.length() - prefix - 1)) {
+      return true;
+    }
+    // Two neighbouring characters swapped
+    return prefix + 1 < a.length()
+        && a.charAt(prefix) == b.charAt(prefix + 1)
+        && a.charAt(prefix + 1) == b.charAt(prefix)
+        && a.regionMatches(prefix + 2, b, prefix + 2, a.length() - prefix - 2);
+  }
+}
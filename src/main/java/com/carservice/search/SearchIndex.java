@@ -0,0 +1,438 @@
+package com.carservice.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory inverted index over customers, cars, garages and jobs. Each record is indexed under
+ * the words of its searchable fields, lower-cased and split at anything that is not a letter or
+ * digit; a field of several words is also indexed as one word with the separators removed, so
+ * "SW1A 1AA" is found by "sw1a", "1aa" and "sw1a1aa".
+ *
+ * <p>Every word of a query, up to sixteen, must match a word of the record, in full or, for words
+ * of two or more characters, as a prefix. Results are ranked by the sum of their word scores, with
+ * whole-word matches scoring more than prefix matches. Matches are tallied in arrays indexed by
+ * record position and only the best few are ranked, so broad words stay cheap.
+ *
+ * <p>Records may name the records they belong to, such as a car's customer. Removing a record also
+ * removes the records that belong to it, as the database's cascading deletes do. The index is safe
+ * for concurrent use; searches run in parallel with each other and block only while it is updated.
+ */
+public final class SearchIndex {
+  private static final int EXACT_SCORE = 3;
+  private static final int PREFIX_SCORE = 1;
+  private static final int MIN_PREFIX_LENGTH = 2;
+  private static final int MAX_QUERY_WORDS = 16;
+  private static final int MIN_REMOVED_TO_COMPACT = 1024;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final List<Entry> entries = new ArrayList<>();
+  private final Map<String, Integer> live = new HashMap<>();
+  private final Map<String, Set<String>> children = new HashMap<>();
+  private final TreeMap<String, Postings> postings = new TreeMap<>();
+  private final BitSet removedPositions = new BitSet();
+  private int removed;
+
+  /**
+   * Returns the key that identifies a record in the index and in parent lists.
+   *
+   * @param type the kind of record
+   * @param id the record's ID
+   * @return the key
+   */
+  public static String key(SearchResult.Type type, Object id) {
+    return type + ":" + id;
+  }
+
+  /**
+   * Adds a record, replacing any earlier version of it. Records that belong to it are kept.
+   *
+   * @param type the kind of record
+   * @param id the record's ID
+   * @param title the text shown for the record in the results
+   * @param detail the secondary text shown for the record
+   * @param parents the keys of the records this one belongs to, see {@link #key}
+   * @param fields the searchable field values; null values are skipped
+   */
+  public void put(
+      SearchResult.Type type,
+      Object id,
+      String title,
+      String detail,
+      List<String> parents,
+      String... fields) {
+    Set<String> terms = new LinkedHashSet<>();
+    for (String field : fields) {
+      addTerms(field, terms, true);
+    }
+    Entry entry =
+        new Entry(type, id, title, detail, parents, terms.toArray(new String[terms.size()]));
+
+    lock.writeLock().lock();
+    try {
+      Integer previous = live.get(entry.key);
+      if (previous != null) {
+        removedPositions.set(previous);
+        removed++;
+        unlinkParents(entries.get(previous));
+      }
+      for (String parent : parents) {
+        children.computeIfAbsent(parent, key -> new HashSet<>()).add(entry.key);
+      }
+      add(entry);
+      compactIfNeeded();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a record and every record that belongs to it, directly or indirectly.
+   *
+   * @param type the kind of record
+   * @param id the record's ID
+   */
+  public void remove(SearchResult.Type type, Object id) {
+    lock.writeLock().lock();
+    try {
+      removeKey(key(type, id));
+      compactIfNeeded();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the records matching every word of a query.
+   *
+   * @param query the words to look for
+   * @param limit the maximum number of results
+   * @return the best matches, best first
+   */
+  public List<SearchResult> search(String query, int limit) {
+    Set<String> words = new LinkedHashSet<>();
+    addTerms(query, words, false);
+    if (words.isEmpty() || limit <= 0) {
+      return Collections.emptyList();
+    }
+
+    lock.readLock().lock();
+    try {
+      Match match = new Match(entries.size());
+      for (String word : words) {
+        if (!match(word, match)) {
+          return Collections.emptyList();
+        }
+        if (match.words == MAX_QUERY_WORDS) {
+          break;
+        }
+      }
+      return top(match, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Checks whether a record is in the index.
+   *
+   * @param type the kind of record
+   * @param id the record's ID
+   * @return true if the record has been added and not removed since
+   */
+  public boolean contains(SearchResult.Type type, Object id) {
+    lock.readLock().lock();
+    try {
+      return live.containsKey(key(type, id));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of records in the index.
+   *
+   * @return the record count
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return live.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Adds the next query word to a match: records that matched every earlier word and contain this
+   * one, or a word it is a prefix of, keep matching and gain the word's score.
+   *
+   * @param word the query word
+   * @param match the records matched so far
+   * @return false if no record matches any more
+   */
+  private boolean match(String word, Match match) {
+    if (word.length() < MIN_PREFIX_LENGTH) {
+      Postings exact = postings.get(word);
+      if (exact != null) {
+        collect(exact, EXACT_SCORE, match);
+      }
+    } else {
+      // The word itself sorts first, so a record is scored by its whole-word match if it has one
+      for (Map.Entry<String, Postings> term : postings.tailMap(word, true).entrySet()) {
+        if (!term.getKey().startsWith(word)) {
+          break;
+        }
+        int score = term.getKey().length() == word.length() ? EXACT_SCORE : PREFIX_SCORE;
+        collect(term.getValue(), score, match);
+      }
+    }
+    return match.nextWord();
+  }
+
+  private void collect(Postings list, int score, Match match) {
+    for (int i = 0; i < list.size; i++) {
+      int position = list.positions[i];
+      if (!removedPositions.get(position)) {
+        match.add(position, score);
+      }
+    }
+  }
+
+  /**
+   * Picks the best matches without sorting every matching record. Only records that rank above the
+   * worst of the best found so far are queued.
+   *
+   * @param match the records matching every query word
+   * @param limit the maximum number of results
+   * @return the best matches, best first
+   */
+  private List<SearchResult> top(Match match, int limit) {
+    Comparator<Integer> worstFirst = (a, b) -> compare(match, b, a);
+    PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, worstFirst);
+    for (int i = 0; i < match.candidateCount; i++) {
+      int position = match.candidates[i];
+      if (match.wordsMatched[position] != match.words) {
+        continue;
+      }
+      if (best.size() == limit && compare(match, position, best.peek()) >= 0) {
+        continue;
+      }
+      best.add(position);
+      if (best.size() > limit) {
+        best.poll();
+      }
+    }
+
+    List<Integer> positions = new ArrayList<>(best);
+    positions.sort((a, b) -> compare(match, a, b));
+    List<SearchResult> results = new ArrayList<>(positions.size());
+    for (int position : positions) {
+      Entry entry = entries.get(position);
+      results.add(
+          new SearchResult(
+              entry.type, entry.id, entry.title, entry.detail, match.scores[position]));
+    }
+    return results;
+  }
+
+  /**
+   * Orders two matching records: higher score first, then by type, then by title ignoring case.
+   *
+   * @return a negative number if the first record ranks above the second
+   */
+  private int compare(Match match, int first, int second) {
+    int order = Integer.compare(match.scores[second], match.scores[first]);
+    if (order != 0) {
+      return order;
+    }
+    Entry a = entries.get(first);
+    Entry b = entries.get(second);
+    order = a.type.compareTo(b.type);
+    return order != 0 ? order : a.sortTitle.compareTo(b.sortTitle);
+  }
+
+  private void add(Entry entry) {
+    int position = entries.size();
+    entries.add(entry);
+    live.put(entry.key, position);
+    for (String term : entry.terms) {
+      postings.computeIfAbsent(term, key -> new Postings()).add(position);
+    }
+  }
+
+  private void removeKey(String key) {
+    Integer position = live.remove(key);
+    if (position != null) {
+      removedPositions.set(position);
+      removed++;
+      unlinkParents(entries.get(position));
+    }
+    Set<String> dependents = children.remove(key);
+    if (dependents != null) {
+      for (String dependent : dependents) {
+        removeKey(dependent);
+      }
+    }
+  }
+
+  private void unlinkParents(Entry entry) {
+    for (String parent : entry.parents) {
+      Set<String> siblings = children.get(parent);
+      if (siblings != null) {
+        siblings.remove(entry.key);
+        if (siblings.isEmpty()) {
+          children.remove(parent);
+        }
+      }
+    }
+  }
+
+  /** Drops replaced and removed records from the postings once they outnumber the live ones. */
+  private void compactIfNeeded() {
+    if (removed < MIN_REMOVED_TO_COMPACT || removed < live.size()) {
+      return;
+    }
+    List<Entry> current = new ArrayList<>(entries);
+    BitSet dropped = (BitSet) removedPositions.clone();
+    entries.clear();
+    live.clear();
+    postings.clear();
+    removedPositions.clear();
+    removed = 0;
+    for (int i = 0; i < current.size(); i++) {
+      if (!dropped.get(i)) {
+        add(current.get(i));
+      }
+    }
+  }
+
+  /**
+   * Splits text into lower-case words of letters and digits.
+   *
+   * @param text the text, or null
+   * @param terms receives the words
+   * @param joined true to also add the words run together when there are several
+   */
+  private static void addTerms(String text, Set<String> terms, boolean joined) {
+    if (text == null) {
+      return;
+    }
+    String lower = text.toLowerCase(Locale.ROOT);
+    StringBuilder all = new StringBuilder(lower.length());
+    int start = -1;
+    int words = 0;
+    for (int i = 0; i <= lower.length(); i++) {
+      boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        terms.add(lower.substring(start, i));
+        all.append(lower, start, i);
+        words++;
+        start = -1;
+      }
+    }
+    if (joined && words > 1) {
+      terms.add(all.toString());
+    }
+  }
+
+  /** A version of a record; its position is marked removed once it is replaced or deleted. */
+  private static final class Entry {
+    private final SearchResult.Type type;
+    private final Object id;
+    private final String key;
+    private final String title;
+    private final String sortTitle;
+    private final String detail;
+    private final List<String> parents;
+    private final String[] terms;
+
+    private Entry(
+        SearchResult.Type type,
+        Object id,
+        String title,
+        String detail,
+        List<String> parents,
+        String[] terms) {
+      this.type = type;
+      this.id = id;
+      this.key = key(type, id);
+      this.title = title;
+      this.sortTitle = title == null ? "" : title.toLowerCase(Locale.ROOT);
+      this.detail = detail;
+      this.parents = parents;
+      this.terms = terms;
+    }
+  }
+
+  /**
+   * The records matched by a query so far, tracked in arrays indexed by entry position so that
+   * broad words such as a common make cost no allocation per record.
+   */
+  private static final class Match {
+    private final byte[] wordsMatched;
+    private final int[] scores;
+    private int[] candidates = new int[16];
+    private int candidateCount;
+    private byte words;
+    private boolean advanced;
+
+    private Match(int size) {
+      wordsMatched = new byte[size];
+      scores = new int[size];
+    }
+
+    /** Counts a record as matching the current word, unless it missed an earlier one. */
+    private void add(int position, int score) {
+      if (wordsMatched[position] != words) {
+        return;
+      }
+      wordsMatched[position]++;
+      scores[position] += score;
+      advanced = true;
+      if (words == 0) {
+        if (candidateCount == candidates.length) {
+          candidates = Arrays.copyOf(candidates, candidateCount * 2);
+        }
+        candidates[candidateCount++] = position;
+      }
+    }
+
+    /** Moves on to the next word, returning false if no record matched the current one. */
+    private boolean nextWord() {
+      words++;
+      boolean any = advanced;
+      advanced = false;
+      return any;
+    }
+  }
+
+  /** The positions of the entries containing a word, in ascending order. */
+  private static final class Postings {
+    private int[] positions = new int[4];
+    private int size;
+
+    private void add(int position) {
+      if (size == positions.length) {
+        positions = Arrays.copyOf(positions, size * 2);
+      }
+      positions[size++] = position;
+    }
+  }
+}
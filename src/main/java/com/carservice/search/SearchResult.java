@@ -0,0 +1,62 @@
+package com.carservice.search;
+
+/** A record matching a global search, with what is shown for it in the result list. */
+public final class SearchResult {
+  /** The kinds of record that are searched. */
+  public enum Type {
+    CUSTOMER,
+    CAR,
+    GARAGE,
+    JOB
+  }
+
+  private final Type type;
+  private final Object id;
+  private final String title;
+  private final String detail;
+  private final int score;
+
+  SearchResult(Type type, Object id, String title, String detail, int score) {
+    this.type = type;
+    this.id = id;
+    this.title = title;
+    this.detail = detail;
+    this.score = score;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  /**
+   * Returns the record's key: the registration number for a car, the numeric ID otherwise.
+   *
+   * @return the record ID
+   */
+  public Object getId() {
+    return id;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getDetail() {
+    return detail;
+  }
+
+  /**
+   * Returns how well the record matches; higher is better. Whole-word matches score more than
+   * prefix matches.
+   *
+   * @return the score
+   */
+  public int getScore() {
+    return score;
+  }
+
+  @Override
+  public String toString() {
+    return title + " - " + detail;
+  }
+}
@@ -0,0 +1,109 @@
+package com.carservice.service;
+
+import com.carservice.config.DatabaseConfig;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the activity retention policy in the background. At a fixed interval, activities older
+ * than the retention period are moved from the Activity table to the ActivityArchive table in
+ * bounded batches, so the Activity table that recent-activity queries read, and its timestamp
+ * index, stay small. Nothing is archived while the application is offline, nor ever when the
+ * retention period is 0 or less.
+ */
+public class ActivityArchiver implements AutoCloseable {
+  private static final long FIRST_RUN_DELAY_MILLIS = 60_000;
+
+  private final ActivityService activityService;
+  private final int retentionDays;
+  private final int batchSize;
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "activity-archiver");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  /**
+   * Creates an archiver. Call {@link #start(long)} to begin archiving.
+   *
+   * @param activityService the service used to archive activities.
+   * @param retentionDays how many days activities stay in the Activity table; 0 or less keeps them
+   *     all.
+   * @param batchSize the maximum number of activities moved per transaction.
+   */
+  public ActivityArchiver(ActivityService activityService, int retentionDays, int batchSize) {
+    this.activityService = activityService;
+    this.retentionDays = retentionDays;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Starts the background task, first a minute after startup so it does not compete with loading
+   * the views, and then at the given interval. Nothing is scheduled if the retention period keeps
+   * every activity or the interval is not positive.
+   *
+   * @param intervalMillis the time between runs.
+   */
+  public void start(long intervalMillis) {
+    if (retentionDays <= 0) {
+      return;
+    }
+    if (intervalMillis <= 0) {
+      System.err.println(
+          "Activity archiving not scheduled: the interval must be positive, not "
+              + intervalMillis
+              + " ms");
+      return;
+    }
+    scheduler.scheduleWithFixedDelay(
+        this::archiveQuietly,
+        Math.min(FIRST_RUN_DELAY_MILLIS, intervalMillis),
+        intervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Archives the activities older than the retention period now. Does nothing if the retention
+   * period is 0 or less, which keeps every activity in place.
+   *
+   * @return the number of activities archived.
+   * @throws ServiceException if archiving fails.
+   */
+  public int archive() throws ServiceException {
+    if (retentionDays <= 0) {
+      return 0;
+    }
+    return activityService.archiveOlderThan(
+        LocalDateTime.now().minusDays(retentionDays), batchSize);
+  }
+
+  /** Stops the background task, waiting briefly for a batch in progress. */
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+    try {
+      scheduler.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Runs an archive from the background task, reporting rather than throwing failures. */
+  private void archiveQuietly() {
+    if (DatabaseConfig.isOffline()) {
+      return;
+    }
+    try {
+      archive();
+    } catch (ServiceException e) {
+      System.err.println("Activity archiving failed: " + e.getMessage());
+    } catch (RuntimeException e) {
+      // Keep the scheduled task alive
+      e.printStackTrace();
+    }
+  }
+}
@@ -8,19 +8,37 @@ import java.util.List;
 
 /**
  * Service class for managing activities. Provides methods to log activities and retrieve recent
- * activities.
+ * activities. The latest activities are kept in memory, seeded from the database once, so
+ * retrieving them does not query the database; activities written by other processes are picked
+ * up when the buffer is reseeded.
  */
 public class ActivityService {
   private final ActivityDAO activityDAO;
   private static final int DEFAULT_RECENT_LIMIT = 20;
+  private static final int RECENT_CAPACITY = 32;
+  private static final String ARCHIVE_USER = "activity-archiver";
+
+  private final RecentActivityBuffer recent = new RecentActivityBuffer(RECENT_CAPACITY);
+  private volatile boolean seeded;
 
   /** Constructs an ActivityService with a default ActivityDAO instance. */
   public ActivityService() {
-    this.activityDAO = new ActivityDAO();
+    this(new ActivityDAO());
+  }
+
+  /**
+   * Constructs an ActivityService with the given dependencies.
+   *
+   * @param activityDAO the DAO used to store activities.
+   */
+  public ActivityService(ActivityDAO activityDAO) {
+    this.activityDAO = activityDAO;
   }
 
   /**
-   * Logs an activity with the specified details.
+   * Logs an activity with the specified details and adds it to the recent activities. Services log
+   * an activity after each committed change, so this also records the change with {@link
+   * ChangeTracker}.
    *
    * @param type the type of the activity (e.g., "INFO", "ERROR").
    * @param action the action performed (e.g., "CREATE", "DELETE").
@@ -28,26 +46,89 @@ public class ActivityService {
    * @param userId the ID of the user who performed the activity.
    */
   public void logActivity(String type, String action, String description, String userId) {
+    ChangeTracker.recordChange(type);
     try {
       Activity activity =
           new Activity(null, type, action, description, LocalDateTime.now(), userId);
-      activityDAO.save(activity);
+      activity.setActivityId(activityDAO.save(activity));
+      recent.append(activity);
     } catch (SQLException e) {
       // Log error but don't throw - we don't want activity logging to break main functionality
       e.printStackTrace();
+    } finally {
+      // After appending, so a view refreshed for this change sees the activity
+      ChangeTracker.recordChange(ChangeTracker.ACTIVITY);
     }
   }
 
   /**
-   * Retrieves a list of recent activities, limited to a default number.
+   * Moves the activities logged before a cutoff to the archive, one batch per transaction, and logs
+   * an activity recording how many were moved.
    *
-   * @return a list of recent activities.
-   * @throws ServiceException if an error occurs while retrieving activities.
+   * @param cutoff activities logged before this time are archived.
+   * @param batchSize the maximum number of activities moved per transaction.
+   * @return the number of activities archived.
+   * @throws ServiceException if a batch fails; earlier batches stay archived.
+   */
+  public int archiveOlderThan(LocalDateTime cutoff, int batchSize) throws ServiceException {
+    if (batchSize < 1) {
+      throw new ServiceException("Archive batch size must be at least 1");
+    }
+    int archived = 0;
+    try {
+      int moved;
+      do {
+        moved = activityDAO.archiveBefore(cutoff, batchSize);
+        archived += moved;
+      } while (moved == batchSize && !Thread.currentThread().isInterrupted());
+    } catch (SQLException e) {
+      throw new ServiceException("Error archiving activities before " + cutoff, e);
+    } finally {
+      if (archived > 0) {
+        logActivity(
+            ChangeTracker.ACTIVITY,
+            "ARCHIVE",
+            "Archived " + archived + " activities logged before " + cutoff.toLocalDate(),
+            ARCHIVE_USER);
+      }
+    }
+    return archived;
+  }
+
+  /**
+   * Retrieves a list of recent activities, limited to a default number. Only the first call reads
+   * the database, unless the recent activities have not been loaded yet.
+   *
+   * @return a list of recent activities, newest first.
+   * @throws ServiceException if the recent activities cannot be loaded.
    */
   public List<Activity> getRecentActivity() throws ServiceException {
+    if (!seeded) {
+      synchronized (this) {
+        if (!seeded) {
+          reloadRecentActivity();
+        }
+      }
+    }
+    return recent.newest(DEFAULT_RECENT_LIMIT);
+  }
+
+  /**
+   * Loads the recent activities from the database, replacing those held in memory. Call it at
+   * startup, and when activities may have been written other than through this service, such as
+   * after an offline sync.
+   *
+   * @throws ServiceException if an error occurs while retrieving activities.
+   */
+  public synchronized void reloadRecentActivity() throws ServiceException {
+    // Reset first: an activity saved before the reset is in the database read below, and one saved
+    // after it is appended to the new buffer
+    recent.reset();
     try {
-      return activityDAO.findRecent(DEFAULT_RECENT_LIMIT);
+      recent.seed(activityDAO.findRecent(RECENT_CAPACITY));
+      seeded = true;
     } catch (SQLException e) {
+      seeded = false;
       throw new ServiceException("Error retrieving recent activity", e);
     }
   }
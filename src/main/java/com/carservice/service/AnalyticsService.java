@@ -0,0 +1,160 @@
+package com.carservice.service;
+
+import com.carservice.analytics.JobAggregate;
+import com.carservice.analytics.JobColumnStore;
+import com.carservice.config.DatabaseConfig;
+import com.carservice.dao.JobHistoryDAO;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service class for job history analytics. Queries run against a local {@link JobColumnStore}
+ * rather than the database; the store is shared by every instance of this service and is refreshed
+ * from the database when it is older than {@code analytics.refreshSeconds}.
+ */
+public class AnalyticsService {
+  private static JobColumnStore store;
+  private static long lastRefreshMillis;
+
+  private final JobHistoryDAO historyDAO;
+
+  /** Constructs an AnalyticsService with a default JobHistoryDAO instance. */
+  public AnalyticsService() {
+    this(new JobHistoryDAO());
+  }
+
+  /**
+   * Constructs an AnalyticsService with the given dependencies.
+   *
+   * @param historyDAO the DAO used to read job history when the store is first opened.
+   */
+  public AnalyticsService(JobHistoryDAO historyDAO) {
+    this.historyDAO = historyDAO;
+  }
+
+  /**
+   * Aggregates the jobs that came in between two dates, inclusive, per garage.
+   *
+   * @param from the first day to include, or null for no lower bound.
+   * @param to the last day to include, or null for no upper bound.
+   * @return one aggregate per garage, keyed by garage ID.
+   * @throws ServiceException if the range is invalid or the store cannot be refreshed.
+   */
+  public List<JobAggregate> getGarageStatistics(LocalDate from, LocalDate to)
+      throws ServiceException {
+    validateRange(from, to);
+    return currentStore()
+        .aggregateByGarage(
+            from != null ? from.atStartOfDay() : null,
+            to != null ? to.plusDays(1).atStartOfDay() : null);
+  }
+
+  /**
+   * Aggregates the jobs that came in between two dates, inclusive, per car make.
+   *
+   * @param from the first day to include, or null for no lower bound.
+   * @param to the last day to include, or null for no upper bound.
+   * @return one aggregate per make, keyed by make.
+   * @throws ServiceException if the range is invalid or the store cannot be refreshed.
+   */
+  public List<JobAggregate> getMakeStatistics(LocalDate from, LocalDate to)
+      throws ServiceException {
+    validateRange(from, to);
+    return currentStore()
+        .aggregateByMake(
+            from != null ? from.atStartOfDay() : null,
+            to != null ? to.plusDays(1).atStartOfDay() : null);
+  }
+
+  /**
+   * Refreshes the store from the database now, regardless of its age.
+   *
+   * @return the number of jobs appended or updated.
+   * @throws ServiceException if an error occurs while refreshing.
+   */
+  public int refresh() throws ServiceException {
+    synchronized (AnalyticsService.class) {
+      try {
+        int changed = openStore().refresh();
+        lastRefreshMillis = System.currentTimeMillis();
+        return changed;
+      } catch (SQLException | IOException e) {
+        throw new ServiceException("Error refreshing job analytics", e);
+      }
+    }
+  }
+
+  /**
+   * Discards the store and reloads every job from the database. This picks up changes to jobs
+   * that were already complete, which a refresh does not.
+   *
+   * @return the number of jobs loaded.
+   * @throws ServiceException if an error occurs while rebuilding.
+   */
+  public int rebuild() throws ServiceException {
+    synchronized (AnalyticsService.class) {
+      try {
+        int loaded = openStore().rebuild();
+        lastRefreshMillis = System.currentTimeMillis();
+        return loaded;
+      } catch (SQLException | IOException e) {
+        throw new ServiceException("Error rebuilding job analytics", e);
+      }
+    }
+  }
+
+  /**
+   * Closes the shared store, writing any pending changes to disk. The store is reopened by the
+   * next query.
+   *
+   * @throws ServiceException if the store cannot be closed.
+   */
+  public void close() throws ServiceException {
+    synchronized (AnalyticsService.class) {
+      if (store == null) {
+        return;
+      }
+      try {
+        store.close();
+      } catch (IOException e) {
+        throw new ServiceException("Error closing job analytics", e);
+      } finally {
+        store = null;
+      }
+    }
+  }
+
+  private JobColumnStore currentStore() throws ServiceException {
+    long maxAgeMillis = DatabaseConfig.getIntProperty("analytics.refreshSeconds", 60) * 1000L;
+    synchronized (AnalyticsService.class) {
+      if (store == null || System.currentTimeMillis() - lastRefreshMillis > maxAgeMillis) {
+        refresh();
+      }
+      return store;
+    }
+  }
+
+  private JobColumnStore openStore() throws IOException {
+    if (store == null) {
+      Path directory =
+          Paths.get(
+              DatabaseConfig.getProperty(
+                  "analytics.dir",
+                  Paths.get(System.getProperty("user.home"), ".carservice", "analytics")
+                      .toString()));
+      store =
+          new JobColumnStore(directory, DatabaseConfig.getProperty("db.url", ""), historyDAO);
+    }
+    return store;
+  }
+
+  private static void validateRange(LocalDate from, LocalDate to) throws ServiceException {
+    if (from != null && to != null && to.isBefore(from)) {
+      throw new ServiceException("Invalid analytics date range");
+    }
+  }
+}
@@ -2,6 +2,7 @@ package com.carservice.service;
 
 import com.carservice.dao.CarDAO;
 import com.carservice.model.Car;
+import com.carservice.model.CompactCar;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -10,13 +11,35 @@ import java.util.List;
  * functionality.
  */
 public class CarService implements CrudService<Car, String> {
+  private static final Validator<Car> VALIDATOR =
+      Validator.<Car>builder()
+          .matches(Car::getRegNo, "[A-Z0-9]{1,7}", "Invalid registration number format")
+          .notBlank(Car::getMake, "Car make cannot be empty")
+          .notBlank(Car::getModel, "Car model cannot be empty")
+          .range(Car::getYear, 1900, 2025, "Invalid car year")
+          .build();
+
   private final CarDAO carDAO;
   private final ActivityService activityService;
+  private final JobService jobService;
 
-  /** Constructs a CarService with default DAO and ActivityService instances. */
+  /** Constructs a CarService with default DAO, ActivityService and JobService instances. */
   public CarService() {
-    this.carDAO = new CarDAO();
-    this.activityService = new ActivityService();
+    this(new CarDAO(), new ActivityService(), new JobService());
+  }
+
+  /**
+   * Constructs a CarService with the given dependencies.
+   *
+   * @param carDAO the DAO used to access cars.
+   * @param activityService the service used to log activities.
+   * @param jobService the service keeping the daily summary in step when a car's jobs are deleted
+   *     with it.
+   */
+  public CarService(CarDAO carDAO, ActivityService activityService, JobService jobService) {
+    this.carDAO = carDAO;
+    this.activityService = activityService;
+    this.jobService = jobService;
   }
 
   /**
@@ -31,7 +54,7 @@ public class CarService implements CrudService<Car, String> {
     try {
       Car car = carDAO.findById(regNo);
       if (car == null) {
-        throw new ServiceException("Car not found with registration number: " + regNo);
+        throw new NotFoundException("Car not found with registration number: " + regNo);
       }
       return car;
     } catch (SQLException e) {
@@ -69,6 +92,21 @@ public class CarService implements CrudService<Car, String> {
     }
   }
 
+  /**
+   * Retrieves all cars in their compact, read-only form. Use this instead of {@link #findAll()}
+   * when many cars are held in memory and only need to be read.
+   *
+   * @return a list of all cars.
+   * @throws ServiceException if an error occurs while retrieving cars.
+   */
+  public List<CompactCar> findAllCompact() throws ServiceException {
+    try {
+      return carDAO.findAllCompact();
+    } catch (SQLException e) {
+      throw new ServiceException("Error retrieving all cars", e);
+    }
+  }
+
   /**
    * Saves a new car.
    *
@@ -84,6 +122,7 @@ public class CarService implements CrudService<Car, String> {
       // Log the activity
       activityService.logActivity(
           "CAR", "CREATE", "New car created: " + car.getRegNo(), "BougaStefa");
+      ChangeTracker.recordSaved("CAR", id, car);
       return id;
     } catch (SQLException e) {
       throw new ServiceException("Error saving car", e);
@@ -94,7 +133,8 @@ public class CarService implements CrudService<Car, String> {
    * Updates an existing car.
    *
    * @param car the car to update.
-   * @return true if the car was updated successfully, false otherwise.
+   * @return true if the car was updated successfully, false if it does not exist.
+   * @throws StaleEntityException if the car was changed by someone else since it was loaded.
    * @throws ServiceException if validation fails or an error occurs while updating.
    */
   @Override
@@ -102,10 +142,15 @@ public class CarService implements CrudService<Car, String> {
     try {
       validateCar(car);
       boolean updated = carDAO.update(car);
+      if (!updated && carDAO.exists(car.getRegNo())) {
+        throw new StaleEntityException("Car");
+      }
       if (updated) {
+        car.setVersion(car.getVersion() + 1);
         // Log the activity
         activityService.logActivity(
             "CAR", "UPDATE", "Car updated: " + car.getRegNo(), "BougaStefa");
+        ChangeTracker.recordSaved("CAR", car.getRegNo(), car);
       }
       return updated;
     } catch (SQLException e) {
@@ -123,11 +168,12 @@ public class CarService implements CrudService<Car, String> {
   @Override
   public boolean delete(String regNo) throws ServiceException {
     try {
-      boolean deleted = carDAO.delete(regNo);
+      boolean deleted = jobService.deleteWithCar(regNo, conn -> carDAO.delete(conn, regNo));
       if (deleted) {
         // Log the activity
         activityService.logActivity(
             "CAR", "DELETE", "Car deleted with RegNo: " + regNo, "BougaStefa");
+        ChangeTracker.recordDeleted("CAR", regNo);
       }
       return deleted;
     } catch (SQLException e) {
@@ -135,6 +181,16 @@ public class CarService implements CrudService<Car, String> {
     }
   }
 
+  /**
+   * Validates a batch of cars, such as the rows of an import, in one pass.
+   *
+   * @param cars the cars to validate.
+   * @return every violation found, each with the index of its car; empty if all are valid.
+   */
+  public List<Violation> validateAll(List<Car> cars) {
+    return VALIDATOR.validateAll(cars);
+  }
+
   /**
    * Validates the car object to ensure it meets the required criteria.
    *
@@ -142,17 +198,6 @@ public class CarService implements CrudService<Car, String> {
    * @throws ServiceException if validation fails.
    */
   private void validateCar(Car car) throws ServiceException {
-    if (car.getRegNo() == null || !car.getRegNo().matches("[A-Z0-9]{1,7}")) {
-      throw new ServiceException("Invalid registration number format");
-    }
-    if (car.getMake() == null || car.getMake().trim().isEmpty()) {
-      throw new ServiceException("Car make cannot be empty");
-    }
-    if (car.getModel() == null || car.getModel().trim().isEmpty()) {
-      throw new ServiceException("Car model cannot be empty");
-    }
-    if (car.getYear() < 1900 || car.getYear() > 2025) {
-      throw new ServiceException("Invalid car year");
-    }
+    VALIDATOR.validate(car);
   }
 }
@@ -0,0 +1,129 @@
+package com.carservice.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the changes made through the service layer in this process, per data type. Views that
+ * keep data between visits compare the counts with the ones they last loaded at, so they reload
+ * only when something they show has changed.
+ *
+ * <p>Types are the activity types the services log, such as "CUSTOMER" or "JOB", plus "PAYMENT"
+ * and "ACTIVITY". Changes made by other processes are not counted.
+ *
+ * <p>Services also report each record they save or delete, so that {@link Listener}s such as the
+ * search index can keep in-memory copies current without reloading.
+ */
+public final class ChangeTracker {
+  /** Type recorded whenever an activity is logged. */
+  public static final String ACTIVITY = "ACTIVITY";
+
+  private static final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+  private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  /** Receives the records saved and deleted through the services. */
+  public interface Listener {
+    /**
+     * Called after a record has been created or updated.
+     *
+     * @param type the type of data, such as "CUSTOMER"
+     * @param id the record's ID
+     * @param record the record as saved
+     */
+    void saved(String type, Object id, Object record);
+
+    /**
+     * Called after a record has been deleted.
+     *
+     * @param type the type of data, such as "CUSTOMER"
+     * @param id the deleted record's ID
+     */
+    void deleted(String type, Object id);
+  }
+
+  private ChangeTracker() {}
+
+  /**
+   * Records a committed change to a type of data.
+   *
+   * @param type the type of data that changed
+   */
+  public static void recordChange(String type) {
+    versions.computeIfAbsent(type, key -> new AtomicLong()).incrementAndGet();
+  }
+
+  /**
+   * Returns a number that changes whenever data of any of the given types changes.
+   *
+   * @param types the types of data to watch
+   * @return the sum of the change counts of the types
+   */
+  public static long version(String... types) {
+    long version = 0;
+    for (String type : types) {
+      AtomicLong count = versions.get(type);
+      if (count != null) {
+        version += count.get();
+      }
+    }
+    return version;
+  }
+
+  /**
+   * Registers a listener for saved and deleted records.
+   *
+   * @param listener the listener
+   */
+  public static void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener.
+   *
+   * @param listener the listener
+   */
+  public static void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Tells the listeners that a record has been created or updated. Called by the services once the
+   * change is committed.
+   *
+   * @param type the type of data, such as "CUSTOMER"
+   * @param id the record's ID
+   * @param record the record as saved
+   */
+  public static void recordSaved(String type, Object id, Object record) {
+    for (Listener listener : listeners) {
+      try {
+        listener.saved(type, id, record);
+      } catch (RuntimeException e) {
+        // A failing listener must not fail a change that is already committed
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Tells the listeners that a record has been deleted. Called by the services once the delete is
+   * committed.
+   *
+   * @param type the type of data, such as "CUSTOMER"
+   * @param id the deleted record's ID
+   */
+  public static void recordDeleted(String type, Object id) {
+    for (Listener listener : listeners) {
+      try {
+        listener.deleted(type, id);
+      } catch (RuntimeException e) {
+        // A failing listener must not fail a change that is already committed
+        e.printStackTrace();
+      }
+    }
+  }
+}
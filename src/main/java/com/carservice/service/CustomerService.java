@@ -1,6 +1,7 @@
 package com.carservice.service;
 
 import com.carservice.dao.CustomerDAO;
+import com.carservice.model.CompactCustomer;
 import com.carservice.model.Customer;
 import java.sql.SQLException;
 import java.util.List;
@@ -10,13 +11,36 @@ import java.util.List;
  * customer-related functionality.
  */
 public class CustomerService implements CrudService<Customer, Long> {
+  private static final Validator<Customer> VALIDATOR =
+      Validator.<Customer>builder()
+          .notBlank(Customer::getForename, "Customer forename cannot be empty")
+          .notBlank(Customer::getSurname, "Customer surname cannot be empty")
+          .matches(Customer::getPhoneNo, "\\d{10}", "Invalid phone number format")
+          .matches(Customer::getPostCode, "[A-Z0-9]{5,7}", "Invalid post code format")
+          .build();
+
   private final CustomerDAO customerDAO;
   private final ActivityService activityService;
+  private final JobService jobService;
 
-  /** Constructs a CustomerService with default DAO and ActivityService instances. */
+  /** Constructs a CustomerService with default DAO, ActivityService and JobService instances. */
   public CustomerService() {
-    this.customerDAO = new CustomerDAO();
-    this.activityService = new ActivityService();
+    this(new CustomerDAO(), new ActivityService(), new JobService());
+  }
+
+  /**
+   * Constructs a CustomerService with the given dependencies.
+   *
+   * @param customerDAO the DAO used to access customers.
+   * @param activityService the service used to log activities.
+   * @param jobService the service keeping the daily summary in step when the jobs of a customer's
+   *     cars are deleted with them.
+   */
+  public CustomerService(
+      CustomerDAO customerDAO, ActivityService activityService, JobService jobService) {
+    this.customerDAO = customerDAO;
+    this.activityService = activityService;
+    this.jobService = jobService;
   }
 
   /**
@@ -31,7 +55,7 @@ public class CustomerService implements CrudService<Customer, Long> {
     try {
       Customer customer = customerDAO.findById(id);
       if (customer == null) {
-        throw new ServiceException("Customer not found with ID: " + id);
+        throw new NotFoundException("Customer not found with ID: " + id);
       }
       return customer;
     } catch (SQLException e) {
@@ -69,6 +93,21 @@ public class CustomerService implements CrudService<Customer, Long> {
     }
   }
 
+  /**
+   * Retrieves all customers in their compact, read-only form. Use this instead of {@link
+   * #findAll()} when many customers are held in memory and only need to be read.
+   *
+   * @return a list of all customers.
+   * @throws ServiceException if an error occurs while retrieving customers.
+   */
+  public List<CompactCustomer> findAllCompact() throws ServiceException {
+    try {
+      return customerDAO.findAllCompact();
+    } catch (SQLException e) {
+      throw new ServiceException("Error retrieving all customers", e);
+    }
+  }
+
   /**
    * Saves a new customer.
    *
@@ -86,6 +125,7 @@ public class CustomerService implements CrudService<Customer, Long> {
           "CREATE",
           "New customer created: " + customer.getForename() + " " + customer.getSurname(),
           "BougaStefa");
+      ChangeTracker.recordSaved("CUSTOMER", id, customer);
       return id;
     } catch (SQLException e) {
       throw new ServiceException("Error saving customer", e);
@@ -96,7 +136,8 @@ public class CustomerService implements CrudService<Customer, Long> {
    * Updates an existing customer.
    *
    * @param customer the customer to update.
-   * @return true if the customer was updated successfully, false otherwise.
+   * @return true if the customer was updated successfully, false if it does not exist.
+   * @throws StaleEntityException if the customer was changed by someone else since it was loaded.
    * @throws ServiceException if validation fails or an error occurs while updating.
    */
   @Override
@@ -104,12 +145,17 @@ public class CustomerService implements CrudService<Customer, Long> {
     try {
       validateCustomer(customer);
       boolean updated = customerDAO.update(customer);
+      if (!updated && customerDAO.exists(customer.getCustomerId())) {
+        throw new StaleEntityException("Customer");
+      }
       if (updated) {
+        customer.setVersion(customer.getVersion() + 1);
         activityService.logActivity(
             "CUSTOMER",
             "UPDATE",
             "Customer updated: " + customer.getForename() + " " + customer.getSurname(),
             "BougaStefa");
+        ChangeTracker.recordSaved("CUSTOMER", customer.getCustomerId(), customer);
       }
       return updated;
     } catch (SQLException e) {
@@ -127,10 +173,13 @@ public class CustomerService implements CrudService<Customer, Long> {
   @Override
   public boolean delete(Long customerId) throws ServiceException {
     try {
-      boolean deleted = customerDAO.delete(customerId);
+      boolean deleted =
+          jobService.deleteWithCustomer(
+              customerId, conn -> customerDAO.delete(conn, customerId));
       if (deleted) {
         activityService.logActivity(
             "CUSTOMER", "DELETE", "Customer deleted with ID: " + customerId, "BougaStefa");
+        ChangeTracker.recordDeleted("CUSTOMER", customerId);
       }
       return deleted;
     } catch (SQLException e) {
@@ -138,6 +187,16 @@ public class CustomerService implements CrudService<Customer, Long> {
     }
   }
 
+  /**
+   * Validates a batch of customers, such as the rows of an import, in one pass.
+   *
+   * @param customers the customers to validate.
+   * @return every violation found, each with the index of its customer; empty if all are valid.
+   */
+  public List<Violation> validateAll(List<Customer> customers) {
+    return VALIDATOR.validateAll(customers);
+  }
+
   /**
    * Validates the customer object to ensure it meets the required criteria.
    *
@@ -145,17 +204,6 @@ public class CustomerService implements CrudService<Customer, Long> {
    * @throws ServiceException if validation fails.
    */
   private void validateCustomer(Customer customer) throws ServiceException {
-    if (customer.getForename() == null || customer.getForename().trim().isEmpty()) {
-      throw new ServiceException("Customer forename cannot be empty");
-    }
-    if (customer.getSurname() == null || customer.getSurname().trim().isEmpty()) {
-      throw new ServiceException("Customer surname cannot be empty");
-    }
-    if (customer.getPhoneNo() == null || !customer.getPhoneNo().matches("\\d{10}")) {
-      throw new ServiceException("Invalid phone number format");
-    }
-    if (customer.getPostCode() == null || !customer.getPostCode().matches("[A-Z0-9]{5,7}")) {
-      throw new ServiceException("Invalid post code format");
-    }
+    VALIDATOR.validate(customer);
   }
 }
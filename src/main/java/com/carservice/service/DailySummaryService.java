@@ -0,0 +1,61 @@
+package com.carservice.service;
+
+import com.carservice.dao.DailyGarageSummaryDAO;
+import java.sql.SQLException;
+
+/**
+ * Service class for reading the daily garage summary. Dashboards and reports use this instead of
+ * scanning the Job and Payment tables. The summary itself is kept up to date by JobService and
+ * PaymentService.
+ */
+public class DailySummaryService {
+  private final DailyGarageSummaryDAO summaryDAO;
+  private final ActivityService activityService;
+
+  /** Constructs a DailySummaryService with default DAO and ActivityService instances. */
+  public DailySummaryService() {
+    this(new DailyGarageSummaryDAO(), new ActivityService());
+  }
+
+  /**
+   * Constructs a DailySummaryService with the given dependencies.
+   *
+   * @param summaryDAO the DAO used to maintain the daily summary.
+   * @param activityService the service used to log activities.
+   */
+  public DailySummaryService(DailyGarageSummaryDAO summaryDAO, ActivityService activityService) {
+    this.summaryDAO = summaryDAO;
+    this.activityService = activityService;
+  }
+
+  /**
+   * Retrieves the number of jobs that are currently open across all garages.
+   *
+   * @return the number of active jobs.
+   * @throws ServiceException if an error occurs while reading the summary.
+   */
+  public long getActiveJobCount() throws ServiceException {
+    try {
+      return summaryDAO.getActiveJobCount();
+    } catch (SQLException e) {
+      throw new ServiceException("Error retrieving active job count", e);
+    }
+  }
+
+  /**
+   * Rebuilds the daily summary from the Job and Payment tables.
+   *
+   * @return the number of summary rows written.
+   * @throws ServiceException if an error occurs while rebuilding.
+   */
+  public int rebuild() throws ServiceException {
+    try {
+      int rows = summaryDAO.rebuild();
+      activityService.logActivity(
+          "SUMMARY", "UPDATE", "Daily summary rebuilt: " + rows + " row(s)", "BougaStefa");
+      return rows;
+    } catch (SQLException e) {
+      throw new ServiceException("Error rebuilding daily summary", e);
+    }
+  }
+}
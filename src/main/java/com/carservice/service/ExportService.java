@@ -0,0 +1,210 @@
+package com.carservice.service;
+
+import com.carservice.dao.ExportDAO;
+import com.carservice.dao.ExportTable;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.function.BooleanSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service class for exporting tables to CSV files. Rows are streamed from the database straight to
+ * a buffered file writer, so memory use does not depend on the size of the table.
+ */
+public class ExportService {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int PROGRESS_INTERVAL = 1000;
+
+  private final ExportDAO exportDAO;
+  private final ActivityService activityService;
+
+  /** Listener notified as rows are written. */
+  @FunctionalInterface
+  public interface ProgressListener {
+    /**
+     * Called periodically during an export and once when it finishes.
+     *
+     * @param rowsWritten the number of rows written so far
+     * @param totalRows the number of rows expected when the export started
+     */
+    void onProgress(long rowsWritten, long totalRows);
+  }
+
+  /** Constructs an ExportService with default DAO and ActivityService instances. */
+  public ExportService() {
+    this(new ExportDAO(), new ActivityService());
+  }
+
+  /**
+   * Constructs an ExportService with the given dependencies.
+   *
+   * @param exportDAO the DAO used to stream tables.
+   * @param activityService the service used to log activities.
+   */
+  public ExportService(ExportDAO exportDAO, ActivityService activityService) {
+    this.exportDAO = exportDAO;
+    this.activityService = activityService;
+  }
+
+  /**
+   * Exports a table to a CSV file. If the export is cancelled or fails, the partial file is
+   * deleted.
+   *
+   * @param table the table to export.
+   * @param target the file to write.
+   * @param gzip true to gzip-compress the file.
+   * @param listener the listener notified of progress, or null.
+   * @param cancelled checked before each row; returning true stops the export.
+   * @return the number of rows written.
+   * @throws ServiceException if the export is cancelled or an error occurs.
+   */
+  public long export(
+      ExportTable table,
+      Path target,
+      boolean gzip,
+      ProgressListener listener,
+      BooleanSupplier cancelled)
+      throws ServiceException {
+    ProgressListener progress = listener != null ? listener : (written, total) -> {};
+    boolean completed = false;
+    try (Writer writer = openWriter(target, gzip)) {
+      long total = exportDAO.count(table);
+      StringBuilder line = new StringBuilder(256);
+      long[] written = {0};
+      int columns = table.getColumns().length;
+
+      appendRow(line, table.getColumns());
+      writer.write(line.toString());
+
+      exportDAO.stream(
+          table,
+          rs -> {
+            if (cancelled.getAsBoolean()) {
+              return false;
+            }
+            line.setLength(0);
+            for (int i = 1; i <= columns; i++) {
+              if (i > 1) {
+                line.append(',');
+              }
+              appendField(line, rs.getString(i));
+            }
+            line.append('\n');
+            try {
+              writer.write(line.toString());
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+            if (++written[0] % PROGRESS_INTERVAL == 0) {
+              progress.onProgress(written[0], total);
+            }
+            return true;
+          });
+
+      if (cancelled.getAsBoolean()) {
+        throw new ServiceException("Export cancelled");
+      }
+      progress.onProgress(written[0], Math.max(total, written[0]));
+      completed = true;
+
+      activityService.logActivity(
+          "EXPORT",
+          "CREATE",
+          table + " exported (" + written[0] + " rows) to " + target.getFileName(),
+          "BougaStefa");
+      return written[0];
+    } catch (IOException | UncheckedIOException e) {
+      throw new ServiceException("Error writing export file: " + e.getMessage(), e);
+    } catch (SQLException e) {
+      throw new ServiceException("Error reading " + table + " for export", e);
+    } finally {
+      if (!completed) {
+        deleteQuietly(target);
+      }
+    }
+  }
+
+  /**
+   * Opens a buffered UTF-8 writer for the target file, optionally gzip-compressed.
+   *
+   * @param target the file to write
+   * @param gzip true to compress the output
+   * @return the writer
+   * @throws IOException if the file cannot be opened
+   */
+  private Writer openWriter(Path target, boolean gzip) throws IOException {
+    OutputStream out = Files.newOutputStream(target);
+    if (gzip) {
+      out = new GZIPOutputStream(out, BUFFER_SIZE);
+    }
+    return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+  }
+
+  /**
+   * Appends a full CSV row, including the line terminator.
+   *
+   * @param line the buffer to append to
+   * @param values the field values
+   */
+  private void appendRow(StringBuilder line, String[] values) {
+    line.setLength(0);
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        line.append(',');
+      }
+      appendField(line, values[i]);
+    }
+    line.append('\n');
+  }
+
+  /**
+   * Appends a single CSV field, quoting it when it contains a separator, quote or line break.
+   *
+   * @param line the buffer to append to
+   * @param value the field value, or null for an empty field
+   */
+  private void appendField(StringBuilder line, String value) {
+    if (value == null) {
+      return;
+    }
+    boolean quote = false;
+    for (int i = 0; i < value.length() && !quote; i++) {
+      char c = value.charAt(i);
+      quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+    if (!quote) {
+      line.append(value);
+      return;
+    }
+    line.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"') {
+        line.append('"');
+      }
+      line.append(c);
+    }
+    line.append('"');
+  }
+
+  /**
+   * Deletes a partially written export file, ignoring errors.
+   *
+   * @param target the file to delete
+   */
+  private void deleteQuietly(Path target) {
+    try {
+      Files.deleteIfExists(target);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+}
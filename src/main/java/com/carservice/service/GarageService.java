@@ -10,13 +10,30 @@ import java.util.List;
  * garage-related functionality.
  */
 public class GarageService implements CrudService<Garage, Long> {
+  private static final Validator<Garage> VALIDATOR =
+      Validator.<Garage>builder()
+          .notBlank(Garage::getGarageName, "Garage name cannot be empty")
+          .matches(Garage::getPhoneNo, "\\d{10}", "Invalid phone number format")
+          .matches(Garage::getPostCode, "[A-Z0-9]{5,7}", "Invalid post code format")
+          .build();
+
   private final GarageDAO garageDAO;
   private final ActivityService activityService;
 
   /** Constructs a GarageService with default DAO and ActivityService instances. */
   public GarageService() {
-    this.garageDAO = new GarageDAO();
-    this.activityService = new ActivityService();
+    this(new GarageDAO(), new ActivityService());
+  }
+
+  /**
+   * Constructs a GarageService with the given dependencies.
+   *
+   * @param garageDAO the DAO used to access garages.
+   * @param activityService the service used to log activities.
+   */
+  public GarageService(GarageDAO garageDAO, ActivityService activityService) {
+    this.garageDAO = garageDAO;
+    this.activityService = activityService;
   }
 
   /**
@@ -31,7 +48,7 @@ public class GarageService implements CrudService<Garage, Long> {
     try {
       Garage garage = garageDAO.findById(id);
       if (garage == null) {
-        throw new ServiceException("Garage not found with ID: " + id);
+        throw new NotFoundException("Garage not found with ID: " + id);
       }
       return garage;
     } catch (SQLException e) {
@@ -69,6 +86,7 @@ public class GarageService implements CrudService<Garage, Long> {
       // Log the activity
       activityService.logActivity(
           "GARAGE", "CREATE", "New garage created: " + garage.getGarageName(), "BougaStefa");
+      ChangeTracker.recordSaved("GARAGE", id, garage);
       return id;
     } catch (SQLException e) {
       throw new ServiceException("Error saving garage", e);
@@ -79,7 +97,8 @@ public class GarageService implements CrudService<Garage, Long> {
    * Updates an existing garage.
    *
    * @param garage the garage to update.
-   * @return true if the garage was updated successfully, false otherwise.
+   * @return true if the garage was updated successfully, false if it does not exist.
+   * @throws StaleEntityException if the garage was changed by someone else since it was loaded.
    * @throws ServiceException if validation fails or an error occurs while updating.
    */
   @Override
@@ -87,10 +106,15 @@ public class GarageService implements CrudService<Garage, Long> {
     try {
       validateGarage(garage);
       boolean updated = garageDAO.update(garage);
+      if (!updated && garageDAO.exists(garage.getGarageId())) {
+        throw new StaleEntityException("Garage");
+      }
       if (updated) {
+        garage.setVersion(garage.getVersion() + 1);
         // Log the activity
         activityService.logActivity(
             "GARAGE", "UPDATE", "Garage updated: " + garage.getGarageName(), "BougaStefa");
+        ChangeTracker.recordSaved("GARAGE", garage.getGarageId(), garage);
       }
       return updated;
     } catch (SQLException e) {
@@ -99,36 +123,60 @@ public class GarageService implements CrudService<Garage, Long> {
   }
 
   /**
-   * Deletes a garage by its ID.
+   * Deletes a garage by its ID. The database refuses to delete a garage that jobs still refer to,
+   * so the delete is a single statement; the jobs are only counted to explain a refusal.
    *
    * @param garageId the ID of the garage to delete.
    * @return true if the garage was deleted successfully, false otherwise.
-   * @throws ServiceException if an error occurs while deleting the garage.
+   * @throws ServiceException if the garage has jobs or an error occurs while deleting it.
    */
   @Override
   public boolean delete(Long garageId) throws ServiceException {
+    boolean deleted;
     try {
-      // Check for existing jobs first
-      int existingJobs = garageDAO.checkExistingJobs(garageId);
-      if (existingJobs > 0) {
-        throw new ServiceException(
-            "Cannot delete garage with ID "
-                + garageId
-                + ": Has "
-                + existingJobs
-                + " active job(s). "
-                + "Please reassign or complete all jobs before deleting this garage.");
+      deleted = garageDAO.delete(garageId);
+    } catch (SQLException e) {
+      if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+        throw garageInUse(garageId, e);
       }
+      throw new ServiceException("Error deleting garage", e);
+    }
+    if (deleted) {
+      activityService.logActivity(
+          "GARAGE", "DELETE", "Garage deleted with ID: " + garageId, "BougaStefa");
+      ChangeTracker.recordDeleted("GARAGE", garageId);
+    }
+    return deleted;
+  }
 
-      boolean deleted = garageDAO.delete(garageId);
-      if (deleted) {
-        activityService.logActivity(
-            "GARAGE", "DELETE", "Garage deleted with ID: " + garageId, "BougaStefa");
-      }
-      return deleted;
+  /**
+   * Explains why the database refused to delete a garage, by counting the jobs that refer to it.
+   * A refusal because of jobs is a business-rule failure and, like other such failures, carries no
+   * cause; only the fallback for an unexplained refusal keeps the database's error.
+   *
+   * @param garageId the ID of the garage.
+   * @param cause the constraint violation reported by the database.
+   * @return the exception to throw.
+   */
+  private ServiceException garageInUse(Long garageId, SQLException cause) {
+    int existingJobs;
+    try {
+      existingJobs = garageDAO.checkExistingJobs(garageId);
     } catch (SQLException e) {
-      throw new ServiceException("Error deleting garage", e);
+      cause.addSuppressed(e);
+      return new ServiceException("Error deleting garage", cause);
+    }
+    if (existingJobs == 0) {
+      // The jobs went in the meantime, so some other row blocked the delete
+      return new ServiceException("Error deleting garage", cause);
     }
+    return new ServiceException(
+        "Cannot delete garage with ID "
+            + garageId
+            + ": Has "
+            + existingJobs
+            + " active job(s). "
+            + "Please reassign or complete all jobs before deleting this garage.");
   }
 
   /**
@@ -146,6 +194,16 @@ public class GarageService implements CrudService<Garage, Long> {
     }
   }
 
+  /**
+   * Validates a batch of garages, such as the rows of an import, in one pass.
+   *
+   * @param garages the garages to validate.
+   * @return every violation found, each with the index of its garage; empty if all are valid.
+   */
+  public List<Violation> validateAll(List<Garage> garages) {
+    return VALIDATOR.validateAll(garages);
+  }
+
   /**
    * Validates the garage object to ensure it meets the required criteria.
    *
@@ -153,14 +211,6 @@ public class GarageService implements CrudService<Garage, Long> {
    * @throws ServiceException if validation fails.
    */
   private void validateGarage(Garage garage) throws ServiceException {
-    if (garage.getGarageName() == null || garage.getGarageName().trim().isEmpty()) {
-      throw new ServiceException("Garage name cannot be empty");
-    }
-    if (garage.getPhoneNo() == null || !garage.getPhoneNo().matches("\\d{10}")) {
-      throw new ServiceException("Invalid phone number format");
-    }
-    if (garage.getPostCode() == null || !garage.getPostCode().matches("[A-Z0-9]{5,7}")) {
-      throw new ServiceException("Invalid post code format");
-    }
+    VALIDATOR.validate(garage);
   }
 }
@@ -1,9 +1,19 @@
 package com.carservice.service;
 
+import com.carservice.dao.DailyGarageSummaryDAO;
 import com.carservice.dao.JobDAO;
+import com.carservice.dao.PaymentDAO;
+import com.carservice.dao.Transactions;
+import com.carservice.model.CompactJob;
 import com.carservice.model.Job;
+import com.carservice.model.Payment;
+import com.carservice.schedule.OccupancyIndex;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -11,13 +21,70 @@ import java.util.List;
  * functionality.
  */
 public class JobService implements CrudService<Job, Long> {
+  private static final Validator<Job> VALIDATOR =
+      Validator.<Job>builder()
+          .check(job -> job.getDateIn() != null, "Job date in cannot be null")
+          .check(
+              job ->
+                  job.getDateIn() == null
+                      || job.getDateOut() == null
+                      || !job.getDateOut().isBefore(job.getDateIn()),
+              "Job date out cannot be before date in")
+          .check(job -> job.getCost() == null || job.getCost() >= 0, "Job cost cannot be negative")
+          .check(
+              job -> job.getDateIn() == null || !job.getDateIn().isAfter(LocalDateTime.now()),
+              "Job date in cannot be in the future")
+          .build();
+  private static final DateTimeFormatter DATE_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
   private final JobDAO jobDAO;
+  private final PaymentDAO paymentDAO;
+  private final DailyGarageSummaryDAO summaryDAO;
   private final ActivityService activityService;
+  private final OccupancyService occupancyService;
 
   /** Constructs a JobService with default DAO and ActivityService instances. */
   public JobService() {
-    this.jobDAO = new JobDAO();
-    this.activityService = new ActivityService();
+    this(new JobDAO(), new PaymentDAO(), new DailyGarageSummaryDAO(), new ActivityService());
+  }
+
+  /**
+   * Constructs a JobService with the given dependencies.
+   *
+   * @param jobDAO the DAO used to access jobs.
+   * @param paymentDAO the DAO used to access payments.
+   * @param summaryDAO the DAO used to maintain the daily summary.
+   * @param activityService the service used to log activities.
+   */
+  public JobService(
+      JobDAO jobDAO,
+      PaymentDAO paymentDAO,
+      DailyGarageSummaryDAO summaryDAO,
+      ActivityService activityService) {
+    this(jobDAO, paymentDAO, summaryDAO, activityService, null);
+  }
+
+  /**
+   * Constructs a JobService that also rejects jobs whose car is already in a garage.
+   *
+   * @param jobDAO the DAO used to access jobs.
+   * @param paymentDAO the DAO used to access payments.
+   * @param summaryDAO the DAO used to maintain the daily summary.
+   * @param activityService the service used to log activities.
+   * @param occupancyService the service used to find overlapping jobs, or null not to check.
+   */
+  public JobService(
+      JobDAO jobDAO,
+      PaymentDAO paymentDAO,
+      DailyGarageSummaryDAO summaryDAO,
+      ActivityService activityService,
+      OccupancyService occupancyService) {
+    this.jobDAO = jobDAO;
+    this.paymentDAO = paymentDAO;
+    this.summaryDAO = summaryDAO;
+    this.activityService = activityService;
+    this.occupancyService = occupancyService;
   }
 
   /**
@@ -32,7 +99,7 @@ public class JobService implements CrudService<Job, Long> {
     try {
       Job job = jobDAO.findById(id);
       if (job == null) {
-        throw new ServiceException("Job not found with ID: " + id);
+        throw new NotFoundException("Job not found with ID: " + id);
       }
       return job;
     } catch (SQLException e) {
@@ -86,7 +153,22 @@ public class JobService implements CrudService<Job, Long> {
   }
 
   /**
-   * Saves a new job.
+   * Retrieves all jobs in their compact, read-only form. Use this instead of {@link #findAll()}
+   * when many jobs are held in memory and only need to be read.
+   *
+   * @return a list of all jobs.
+   * @throws ServiceException if an error occurs while retrieving jobs.
+   */
+  public List<CompactJob> findAllCompact() throws ServiceException {
+    try {
+      return jobDAO.findAllCompact();
+    } catch (SQLException e) {
+      throw new ServiceException("Error retrieving all jobs", e);
+    }
+  }
+
+  /**
+   * Saves a new job and records it in the daily summary within the same transaction.
    *
    * @param job the job to save.
    * @return the ID of the saved job.
@@ -96,9 +178,16 @@ public class JobService implements CrudService<Job, Long> {
   public Long save(Job job) throws ServiceException {
     try {
       validateJob(job);
-      Long id = jobDAO.save(job);
+      Long id =
+          Transactions.execute(
+              conn -> {
+                Long newId = jobDAO.save(conn, job);
+                summaryDAO.applyJob(conn, job, 1);
+                return newId;
+              });
       activityService.logActivity(
           "JOB", "CREATE", "New job created for car: " + job.getRegNo(), "BougaStefa");
+      ChangeTracker.recordSaved("JOB", id, job);
       return id;
     } catch (SQLException e) {
       throw new ServiceException("Error saving job", e);
@@ -106,20 +195,50 @@ public class JobService implements CrudService<Job, Long> {
   }
 
   /**
-   * Updates an existing job.
+   * Updates an existing job. The previous state of the job is replaced by the new one in the daily
+   * summary within the same transaction, and if the job moved to another garage its payment's
+   * revenue moves with it.
    *
    * @param job the job to update.
-   * @return true if the job was updated successfully, false otherwise.
+   * @return true if the job was updated successfully, false if it does not exist.
+   * @throws StaleEntityException if the job was changed by someone else since it was loaded.
    * @throws ServiceException if validation fails or an error occurs while updating.
    */
   @Override
   public boolean update(Job job) throws ServiceException {
     try {
       validateJob(job);
-      boolean updated = jobDAO.update(job);
+      boolean updated =
+          Transactions.execute(
+              conn -> {
+                Job previous = jobDAO.findByIdForUpdate(conn, job.getJobId());
+                if (previous == null || !jobDAO.update(conn, job)) {
+                  return false;
+                }
+                summaryDAO.applyJob(conn, previous, -1);
+                summaryDAO.applyJob(conn, job, 1);
+                if (!previous.getGarageId().equals(job.getGarageId())) {
+                  Payment payment = paymentDAO.findByJobForUpdate(conn, job.getJobId());
+                  if (isPaid(payment)) {
+                    summaryDAO.applyRevenue(
+                        conn,
+                        previous.getGarageId(),
+                        payment.getPaymentDate(),
+                        -payment.getAmount());
+                    summaryDAO.applyRevenue(
+                        conn, job.getGarageId(), payment.getPaymentDate(), payment.getAmount());
+                  }
+                }
+                return true;
+              });
+      if (!updated && jobDAO.exists(job.getJobId())) {
+        throw new StaleEntityException("Job");
+      }
       if (updated) {
+        job.setVersion(job.getVersion() + 1);
         activityService.logActivity(
             "JOB", "UPDATE", "Job updated for car: " + job.getRegNo(), "BougaStefa");
+        ChangeTracker.recordSaved("JOB", job.getJobId(), job);
       }
       return updated;
     } catch (SQLException e) {
@@ -128,7 +247,8 @@ public class JobService implements CrudService<Job, Long> {
   }
 
   /**
-   * Deletes a job by its ID.
+   * Deletes a job by its ID. The job and any payment for it are removed from the daily summary
+   * within the same transaction.
    *
    * @param jobId the ID of the job to delete.
    * @return true if the job was deleted successfully, false otherwise.
@@ -137,9 +257,23 @@ public class JobService implements CrudService<Job, Long> {
   @Override
   public boolean delete(Long jobId) throws ServiceException {
     try {
-      boolean deleted = jobDAO.delete(jobId);
+      boolean deleted =
+          Transactions.execute(
+              conn -> {
+                Job previous = jobDAO.findByIdForUpdate(conn, jobId);
+                if (previous == null) {
+                  return false;
+                }
+                Payment payment = paymentDAO.findByJobForUpdate(conn, jobId);
+                if (!jobDAO.delete(conn, jobId)) {
+                  return false;
+                }
+                removeFromSummary(conn, previous, payment);
+                return true;
+              });
       if (deleted) {
         activityService.logActivity("JOB", "DELETE", "Job deleted with ID: " + jobId, "BougaStefa");
+        ChangeTracker.recordDeleted("JOB", jobId);
       }
       return deleted;
     } catch (SQLException e) {
@@ -147,6 +281,94 @@ public class JobService implements CrudService<Job, Long> {
     }
   }
 
+  /**
+   * Deletes a car in a transaction that also removes its jobs and their payments, which the foreign
+   * keys delete with it, from the daily summary.
+   *
+   * @param regNo the registration number of the car, exactly as stored.
+   * @param deleteCar deletes the car on the transactional connection, returning whether it did.
+   * @return true if the car was deleted, false otherwise.
+   * @throws SQLException if a database access error occurs; nothing is deleted.
+   */
+  boolean deleteWithCar(String regNo, Transactions.SqlWork<Boolean> deleteCar)
+      throws SQLException {
+    return deleteCascading(conn -> jobDAO.findByRegNoForUpdate(conn, regNo), deleteCar);
+  }
+
+  /**
+   * Deletes a customer in a transaction that also removes the jobs of their cars, and the jobs'
+   * payments, which the foreign keys delete with the customer, from the daily summary.
+   *
+   * @param customerId the ID of the customer.
+   * @param deleteCustomer deletes the customer on the transactional connection, returning whether
+   *     it did.
+   * @return true if the customer was deleted, false otherwise.
+   * @throws SQLException if a database access error occurs; nothing is deleted.
+   */
+  boolean deleteWithCustomer(Long customerId, Transactions.SqlWork<Boolean> deleteCustomer)
+      throws SQLException {
+    return deleteCascading(
+        conn -> jobDAO.findByCustomerForUpdate(conn, customerId), deleteCustomer);
+  }
+
+  /**
+   * Locks the jobs a delete will cascade to and their payments, runs the delete and removes the
+   * jobs and payments from the daily summary, all in one transaction.
+   *
+   * @param lockJobs finds and locks the jobs the delete cascades to.
+   * @param delete runs the delete, returning whether a row was deleted.
+   * @return true if a row was deleted, false otherwise.
+   * @throws SQLException if a database access error occurs.
+   */
+  private boolean deleteCascading(
+      Transactions.SqlWork<List<Job>> lockJobs, Transactions.SqlWork<Boolean> delete)
+      throws SQLException {
+    List<Job> deleted =
+        Transactions.execute(
+            conn -> {
+              List<Job> jobs = lockJobs.execute(conn);
+              List<Payment> payments = new ArrayList<>();
+              for (Job job : jobs) {
+                payments.add(paymentDAO.findByJobForUpdate(conn, job.getJobId()));
+              }
+              if (!delete.execute(conn)) {
+                return null;
+              }
+              for (int i = 0; i < jobs.size(); i++) {
+                removeFromSummary(conn, jobs.get(i), payments.get(i));
+              }
+              return jobs;
+            });
+    if (deleted == null) {
+      return false;
+    }
+    for (Job job : deleted) {
+      ChangeTracker.recordDeleted("JOB", job.getJobId());
+    }
+    return true;
+  }
+
+  /**
+   * Removes a deleted job, and its payment if it was paid, from the daily summary.
+   *
+   * @param conn the transactional connection to use.
+   * @param job the job as it was before it was deleted.
+   * @param payment the job's payment, or null if it had none.
+   * @throws SQLException if a database access error occurs.
+   */
+  private void removeFromSummary(Connection conn, Job job, Payment payment)
+      throws SQLException {
+    summaryDAO.applyJob(conn, job, -1);
+    if (isPaid(payment)) {
+      summaryDAO.applyRevenue(
+          conn, job.getGarageId(), payment.getPaymentDate(), -payment.getAmount());
+    }
+  }
+
+  private static boolean isPaid(Payment payment) {
+    return payment != null && "PAID".equals(payment.getPaymentStatus());
+  }
+
   /**
    * Calculates the average service cost for a specific customer.
    *
@@ -196,24 +418,70 @@ public class JobService implements CrudService<Job, Long> {
   }
 
   /**
-   * Validates the job object to ensure it meets the required criteria.
+   * Validates a batch of jobs, such as the rows of an import, in one pass.
+   *
+   * @param jobs the jobs to validate.
+   * @return every violation found, each with the index of its job; empty if all are valid.
+   */
+  public List<Violation> validateAll(List<Job> jobs) {
+    return VALIDATOR.validateAll(jobs);
+  }
+
+  /**
+   * Finds the other jobs that have the job's car in a garage while the job does. A car can only be
+   * in one garage at a time, so saving a job that overlaps another is rejected.
+   *
+   * @param job the job to check; its ID is ignored when it is new.
+   * @return the overlapping jobs, in order of date in; empty if there are none or no occupancy
+   *     service is configured.
+   * @throws ServiceException if an error occurs while finding the jobs.
+   */
+  public List<OccupancyIndex.Booking> findOverlappingJobs(Job job) throws ServiceException {
+    if (occupancyService == null || job.getRegNo() == null || job.getDateIn() == null) {
+      return Collections.emptyList();
+    }
+    List<OccupancyIndex.Booking> overlaps =
+        occupancyService.findCarOverlaps(job.getRegNo(), job.getDateIn(), job.getDateOut());
+    if (job.getJobId() != null) {
+      overlaps.removeIf(booking -> booking.getJobId() == job.getJobId());
+    }
+    return overlaps;
+  }
+
+  /**
+   * Validates the job object to ensure it meets the required criteria and that its car is not
+   * already in a garage during the job.
    *
    * @param job the job to validate.
    * @throws ServiceException if validation fails.
    */
   private void validateJob(Job job) throws ServiceException {
-    if (job.getDateIn() == null) {
-      throw new ServiceException("Job date in cannot be null");
-    }
-    if (job.getDateOut() != null && job.getDateOut().isBefore(job.getDateIn())) {
-      throw new ServiceException("Job date out cannot be before date in");
-    }
-    if (job.getCost() != null && job.getCost() < 0) {
-      throw new ServiceException("Job cost cannot be negative");
-    }
-    LocalDateTime now = LocalDateTime.now();
-    if (job.getDateIn().isAfter(now)) {
-      throw new ServiceException("Job date in cannot be in the future");
+    VALIDATOR.validate(job);
+    List<OccupancyIndex.Booking> overlaps = findOverlappingJobs(job);
+    if (!overlaps.isEmpty()) {
+      throw new ValidationException(
+          Collections.singletonList(new Violation(0, describeOverlap(overlaps.get(0)))));
     }
   }
+
+  /**
+   * Describes a job that overlaps the one being saved.
+   *
+   * @param booking the overlapping job.
+   * @return the message.
+   */
+  private static String describeOverlap(OccupancyIndex.Booking booking) {
+    String message =
+        "Car "
+            + booking.getRegNo()
+            + " is already in garage "
+            + booking.getGarageId()
+            + " for job "
+            + booking.getJobId()
+            + " from "
+            + DATE_FORMATTER.format(booking.getDateIn());
+    return booking.getDateOut() == null
+        ? message + ", which is still open"
+        : message + " to " + DATE_FORMATTER.format(booking.getDateOut());
+  }
 }
@@ -0,0 +1,17 @@
+package com.carservice.service;
+
+/**
+ * Exception thrown when a requested entity does not exist. Lets callers such as the HTTP API tell
+ * a missing entity apart from other service errors.
+ */
+public class NotFoundException extends ServiceException {
+
+  /**
+   * Constructs a NotFoundException with the specified detail message.
+   *
+   * @param message the detail message.
+   */
+  public NotFoundException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,235 @@
+package com.carservice.service;
+
+import com.carservice.dao.JobDAO;
+import com.carservice.model.CompactJob;
+import com.carservice.model.Job;
+import com.carservice.schedule.OccupancyIndex;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Service class answering when cars are in garages, such as whether a car is already in a garage
+ * during a new job, without loading the car's jobs. Queries run against an in-memory
+ * {@link OccupancyIndex} that is built from the jobs in the background and kept current from the
+ * changes the services report through {@link ChangeTracker}. Jobs changed by other users are
+ * picked up by rebuilding the index in the background once it is older than the rebuild interval.
+ * Until the first build completes, queries read the car's jobs from the database instead.
+ */
+public class OccupancyService implements ChangeTracker.Listener {
+  private final JobDAO jobDAO;
+  private final long rebuildMillis;
+
+  private volatile OccupancyIndex index = new OccupancyIndex();
+  private volatile boolean ready;
+  private Executor executor;
+  private CompletableFuture<Integer> rebuilding;
+  private List<Consumer<OccupancyIndex>> pendingChanges;
+  private long builtAtMillis;
+
+  /**
+   * Constructs an OccupancyService with the given dependencies.
+   *
+   * @param jobDAO the DAO used to read jobs.
+   * @param rebuildMillis how old the index may get before a query triggers a rebuild.
+   */
+  public OccupancyService(JobDAO jobDAO, long rebuildMillis) {
+    this.jobDAO = jobDAO;
+    this.rebuildMillis = rebuildMillis;
+  }
+
+  /**
+   * Starts building the index on the given executor, which is also used for later rebuilds.
+   *
+   * @param executor the executor for background builds.
+   * @return completes with the number of jobs indexed.
+   */
+  public CompletableFuture<Integer> start(Executor executor) {
+    synchronized (this) {
+      this.executor = executor;
+    }
+    return rebuildInBackground();
+  }
+
+  /**
+   * Finds the jobs that have a car in a garage at some point of a period.
+   *
+   * @param regNo the car's registration number, in any case and spacing.
+   * @param from the start of the period.
+   * @param to the end of the period, or null for a period that has not ended.
+   * @return the overlapping jobs, in order of date in.
+   * @throws ServiceException if the index is not built yet and the car's jobs cannot be read.
+   */
+  public List<OccupancyIndex.Booking> findCarOverlaps(
+      String regNo, LocalDateTime from, LocalDateTime to) throws ServiceException {
+    rebuildIfStale();
+    if (ready) {
+      return index.findCarOverlaps(regNo, from, to);
+    }
+    try {
+      OccupancyIndex carJobs = new OccupancyIndex();
+      for (Job job : jobDAO.findByCar(regNo)) {
+        carJobs.put(
+            job.getJobId(), job.getGarageId(), job.getRegNo(), job.getDateIn(), job.getDateOut());
+      }
+      return carJobs.findCarOverlaps(regNo, from, to);
+    } catch (SQLException e) {
+      throw new ServiceException("Error finding jobs for car: " + regNo, e);
+    }
+  }
+
+  /**
+   * Finds the jobs in a garage at a moment. Until the first build completes there are no results.
+   *
+   * @param garageId the garage's ID.
+   * @param time the moment.
+   * @return the jobs whose car is in the garage then, in order of date in.
+   */
+  public List<OccupancyIndex.Booking> findInGarageAt(long garageId, LocalDateTime time) {
+    rebuildIfStale();
+    return index.findInGarageAt(garageId, time);
+  }
+
+  /**
+   * Rebuilds the index on the executor passed to {@link #start(Executor)}, unless a rebuild is
+   * already running. Use it when many jobs may have changed outside this process, such as after an
+   * offline sync.
+   *
+   * @return completes with the number of jobs indexed.
+   */
+  public synchronized CompletableFuture<Integer> rebuildInBackground() {
+    if (rebuilding == null) {
+      CompletableFuture<Integer> build =
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return build();
+                } catch (ServiceException e) {
+                  throw new IllegalStateException(e.getMessage(), e);
+                }
+              },
+              executor);
+      rebuilding = build;
+      build.whenComplete(
+          (count, error) -> {
+            synchronized (this) {
+              rebuilding = null;
+              if (error != null) {
+                // Retry on the next query rather than straight away
+                builtAtMillis = System.currentTimeMillis();
+                System.err.println("Occupancy index build failed: " + error.getMessage());
+              }
+            }
+          });
+    }
+    return rebuilding;
+  }
+
+  /**
+   * Builds a new index from the database. Changes reported while it runs are applied to the new
+   * index before it replaces the old one. Only one build runs at a time.
+   *
+   * @return the number of jobs indexed.
+   * @throws ServiceException if the jobs cannot be read.
+   */
+  private int build() throws ServiceException {
+    synchronized (this) {
+      pendingChanges = new ArrayList<>();
+    }
+    OccupancyIndex built = new OccupancyIndex();
+    try {
+      for (CompactJob job : jobDAO.findAllCompact()) {
+        built.put(
+            job.getJobId(), job.getGarageId(), job.getRegNo(), job.getDateIn(), job.getDateOut());
+      }
+    } catch (SQLException e) {
+      synchronized (this) {
+        pendingChanges = null;
+      }
+      throw new ServiceException("Error building the occupancy index", e);
+    }
+
+    synchronized (this) {
+      for (Consumer<OccupancyIndex> change : pendingChanges) {
+        change.accept(built);
+      }
+      pendingChanges = null;
+      index = built;
+      builtAtMillis = System.currentTimeMillis();
+      ready = true;
+    }
+    return built.size();
+  }
+
+  /**
+   * Updates the index with a job saved through a service.
+   *
+   * @param type the type of data.
+   * @param id the record's ID.
+   * @param record the record as saved.
+   */
+  @Override
+  public void saved(String type, Object id, Object record) {
+    if (record instanceof Job) {
+      // Read the fields now: queued changes are replayed later, when the job may have been edited
+      Job job = (Job) record;
+      long jobId = (Long) id;
+      long garageId = job.getGarageId();
+      String regNo = job.getRegNo();
+      LocalDateTime dateIn = job.getDateIn();
+      LocalDateTime dateOut = job.getDateOut();
+      apply(target -> target.put(jobId, garageId, regNo, dateIn, dateOut));
+    }
+  }
+
+  /**
+   * Removes a deleted job, or the jobs deleted with a car, from the index. Deleting a customer
+   * deletes jobs the index cannot tell apart, so it is rebuilt instead.
+   *
+   * @param type the type of data.
+   * @param id the deleted record's ID.
+   */
+  @Override
+  public void deleted(String type, Object id) {
+    if ("JOB".equals(type)) {
+      apply(target -> target.remove((Long) id));
+    } else if ("CAR".equals(type)) {
+      apply(target -> target.removeCar((String) id));
+    } else if ("CUSTOMER".equals(type)) {
+      synchronized (this) {
+        if (executor != null) {
+          rebuildInBackground();
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies a change to the current index and, while a rebuild is running, queues it for the new
+   * index too.
+   *
+   * @param change the change to apply.
+   */
+  private synchronized void apply(Consumer<OccupancyIndex> change) {
+    change.accept(index);
+    if (pendingChanges != null) {
+      pendingChanges.add(change);
+    }
+  }
+
+  /** Starts a background rebuild if the index is older than the rebuild interval. */
+  private void rebuildIfStale() {
+    synchronized (this) {
+      if (executor == null
+          || rebuilding != null
+          || System.currentTimeMillis() - builtAtMillis < rebuildMillis) {
+        return;
+      }
+    }
+    rebuildInBackground();
+  }
+}
@@ -1,26 +1,45 @@
 package com.carservice.service;
 
+import com.carservice.dao.DailyGarageSummaryDAO;
 import com.carservice.dao.PaymentDAO;
+import com.carservice.dao.Transactions;
+import com.carservice.model.CompactPayment;
 import com.carservice.model.Job;
 import com.carservice.model.Payment;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Service class for managing payments. Provides methods to process and verify payments for jobs.
  */
 public class PaymentService {
   private final PaymentDAO paymentDAO;
+  private final DailyGarageSummaryDAO summaryDAO;
   private final JobService jobService;
 
   /** Constructs a PaymentService with default DAO and JobService instances. */
   public PaymentService() {
-    this.paymentDAO = new PaymentDAO();
-    this.jobService = new JobService();
+    this(new PaymentDAO(), new DailyGarageSummaryDAO(), new JobService());
   }
 
   /**
-   * Processes a payment for a specific job.
+   * Constructs a PaymentService with the given dependencies.
+   *
+   * @param paymentDAO the DAO used to access payments.
+   * @param summaryDAO the DAO used to maintain the daily summary.
+   * @param jobService the service used to look up jobs.
+   */
+  public PaymentService(
+      PaymentDAO paymentDAO, DailyGarageSummaryDAO summaryDAO, JobService jobService) {
+    this.paymentDAO = paymentDAO;
+    this.summaryDAO = summaryDAO;
+    this.jobService = jobService;
+  }
+
+  /**
+   * Processes a payment for a specific job. The payment is added to the garage's revenue in the
+   * daily summary within the same transaction.
    *
    * @param jobId the ID of the job for which the payment is being processed.
    * @param paymentMethod the method of payment (e.g., "CREDIT_CARD", "CASH").
@@ -32,7 +51,7 @@ public class PaymentService {
       // Get the job details
       Job job = jobService.findById(jobId);
       if (job == null) {
-        throw new ServiceException("Job not found with ID: " + jobId);
+        throw new NotFoundException("Job not found with ID: " + jobId);
       }
 
       // Verify the job is completed (has a dateOut)
@@ -54,9 +73,17 @@ public class PaymentService {
       payment.setPaymentMethod(paymentMethod);
       payment.setPaymentStatus("PAID");
 
-      // Save the payment
-      Long paymentId = paymentDAO.save(payment);
+      // Save the payment and record the revenue
+      Long paymentId =
+          Transactions.execute(
+              conn -> {
+                Long id = paymentDAO.save(conn, payment);
+                summaryDAO.applyRevenue(
+                    conn, job.getGarageId(), payment.getPaymentDate(), payment.getAmount());
+                return id;
+              });
       payment.setPaymentId(paymentId);
+      ChangeTracker.recordChange("PAYMENT");
 
       return payment;
     } catch (SQLException e) {
@@ -64,6 +91,21 @@ public class PaymentService {
     }
   }
 
+  /**
+   * Retrieves all payments in their compact, read-only form, for bulk paths that hold many
+   * payments in memory.
+   *
+   * @return a list of all payments.
+   * @throws ServiceException if an error occurs while retrieving payments.
+   */
+  public List<CompactPayment> findAllCompact() throws ServiceException {
+    try {
+      return paymentDAO.findAllCompact();
+    } catch (SQLException e) {
+      throw new ServiceException("Error retrieving all payments", e);
+    }
+  }
+
   /**
    * Verifies if a payment has been made for a specific job.
    *
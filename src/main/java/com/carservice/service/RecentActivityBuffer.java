@@ -0,0 +1,125 @@
+package com.carservice.service;
+
+import com.carservice.model.Activity;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed-size, lock-free ring buffer of the latest activities. Logging an activity claims the next
+ * sequence number and writes the slot it maps to, overwriting the oldest entry; reading walks back
+ * from the newest sequence number and skips any slot that has since been overwritten or is not
+ * written yet. Neither blocks the other.
+ *
+ * <p>The buffer is seeded with the activities already in the database. Seeding fills the sequence
+ * numbers before the first appended one, and only slots no appended activity has taken, so it never
+ * displaces a newer activity. An activity both appended and read from the database is listed once.
+ */
+final class RecentActivityBuffer {
+  private static final Comparator<Activity> NEWEST_FIRST =
+      Comparator.comparing(Activity::getTimestamp).reversed();
+
+  private final int capacity;
+  private final AtomicReference<Ring> ring = new AtomicReference<>();
+
+  /**
+   * Creates an empty buffer.
+   *
+   * @param capacity the number of activities kept, rounded up to a power of two
+   */
+  RecentActivityBuffer(int capacity) {
+    this.capacity = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+    ring.set(new Ring(this.capacity));
+  }
+
+  /**
+   * Adds an activity as the newest.
+   *
+   * @param activity the activity, as saved
+   */
+  void append(Activity activity) {
+    Ring current = ring.get();
+    long sequence = current.next.getAndIncrement();
+    current.slots.set(current.slot(sequence), new Entry(sequence, activity));
+  }
+
+  /**
+   * Empties the buffer for a fresh seed. Activities appended from now on are kept; read the seed
+   * from the database afterwards so that it includes every activity appended before.
+   */
+  void reset() {
+    ring.set(new Ring(capacity));
+  }
+
+  /**
+   * Fills the buffer with activities older than every appended one.
+   *
+   * @param newestFirst the activities, newest first; only the first {@code capacity} are used
+   */
+  void seed(List<Activity> newestFirst) {
+    Ring current = ring.get();
+    // Appended sequence numbers start at the capacity, so seeded ones count down from below it
+    for (int i = 0; i < newestFirst.size() && i < capacity; i++) {
+      long sequence = capacity - 1 - i;
+      current.slots.compareAndSet(
+          current.slot(sequence), null, new Entry(sequence, newestFirst.get(i)));
+    }
+  }
+
+  /**
+   * Returns the newest activities.
+   *
+   * @param limit the maximum number of activities
+   * @return the activities, newest first
+   */
+  List<Activity> newest(int limit) {
+    Ring current = ring.get();
+    long head = current.next.get();
+    List<Activity> activities = new ArrayList<>(Math.min(limit, capacity));
+    Set<Long> ids = new HashSet<>();
+    for (long sequence = head - 1; sequence >= 0 && sequence >= head - capacity; sequence--) {
+      Entry entry = current.slots.get(current.slot(sequence));
+      if (entry == null || entry.sequence != sequence) {
+        continue;
+      }
+      Long id = entry.activity.getActivityId();
+      if (id == null || ids.add(id)) {
+        activities.add(entry.activity);
+      }
+    }
+    // Sequence order is logging order; concurrent loggers may finish out of timestamp order
+    activities.sort(NEWEST_FIRST);
+    return activities.size() > limit ? activities.subList(0, limit) : activities;
+  }
+
+  private static final class Ring {
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLong next;
+    private final int mask;
+
+    private Ring(int capacity) {
+      this.slots = new AtomicReferenceArray<>(capacity);
+      this.next = new AtomicLong(capacity);
+      this.mask = capacity - 1;
+    }
+
+    private int slot(long sequence) {
+      return (int) (sequence & mask);
+    }
+  }
+
+  private static final class Entry {
+    private final long sequence;
+    private final Activity activity;
+
+    private Entry(long sequence, Activity activity) {
+      this.sequence = sequence;
+      this.activity = activity;
+    }
+  }
+}
@@ -0,0 +1,409 @@
+package com.carservice.service;
+
+import com.carservice.dao.CarDAO;
+import com.carservice.dao.CustomerDAO;
+import com.carservice.dao.GarageDAO;
+import com.carservice.dao.JobDAO;
+import com.carservice.model.Car;
+import com.carservice.model.CompactCar;
+import com.carservice.model.CompactCustomer;
+import com.carservice.model.CompactJob;
+import com.carservice.model.Customer;
+import com.carservice.model.Garage;
+import com.carservice.model.Job;
+import com.carservice.search.RegNoIndex;
+import com.carservice.search.SearchIndex;
+import com.carservice.search.SearchResult;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Service class for searching customers, cars, garages and jobs at once. Searches run against an
+ * in-memory {@link SearchIndex} that is built from the database in the background and then kept
+ * current from the changes the services report through {@link ChangeTracker}. Changes made by
+ * other users are picked up by rebuilding the index in the background once it is older than the
+ * rebuild interval.
+ *
+ * <p>Alongside it a {@link RegNoIndex} of the cars' registration numbers suggests the car meant
+ * when a registration number is mistyped.
+ */
+public class SearchService implements ChangeTracker.Listener {
+  private final CustomerDAO customerDAO;
+  private final CarDAO carDAO;
+  private final GarageDAO garageDAO;
+  private final JobDAO jobDAO;
+  private final long rebuildMillis;
+
+  private volatile Indexes indexes = new Indexes();
+  private volatile boolean ready;
+  private Executor executor;
+  private CompletableFuture<Integer> rebuilding;
+  private List<Consumer<Indexes>> pendingChanges;
+  private long builtAtMillis;
+
+  /**
+   * Constructs a SearchService with the given dependencies.
+   *
+   * @param customerDAO the DAO used to read customers.
+   * @param carDAO the DAO used to read cars.
+   * @param garageDAO the DAO used to read garages.
+   * @param jobDAO the DAO used to read jobs.
+   * @param rebuildMillis how old the index may get before a search triggers a rebuild.
+   */
+  public SearchService(
+      CustomerDAO customerDAO,
+      CarDAO carDAO,
+      GarageDAO garageDAO,
+      JobDAO jobDAO,
+      long rebuildMillis) {
+    this.customerDAO = customerDAO;
+    this.carDAO = carDAO;
+    this.garageDAO = garageDAO;
+    this.jobDAO = jobDAO;
+    this.rebuildMillis = rebuildMillis;
+  }
+
+  /**
+   * Starts building the index on the given executor, which is also used for later rebuilds.
+   *
+   * @param executor the executor for background builds.
+   * @return completes with the number of records indexed.
+   */
+  public CompletableFuture<Integer> start(Executor executor) {
+    synchronized (this) {
+      this.executor = executor;
+    }
+    return rebuildInBackground();
+  }
+
+  /**
+   * Finds the records matching every word of a query. Until the first build completes there are
+   * no results.
+   *
+   * @param query the words to look for, such as a surname, post code or registration number.
+   * @param limit the maximum number of results.
+   * @return the best matches, best first.
+   */
+  public List<SearchResult> search(String query, int limit) {
+    rebuildIfStale();
+    return indexes.records.search(query, limit);
+  }
+
+  /**
+   * Finds the registration numbers of the cars within one typo of a registration number, ignoring
+   * case and spaces. Until the first build completes there are no results.
+   *
+   * @param regNo the registration number as typed.
+   * @param limit the maximum number of results.
+   * @return the registration numbers as stored, an exact match first.
+   */
+  public List<String> findSimilarRegNos(String regNo, int limit) {
+    rebuildIfStale();
+    Indexes current = indexes;
+    List<String> similar = new ArrayList<>();
+    for (String candidate : current.regNos.findSimilar(regNo)) {
+      // Cars deleted with their customer stay in the registration index until the next rebuild
+      if (similar.size() < limit && current.records.contains(SearchResult.Type.CAR, candidate)) {
+        similar.add(candidate);
+      }
+    }
+    return similar;
+  }
+
+  /**
+   * Checks whether the index has been built.
+   *
+   * @return true once the first build has completed.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Rebuilds the index on the executor passed to {@link #start(Executor)}, unless a rebuild is
+   * already running. Use it when many records may have changed outside this process, such as after
+   * an offline sync.
+   *
+   * @return completes with the number of records indexed.
+   */
+  public synchronized CompletableFuture<Integer> rebuildInBackground() {
+    if (rebuilding == null) {
+      CompletableFuture<Integer> build =
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return build();
+                } catch (ServiceException e) {
+                  throw new IllegalStateException(e.getMessage(), e);
+                }
+              },
+              executor);
+      rebuilding = build;
+      build.whenComplete(
+          (count, error) -> {
+            synchronized (this) {
+              rebuilding = null;
+              if (error != null) {
+                // Retry on the next search rather than straight away
+                builtAtMillis = System.currentTimeMillis();
+                System.err.println("Search index build failed: " + error.getMessage());
+              }
+            }
+          });
+    }
+    return rebuilding;
+  }
+
+  /**
+   * Builds a new index from the database. Changes reported while it runs are applied to the new
+   * index before it replaces the old one. Only one build runs at a time.
+   *
+   * @return the number of records indexed.
+   * @throws ServiceException if the records cannot be read.
+   */
+  private int build() throws ServiceException {
+    synchronized (this) {
+      pendingChanges = new ArrayList<>();
+    }
+    Indexes built = new Indexes();
+    try {
+      for (Garage garage : garageDAO.findAll()) {
+        indexGarage(
+            built,
+            garage.getGarageId(),
+            garage.getGarageName(),
+            garage.getTown(),
+            garage.getPostCode(),
+            garage.getPhoneNo());
+      }
+      for (CompactCustomer customer : customerDAO.findAllCompact()) {
+        indexCustomer(
+            built,
+            customer.getCustomerId(),
+            customer.getForename(),
+            customer.getSurname(),
+            customer.getAddress(),
+            customer.getPostCode(),
+            customer.getPhoneNo());
+      }
+      for (CompactCar car : carDAO.findAllCompact()) {
+        indexCar(
+            built,
+            car.getRegNo(),
+            car.getMake(),
+            car.getModel(),
+            car.getYear(),
+            car.getCustomerId());
+      }
+      for (CompactJob job : jobDAO.findAllCompact()) {
+        indexJob(
+            built,
+            job.getJobId(),
+            job.getGarageId(),
+            job.getRegNo(),
+            job.getDateIn(),
+            job.getDateOut());
+      }
+    } catch (SQLException e) {
+      synchronized (this) {
+        pendingChanges = null;
+      }
+      throw new ServiceException("Error building the search index", e);
+    }
+
+    synchronized (this) {
+      for (Consumer<Indexes> change : pendingChanges) {
+        change.accept(built);
+      }
+      pendingChanges = null;
+      indexes = built;
+      builtAtMillis = System.currentTimeMillis();
+      ready = true;
+    }
+    return built.records.size();
+  }
+
+  /**
+   * Updates the index with a record saved through a service.
+   *
+   * @param type the type of data.
+   * @param id the record's ID.
+   * @param record the record as saved.
+   */
+  @Override
+  public void saved(String type, Object id, Object record) {
+    // Read the fields now: queued changes are replayed later, when the record may have been edited
+    if (record instanceof Customer) {
+      Customer customer = (Customer) record;
+      long customerId = (Long) id;
+      String forename = customer.getForename();
+      String surname = customer.getSurname();
+      String address = customer.getAddress();
+      String postCode = customer.getPostCode();
+      String phoneNo = customer.getPhoneNo();
+      apply(
+          target ->
+              indexCustomer(target, customerId, forename, surname, address, postCode, phoneNo));
+    } else if (record instanceof Car) {
+      Car car = (Car) record;
+      String regNo = car.getRegNo();
+      String make = car.getMake();
+      String model = car.getModel();
+      int year = car.getYear();
+      long customerId = car.getCustomerId();
+      apply(target -> indexCar(target, regNo, make, model, year, customerId));
+    } else if (record instanceof Garage) {
+      Garage garage = (Garage) record;
+      long garageId = (Long) id;
+      String name = garage.getGarageName();
+      String town = garage.getTown();
+      String postCode = garage.getPostCode();
+      String phoneNo = garage.getPhoneNo();
+      apply(target -> indexGarage(target, garageId, name, town, postCode, phoneNo));
+    } else if (record instanceof Job) {
+      Job job = (Job) record;
+      long jobId = (Long) id;
+      long garageId = job.getGarageId();
+      String regNo = job.getRegNo();
+      LocalDateTime dateIn = job.getDateIn();
+      LocalDateTime dateOut = job.getDateOut();
+      apply(target -> indexJob(target, jobId, garageId, regNo, dateIn, dateOut));
+    }
+  }
+
+  /**
+   * Removes a record deleted through a service, and the records deleted with it, from the index.
+   *
+   * @param type the type of data.
+   * @param id the deleted record's ID.
+   */
+  @Override
+  public void deleted(String type, Object id) {
+    SearchResult.Type searchType;
+    try {
+      searchType = SearchResult.Type.valueOf(type);
+    } catch (IllegalArgumentException e) {
+      return;
+    }
+    apply(
+        target -> {
+          target.records.remove(searchType, id);
+          if (searchType == SearchResult.Type.CAR) {
+            target.regNos.remove((String) id);
+          }
+        });
+  }
+
+  /**
+   * Applies a change to the current index and, while a rebuild is running, queues it for the new
+   * index too.
+   *
+   * @param change the change to apply.
+   */
+  private synchronized void apply(Consumer<Indexes> change) {
+    change.accept(indexes);
+    if (pendingChanges != null) {
+      pendingChanges.add(change);
+    }
+  }
+
+  /** Starts a background rebuild if the index is older than the rebuild interval. */
+  private void rebuildIfStale() {
+    synchronized (this) {
+      if (executor == null
+          || rebuilding != null
+          || System.currentTimeMillis() - builtAtMillis < rebuildMillis) {
+        return;
+      }
+    }
+    rebuildInBackground();
+  }
+
+  private static void indexCustomer(
+      Indexes target,
+      long customerId,
+      String forename,
+      String surname,
+      String address,
+      String postCode,
+      String phoneNo) {
+    target.records.put(
+        SearchResult.Type.CUSTOMER,
+        customerId,
+        forename + " " + surname,
+        "Customer " + customerId + ", " + address + ", " + postCode + ", " + phoneNo,
+        Collections.emptyList(),
+        forename,
+        surname,
+        postCode,
+        phoneNo);
+  }
+
+  private static void indexCar(
+      Indexes target, String regNo, String make, String model, int year, long customerId) {
+    target.regNos.add(regNo);
+    target.records.put(
+        SearchResult.Type.CAR,
+        regNo,
+        regNo,
+        "Car, " + make + " " + model + " (" + year + ")",
+        Collections.singletonList(SearchIndex.key(SearchResult.Type.CUSTOMER, customerId)),
+        regNo,
+        make,
+        model);
+  }
+
+  private static void indexGarage(
+      Indexes target,
+      long garageId,
+      String name,
+      String town,
+      String postCode,
+      String phoneNo) {
+    target.records.put(
+        SearchResult.Type.GARAGE,
+        garageId,
+        name,
+        "Garage " + garageId + ", " + town + ", " + postCode,
+        Collections.emptyList(),
+        name,
+        town,
+        postCode,
+        phoneNo);
+  }
+
+  private static void indexJob(
+      Indexes target,
+      long jobId,
+      long garageId,
+      String regNo,
+      LocalDateTime dateIn,
+      LocalDateTime dateOut) {
+    target.records.put(
+        SearchResult.Type.JOB,
+        jobId,
+        "Job " + jobId,
+        regNo
+            + ", in "
+            + dateIn.toLocalDate()
+            + (dateOut != null ? ", out " + dateOut.toLocalDate() : ", open"),
+        Arrays.asList(
+            SearchIndex.key(SearchResult.Type.CAR, regNo),
+            SearchIndex.key(SearchResult.Type.GARAGE, garageId)),
+        String.valueOf(jobId),
+        regNo);
+  }
+
+  /** The indexes built together and replaced together on a rebuild. */
+  private static final class Indexes {
+    private final SearchIndex records = new SearchIndex();
+    private final RegNoIndex regNos = new RegNoIndex();
+  }
+}
@@ -0,0 +1,19 @@
+package com.carservice.service;
+
+/**
+ * Exception thrown when an update is rejected because the entity was changed by someone else after
+ * it was loaded. The caller should reload the entity and reapply the edit.
+ */
+public class StaleEntityException extends ServiceException {
+
+  /**
+   * Constructs a StaleEntityException for the given type of entity.
+   *
+   * @param entityType the type of entity, such as "Customer".
+   */
+  public StaleEntityException(String entityType) {
+    super(
+        entityType
+            + " was changed by another user since it was loaded. Reload it and try again.");
+  }
+}
@@ -0,0 +1,32 @@
+package com.carservice.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when an object fails validation. The message is that of the first rule broken; every
+ * broken rule is available from {@link #getViolations()}.
+ */
+public class ValidationException extends ServiceException {
+
+  private final List<Violation> violations;
+
+  /**
+   * Constructs a ValidationException for the rules an object breaks.
+   *
+   * @param violations the violations, at least one.
+   */
+  public ValidationException(List<Violation> violations) {
+    super(violations.get(0).getMessage());
+    this.violations = Collections.unmodifiableList(violations);
+  }
+
+  /**
+   * Returns every rule the object breaks.
+   *
+   * @return the violations, in the order the rules are declared.
+   */
+  public List<Violation> getViolations() {
+    return violations;
+  }
+}
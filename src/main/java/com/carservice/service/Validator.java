@@ -0,0 +1,186 @@
+package com.carservice.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Checks model objects against a list of rules declared once per model class, typically in a
+ * static field of its service. Regular expressions are compiled when the rules are declared and
+ * shared between validators, so validating does no compiling.
+ *
+ * <p>Every rule is checked, so one pass over a batch collects all of its violations. A single
+ * object is rejected with the message of the first rule it breaks, in declaration order.
+ *
+ * @param <T> the type of object validated
+ */
+public final class Validator<T> {
+  private static final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+  private final List<Rule<T>> rules;
+
+  private Validator(List<Rule<T>> rules) {
+    this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+  }
+
+  /**
+   * Starts declaring the rules for a type.
+   *
+   * @param <T> the type of object validated
+   * @return a builder for the rules
+   */
+  public static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Returns the compiled form of a regular expression, compiling it only the first time it is
+   * asked for.
+   *
+   * @param regex the regular expression
+   * @return the shared compiled pattern
+   */
+  public static Pattern pattern(String regex) {
+    return patterns.computeIfAbsent(regex, Pattern::compile);
+  }
+
+  /**
+   * Validates one object.
+   *
+   * @param item the object to validate.
+   * @throws ValidationException carrying every rule the object breaks, with the first one's
+   *     message.
+   */
+  public void validate(T item) throws ValidationException {
+    List<Violation> violations = new ArrayList<>();
+    check(item, 0, violations);
+    if (!violations.isEmpty()) {
+      throw new ValidationException(violations);
+    }
+  }
+
+  /**
+   * Validates a batch of objects in one pass.
+   *
+   * @param items the objects to validate.
+   * @return every violation found, in item order, each with the index of its item; empty if all
+   *     objects are valid.
+   */
+  public List<Violation> validateAll(List<? extends T> items) {
+    List<Violation> violations = new ArrayList<>();
+    for (int i = 0; i < items.size(); i++) {
+      check(items.get(i), i, violations);
+    }
+    return violations;
+  }
+
+  private void check(T item, int index, List<Violation> violations) {
+    for (Rule<T> rule : rules) {
+      if (!rule.valid.test(item)) {
+        violations.add(new Violation(index, rule.message));
+      }
+    }
+  }
+
+  /** A condition an object must meet and the message reported when it does not. */
+  private static final class Rule<T> {
+    private final Predicate<T> valid;
+    private final String message;
+
+    private Rule(Predicate<T> valid, String message) {
+      this.valid = valid;
+      this.message = message;
+    }
+  }
+
+  /**
+   * Declares the rules of a {@link Validator}, in the order they are checked.
+   *
+   * @param <T> the type of object validated
+   */
+  public static final class Builder<T> {
+    private final List<Rule<T>> rules = new ArrayList<>();
+
+    private Builder() {}
+
+    /**
+     * Requires a text field to contain something other than whitespace.
+     *
+     * @param field reads the field
+     * @param message the violation message
+     * @return this builder
+     */
+    public Builder<T> notBlank(Function<T, String> field, String message) {
+      return check(
+          item -> {
+            String value = field.apply(item);
+            return value != null && !value.trim().isEmpty();
+          },
+          message);
+    }
+
+    /**
+     * Requires a text field to be present and to match a regular expression in full.
+     *
+     * @param field reads the field
+     * @param regex the regular expression
+     * @param message the violation message
+     * @return this builder
+     */
+    public Builder<T> matches(Function<T, String> field, String regex, String message) {
+      Pattern pattern = pattern(regex);
+      return check(
+          item -> {
+            String value = field.apply(item);
+            return value != null && pattern.matcher(value).matches();
+          },
+          message);
+    }
+
+    /**
+     * Requires a number field to lie within a range.
+     *
+     * @param field reads the field
+     * @param min the smallest valid value
+     * @param max the largest valid value
+     * @param message the violation message
+     * @return this builder
+     */
+    public Builder<T> range(ToIntFunction<T> field, int min, int max, String message) {
+      return check(
+          item -> {
+            int value = field.applyAsInt(item);
+            return value >= min && value <= max;
+          },
+          message);
+    }
+
+    /**
+     * Adds a rule of any kind. The condition is checked even when earlier rules fail, so it must
+     * tolerate missing fields.
+     *
+     * @param valid returns true if the object meets the rule
+     * @param message the violation message
+     * @return this builder
+     */
+    public Builder<T> check(Predicate<T> valid, String message) {
+      rules.add(new Rule<>(valid, message));
+      return this;
+    }
+
+    /**
+     * Creates the validator.
+     *
+     * @return a validator checking the declared rules
+     */
+    public Validator<T> build() {
+      return new Validator<>(rules);
+    }
+  }
+}
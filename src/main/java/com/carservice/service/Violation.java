@@ -0,0 +1,31 @@
+package com.carservice.service;
+
+/** A validation rule broken by one object of a batch. */
+public final class Violation {
+  private final int index;
+  private final String message;
+
+  /**
+   * Creates a violation.
+   *
+   * @param index the position of the object in the batch, 0 for a single object.
+   * @param message the rule's message.
+   */
+  public Violation(int index, String message) {
+    this.index = index;
+    this.message = message;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public String toString() {
+    return "Row " + (index + 1) + ": " + message;
+  }
+}
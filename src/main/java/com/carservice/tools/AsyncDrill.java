@@ -0,0 +1,219 @@
+package com.carservice.tools;
+
+import com.carservice.config.DatabaseConfig;
+import com.carservice.config.DatabaseExecutor;
+import com.carservice.dao.AsyncCrudDAO;
+import com.carservice.dao.CarDAO;
+import com.carservice.dao.CustomerDAO;
+import com.carservice.dao.JobDAO;
+import com.carservice.model.Car;
+import com.carservice.model.Customer;
+import com.carservice.model.Job;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exercises the asynchronous DAO API against an in-memory database: composing concurrent finders,
+ * timeouts and cancellation reaching the running JDBC statement, queued calls that are cancelled
+ * before they start, a full queue, and failures surfacing through the future. The slow statement
+ * is a cross join that would run for hours unless cancelled. It exits with status 1 if a check
+ * fails.
+ *
+ * <p>Run it with {@code mvn -Ptools compile exec:java -Dtool=com.carservice.tools.AsyncDrill}.
+ */
+public class AsyncDrill {
+  private static final String SLOW_QUERY =
+      "SELECT SUM(a.X * b.X) FROM SYSTEM_RANGE(1, 1000000) a, SYSTEM_RANGE(1, 1000000) b";
+
+  private static int failures;
+
+  /**
+   * Entry point.
+   *
+   * @param args {@code --schema FILE} (default src/docker/init.sql)
+   * @throws Exception if the drill cannot be set up
+   */
+  public static void main(String[] args) throws Exception {
+    Path schema = Paths.get("src", "docker", "init.sql");
+    for (int i = 0; i < args.length; i++) {
+      if ("--schema".equals(args[i]) && i + 1 < args.length) {
+        schema = Paths.get(args[++i]);
+      } else {
+        System.err.println("Options: [--schema init.sql]");
+        System.exit(2);
+      }
+    }
+
+    InMemoryDatabase.install(schema);
+    try {
+      compose();
+      timeout();
+      cancel();
+      cancelQueued();
+      reject();
+      failure();
+    } finally {
+      DatabaseConfig.shutdown();
+    }
+    System.out.println(failures == 0 ? "All checks passed" : failures + " check(s) failed");
+    System.exit(failures == 0 ? 0 : 1);
+  }
+
+  /** Loads a customer, their cars and their average cost concurrently and combines them. */
+  private static void compose() throws SQLException {
+    try (DatabaseExecutor executor = new DatabaseExecutor(4, 10, 5_000)) {
+      AsyncCrudDAO<Customer, Long, CustomerDAO> customers =
+          new AsyncCrudDAO<>(new CustomerDAO(), executor);
+      AsyncCrudDAO<Car, String, CarDAO> cars = new AsyncCrudDAO<>(new CarDAO(), executor);
+      AsyncCrudDAO<Job, Long, JobDAO> jobs = new AsyncCrudDAO<>(new JobDAO(), executor);
+
+      String summary =
+          customers
+              .findById(1L)
+              .thenCombine(
+                  cars.query(dao -> dao.findByCustomer(1L)),
+                  (customer, list) -> customer.getSurname() + " has " + list.size() + " car(s)")
+              .thenCombine(
+                  jobs.query(dao -> dao.getAverageServiceCostByCustomer(1L)),
+                  (text, cost) -> text + ", average cost " + cost)
+              .join();
+      System.out.println("Composed: " + summary);
+
+      List<Car> expected = new CarDAO().findByCustomer(1L);
+      String blocking =
+          new CustomerDAO().findById(1L).getSurname()
+              + " has "
+              + expected.size()
+              + " car(s), average cost "
+              + new JobDAO().getAverageServiceCostByCustomer(1L);
+      check("composed result matches the blocking calls", summary.equals(blocking));
+    }
+  }
+
+  /** A call that outlives its timeout fails with TimeoutException and its statement stops. */
+  private static void timeout() {
+    try (DatabaseExecutor executor = new DatabaseExecutor(1, 10, 0)) {
+      long cancelledBefore = DatabaseConfig.getPoolStats().getCancelledQueries();
+      long start = System.nanoTime();
+      CompletableFuture<Long> slow = executor.submit(AsyncDrill::runSlowQuery, 300);
+      check("slow call times out", failsWith(slow, TimeoutException.class));
+      check("timeout reported promptly", millisSince(start) < 2_000);
+
+      // With a single thread, the next call only runs once the slow statement has stopped
+      CompletableFuture<Integer> next = executor.submit(() -> 1);
+      check("statement stopped after the timeout", completesWithin(next, 5_000));
+      check(
+          "pool counted the cancelled statement",
+          DatabaseConfig.getPoolStats().getCancelledQueries() > cancelledBefore);
+    }
+  }
+
+  /** Cancelling the future of a running call stops its statement. */
+  private static void cancel() throws InterruptedException {
+    try (DatabaseExecutor executor = new DatabaseExecutor(1, 10, 0)) {
+      CompletableFuture<Long> slow = executor.submit(AsyncDrill::runSlowQuery);
+      Thread.sleep(300);
+      slow.cancel(false);
+      check("cancelled call reports cancellation", failsWith(slow, CancellationException.class));
+      CompletableFuture<Integer> next = executor.submit(() -> 1);
+      check("statement stopped after cancel", completesWithin(next, 5_000));
+    }
+  }
+
+  /** A call cancelled while it waits in the queue never starts. */
+  private static void cancelQueued() throws InterruptedException {
+    try (DatabaseExecutor executor = new DatabaseExecutor(1, 10, 0)) {
+      AtomicBoolean started = new AtomicBoolean();
+      CompletableFuture<Long> slow = executor.submit(AsyncDrill::runSlowQuery);
+      CompletableFuture<Boolean> queued =
+          executor.submit(
+              () -> {
+                started.set(true);
+                return true;
+              });
+      queued.cancel(false);
+      slow.cancel(false);
+      CompletableFuture<Integer> next = executor.submit(() -> 1);
+      completesWithin(next, 5_000);
+      check("queued call cancelled before it started", !started.get());
+    }
+  }
+
+  /** Calls beyond the queue's capacity fail at once instead of waiting. */
+  private static void reject() {
+    try (DatabaseExecutor executor = new DatabaseExecutor(1, 1, 0)) {
+      CompletableFuture<Long> running = executor.submit(AsyncDrill::runSlowQuery);
+      CompletableFuture<Integer> queued = executor.submit(() -> 1);
+      CompletableFuture<Integer> rejected = executor.submit(() -> 1);
+      check("full queue rejects", failsWith(rejected, RejectedExecutionException.class));
+      running.cancel(false);
+      check("queued call still runs", completesWithin(queued, 5_000));
+    }
+  }
+
+  /** A DAO failure completes the future with the DAO's SQLException. */
+  private static void failure() {
+    try (DatabaseExecutor executor = new DatabaseExecutor(1, 10, 5_000)) {
+      CompletableFuture<Boolean> failing =
+          executor.submit(
+              () -> {
+                try (Connection conn = DatabaseConfig.getConnection();
+                    Statement stmt = conn.createStatement()) {
+                  return stmt.execute("SELECT * FROM NoSuchTable");
+                }
+              });
+      check("SQL error surfaces through the future", failsWith(failing, SQLException.class));
+    }
+  }
+
+  private static long runSlowQuery() throws SQLException {
+    try (Connection conn = DatabaseConfig.getConnection();
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(SLOW_QUERY)) {
+      return rs.next() ? rs.getLong(1) : -1;
+    }
+  }
+
+  private static boolean failsWith(CompletableFuture<?> future, Class<?> type) {
+    try {
+      future.join();
+      return false;
+    } catch (CancellationException e) {
+      return type == CancellationException.class;
+    } catch (CompletionException e) {
+      return type.isInstance(e.getCause());
+    }
+  }
+
+  private static boolean completesWithin(CompletableFuture<?> future, long millis) {
+    try {
+      future.get(millis, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  private static long millisSince(long start) {
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  private static void check(String name, boolean passed) {
+    System.out.println((passed ? "PASS " : "FAIL ") + name);
+    if (!passed) {
+      failures++;
+    }
+  }
+}
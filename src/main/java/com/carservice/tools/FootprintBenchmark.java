@@ -0,0 +1,238 @@
+package com.carservice.tools;
+
+import com.carservice.model.Car;
+import com.carservice.model.CompactCar;
+import com.carservice.model.CompactCustomer;
+import com.carservice.model.CompactJob;
+import com.carservice.model.CompactPayment;
+import com.carservice.model.Customer;
+import com.carservice.model.Job;
+import com.carservice.model.Payment;
+import com.carservice.util.StringPool;
+import java.lang.ref.Reference;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Measures the heap retained by a list of rows held as the regular model classes and as their
+ * compact counterparts. Rows are generated in memory the way the DAOs build them: the regular path
+ * creates fresh strings and date-times for every row, as the JDBC driver does, while the compact
+ * path shares repeated strings through a {@link StringPool} as {@code findAllCompact} does.
+ *
+ * <p>Run it with {@code mvn -Ptools compile exec:java
+ * -Dtool=com.carservice.tools.FootprintBenchmark -Dexec.args="--rows 1000000"}. Give Maven enough
+ * heap ({@code MAVEN_OPTS=-Xmx3g}) for the row count; figures are approximate because they are read
+ * from the heap after a full collection.
+ */
+public class FootprintBenchmark {
+  private static final String[] MAKES = {
+    "Ford", "Vauxhall", "Volkswagen", "Toyota", "BMW", "Audi", "Nissan", "Peugeot", "Honda", "Kia"
+  };
+  private static final String[] MODELS = {
+    "Fiesta", "Corsa", "Golf", "Yaris", "3 Series", "A3", "Qashqai", "208", "Civic", "Sportage"
+  };
+  private static final String[] FORENAMES = {
+    "Oliver", "Amelia", "George", "Isla", "Harry", "Ava", "Noah", "Mia", "Jack", "Ivy"
+  };
+  private static final String[] METHODS = {"CASH", "CARD", "TRANSFER"};
+  private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 8, 0);
+
+  /**
+   * Entry point.
+   *
+   * @param args {@code --rows N} to set the number of rows per list (default 1,000,000)
+   */
+  public static void main(String[] args) {
+    int rows = 1_000_000;
+    for (int i = 0; i < args.length; i++) {
+      if ("--rows".equals(args[i]) && i + 1 < args.length) {
+        rows = Integer.parseInt(args[++i]);
+      } else {
+        System.err.println("Options: [--rows N]");
+        System.exit(2);
+      }
+    }
+    int carCount = Math.max(1, rows / 10);
+
+    System.out.printf(
+        Locale.ROOT,
+        "%-10s %12s %12s %12s %12s %8s%n",
+        "model",
+        "regular MB",
+        "bytes/row",
+        "compact MB",
+        "bytes/row",
+        "saving");
+    compare("Job", rows, () -> i -> job(i, carCount), () -> jobCompactFactory(carCount));
+    compare(
+        "Payment",
+        rows,
+        () -> FootprintBenchmark::payment,
+        FootprintBenchmark::paymentCompactFactory);
+    compare("Car", rows, () -> FootprintBenchmark::car, FootprintBenchmark::carCompactFactory);
+    compare(
+        "Customer",
+        rows,
+        () -> FootprintBenchmark::customer,
+        FootprintBenchmark::customerCompactFactory);
+  }
+
+  private static void compare(
+      String name,
+      int rows,
+      Supplier<IntFunction<Object>> regular,
+      Supplier<IntFunction<Object>> compact) {
+    long regularBytes = measure(rows, regular);
+    long compactBytes = measure(rows, compact);
+    System.out.printf(
+        Locale.ROOT,
+        "%-10s %12.1f %12.1f %12.1f %12.1f %7.0f%%%n",
+        name,
+        regularBytes / 1048576.0,
+        (double) regularBytes / rows,
+        compactBytes / 1048576.0,
+        (double) compactBytes / rows,
+        100.0 * (regularBytes - compactBytes) / regularBytes);
+  }
+
+  /**
+   * Builds a list of rows and returns how much the used heap grew while the list is reachable.
+   * The row factory, including any string pool it holds, is released before measuring, just as the
+   * DAOs drop their pool once a load completes.
+   *
+   * @param rows the number of rows to build
+   * @param factories supplies a factory that creates the row with the given index
+   * @return the retained size of the list in bytes
+   */
+  private static long measure(int rows, Supplier<IntFunction<Object>> factories) {
+    long before = usedHeapAfterGc();
+    List<Object> list = new ArrayList<>(rows);
+    IntFunction<Object> factory = factories.get();
+    for (int i = 0; i < rows; i++) {
+      list.add(factory.apply(i));
+    }
+    factory = null;
+    long after = usedHeapAfterGc();
+    Reference.reachabilityFence(list);
+    return after - before;
+  }
+
+  private static long usedHeapAfterGc() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    // Collect until the figure stops shrinking, since a single request may not be a full GC
+    for (int i = 0; i < 10; i++) {
+      System.gc();
+      long current = runtime.totalMemory() - runtime.freeMemory();
+      if (current >= used) {
+        break;
+      }
+      used = current;
+    }
+    return used;
+  }
+
+  private static Job job(int i, int carCount) {
+    LocalDateTime dateIn = START.plusMinutes(i);
+    boolean open = i % 10 == 0;
+    return new Job(
+        (long) i + 1,
+        (long) i % 3 + 1,
+        dateIn,
+        open ? null : dateIn.plusDays(i % 7),
+        regNo(i % carCount),
+        open ? null : (i % 50_000) / 100.0);
+  }
+
+  private static IntFunction<Object> jobCompactFactory(int carCount) {
+    StringPool strings = new StringPool();
+    return i -> {
+      Job job = job(i, carCount);
+      return new CompactJob(
+          job.getJobId(),
+          job.getGarageId(),
+          job.getDateIn(),
+          job.getDateOut(),
+          strings.get(job.getRegNo()),
+          job.getCost());
+    };
+  }
+
+  private static Payment payment(int i) {
+    return new Payment(
+        (long) i + 1,
+        (long) i + 1,
+        (i % 50_000) / 100.0,
+        START.plusMinutes(i),
+        new String(METHODS[i % METHODS.length]),
+        new String("PAID"));
+  }
+
+  private static IntFunction<Object> paymentCompactFactory() {
+    StringPool strings = new StringPool();
+    return i -> {
+      Payment payment = payment(i);
+      return new CompactPayment(
+          payment.getPaymentId(),
+          payment.getJobId(),
+          payment.getAmount(),
+          payment.getPaymentDate(),
+          strings.get(payment.getPaymentMethod()),
+          strings.get(payment.getPaymentStatus()));
+    };
+  }
+
+  private static Car car(int i) {
+    return new Car(
+        regNo(i),
+        new String(MAKES[i % MAKES.length]),
+        new String(MODELS[i % MODELS.length]),
+        1995 + i % 30,
+        (long) i / 2 + 1);
+  }
+
+  private static IntFunction<Object> carCompactFactory() {
+    StringPool strings = new StringPool();
+    return i -> {
+      Car car = car(i);
+      return new CompactCar(
+          car.getRegNo(),
+          strings.get(car.getMake()),
+          strings.get(car.getModel()),
+          car.getYear(),
+          car.getCustomerId());
+    };
+  }
+
+  private static Customer customer(int i) {
+    return new Customer(
+        (long) i + 1,
+        new String(FORENAMES[i % FORENAMES.length]),
+        "Surname" + i % 1000,
+        i + " High Street",
+        "PC" + i % 5000,
+        String.valueOf(7_000_000_000L + i));
+  }
+
+  private static IntFunction<Object> customerCompactFactory() {
+    StringPool strings = new StringPool();
+    return i -> {
+      Customer customer = customer(i);
+      return new CompactCustomer(
+          customer.getCustomerId(),
+          strings.get(customer.getForename()),
+          strings.get(customer.getSurname()),
+          customer.getAddress(),
+          strings.get(customer.getPostCode()),
+          customer.getPhoneNo());
+    };
+  }
+
+  private static String regNo(int index) {
+    return "R" + Integer.toString(index, 36).toUpperCase(Locale.ROOT);
+  }
+}
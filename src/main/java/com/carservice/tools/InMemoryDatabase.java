@@ -0,0 +1,67 @@
+package com.carservice.tools;
+
+import com.carservice.config.DatabaseConfig;
+import com.carservice.config.MigrationRunner;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Points the application at an in-memory H2 database running in MariaDB compatibility mode and
+ * loads the schema into it. Uses the H2 driver that the application also uses for offline mode.
+ */
+public final class InMemoryDatabase {
+  static final String URL =
+      "jdbc:h2:mem:carservice;DB_CLOSE_DELAY=-1;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;"
+          + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;NON_KEYWORDS=YEAR,VALUE";
+
+  private InMemoryDatabase() {}
+
+  /**
+   * Overrides the database properties to use the in-memory database, runs the schema script and
+   * then applies the schema migrations, as the application does on startup. Must be called before
+   * the first connection is borrowed.
+   *
+   * @param schema the SQL script to run, such as {@code src/docker/init.sql}
+   * @throws IOException if the script cannot be read
+   * @throws SQLException if a statement in the script or a migration fails
+   */
+  public static void install(Path schema) throws IOException, SQLException {
+    System.setProperty("db.url", URL);
+    System.setProperty("db.username", "sa");
+    System.setProperty("db.password", "");
+
+    try (Connection conn = DatabaseConfig.getConnection();
+        Statement stmt = conn.createStatement()) {
+      for (String sql : splitStatements(Files.readString(schema, StandardCharsets.UTF_8))) {
+        stmt.execute(sql);
+      }
+    }
+    MigrationRunner.migrate();
+  }
+
+  /**
+   * Splits a script into statements. Statements end with a semicolon at the end of a line and
+   * lines starting with {@code --} are comments.
+   *
+   * @param script the script text
+   * @return the statements in order
+   */
+  static String[] splitStatements(String script) {
+    StringBuilder body = new StringBuilder();
+    for (String line : script.split("\n")) {
+      if (!line.trim().startsWith("--")) {
+        body.append(line).append('\n');
+      }
+    }
+    return Arrays.stream(body.toString().split(";\\s*\n"))
+        .map(String::trim)
+        .filter(sql -> !sql.isEmpty())
+        .toArray(String[]::new);
+  }
+}
@@ -0,0 +1,98 @@
+package com.carservice.tools;
+
+/**
+ * Fixed-size, log-linear latency histogram. Each power of two of microseconds is split into 16
+ * sub-buckets, giving percentiles within about 6% of the true value in constant memory. Instances
+ * are not thread-safe; record per thread and {@link #merge} afterwards.
+ */
+public class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int MAJOR_BUCKETS = 40;
+
+  private final long[] counts = new long[MAJOR_BUCKETS * SUB_BUCKETS];
+  private long totalCount;
+  private long maxMicros;
+  private long sumMicros;
+
+  /**
+   * Records one latency.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    long micros = Math.max(1, nanos / 1000);
+    counts[indexOf(micros)]++;
+    totalCount++;
+    sumMicros += micros;
+    maxMicros = Math.max(maxMicros, micros);
+  }
+
+  /**
+   * Adds all recorded values of another histogram to this one.
+   *
+   * @param other the histogram to merge
+   */
+  public void merge(LatencyHistogram other) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    sumMicros += other.sumMicros;
+    maxMicros = Math.max(maxMicros, other.maxMicros);
+  }
+
+  public long getCount() {
+    return totalCount;
+  }
+
+  /**
+   * Returns the latency at a percentile.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the latency in milliseconds, or 0 if nothing was recorded
+   */
+  public double percentileMillis(double percentile) {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(percentile / 100.0 * totalCount);
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= Math.max(rank, 1)) {
+        return Math.min(upperBoundMicros(i), maxMicros) / 1000.0;
+      }
+    }
+    return maxMicros / 1000.0;
+  }
+
+  public double meanMillis() {
+    return totalCount == 0 ? 0 : (double) sumMicros / totalCount / 1000.0;
+  }
+
+  public double maxMillis() {
+    return maxMicros / 1000.0;
+  }
+
+  private static int indexOf(long micros) {
+    int major = 63 - Long.numberOfLeadingZeros(micros);
+    if (major < SUB_BUCKET_BITS) {
+      return (int) micros;
+    }
+    int sub = (int) ((micros >>> (major - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+    int index = (major - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    return Math.min(index, MAJOR_BUCKETS * SUB_BUCKETS - 1);
+  }
+
+  private static long upperBoundMicros(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int major = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    int sub = index % SUB_BUCKETS;
+    long base = 1L << major;
+    long step = 1L << (major - SUB_BUCKET_BITS);
+    return base + (sub + 1) * step - 1;
+  }
+}
@@ -0,0 +1,558 @@
+package com.carservice.tools;
+
+import com.carservice.config.ApplicationContext;
+import com.carservice.config.ConnectionPool;
+import com.carservice.config.DatabaseConfig;
+import com.carservice.model.Car;
+import com.carservice.model.CompactCar;
+import com.carservice.model.CompactCustomer;
+import com.carservice.model.CompactJob;
+import com.carservice.model.Customer;
+import com.carservice.model.Garage;
+import com.carservice.model.Job;
+import com.carservice.service.CarService;
+import com.carservice.service.CustomerService;
+import com.carservice.service.GarageService;
+import com.carservice.service.JobService;
+import com.carservice.service.PaymentService;
+import com.carservice.service.ServiceException;
+import com.carservice.util.RegNumbers;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for the service layer. Worker threads run a weighted mix of reads and writes
+ * against CustomerService, CarService, JobService and PaymentService for a fixed duration, then
+ * the tool prints throughput, latency percentiles and error counts per operation together with
+ * connection pool usage.
+ *
+ * <p>Run it with {@code mvn -Ptools compile exec:java -Dexec.args="--threads 16 --duration 60"}.
+ * Pass {@code --in-memory} to run against an in-memory H2 database instead of the configured one.
+ * Writes against a real database are permanent, so point it at a scratch database.
+ */
+public class LoadTest {
+  private static final long POOL_SAMPLE_MILLIS = 100;
+
+  /** The operations the load generator performs. */
+  enum Operation {
+    FIND_CUSTOMER,
+    CUSTOMER_CARS,
+    CAR_JOBS,
+    GARAGE_JOBS,
+    AVERAGE_COST,
+    SERVICE_DAYS,
+    VERIFY_PAYMENT,
+    CREATE_CUSTOMER,
+    UPDATE_CUSTOMER,
+    CREATE_CAR,
+    OPEN_JOB,
+    CLOSE_JOB,
+    PAY_JOB
+  }
+
+  private static final Operation[] READS = {
+    Operation.FIND_CUSTOMER,
+    Operation.CUSTOMER_CARS,
+    Operation.CAR_JOBS,
+    Operation.GARAGE_JOBS,
+    Operation.AVERAGE_COST,
+    Operation.SERVICE_DAYS,
+    Operation.VERIFY_PAYMENT
+  };
+
+  // Jobs are opened, closed and paid at the same rate so the open and unpaid queues stay small
+  private static final Operation[] WRITES = {
+    Operation.CREATE_CUSTOMER,
+    Operation.UPDATE_CUSTOMER,
+    Operation.CREATE_CAR,
+    Operation.OPEN_JOB,
+    Operation.OPEN_JOB,
+    Operation.CLOSE_JOB,
+    Operation.CLOSE_JOB,
+    Operation.PAY_JOB,
+    Operation.PAY_JOB
+  };
+
+  private final CustomerService customerService;
+  private final CarService carService;
+  private final GarageService garageService;
+  private final JobService jobService;
+  private final PaymentService paymentService;
+
+  private final List<Long> customerIds = Collections.synchronizedList(new ArrayList<>());
+  private final List<String> regNos = Collections.synchronizedList(new ArrayList<>());
+  private final List<Long> garageIds = new ArrayList<>();
+  private final ConcurrentLinkedQueue<Long> openJobs = new ConcurrentLinkedQueue<>();
+  private final ConcurrentLinkedQueue<String> idleCars = new ConcurrentLinkedQueue<>();
+  private final ConcurrentLinkedQueue<Long> unpaidJobs = new ConcurrentLinkedQueue<>();
+  private final AtomicLong sequence = new AtomicLong();
+
+  private final Options options;
+  private final ApplicationContext context;
+
+  private LoadTest(Options options, ApplicationContext context) {
+    this.context = context;
+    this.options = options;
+    this.customerService = context.getCustomerService();
+    this.carService = context.getCarService();
+    this.garageService = context.getGarageService();
+    this.jobService = context.getJobService();
+    this.paymentService = context.getPaymentService();
+  }
+
+  /**
+   * Entry point.
+   *
+   * @param args command line options, see {@link Options#usage()}
+   * @throws Exception if the database cannot be prepared or a worker is interrupted
+   */
+  public static void main(String[] args) throws Exception {
+    Options options;
+    try {
+      options = Options.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(Options.usage());
+      System.exit(2);
+      return;
+    }
+    if (options.inMemory) {
+      InMemoryDatabase.install(options.schema);
+    }
+    try (ApplicationContext context = new ApplicationContext()) {
+      new LoadTest(options, context).run();
+    }
+  }
+
+  private void run() throws ServiceException, InterruptedException {
+    seed();
+    System.out.printf(
+        Locale.ROOT,
+        "Running %d thread(s) for %ds (read ratio %.2f, warm-up %ds) against %s%n",
+        options.threads,
+        options.durationSeconds,
+        options.readRatio,
+        options.warmupSeconds,
+        DatabaseConfig.getProperty("db.url", "?"));
+
+    PoolSampler sampler = new PoolSampler();
+    long startNanos = System.nanoTime();
+    long measureFrom = startNanos + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+    long endNanos = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+
+    List<Worker> workers = new ArrayList<>();
+    CountDownLatch done = new CountDownLatch(options.threads);
+    for (int i = 0; i < options.threads; i++) {
+      Worker worker = new Worker(measureFrom, endNanos, done);
+      workers.add(worker);
+      Thread thread = new Thread(worker, "load-" + (i + 1));
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    scheduler.scheduleAtFixedRate(
+        () -> sampler.sample(System.nanoTime() >= measureFrom),
+        POOL_SAMPLE_MILLIS,
+        POOL_SAMPLE_MILLIS,
+        TimeUnit.MILLISECONDS);
+    done.await();
+    scheduler.shutdownNow();
+
+    report(workers, sampler);
+  }
+
+  /**
+   * Loads the existing customers, cars, garages and open jobs so the first operations have
+   * something to work on, and builds the occupancy index that new jobs are checked against. Cars
+   * that are in a garage now or later are not given new jobs, since those would overlap.
+   *
+   * @throws ServiceException if the reference data cannot be read
+   */
+  private void seed() throws ServiceException {
+    context.getOccupancyService().start(context.getBackgroundExecutor()).join();
+    for (CompactCustomer customer : customerService.findAllCompact()) {
+      customerIds.add(customer.getCustomerId());
+    }
+    for (Garage garage : garageService.findAll()) {
+      garageIds.add(garage.getGarageId());
+    }
+    LocalDateTime now = LocalDateTime.now();
+    Set<String> busyCars = new HashSet<>();
+    for (CompactJob job : jobService.findAllCompact()) {
+      if (!job.hasDateOut()) {
+        openJobs.add(job.getJobId());
+      }
+      if (!job.hasDateOut() || job.getDateOut().isAfter(now)) {
+        busyCars.add(RegNumbers.normalize(job.getRegNo()));
+      }
+    }
+    for (CompactCar car : carService.findAllCompact()) {
+      regNos.add(car.getRegNo());
+      if (!busyCars.contains(RegNumbers.normalize(car.getRegNo()))) {
+        idleCars.add(car.getRegNo());
+      }
+    }
+    if (garageIds.isEmpty()) {
+      throw new ServiceException("The load test needs at least one garage in the database");
+    }
+    // Start new registration numbers at a random offset so repeated runs do not collide
+    sequence.set(ThreadLocalRandom.current().nextLong(1_000_000L, 1_000_000_000L));
+  }
+
+  /**
+   * Performs one operation.
+   *
+   * @param operation the operation to perform
+   * @return the operation actually performed, which differs when there was nothing to act on
+   * @throws ServiceException if the service rejects or fails the operation
+   */
+  private Operation perform(Operation operation) throws ServiceException {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    switch (operation) {
+      case FIND_CUSTOMER:
+        customerService.findById(pick(customerIds));
+        return operation;
+      case CUSTOMER_CARS:
+        carService.findByCustomer(pick(customerIds));
+        return operation;
+      case CAR_JOBS:
+        jobService.findByCar(pick(regNos));
+        return operation;
+      case GARAGE_JOBS:
+        jobService.findByGarage(pick(garageIds));
+        return operation;
+      case AVERAGE_COST:
+        jobService.getAverageServiceCostByCustomer(pick(customerIds));
+        return operation;
+      case SERVICE_DAYS:
+        jobService.calculateTotalServiceDays(pick(regNos));
+        return operation;
+      case VERIFY_PAYMENT:
+        Long recent = unpaidJobs.peek();
+        paymentService.verifyPayment(recent != null ? recent : 1L);
+        return operation;
+      case CREATE_CUSTOMER:
+        customerIds.add(customerService.save(newCustomer()));
+        return operation;
+      case UPDATE_CUSTOMER:
+        Customer customer = customerService.findById(pick(customerIds));
+        customer.setAddress(random.nextInt(1, 999) + " Load Street");
+        customerService.update(customer);
+        return operation;
+      case CREATE_CAR:
+        String regNo = carService.save(newCar());
+        regNos.add(regNo);
+        idleCars.add(regNo);
+        return operation;
+      case OPEN_JOB:
+        String idleCar = idleCars.poll();
+        if (idleCar == null) {
+          return perform(Operation.CREATE_CAR);
+        }
+        try {
+          openJobs.add(jobService.save(newJob(idleCar)));
+        } catch (ServiceException e) {
+          idleCars.add(idleCar);
+          throw e;
+        }
+        return operation;
+      case CLOSE_JOB:
+        Long openJobId = openJobs.poll();
+        if (openJobId == null) {
+          return perform(Operation.OPEN_JOB);
+        }
+        Job job = jobService.findById(openJobId);
+        job.setDateOut(LocalDateTime.now());
+        job.setCost(random.nextInt(5_000, 100_000) / 100.0);
+        jobService.update(job);
+        unpaidJobs.add(openJobId);
+        idleCars.add(job.getRegNo());
+        return operation;
+      case PAY_JOB:
+        Long unpaidJobId = unpaidJobs.poll();
+        if (unpaidJobId == null) {
+          return perform(Operation.CLOSE_JOB);
+        }
+        paymentService.processJobPayment(unpaidJobId, random.nextBoolean() ? "CASH" : "CARD");
+        return operation;
+      default:
+        throw new IllegalStateException("Unhandled operation " + operation);
+    }
+  }
+
+  private Customer newCustomer() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Customer customer = new Customer();
+    customer.setForename("Load");
+    customer.setSurname("Tester" + random.nextInt(1000));
+    customer.setAddress(random.nextInt(1, 999) + " Load Street");
+    customer.setPostCode("LT" + random.nextInt(100, 1000) + "AB");
+    customer.setPhoneNo(String.valueOf(random.nextLong(7_000_000_000L, 8_000_000_000L)));
+    return customer;
+  }
+
+  private Car newCar() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    Car car = new Car();
+    car.setRegNo(Long.toString(sequence.incrementAndGet(), 36).toUpperCase(Locale.ROOT));
+    car.setMake("Loadmobile");
+    car.setModel("Model " + random.nextInt(1, 10));
+    car.setYear(random.nextInt(1995, 2021));
+    car.setCustomerId(pick(customerIds));
+    return car;
+  }
+
+  private Job newJob(String regNo) {
+    Job job = new Job();
+    job.setGarageId(pick(garageIds));
+    job.setRegNo(regNo);
+    // Now, so the job starts after every earlier job of the car has ended
+    job.setDateIn(LocalDateTime.now());
+    return job;
+  }
+
+  private static <T> T pick(List<T> values) {
+    synchronized (values) {
+      return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+    }
+  }
+
+  private void report(List<Worker> workers, PoolSampler sampler) {
+    LatencyHistogram all = new LatencyHistogram();
+    LatencyHistogram[] perOperation = new LatencyHistogram[Operation.values().length];
+    long[] rejected = new long[perOperation.length];
+    long[] failed = new long[perOperation.length];
+    for (int i = 0; i < perOperation.length; i++) {
+      perOperation[i] = new LatencyHistogram();
+    }
+    for (Worker worker : workers) {
+      for (int i = 0; i < perOperation.length; i++) {
+        perOperation[i].merge(worker.histograms[i]);
+        all.merge(worker.histograms[i]);
+        rejected[i] += worker.rejected[i];
+        failed[i] += worker.failed[i];
+      }
+    }
+
+    double seconds = options.durationSeconds;
+    System.out.println();
+    System.out.printf(
+        Locale.ROOT,
+        "%-16s %9s %9s %8s %8s %9s %9s %9s %9s%n",
+        "operation",
+        "count",
+        "ops/s",
+        "rejected",
+        "failed",
+        "p50 ms",
+        "p90 ms",
+        "p99 ms",
+        "max ms");
+    long totalRejected = 0;
+    long totalFailed = 0;
+    for (Operation operation : Operation.values()) {
+      int i = operation.ordinal();
+      printRow(operation.name(), perOperation[i], rejected[i], failed[i], seconds);
+      totalRejected += rejected[i];
+      totalFailed += failed[i];
+    }
+    printRow("TOTAL", all, totalRejected, totalFailed, seconds);
+
+    long attempts = all.getCount() + totalRejected + totalFailed;
+    System.out.println();
+    System.out.printf(
+        Locale.ROOT,
+        "Error rate: %.3f%% rejected by validation, %.3f%% failed%n",
+        percent(totalRejected, attempts),
+        percent(totalFailed, attempts));
+    ConnectionPool.Stats stats = DatabaseConfig.getPoolStats();
+    System.out.printf(
+        Locale.ROOT,
+        "Connections: mean active %.1f, peak active %d of %d, %d created, %d borrow timeouts, "
+            + "mean wait %.3f ms per borrow%n",
+        sampler.meanActive(),
+        stats.getPeakActive(),
+        stats.getMaxSize(),
+        stats.getCreated(),
+        stats.getTimeouts(),
+        stats.getBorrowed() == 0 ? 0 : (double) stats.getTotalWaitMillis() / stats.getBorrowed());
+    System.out.printf(
+        Locale.ROOT,
+        "Queries: %d timed out, %d cancelled; circuit breaker %s, opened %d time(s), "
+            + "%d borrow(s) rejected%n",
+        stats.getQueryTimeouts(),
+        stats.getCancelledQueries(),
+        stats.getCircuitState(),
+        stats.getCircuitOpenings(),
+        stats.getCircuitRejected());
+    List<ConnectionPool.Stats> replicas = DatabaseConfig.getReplicaPoolStats();
+    for (int i = 0; i < replicas.size(); i++) {
+      System.out.println("Replica " + (i + 1) + ": " + replicas.get(i));
+    }
+  }
+
+  private static void printRow(
+      String name, LatencyHistogram histogram, long rejected, long failed, double seconds) {
+    if (histogram.getCount() == 0 && rejected == 0 && failed == 0) {
+      return;
+    }
+    System.out.printf(
+        Locale.ROOT,
+        "%-16s %9d %9.1f %8d %8d %9.2f %9.2f %9.2f %9.2f%n",
+        name,
+        histogram.getCount(),
+        histogram.getCount() / seconds,
+        rejected,
+        failed,
+        histogram.percentileMillis(50),
+        histogram.percentileMillis(90),
+        histogram.percentileMillis(99),
+        histogram.maxMillis());
+  }
+
+  private static double percent(long part, long whole) {
+    return whole == 0 ? 0 : 100.0 * part / whole;
+  }
+
+  /**
+   * Runs operations until the end time. Latencies and errors are kept per worker so the hot path
+   * needs no synchronization; they are merged once all workers finish.
+   */
+  private final class Worker implements Runnable {
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+    private final long[] rejected = new long[histograms.length];
+    private final long[] failed = new long[histograms.length];
+    private final long measureFrom;
+    private final long endNanos;
+    private final CountDownLatch done;
+
+    private Worker(long measureFrom, long endNanos, CountDownLatch done) {
+      this.measureFrom = measureFrom;
+      this.endNanos = endNanos;
+      this.done = done;
+      for (int i = 0; i < histograms.length; i++) {
+        histograms[i] = new LatencyHistogram();
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now;
+        while ((now = System.nanoTime()) < endNanos) {
+          Operation[] mix = random.nextDouble() < options.readRatio ? READS : WRITES;
+          Operation operation = mix[random.nextInt(mix.length)];
+          boolean measured = now >= measureFrom;
+          try {
+            Operation performed = perform(operation);
+            if (measured) {
+              histograms[performed.ordinal()].record(System.nanoTime() - now);
+            }
+          } catch (ServiceException e) {
+            // Service exceptions without a cause are business-rule rejections
+            if (measured) {
+              (e.getCause() == null ? rejected : failed)[operation.ordinal()]++;
+            }
+          } catch (RuntimeException e) {
+            if (measured) {
+              failed[operation.ordinal()]++;
+            }
+          }
+        }
+      } finally {
+        done.countDown();
+      }
+    }
+  }
+
+  /** Periodically samples the number of borrowed connections. */
+  private static final class PoolSampler {
+    private long samples;
+    private long activeTotal;
+
+    private synchronized void sample(boolean measured) {
+      if (measured) {
+        samples++;
+        activeTotal += DatabaseConfig.getPoolStats().getActive();
+      }
+    }
+
+    private synchronized double meanActive() {
+      return samples == 0 ? 0 : (double) activeTotal / samples;
+    }
+  }
+
+  /** Command line options. */
+  static final class Options {
+    int threads = 8;
+    int durationSeconds = 30;
+    int warmupSeconds = 5;
+    double readRatio = 0.8;
+    boolean inMemory;
+    Path schema = Paths.get("src", "docker", "init.sql");
+
+    static Options parse(String[] args) {
+      Options options = new Options();
+      for (int i = 0; i < args.length; i++) {
+        String arg = args[i];
+        switch (arg) {
+          case "--threads":
+            options.threads = Integer.parseInt(value(args, ++i, arg));
+            break;
+          case "--duration":
+            options.durationSeconds = Integer.parseInt(value(args, ++i, arg));
+            break;
+          case "--warmup":
+            options.warmupSeconds = Integer.parseInt(value(args, ++i, arg));
+            break;
+          case "--read-ratio":
+            options.readRatio = Double.parseDouble(value(args, ++i, arg));
+            break;
+          case "--in-memory":
+            options.inMemory = true;
+            break;
+          case "--schema":
+            options.schema = Paths.get(value(args, ++i, arg));
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown option " + arg);
+        }
+      }
+      if (options.threads < 1 || options.durationSeconds < 1 || options.warmupSeconds < 0) {
+        throw new IllegalArgumentException("Threads and duration must be positive");
+      }
+      if (options.readRatio < 0 || options.readRatio > 1) {
+        throw new IllegalArgumentException("Read ratio must be between 0 and 1");
+      }
+      return options;
+    }
+
+    private static String value(String[] args, int index, String option) {
+      if (index >= args.length) {
+        throw new IllegalArgumentException("Missing value for " + option);
+      }
+      return args[index];
+    }
+
+    static String usage() {
+      return "Options: [--threads N] [--duration SECONDS] [--warmup SECONDS] [--read-ratio 0..1]"
+          + " [--in-memory] [--schema init.sql]";
+    }
+  }
+}
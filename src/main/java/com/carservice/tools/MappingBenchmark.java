@@ -0,0 +1,169 @@
+package com.carservice.tools;
+
+import com.carservice.config.DatabaseConfig;
+import com.carservice.dao.JobDAO;
+import com.carservice.model.Job;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the cost per row of mapping jobs the way {@link JobDAO} does, with an explicit column
+ * list read by position, against {@code SELECT *} read by column label. Both run against an
+ * in-memory H2 database loaded with generated jobs, so the figures reflect driver and mapping work
+ * rather than network transfer, which the explicit column list reduces further on a real server.
+ *
+ * <p>Run it with {@code mvn -Ptools compile exec:java -Dtool=com.carservice.tools.MappingBenchmark
+ * -Dexec.args="--rows 200000"}.
+ */
+public class MappingBenchmark {
+  private static final String SELECT_ALL = "SELECT * FROM Job";
+  private static final String INSERT_JOB =
+      "INSERT INTO Job (garageId, dateIn, dateOut, regNo, cost) VALUES (?, ?, ?, ?, ?)";
+  private static final int BATCH_SIZE = 1000;
+
+  /**
+   * Entry point.
+   *
+   * @param args {@code --rows N} jobs to load (default 200,000), {@code --iterations N} timed runs
+   *     per strategy (default 10) and {@code --schema FILE} (default src/docker/init.sql)
+   * @throws Exception if the database cannot be prepared or read
+   */
+  public static void main(String[] args) throws Exception {
+    int rows = 200_000;
+    int iterations = 10;
+    Path schema = Paths.get("src", "docker", "init.sql");
+    for (int i = 0; i < args.length; i++) {
+      if ("--rows".equals(args[i]) && i + 1 < args.length) {
+        rows = Integer.parseInt(args[++i]);
+      } else if ("--iterations".equals(args[i]) && i + 1 < args.length) {
+        iterations = Integer.parseInt(args[++i]);
+      } else if ("--schema".equals(args[i]) && i + 1 < args.length) {
+        schema = Paths.get(args[++i]);
+      } else {
+        System.err.println("Options: [--rows N] [--iterations N] [--schema init.sql]");
+        System.exit(2);
+      }
+    }
+
+    InMemoryDatabase.install(schema);
+    int total = loadJobs(rows);
+    JobDAO jobDAO = new JobDAO();
+
+    // Warm up both paths so the timed runs measure compiled code
+    for (int i = 0; i < 3; i++) {
+      jobDAO.findAll();
+      findAllByLabel();
+    }
+
+    long bestByPosition = Long.MAX_VALUE;
+    long bestByLabel = Long.MAX_VALUE;
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      jobDAO.findAll();
+      bestByPosition = Math.min(bestByPosition, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      findAllByLabel();
+      bestByLabel = Math.min(bestByLabel, System.nanoTime() - start);
+    }
+
+    System.out.printf(Locale.ROOT, "%d jobs, best of %d runs%n", total, iterations);
+    System.out.printf(Locale.ROOT, "%-34s %12s %10s%n", "strategy", "total ms", "ns/row");
+    report("SELECT * by label", bestByLabel, total);
+    report("explicit columns by position", bestByPosition, total);
+    DatabaseConfig.shutdown();
+  }
+
+  private static void report(String name, long nanos, int rows) {
+    System.out.printf(
+        Locale.ROOT, "%-34s %12.1f %10.1f%n", name, nanos / 1_000_000.0, (double) nanos / rows);
+  }
+
+  /**
+   * Reads every job with {@code SELECT *}, looking each column up by label, as the DAOs used to.
+   *
+   * @return the jobs
+   * @throws SQLException if a database access error occurs
+   */
+  private static List<Job> findAllByLabel() throws SQLException {
+    List<Job> jobs = new ArrayList<>();
+    try (Connection conn = DatabaseConfig.getReadConnection();
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(SELECT_ALL)) {
+      while (rs.next()) {
+        Job job =
+            new Job(
+                rs.getLong("jobId"),
+                rs.getLong("garageId"),
+                rs.getTimestamp("dateIn").toLocalDateTime(),
+                rs.getTimestamp("dateOut") != null
+                    ? rs.getTimestamp("dateOut").toLocalDateTime()
+                    : null,
+                rs.getString("regNo"),
+                rs.getDouble("cost"));
+        job.setVersion(rs.getLong("version"));
+        jobs.add(job);
+      }
+    }
+    return jobs;
+  }
+
+  /**
+   * Adds generated jobs against the garages and cars of the seed data.
+   *
+   * @param rows the number of jobs to add
+   * @return the number of jobs in the table afterwards
+   * @throws SQLException if a database access error occurs
+   */
+  private static int loadJobs(int rows) throws SQLException {
+    try (Connection conn = DatabaseConfig.getConnection()) {
+      List<Long> garageIds = new ArrayList<>();
+      List<String> regNos = new ArrayList<>();
+      try (Statement stmt = conn.createStatement()) {
+        try (ResultSet rs = stmt.executeQuery("SELECT garageId FROM Garage")) {
+          while (rs.next()) {
+            garageIds.add(rs.getLong(1));
+          }
+        }
+        try (ResultSet rs = stmt.executeQuery("SELECT regNo FROM Car")) {
+          while (rs.next()) {
+            regNos.add(rs.getString(1));
+          }
+        }
+      }
+
+      LocalDateTime start = LocalDateTime.of(2020, 1, 1, 8, 0);
+      try (PreparedStatement stmt = conn.prepareStatement(INSERT_JOB)) {
+        for (int i = 0; i < rows; i++) {
+          LocalDateTime dateIn = start.plusMinutes(i);
+          boolean open = i % 10 == 0;
+          stmt.setLong(1, garageIds.get(i % garageIds.size()));
+          stmt.setTimestamp(2, Timestamp.valueOf(dateIn));
+          stmt.setTimestamp(3, open ? null : Timestamp.valueOf(dateIn.plusDays(i % 7)));
+          stmt.setString(4, regNos.get(i % regNos.size()));
+          stmt.setDouble(5, open ? 0 : (i % 50_000) / 100.0);
+          stmt.addBatch();
+          if ((i + 1) % BATCH_SIZE == 0) {
+            stmt.executeBatch();
+          }
+        }
+        stmt.executeBatch();
+      }
+
+      try (Statement stmt = conn.createStatement();
+          ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Job")) {
+        return rs.next() ? rs.getInt(1) : 0;
+      }
+    }
+  }
+}
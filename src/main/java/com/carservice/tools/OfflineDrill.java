@@ -0,0 +1,175 @@
+package com.carservice.tools;
+
+import com.carservice.config.ApplicationContext;
+import com.carservice.config.DatabaseConfig;
+import com.carservice.model.Car;
+import com.carservice.model.Customer;
+import com.carservice.model.Job;
+import com.carservice.offline.LocalStore;
+import com.carservice.offline.OfflineMode;
+import com.carservice.offline.SyncResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+
+/**
+ * Exercises offline mode end to end without a network: an in-memory H2 database plays the server
+ * and the local store lives in a temporary directory. The drill takes a snapshot, makes the server
+ * unreachable by pointing the pool at a closed local port, makes changes through the services,
+ * changes the server behind their back to provoke conflicts, then restores the server, syncs, and
+ * checks the outcome. It exits with status 1 if a check fails.
+ *
+ * <p>Run it with {@code mvn -Ptools compile exec:java -Dtool=com.carservice.tools.OfflineDrill}.
+ */
+public class OfflineDrill {
+  private static final String UNREACHABLE_URL = "jdbc:mariadb://127.0.0.1:1/carservice";
+
+  private static int failures;
+
+  /**
+   * Entry point.
+   *
+   * @param args {@code --schema FILE} (default src/docker/init.sql)
+   * @throws Exception if the drill cannot be set up
+   */
+  public static void main(String[] args) throws Exception {
+    Path schema = Paths.get("src", "docker", "init.sql");
+    for (int i = 0; i < args.length; i++) {
+      if ("--schema".equals(args[i]) && i + 1 < args.length) {
+        schema = Paths.get(args[++i]);
+      } else {
+        System.err.println("Options: [--schema init.sql]");
+        System.exit(2);
+      }
+    }
+
+    InMemoryDatabase.install(schema);
+    Path directory = Files.createTempDirectory("offline-drill");
+    try (ApplicationContext context = new ApplicationContext();
+        OfflineMode offline = new OfflineMode(new LocalStore(directory), 100, Long.MAX_VALUE)) {
+      DatabaseConfig.setOfflineMode(offline);
+      offline.sync();
+      System.out.println("Snapshot taken at " + offline.getStore().getSnapshotTime());
+
+      setServerReachable(false);
+      Customer otherUsersCopy = context.getCustomerService().findById(2L);
+      check("offline after the server became unreachable", offline.isOffline());
+
+      Customer customer =
+          new Customer(null, "Offline", "Customer", "1 Local Road", "LO11NE", "0123456789");
+      Long customerId = context.getCustomerService().save(customer);
+      Car car = new Car("OFF1", "Ford", "Fiesta", 2019, customerId);
+      context.getCarService().save(car);
+      Long jobId =
+          context
+              .getJobService()
+              .save(new Job(null, 1L, LocalDateTime.now().minusHours(1), null, "OFF1", null));
+      customer.setCustomerId(customerId);
+      customer.setAddress("2 Local Road");
+      context.getCustomerService().update(customer);
+      System.out.println("Offline: customer " + customerId + ", job " + jobId);
+      check("offline IDs are local", LocalStore.isLocalId(customerId));
+
+      // Someone else edits customer 2 and registers car DUP1 while this branch is offline
+      try (Connection server = openServer();
+          Statement stmt = server.createStatement()) {
+        stmt.executeUpdate(
+            "UPDATE Customer SET surname = 'Server', version = version + 1 WHERE customerId = 2");
+        stmt.executeUpdate(
+            "INSERT INTO Car (regNo, make, model, year, customerId, regNoKey)"
+                + " VALUES ('DUP1', 'Kia', 'Rio', 2020, 1, 'DUP1')");
+      }
+      otherUsersCopy.setSurname("Offline");
+      // The seed data predates the form validation
+      otherUsersCopy.setPhoneNo("0770090012");
+      otherUsersCopy.setPostCode("M45BY");
+      context.getCustomerService().update(otherUsersCopy);
+      Car duplicate = new Car("DUP1", "Seat", "Ibiza", 2018, 3L);
+      context.getCarService().save(duplicate);
+      duplicate.setModel("Leon");
+      context.getCarService().update(duplicate);
+      System.out.println("Pending changes: " + offline.getStore().pendingChanges());
+
+      setServerReachable(true);
+      SyncResult result = offline.sync();
+      System.out.println("Sync: " + result);
+      result.getConflicts().forEach(conflict -> System.out.println("  " + conflict));
+
+      check("back online after sync", !offline.isOffline());
+      check("journal empty after sync", offline.getStore().pendingChanges() == 0);
+      check("three conflicts", result.getConflicts().size() == 3);
+      try (Connection server = openServer()) {
+        long serverCustomerId =
+            queryLong(server, "SELECT customerId FROM Customer WHERE surname = 'Customer'");
+        check("customer created with a server ID", serverCustomerId > 0);
+        check(
+            "offline update applied",
+            queryLong(
+                    server,
+                    "SELECT COUNT(*) FROM Customer WHERE customerId = "
+                        + serverCustomerId
+                        + " AND address = '2 Local Road' AND version = 1")
+                == 1);
+        check(
+            "car refers to the server ID",
+            queryLong(server, "SELECT customerId FROM Car WHERE regNo = 'OFF1'")
+                == serverCustomerId);
+        check(
+            "job created",
+            queryLong(server, "SELECT COUNT(*) FROM Job WHERE regNo = 'OFF1' AND garageId = 1")
+                == 1);
+        check(
+            "conflicting update not applied",
+            queryLong(server, "SELECT COUNT(*) FROM Customer WHERE surname = 'Server'") == 1);
+        check(
+            "duplicate car kept as registered on the server",
+            queryLong(server, "SELECT COUNT(*) FROM Car WHERE regNo = 'DUP1' AND make = 'Kia'")
+                == 1);
+        check(
+            "conflicts logged",
+            queryLong(server, "SELECT COUNT(*) FROM Activity WHERE type = 'SYNC'") == 3);
+      }
+      check(
+          "local store refreshed",
+          context.getCarService().findById("OFF1").getCustomerId() > 0);
+      DatabaseConfig.setOfflineMode(null);
+    }
+    System.out.println(failures == 0 ? "All checks passed" : failures + " check(s) failed");
+    System.exit(failures == 0 ? 0 : 1);
+  }
+
+  /**
+   * Points the connection pool at the in-memory server or at a closed port.
+   *
+   * @param reachable true to restore the server
+   */
+  private static void setServerReachable(boolean reachable) {
+    System.setProperty("db.url", reachable ? InMemoryDatabase.URL : UNREACHABLE_URL);
+    DatabaseConfig.shutdown();
+  }
+
+  private static Connection openServer() throws SQLException {
+    return DriverManager.getConnection(InMemoryDatabase.URL, "sa", "");
+  }
+
+  private static long queryLong(Connection conn, String sql) throws SQLException {
+    try (PreparedStatement stmt = conn.prepareStatement(sql);
+        ResultSet rs = stmt.executeQuery()) {
+      return rs.next() ? rs.getLong(1) : -1;
+    }
+  }
+
+  private static void check(String name, boolean passed) {
+    System.out.println((passed ? "PASS " : "FAIL ") + name);
+    if (!passed) {
+      failures++;
+    }
+  }
+}
@@ -0,0 +1,523 @@
+package com.carservice.tools;
+
+import com.carservice.config.DatabaseConfig;
+import com.carservice.dao.DailyGarageSummaryDAO;
+import com.carservice.util.RegNumbers;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Query plan regression check. Runs EXPLAIN on every SQL constant declared in the
+ * {@code com.carservice.dao} package and fails when a query reads a whole table or sorts its rows
+ * without an index, unless the query is on the allowlist below with the reason it may. New queries
+ * are picked up automatically, so a query added without a supporting index, or an index dropped
+ * from the schema, fails the check before it reaches production.
+ *
+ * <p>Plans depend on table sizes, so the check first loads a synthetic dataset with
+ * {@code --customers N} customers (default 20,000), each with two cars, three jobs per car and a
+ * payment per completed job, plus activities and the daily summary, then refreshes the table
+ * statistics. Parameters are bound to representative values chosen by the column they are compared
+ * with.
+ *
+ * <p>Run it against a scratch MariaDB created from init.sql, such as the one in
+ * {@code src/docker}, with {@code mvn -Ptools compile exec:java
+ * -Dtool=com.carservice.tools.QueryPlanCheck}. Pass {@code --no-load} to reuse data loaded by an
+ * earlier run. Pass {@code --in-memory} to check against an in-memory H2 database instead; H2
+ * reports table scans but not sorts, so only scans are checked there, and its plans differ from
+ * MariaDB's in places. The tool exits with status 1 if a query fails the check.
+ */
+public class QueryPlanCheck {
+  private static final String DAO_PACKAGE = "com.carservice.dao";
+  private static final int GARAGES = 50;
+  private static final int CARS_PER_CUSTOMER = 2;
+  private static final int JOBS_PER_CAR = 3;
+  private static final int ACTIVITIES_PER_CUSTOMER = 5;
+  private static final int BATCH = 1_000;
+  private static final LocalDateTime START = LocalDateTime.of(2022, 1, 1, 8, 0);
+  private static final Pattern WORD = Pattern.compile("[A-Za-z_]+");
+  private static final Pattern LIMITED = Pattern.compile("(?i)\\bLIMIT \\?\\s*$");
+  private static final Pattern H2_SCAN = Pattern.compile("/\\* [\\w\"]+\\.([\\w\"]+)\\.tableScan");
+
+  /** Queries that may scan or sort, keyed by class and constant name, with the reason. */
+  private static final Map<String, String> ALLOWED = new TreeMap<>();
+
+  /** Further queries that may scan on H2 only, where plans differ from MariaDB's. */
+  private static final Map<String, String> H2_ALLOWED = new TreeMap<>();
+
+  /** Sample parameter values, keyed by the lower-cased column a parameter is compared with. */
+  private static final Map<String, Object> SAMPLES = new HashMap<>();
+
+  static {
+    ALLOWED.put("ActivityMapper.SELECT", "prefix of the DAO queries; lists every activity");
+    ALLOWED.put("CarDAO.FIND_ALL_COMPACT", "lists every car");
+    ALLOWED.put("CarMapper.SELECT", "prefix of the DAO queries; lists every car");
+    ALLOWED.put("CustomerDAO.FIND_ALL_COMPACT", "lists every customer");
+    ALLOWED.put("CustomerMapper.SELECT", "prefix of the DAO queries; lists every customer");
+    ALLOWED.put("GarageDAO.FIND_BY_NAME", "matches anywhere in the name; there are few garages");
+    ALLOWED.put("GarageMapper.SELECT", "prefix of the DAO queries; lists every garage");
+    ALLOWED.put("JobDAO.FIND_ALL_COMPACT", "lists every job");
+    ALLOWED.put("JobMapper.SELECT", "prefix of the DAO queries; lists every job");
+    ALLOWED.put("PaymentDAO.FIND_ALL_COMPACT", "lists every payment");
+    ALLOWED.put("PaymentMapper.SELECT", "prefix of the DAO queries; lists every payment");
+    ALLOWED.put("JobHistoryDAO.SELECT_COLUMNS", "prefix of the other queries, never run alone");
+    ALLOWED.put("DailyGarageSummaryDAO.DELETE_ALL", "empties the summary for a rebuild");
+    ALLOWED.put("DailyGarageSummaryDAO.REBUILD", "recomputes the summary from every job");
+    ALLOWED.put("DailyGarageSummaryDAO.GET_ACTIVE_JOB_COUNT", "totals the whole summary");
+
+    H2_ALLOWED.put("ActivityDAO.FIND_RECENT", "H2 cannot read an ascending index backwards");
+
+    SAMPLES.put("jobid", 1L);
+    SAMPLES.put("paymentid", 1L);
+    SAMPLES.put("customerid", 1L);
+    SAMPLES.put("garageid", 1L);
+    SAMPLES.put("activityid", 1L);
+    SAMPLES.put("version", 0L);
+    SAMPLES.put("regno", "QP 1");
+    SAMPLES.put("regnokey", "QP1");
+    SAMPLES.put("surname", "Sm%");
+    SAMPLES.put("garagename", "%garage%");
+    SAMPLES.put("timestamp", Timestamp.valueOf(START.plusYears(1)));
+    SAMPLES.put("datein", Timestamp.valueOf(START.plusYears(1)));
+    SAMPLES.put("dateout", Timestamp.valueOf(START.plusYears(1)));
+    SAMPLES.put("paymentdate", Timestamp.valueOf(START.plusYears(1)));
+    SAMPLES.put("summarydate", Date.valueOf(START.plusYears(1).toLocalDate()));
+    SAMPLES.put("limit", 20);
+    SAMPLES.put("offset", 0);
+  }
+
+  private static boolean h2;
+
+  /**
+   * Entry point.
+   *
+   * @param args {@code --customers N}, {@code --no-load}, {@code --in-memory} and {@code --schema
+   *     FILE} (default src/docker/init.sql, used with --in-memory)
+   * @throws Exception if the database cannot be prepared
+   */
+  public static void main(String[] args) throws Exception {
+    int customers = 20_000;
+    boolean load = true;
+    boolean inMemory = false;
+    Path schema = Paths.get("src", "docker", "init.sql");
+    for (int i = 0; i < args.length; i++) {
+      if ("--customers".equals(args[i]) && i + 1 < args.length) {
+        customers = Integer.parseInt(args[++i]);
+      } else if ("--no-load".equals(args[i])) {
+        load = false;
+      } else if ("--in-memory".equals(args[i])) {
+        inMemory = true;
+      } else if ("--schema".equals(args[i]) && i + 1 < args.length) {
+        schema = Paths.get(args[++i]);
+      } else {
+        System.err.println(
+            "Options: [--customers N] [--no-load] [--in-memory] [--schema init.sql]");
+        System.exit(2);
+      }
+    }
+
+    if (inMemory) {
+      InMemoryDatabase.install(schema);
+    }
+    int failed;
+    try (Connection conn = DatabaseConfig.getConnection()) {
+      h2 = conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("h2");
+      System.out.println(
+          "Checking query plans against " + DatabaseConfig.getProperty("db.url", "?"));
+      if (load) {
+        long start = System.nanoTime();
+        load(conn, customers);
+        System.out.printf(
+            Locale.ROOT,
+            "Loaded %d customers in %d ms%n",
+            customers,
+            (System.nanoTime() - start) / 1_000_000);
+      }
+      analyze(conn);
+      if (h2) {
+        System.out.println("H2 does not report sorts; only table scans are checked");
+        ALLOWED.putAll(H2_ALLOWED);
+      }
+      System.out.println();
+      failed = check(conn);
+    } finally {
+      DatabaseConfig.shutdown();
+    }
+    if (failed > 0) {
+      System.out.println();
+      System.out.println(failed + " query plan(s) failed the check");
+      System.exit(1);
+    }
+    System.out.println();
+    System.out.println("All query plans passed");
+  }
+
+  /**
+   * Explains every SQL constant of the DAO classes and prints the outcome of each.
+   *
+   * @param conn the connection to explain on
+   * @return the number of queries that failed
+   * @throws Exception if the DAO classes cannot be listed
+   */
+  private static int check(Connection conn) throws Exception {
+    Map<String, String> queries = findQueries();
+    Set<String> unusedAllowances = new LinkedHashSet<>(ALLOWED.keySet());
+    int failed = 0;
+    for (Map.Entry<String, String> query : queries.entrySet()) {
+      String name = query.getKey();
+      unusedAllowances.remove(name);
+      List<String> problems;
+      try {
+        problems = explain(conn, query.getValue());
+      } catch (SQLException e) {
+        System.out.printf(Locale.ROOT, "FAIL  %s: cannot be explained: %s%n", name, e.getMessage());
+        failed++;
+        continue;
+      }
+      if (problems.isEmpty()) {
+        System.out.printf(Locale.ROOT, "ok    %s%n", name);
+      } else if (ALLOWED.containsKey(name)) {
+        System.out.printf(
+            Locale.ROOT,
+            "allow %s: %s (%s)%n",
+            name,
+            String.join(", ", problems),
+            ALLOWED.get(name));
+      } else {
+        System.out.printf(Locale.ROOT, "FAIL  %s: %s%n", name, String.join(", ", problems));
+        failed++;
+      }
+    }
+    for (String name : unusedAllowances) {
+      System.out.printf(Locale.ROOT, "note  %s is allowed but no longer declared%n", name);
+    }
+    return failed;
+  }
+
+  /**
+   * Explains a statement and lists what is wrong with its plan.
+   *
+   * @param conn the connection to explain on
+   * @param sql the statement
+   * @return the problems found, such as "full scan of Job", empty if there are none
+   * @throws SQLException if the statement cannot be explained
+   */
+  private static List<String> explain(Connection conn, String sql) throws SQLException {
+    List<String> problems = new ArrayList<>();
+    try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+      bindSamples(stmt, sql);
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          if (h2) {
+            Matcher scan = H2_SCAN.matcher(rs.getString(1));
+            while (scan.find()) {
+              problems.add("full scan of " + scan.group(1).replace("\"", ""));
+            }
+            continue;
+          }
+          String table = rs.getString("table");
+          String type = rs.getString("type");
+          String extra = rs.getString("Extra");
+          // Derived tables are scanned after being built from their own, separately listed plan
+          if (table != null && !table.startsWith("<")) {
+            if ("ALL".equals(type)) {
+              problems.add("full scan of " + table);
+            } else if ("index".equals(type) && !LIMITED.matcher(sql).find()) {
+              // An index read in order stops after the limit; without one it reads every entry
+              problems.add("full index scan of " + table);
+            }
+          }
+          if (extra != null && extra.contains("Using filesort")) {
+            problems.add("filesort on " + table);
+          }
+        }
+      }
+    }
+    return problems;
+  }
+
+  /**
+   * Binds each parameter of a statement to a sample value for the column it is compared with or
+   * assigned to, found by looking back from the parameter for a known column name or LIMIT.
+   *
+   * @param stmt the statement
+   * @param sql the statement's SQL
+   * @throws SQLException if a parameter cannot be bound
+   */
+  private static void bindSamples(PreparedStatement stmt, String sql) throws SQLException {
+    int index = 0;
+    for (int at = sql.indexOf('?'); at >= 0; at = sql.indexOf('?', at + 1)) {
+      Object value = 1;
+      Matcher words = WORD.matcher(sql.substring(0, at));
+      List<String> before = new ArrayList<>();
+      while (words.find()) {
+        before.add(words.group().toLowerCase(Locale.ROOT));
+      }
+      for (int i = before.size() - 1; i >= 0; i--) {
+        if (SAMPLES.containsKey(before.get(i))) {
+          value = SAMPLES.get(before.get(i));
+          break;
+        }
+      }
+      stmt.setObject(++index, value);
+    }
+  }
+
+  /**
+   * Collects the SQL constants of every class in the DAO package: static final String fields whose
+   * value is a SELECT, UPDATE or DELETE statement, or an INSERT that selects. Constants that end in
+   * an IN list or hold a {@code %s} placeholder are completed with a single parameter.
+   *
+   * @return the statements, keyed by class and field name
+   * @throws Exception if the classes cannot be listed or loaded
+   */
+  private static Map<String, String> findQueries() throws Exception {
+    Map<String, String> queries = new TreeMap<>();
+    for (String className : listClasses(DAO_PACKAGE)) {
+      Class<?> type = Class.forName(className);
+      for (Field field : type.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (field.getType() != String.class
+            || !Modifier.isStatic(modifiers)
+            || !Modifier.isFinal(modifiers)) {
+          continue;
+        }
+        field.setAccessible(true);
+        String sql = ((String) field.get(null)).trim();
+        String verb = sql.split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        boolean query =
+            verb.equals("SELECT")
+                || verb.equals("UPDATE")
+                || verb.equals("DELETE")
+                || (verb.equals("INSERT") && sql.toUpperCase(Locale.ROOT).contains(" SELECT "));
+        if (!query) {
+          continue;
+        }
+        if (sql.toUpperCase(Locale.ROOT).endsWith(" IN")) {
+          sql += " (?)";
+        }
+        queries.put(type.getSimpleName() + "." + field.getName(), sql.replace("%s", "?"));
+      }
+    }
+    return queries;
+  }
+
+  /**
+   * Lists the top-level classes of a package, from a directory or a jar on the class path.
+   *
+   * @param packageName the package
+   * @return the fully qualified class names
+   * @throws IOException if the package cannot be read
+   */
+  private static List<String> listClasses(String packageName) throws IOException {
+    String path = packageName.replace('.', '/');
+    List<String> classes = new ArrayList<>();
+    Enumeration<URL> roots = QueryPlanCheck.class.getClassLoader().getResources(path);
+    while (roots.hasMoreElements()) {
+      URL root = roots.nextElement();
+      if ("jar".equals(root.getProtocol())) {
+        try (JarFile jar = ((JarURLConnection) root.openConnection()).getJarFile()) {
+          for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements(); ) {
+            String name = entries.nextElement().getName();
+            if (name.startsWith(path + "/")
+                && name.endsWith(".class")
+                && name.indexOf('/', path.length() + 1) < 0) {
+              addClass(classes, name.substring(0, name.length() - ".class".length()));
+            }
+          }
+        }
+      } else {
+        File[] files = new File(root.getPath()).listFiles();
+        for (File file : files != null ? files : new File[0]) {
+          String name = file.getName();
+          if (name.endsWith(".class")) {
+            addClass(classes, path + "/" + name.substring(0, name.length() - ".class".length()));
+          }
+        }
+      }
+    }
+    return classes;
+  }
+
+  private static void addClass(List<String> classes, String path) {
+    if (path.indexOf('$') < 0) {
+      classes.add(path.replace('/', '.'));
+    }
+  }
+
+  /**
+   * Loads the synthetic dataset on top of whatever the database holds. New rows get IDs above the
+   * existing ones.
+   *
+   * @param conn the connection to load through
+   * @param customers the number of customers to add
+   * @throws SQLException if a row cannot be inserted
+   */
+  private static void load(Connection conn, int customers) throws SQLException {
+    long garageBase = maxId(conn, "Garage", "garageId");
+    long customerBase = maxId(conn, "Customer", "customerId");
+    long jobBase = maxId(conn, "Job", "jobId");
+    String carPrefix = "QP" + Long.toString(System.currentTimeMillis() % 1_000_000, 36) + " ";
+
+    boolean autoCommit = conn.getAutoCommit();
+    conn.setAutoCommit(false);
+    try (PreparedStatement garage =
+            conn.prepareStatement(
+                "INSERT INTO Garage (garageId, garageName, address, town, postCode, phoneNo)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)");
+        PreparedStatement customer =
+            conn.prepareStatement(
+                "INSERT INTO Customer (customerId, forename, surname, address, postCode, phoneNo)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)");
+        PreparedStatement car =
+            conn.prepareStatement(
+                "INSERT INTO Car (regNo, make, model, year, customerId, regNoKey)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)");
+        PreparedStatement job =
+            conn.prepareStatement(
+                "INSERT INTO Job (jobId, garageId, dateIn, dateOut, regNo, cost)"
+                    + " VALUES (?, ?, ?, ?, ?, ?)");
+        PreparedStatement payment =
+            conn.prepareStatement(
+                "INSERT INTO Payment (jobId, amount, paymentDate, paymentMethod, paymentStatus)"
+                    + " VALUES (?, ?, ?, 'CARD', 'PAID')");
+        PreparedStatement activity =
+            conn.prepareStatement(
+                "INSERT INTO Activity (type, action, description, timestamp, userId)"
+                    + " VALUES (?, 'CREATE', ?, ?, 'query-plan-check')")) {
+      for (int g = 1; g <= GARAGES; g++) {
+        garage.setLong(1, garageBase + g);
+        garage.setString(2, "Plan Check Garage " + g);
+        garage.setString(3, g + " Index Road");
+        garage.setString(4, "Leeds");
+        garage.setString(5, "LS1" + g % 10 + "AB");
+        garage.setString(6, String.format(Locale.ROOT, "0113%06d", g));
+        garage.addBatch();
+      }
+      garage.executeBatch();
+
+      long jobId = jobBase;
+      for (int c = 1; c <= customers; c++) {
+        long customerId = customerBase + c;
+        customer.setLong(1, customerId);
+        customer.setString(2, "Plan");
+        customer.setString(3, "Surname" + c % 5_000);
+        customer.setString(4, c + " Check Street");
+        customer.setString(5, "LS" + c % 90 + "CD");
+        customer.setString(6, String.format(Locale.ROOT, "07%09d", c));
+        customer.addBatch();
+
+        for (int v = 0; v < CARS_PER_CUSTOMER; v++) {
+          String regNo = carPrefix + (c * CARS_PER_CUSTOMER + v);
+          car.setString(1, regNo);
+          car.setString(2, "Make" + c % 20);
+          car.setString(3, "Model" + c % 7);
+          car.setInt(4, 2000 + c % 24);
+          car.setLong(5, customerId);
+          car.setString(6, RegNumbers.normalize(regNo));
+          car.addBatch();
+
+          for (int j = 0; j < JOBS_PER_CAR; j++) {
+            LocalDateTime dateIn = START.plusHours((long) (c * 7 + v * 3 + j * 1_000) % 30_000);
+            boolean open = j == JOBS_PER_CAR - 1 && c % 10 == 0;
+            double cost = 50 + c % 400;
+            job.setLong(1, ++jobId);
+            job.setLong(2, garageBase + 1 + (c + j) % GARAGES);
+            job.setTimestamp(3, Timestamp.valueOf(dateIn));
+            job.setTimestamp(4, open ? null : Timestamp.valueOf(dateIn.plusHours(30)));
+            job.setString(5, regNo);
+            job.setObject(6, open ? null : cost);
+            job.addBatch();
+            if (!open) {
+              payment.setLong(1, jobId);
+              payment.setDouble(2, cost);
+              payment.setTimestamp(3, Timestamp.valueOf(dateIn.plusHours(30)));
+              payment.addBatch();
+            }
+          }
+        }
+
+        for (int a = 0; a < ACTIVITIES_PER_CUSTOMER; a++) {
+          activity.setString(1, a % 2 == 0 ? "JOB" : "CUSTOMER");
+          activity.setString(2, "Plan check activity " + c + "/" + a);
+          activity.setTimestamp(3, Timestamp.valueOf(START.plusMinutes(c * 37L + a * 11L)));
+          activity.addBatch();
+        }
+
+        if (c % BATCH == 0 || c == customers) {
+          customer.executeBatch();
+          car.executeBatch();
+          job.executeBatch();
+          payment.executeBatch();
+          activity.executeBatch();
+          conn.commit();
+        }
+      }
+    } catch (SQLException e) {
+      conn.rollback();
+      throw e;
+    } finally {
+      conn.setAutoCommit(autoCommit);
+    }
+    new DailyGarageSummaryDAO().rebuild();
+  }
+
+  private static long maxId(Connection conn, String table, String column) throws SQLException {
+    try (Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(" + column + "), 0) FROM " + table)) {
+      rs.next();
+      return rs.getLong(1);
+    }
+  }
+
+  /**
+   * Refreshes the table statistics the optimizer chooses plans by.
+   *
+   * @param conn the connection
+   * @throws SQLException if the statistics cannot be refreshed
+   */
+  private static void analyze(Connection conn) throws SQLException {
+    try (Statement stmt = conn.createStatement()) {
+      if (h2) {
+        stmt.execute("ANALYZE");
+        return;
+      }
+      String[] tables = {
+        "Garage", "Customer", "Car", "Job", "Payment", "Activity", "DailyGarageSummary"
+      };
+      for (String table : tables) {
+        try (ResultSet rs = stmt.executeQuery("ANALYZE TABLE " + table)) {
+          while (rs.next()) {
+            // Drain the status rows
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.carservice.tools;
+
+import com.carservice.search.SearchIndex;
+import com.carservice.search.SearchResult;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Times the global search index: building it for a synthetic company with one car and two jobs
+ * per customer, then answering typical queries. Each query is run many times and the mean and
+ * worst times are printed with the number of matches.
+ *
+ * <p>Run it with {@code mvn -Ptools compile exec:java -Dtool=com.carservice.tools.SearchBenchmark
+ * -Dexec.args="--customers 100000"}.
+ */
+public class SearchBenchmark {
+  private static final int GARAGES = 50;
+  private static final int ROUNDS = 200;
+  private static final int LIMIT = 15;
+  private static final String[] SURNAMES = {
+    "Smith", "Jones", "Taylor", "Brown", "Williams", "Wilson", "Johnson", "Davies", "Patel", "Evans"
+  };
+  private static final String[] MAKES = {"Ford", "Vauxhall", "Toyota", "Honda", "BMW", "Audi"};
+  private static final String[] QUERIES = {
+    "smith", "sm", "smith 5", "ford", "toyota corolla", "ab12", "07000", "1234", "zzz"
+  };
+
+  /**
+   * Entry point.
+   *
+   * @param args {@code --customers N} to set the number of customers (default 100,000)
+   */
+  public static void main(String[] args) {
+    int customers = 100_000;
+    for (int i = 0; i < args.length; i++) {
+      if ("--customers".equals(args[i]) && i + 1 < args.length) {
+        customers = Integer.parseInt(args[++i]);
+      } else {
+        System.err.println("Options: [--customers N]");
+        System.exit(2);
+      }
+    }
+
+    long start = System.nanoTime();
+    SearchIndex index = build(customers);
+    long buildMillis = (System.nanoTime() - start) / 1_000_000;
+    System.out.printf(Locale.ROOT, "Indexed %d records in %d ms%n%n", index.size(), buildMillis);
+
+    System.out.printf(
+        Locale.ROOT, "%-18s %10s %10s %8s%n", "query", "mean ms", "max ms", "results");
+    for (String query : QUERIES) {
+      // Warm up before measuring
+      for (int i = 0; i < ROUNDS; i++) {
+        index.search(query, LIMIT);
+      }
+      long total = 0;
+      long worst = 0;
+      int results = 0;
+      for (int i = 0; i < ROUNDS; i++) {
+        long queryStart = System.nanoTime();
+        results = index.search(query, LIMIT).size();
+        long elapsed = System.nanoTime() - queryStart;
+        total += elapsed;
+        worst = Math.max(worst, elapsed);
+      }
+      System.out.printf(
+          Locale.ROOT,
+          "%-18s %10.3f %10.3f %8d%n",
+          query,
+          total / (ROUNDS * 1e6),
+          worst / 1e6,
+          results);
+    }
+
+    start = System.nanoTime();
+    index.remove(SearchResult.Type.CUSTOMER, 1L);
+    System.out.printf(
+        Locale.ROOT,
+        "%nDeleting a customer with its car and jobs took %.3f ms%n",
+        (System.nanoTime() - start) / 1e6);
+  }
+
+  private static SearchIndex build(int customers) {
+    SearchIndex index = new SearchIndex();
+    for (long garageId = 1; garageId <= GARAGES; garageId++) {
+      index.put(
+          SearchResult.Type.GARAGE,
+          garageId,
+          "Garage " + garageId,
+          "Garage " + garageId,
+          Collections.emptyList(),
+          "Garage " + garageId,
+          "Town" + garageId % 10,
+          String.format(Locale.ROOT, "GA%dRA", garageId),
+          String.format(Locale.ROOT, "01%08d", garageId));
+    }
+    long jobId = 1;
+    for (long customerId = 1; customerId <= customers; customerId++) {
+      String surname = SURNAMES[(int) (customerId % SURNAMES.length)] + customerId % 1000;
+      index.put(
+          SearchResult.Type.CUSTOMER,
+          customerId,
+          "Forename" + customerId + " " + surname,
+          "Customer " + customerId,
+          Collections.emptyList(),
+          "Forename" + customerId,
+          surname,
+          String.format(Locale.ROOT, "AB%dCD", customerId % 100),
+          String.format(Locale.ROOT, "07%08d", customerId));
+
+      String regNo = String.format(Locale.ROOT, "AB%02dXY%d", customerId % 100, customerId);
+      String make = MAKES[(int) (customerId % MAKES.length)];
+      String model = customerId % 7 == 0 ? "Corolla" : "Model" + customerId % 20;
+      index.put(
+          SearchResult.Type.CAR,
+          regNo,
+          regNo,
+          "Car, " + make + " " + model,
+          Collections.singletonList(SearchIndex.key(SearchResult.Type.CUSTOMER, customerId)),
+          regNo,
+          make,
+          model);
+
+      for (int i = 0; i < 2; i++) {
+        long garageId = 1 + jobId % GARAGES;
+        List<String> parents =
+            Arrays.asList(
+                SearchIndex.key(SearchResult.Type.CAR, regNo),
+                SearchIndex.key(SearchResult.Type.GARAGE, garageId));
+        index.put(
+            SearchResult.Type.JOB,
+            jobId,
+            "Job " + jobId,
+            regNo,
+            parents,
+            String.valueOf(jobId),
+            regNo);
+        jobId++;
+      }
+    }
+    return index;
+  }
+}
@@ -0,0 +1,111 @@
+package com.carservice.tools;
+
+import com.carservice.model.Customer;
+import com.carservice.service.CustomerService;
+import com.carservice.service.Violation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the cost of validating a batch of customers with the service's declared rules against
+ * the previous hand-written checks, which called {@link String#matches(String)} and so compiled
+ * both regular expressions for every row. One row in ten is invalid.
+ *
+ * <p>Run it with {@code mvn -Ptools compile exec:java
+ * -Dtool=com.carservice.tools.ValidationBenchmark -Dexec.args="--rows 100000"}.
+ */
+public class ValidationBenchmark {
+  private static final int ROUNDS = 10;
+
+  /**
+   * Entry point.
+   *
+   * @param args {@code --rows N} to set the batch size (default 100,000)
+   */
+  public static void main(String[] args) {
+    int rows = 100_000;
+    for (int i = 0; i < args.length; i++) {
+      if ("--rows".equals(args[i]) && i + 1 < args.length) {
+        rows = Integer.parseInt(args[++i]);
+      } else {
+        System.err.println("Options: [--rows N]");
+        System.exit(2);
+      }
+    }
+
+    List<Customer> customers = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      customers.add(customer(i));
+    }
+    CustomerService service = new CustomerService();
+
+    long bestMatches = Long.MAX_VALUE;
+    long bestRules = Long.MAX_VALUE;
+    int invalidMatches = 0;
+    int invalidRules = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      long start = System.nanoTime();
+      invalidMatches = 0;
+      for (Customer customer : customers) {
+        if (validateWithMatches(customer) != null) {
+          invalidMatches++;
+        }
+      }
+      bestMatches = Math.min(bestMatches, System.nanoTime() - start);
+
+      start = System.nanoTime();
+      List<Violation> violations = service.validateAll(customers);
+      bestRules = Math.min(bestRules, System.nanoTime() - start);
+      invalidRules = countRows(violations);
+    }
+
+    System.out.printf(Locale.ROOT, "%-22s %12s %12s%n", "validation", "ns/row", "invalid");
+    print("String.matches", bestMatches, rows, invalidMatches);
+    print("declared rules", bestRules, rows, invalidRules);
+  }
+
+  /** The checks CustomerService made before its rules were declared. */
+  private static String validateWithMatches(Customer customer) {
+    if (customer.getForename() == null || customer.getForename().trim().isEmpty()) {
+      return "Customer forename cannot be empty";
+    }
+    if (customer.getSurname() == null || customer.getSurname().trim().isEmpty()) {
+      return "Customer surname cannot be empty";
+    }
+    if (customer.getPhoneNo() == null || !customer.getPhoneNo().matches("\\d{10}")) {
+      return "Invalid phone number format";
+    }
+    if (customer.getPostCode() == null || !customer.getPostCode().matches("[A-Z0-9]{5,7}")) {
+      return "Invalid post code format";
+    }
+    return null;
+  }
+
+  private static int countRows(List<Violation> violations) {
+    int rows = 0;
+    int lastIndex = -1;
+    for (Violation violation : violations) {
+      if (violation.getIndex() != lastIndex) {
+        rows++;
+        lastIndex = violation.getIndex();
+      }
+    }
+    return rows;
+  }
+
+  private static void print(String name, long nanos, int rows, int invalid) {
+    System.out.printf(Locale.ROOT, "%-22s %12.1f %12d%n", name, (double) nanos / rows, invalid);
+  }
+
+  private static Customer customer(int i) {
+    boolean invalid = i % 10 == 0;
+    return new Customer(
+        (long) i + 1,
+        "Forename" + i,
+        "Surname" + i,
+        i + " High Street",
+        invalid ? "AB1 2CD" : String.format(Locale.ROOT, "AB%dCD", i % 1000),
+        String.format(Locale.ROOT, "07%08d", i % 100_000_000));
+  }
+}
@@ -0,0 +1,322 @@
+package com.carservice.util;
+
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader and writer for the application's own payloads. Objects are read into {@link
+ * Map}s, arrays into {@link List}s, integral numbers into {@link Long}s and other numbers into
+ * {@link Double}s. Dates and times are written as ISO-8601 strings.
+ */
+public final class Json {
+
+  private Json() {}
+
+  /**
+   * Serializes a value to JSON.
+   *
+   * @param value a Map, Iterable, String, Number, Boolean, date/time value or null
+   * @return the JSON text
+   * @throws IllegalArgumentException if the value contains an unsupported type
+   */
+  public static String write(Object value) {
+    StringBuilder out = new StringBuilder();
+    write(out, value);
+    return out.toString();
+  }
+
+  /**
+   * Parses JSON text.
+   *
+   * @param text the JSON text
+   * @return the parsed value
+   * @throws IllegalArgumentException if the text is not valid JSON
+   */
+  public static Object parse(String text) {
+    Parser parser = new Parser(text);
+    parser.skipWhitespace();
+    Object value = parser.readValue();
+    parser.skipWhitespace();
+    if (!parser.atEnd()) {
+      throw parser.error("Unexpected trailing characters");
+    }
+    return value;
+  }
+
+  /**
+   * Parses JSON text that must contain an object.
+   *
+   * @param text the JSON text
+   * @return the parsed object
+   * @throws IllegalArgumentException if the text is not a valid JSON object
+   */
+  @SuppressWarnings("unchecked")
+  public static Map<String, Object> parseObject(String text) {
+    Object value = parse(text);
+    if (!(value instanceof Map)) {
+      throw new IllegalArgumentException("Expected a JSON object");
+    }
+    return (Map<String, Object>) value;
+  }
+
+  private static void write(StringBuilder out, Object value) {
+    if (value == null) {
+      out.append("null");
+    } else if (value instanceof String) {
+      writeString(out, (String) value);
+    } else if (value instanceof Number || value instanceof Boolean) {
+      out.append(value);
+    } else if (value instanceof TemporalAccessor || value instanceof Enum) {
+      writeString(out, value.toString());
+    } else if (value instanceof Map) {
+      out.append('{');
+      boolean first = true;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!first) {
+          out.append(',');
+        }
+        first = false;
+        writeString(out, String.valueOf(entry.getKey()));
+        out.append(':');
+        write(out, entry.getValue());
+      }
+      out.append('}');
+    } else if (value instanceof Iterable) {
+      out.append('[');
+      boolean first = true;
+      for (Object element : (Iterable<?>) value) {
+        if (!first) {
+          out.append(',');
+        }
+        first = false;
+        write(out, element);
+      }
+      out.append(']');
+    } else {
+      throw new IllegalArgumentException("Cannot write " + value.getClass().getName() + " as JSON");
+    }
+  }
+
+  private static void writeString(StringBuilder out, String value) {
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          out.append("\\\"");
+          break;
+        case '\\':
+          out.append("\\\\");
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\r':
+          out.append("\\r");
+          break;
+        case '\t':
+          out.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            out.append(String.format("\\u%04x", (int) c));
+          } else {
+            out.append(c);
+          }
+      }
+    }
+    out.append('"');
+  }
+
+  /** Recursive-descent parser over a JSON string. */
+  private static final class Parser {
+    private final String text;
+    private int pos;
+
+    private Parser(String text) {
+      this.text = text;
+    }
+
+    private boolean atEnd() {
+      return pos >= text.length();
+    }
+
+    private void skipWhitespace() {
+      while (!atEnd() && Character.isWhitespace(text.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    private Object readValue() {
+      if (atEnd()) {
+        throw error("Unexpected end of input");
+      }
+      char c = text.charAt(pos);
+      switch (c) {
+        case '{':
+          return readObject();
+        case '[':
+          return readArray();
+        case '"':
+          return readString();
+        case 't':
+          expect("true");
+          return Boolean.TRUE;
+        case 'f':
+          expect("false");
+          return Boolean.FALSE;
+        case 'n':
+          expect("null");
+          return null;
+        default:
+          return readNumber();
+      }
+    }
+
+    private Map<String, Object> readObject() {
+      Map<String, Object> map = new LinkedHashMap<>();
+      pos++;
+      skipWhitespace();
+      if (peek('}')) {
+        pos++;
+        return map;
+      }
+      while (true) {
+        skipWhitespace();
+        if (!peek('"')) {
+          throw error("Expected a property name");
+        }
+        String key = readString();
+        skipWhitespace();
+        consume(':');
+        skipWhitespace();
+        map.put(key, readValue());
+        skipWhitespace();
+        if (peek(',')) {
+          pos++;
+        } else {
+          consume('}');
+          return map;
+        }
+      }
+    }
+
+    private List<Object> readArray() {
+      List<Object> list = new ArrayList<>();
+      pos++;
+      skipWhitespace();
+      if (peek(']')) {
+        pos++;
+        return list;
+      }
+      while (true) {
+        skipWhitespace();
+        list.add(readValue());
+        skipWhitespace();
+        if (peek(',')) {
+          pos++;
+        } else {
+          consume(']');
+          return list;
+        }
+      }
+    }
+
+    private String readString() {
+      consume('"');
+      StringBuilder out = new StringBuilder();
+      while (true) {
+        if (atEnd()) {
+          throw error("Unterminated string");
+        }
+        char c = text.charAt(pos++);
+        if (c == '"') {
+          return out.toString();
+        }
+        if (c != '\\') {
+          out.append(c);
+          continue;
+        }
+        if (atEnd()) {
+          throw error("Unterminated escape");
+        }
+        char escape = text.charAt(pos++);
+        switch (escape) {
+          case 'b':
+            out.append('\b');
+            break;
+          case 'f':
+            out.append('\f');
+            break;
+          case 'n':
+            out.append('\n');
+            break;
+          case 'r':
+            out.append('\r');
+            break;
+          case 't':
+            out.append('\t');
+            break;
+          case 'u':
+            if (pos + 4 > text.length()) {
+              throw error("Invalid unicode escape");
+            }
+            try {
+              out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+            } catch (NumberFormatException e) {
+              throw error("Invalid unicode escape");
+            }
+            pos += 4;
+            break;
+          default:
+            out.append(escape);
+        }
+      }
+    }
+
+    private Number readNumber() {
+      int start = pos;
+      boolean integral = true;
+      while (!atEnd()) {
+        char c = text.charAt(pos);
+        if (c == '.' || c == 'e' || c == 'E') {
+          integral = false;
+        } else if (!(Character.isDigit(c) || c == '-' || c == '+')) {
+          break;
+        }
+        pos++;
+      }
+      String number = text.substring(start, pos);
+      try {
+        return integral ? (Number) Long.parseLong(number) : (Number) Double.parseDouble(number);
+      } catch (NumberFormatException e) {
+        throw error("Invalid number '" + number + "'");
+      }
+    }
+
+    private boolean peek(char c) {
+      return !atEnd() && text.charAt(pos) == c;
+    }
+
+    private void consume(char c) {
+      if (!peek(c)) {
+        throw error("Expected '" + c + "'");
+      }
+      pos++;
+    }
+
+    private void expect(String literal) {
+      if (!text.startsWith(literal, pos)) {
+        throw error("Expected '" + literal + "'");
+      }
+      pos += literal.length();
+    }
+
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException(message + " at position " + pos);
+    }
+  }
+}
@@ -0,0 +1,247 @@
+package com.carservice.util;
+
+import com.carservice.analytics.JobAggregate;
+import com.carservice.model.Activity;
+import com.carservice.model.Car;
+import com.carservice.model.Customer;
+import com.carservice.model.Garage;
+import com.carservice.model.Job;
+import com.carservice.model.Payment;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts model objects to and from the maps read and written by {@link Json}. Property names
+ * match the model getters, so the JSON shape mirrors the model classes.
+ */
+public final class ModelJson {
+
+  private ModelJson() {}
+
+  /**
+   * Converts a model object, or a list of them, into a JSON-ready value. Values that are not model
+   * objects are returned unchanged.
+   *
+   * @param value the value to convert
+   * @return a Map, List or the original value
+   */
+  public static Object toJson(Object value) {
+    if (value instanceof List) {
+      List<Object> list = new ArrayList<>();
+      for (Object element : (List<?>) value) {
+        list.add(toJson(element));
+      }
+      return list;
+    }
+    if (value instanceof Customer) {
+      return toMap((Customer) value);
+    }
+    if (value instanceof Car) {
+      return toMap((Car) value);
+    }
+    if (value instanceof Garage) {
+      return toMap((Garage) value);
+    }
+    if (value instanceof Job) {
+      return toMap((Job) value);
+    }
+    if (value instanceof Payment) {
+      return toMap((Payment) value);
+    }
+    if (value instanceof Activity) {
+      return toMap((Activity) value);
+    }
+    if (value instanceof JobAggregate) {
+      return toMap((JobAggregate) value);
+    }
+    return value;
+  }
+
+  public static Map<String, Object> toMap(Customer customer) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("customerId", customer.getCustomerId());
+    map.put("forename", customer.getForename());
+    map.put("surname", customer.getSurname());
+    map.put("address", customer.getAddress());
+    map.put("postCode", customer.getPostCode());
+    map.put("phoneNo", customer.getPhoneNo());
+    map.put("version", customer.getVersion());
+    return map;
+  }
+
+  public static Map<String, Object> toMap(Car car) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("regNo", car.getRegNo());
+    map.put("make", car.getMake());
+    map.put("model", car.getModel());
+    map.put("year", car.getYear());
+    map.put("customerId", car.getCustomerId());
+    map.put("version", car.getVersion());
+    return map;
+  }
+
+  public static Map<String, Object> toMap(Garage garage) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("garageId", garage.getGarageId());
+    map.put("garageName", garage.getGarageName());
+    map.put("address", garage.getAddress());
+    map.put("town", garage.getTown());
+    map.put("postCode", garage.getPostCode());
+    map.put("phoneNo", garage.getPhoneNo());
+    map.put("version", garage.getVersion());
+    return map;
+  }
+
+  public static Map<String, Object> toMap(Job job) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("jobId", job.getJobId());
+    map.put("garageId", job.getGarageId());
+    map.put("regNo", job.getRegNo());
+    map.put("dateIn", job.getDateIn());
+    map.put("dateOut", job.getDateOut());
+    map.put("cost", job.getCost());
+    map.put("version", job.getVersion());
+    return map;
+  }
+
+  public static Map<String, Object> toMap(Payment payment) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("paymentId", payment.getPaymentId());
+    map.put("jobId", payment.getJobId());
+    map.put("amount", payment.getAmount());
+    map.put("paymentDate", payment.getPaymentDate());
+    map.put("paymentMethod", payment.getPaymentMethod());
+    map.put("paymentStatus", payment.getPaymentStatus());
+    return map;
+  }
+
+  public static Map<String, Object> toMap(JobAggregate aggregate) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("key", aggregate.getKey());
+    map.put("jobs", aggregate.getJobs());
+    map.put("completedJobs", aggregate.getCompletedJobs());
+    map.put("totalCost", aggregate.getTotalCost());
+    map.put("averageCost", aggregate.getAverageCost());
+    map.put("averageServiceDays", aggregate.getAverageServiceDays());
+    return map;
+  }
+
+  public static Map<String, Object> toMap(Activity activity) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("activityId", activity.getActivityId());
+    map.put("type", activity.getType());
+    map.put("action", activity.getAction());
+    map.put("description", activity.getDescription());
+    map.put("timestamp", activity.getTimestamp());
+    map.put("userId", activity.getUserId());
+    return map;
+  }
+
+  public static Customer toCustomer(Map<String, Object> map) {
+    Customer customer =
+        new Customer(
+            getLong(map, "customerId"),
+            getString(map, "forename"),
+            getString(map, "surname"),
+            getString(map, "address"),
+            getString(map, "postCode"),
+            getString(map, "phoneNo"));
+    customer.setVersion(getVersion(map));
+    return customer;
+  }
+
+  public static Car toCar(Map<String, Object> map) {
+    Long year = getLong(map, "year");
+    Car car =
+        new Car(
+            getString(map, "regNo"),
+            getString(map, "make"),
+            getString(map, "model"),
+            year != null ? year.intValue() : 0,
+            getLong(map, "customerId"));
+    car.setVersion(getVersion(map));
+    return car;
+  }
+
+  public static Garage toGarage(Map<String, Object> map) {
+    Garage garage =
+        new Garage(
+            getLong(map, "garageId"),
+            getString(map, "garageName"),
+            getString(map, "address"),
+            getString(map, "town"),
+            getString(map, "postCode"),
+            getString(map, "phoneNo"));
+    garage.setVersion(getVersion(map));
+    return garage;
+  }
+
+  public static Job toJob(Map<String, Object> map) {
+    Job job =
+        new Job(
+            getLong(map, "jobId"),
+            getLong(map, "garageId"),
+            getDateTime(map, "dateIn"),
+            getDateTime(map, "dateOut"),
+            getString(map, "regNo"),
+            getDouble(map, "cost"));
+    job.setVersion(getVersion(map));
+    return job;
+  }
+
+  private static long getVersion(Map<String, Object> map) {
+    Long version = getLong(map, "version");
+    return version != null ? version : 0;
+  }
+
+  public static String getString(Map<String, Object> map, String key) {
+    Object value = map.get(key);
+    return value != null ? value.toString() : null;
+  }
+
+  public static Long getLong(Map<String, Object> map, String key) {
+    Object value = map.get(key);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    }
+    try {
+      return Long.parseLong(value.toString().trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Property '" + key + "' must be a whole number");
+    }
+  }
+
+  public static Double getDouble(Map<String, Object> map, String key) {
+    Object value = map.get(key);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    try {
+      return Double.parseDouble(value.toString().trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Property '" + key + "' must be a number");
+    }
+  }
+
+  public static LocalDateTime getDateTime(Map<String, Object> map, String key) {
+    Object value = map.get(key);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return LocalDateTime.parse(value.toString());
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(
+          "Property '" + key + "' must be an ISO date-time such as 2025-04-01T09:30:00");
+    }
+  }
+}
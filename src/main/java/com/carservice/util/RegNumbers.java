@@ -0,0 +1,32 @@
+package com.carservice.util;
+
+import java.util.Locale;
+
+/**
+ * Normalizes registration numbers for lookup. Registration numbers are stored as typed, such as
+ * "AB12 CDE", while staff may type "ab12cde"; both have the key "AB12CDE". The key is kept in the
+ * Car table's indexed {@code regNoKey} column so lookups by key do not scan.
+ */
+public final class RegNumbers {
+  private RegNumbers() {}
+
+  /**
+   * Returns the lookup key of a registration number: upper-case, with all whitespace removed.
+   *
+   * @param regNo the registration number as typed, may be null
+   * @return the key, or null if the registration number is null
+   */
+  public static String normalize(String regNo) {
+    if (regNo == null) {
+      return null;
+    }
+    StringBuilder key = new StringBuilder(regNo.length());
+    for (int i = 0; i < regNo.length(); i++) {
+      char c = regNo.charAt(i);
+      if (!Character.isWhitespace(c)) {
+        key.append(c);
+      }
+    }
+    return key.toString().toUpperCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,98 @@
+package com.carservice.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records how long each step of application startup takes, relative to the start of the JVM, so
+ * time to interactive can be tracked. Steps may be recorded from any thread.
+ */
+public final class StartupTimer {
+  private final long originMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+  private final List<Step> steps = new ArrayList<>();
+
+  /** A recorded startup step. */
+  private static final class Step {
+    private final String name;
+    private final String thread;
+    private final long startMillis;
+    private final long durationMillis;
+
+    private Step(String name, String thread, long startMillis, long durationMillis) {
+      this.name = name;
+      this.thread = thread;
+      this.startMillis = startMillis;
+      this.durationMillis = durationMillis;
+    }
+  }
+
+  /**
+   * Returns the current time, to be passed to {@link #record(String, long)} when a step ends.
+   *
+   * @return the current time in milliseconds
+   */
+  public long now() {
+    return System.currentTimeMillis();
+  }
+
+  /**
+   * Records a step that started at the given time and ends now, on the current thread.
+   *
+   * @param name the step name
+   * @param startMillis the time the step started, from {@link #now()}
+   */
+  public void record(String name, long startMillis) {
+    long end = now();
+    String thread = Thread.currentThread().getName();
+    Step step = new Step(name, thread, startMillis - originMillis, end - startMillis);
+    synchronized (steps) {
+      steps.add(step);
+    }
+  }
+
+  /**
+   * Records a point in time, such as the window becoming visible.
+   *
+   * @param name the milestone name
+   */
+  public void mark(String name) {
+    record(name, now());
+  }
+
+  /**
+   * Returns the time since the JVM started.
+   *
+   * @return the elapsed time in milliseconds
+   */
+  public long elapsedMillis() {
+    return now() - originMillis;
+  }
+
+  /**
+   * Formats the recorded steps in the order they started.
+   *
+   * @return one line per step with its start offset, duration and thread
+   */
+  public String report() {
+    List<Step> sorted;
+    synchronized (steps) {
+      sorted = new ArrayList<>(steps);
+    }
+    sorted.sort(Comparator.comparingLong(step -> step.startMillis));
+    StringBuilder report = new StringBuilder("Startup timing (ms since JVM start):\n");
+    for (Step step : sorted) {
+      report.append(
+          String.format(
+              Locale.ROOT,
+              "  %-32s at %6d  took %6d  [%s]%n",
+              step.name,
+              step.startMillis,
+              step.durationMillis,
+              step.thread));
+    }
+    return report.toString();
+  }
+}
@@ -0,0 +1,27 @@
+package com.carservice.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shares equal strings while loading many rows, so a value that repeats across rows (a car make, a
+ * payment method, a registration number referenced by several jobs) is stored once. A pool is
+ * meant to live for a single bulk load and is not thread-safe.
+ */
+public final class StringPool {
+  private final Map<String, String> strings = new HashMap<>();
+
+  /**
+   * Returns the pooled instance equal to the given string, adding it if it is new.
+   *
+   * @param value the string to look up, may be null
+   * @return the shared instance, or null if the value is null
+   */
+  public String get(String value) {
+    if (value == null) {
+      return null;
+    }
+    String existing = strings.putIfAbsent(value, value);
+    return existing != null ? existing : value;
+  }
+}
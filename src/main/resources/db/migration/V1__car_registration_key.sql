@@ -0,0 +1,5 @@
+-- Registration numbers upper-cased with whitespace removed, so cars are looked up as typed
+ALTER TABLE Car ADD COLUMN IF NOT EXISTS regNoKey VARCHAR(20) NULL;
+UPDATE Car SET regNoKey = UPPER(REGEXP_REPLACE(regNo, '[[:space:]]', '')) WHERE regNoKey IS NULL;
+ALTER TABLE Car MODIFY regNoKey VARCHAR(20) NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_car_regNoKey ON Car (regNoKey);
@@ -0,0 +1,10 @@
+-- Activities older than the retention period, moved out of Activity by the application
+CREATE TABLE IF NOT EXISTS ActivityArchive (
+    activityId BIGINT PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    action VARCHAR(50) NOT NULL,
+    description VARCHAR(500) NOT NULL,
+    timestamp DATETIME NOT NULL,
+    userId VARCHAR(100) NOT NULL,
+    INDEX idx_activityArchive_timestamp (timestamp)
+);
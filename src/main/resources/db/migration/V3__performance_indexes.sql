@@ -0,0 +1,6 @@
+-- Finding open jobs (no date out) and the jobs closed in a period
+CREATE INDEX IF NOT EXISTS idx_job_dateOut ON Job (dateOut);
+-- Payments are read per job; replaces the index MariaDB created implicitly for the foreign key
+CREATE INDEX IF NOT EXISTS idx_payment_job ON Payment (jobId);
+-- Looking up activities by type, such as the sync entries
+CREATE INDEX IF NOT EXISTS idx_activity_type ON Activity (type);
@@ -0,0 +1,27 @@
+-- Per garage, per day counters kept by the service layer, filled from existing jobs and payments
+CREATE TABLE IF NOT EXISTS DailyGarageSummary (
+    garageId BIGINT NOT NULL,
+    summaryDate DATE NOT NULL,
+    jobsOpened INT NOT NULL DEFAULT 0,
+    jobsClosed INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(12,2) NOT NULL DEFAULT 0,
+    serviceDays BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (garageId, summaryDate),
+    FOREIGN KEY (garageId) REFERENCES Garage(garageId) ON DELETE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_summary_date ON DailyGarageSummary (summaryDate);
+-- Only fills an empty summary, so a database created from init.sql is not counted twice
+INSERT INTO DailyGarageSummary (garageId, summaryDate, jobsOpened, jobsClosed, revenue, serviceDays)
+SELECT garageId, summaryDate, SUM(opened), SUM(closed), SUM(revenue), SUM(days)
+FROM (
+    SELECT garageId, DATE(dateIn) AS summaryDate, 1 AS opened, 0 AS closed, 0 AS revenue, 0 AS days
+    FROM Job
+    UNION ALL
+    SELECT garageId, DATE(dateOut), 0, 1, 0, TIMESTAMPDIFF(DAY, dateIn, dateOut) + 1
+    FROM Job WHERE dateOut IS NOT NULL
+    UNION ALL
+    SELECT j.garageId, DATE(p.paymentDate), 0, 0, p.amount, 0
+    FROM Payment p INNER JOIN Job j ON p.jobId = j.jobId WHERE p.paymentStatus = 'PAID'
+) AS activity
+WHERE NOT EXISTS (SELECT 1 FROM DailyGarageSummary)
+GROUP BY garageId, summaryDate;
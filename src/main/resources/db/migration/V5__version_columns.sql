@@ -0,0 +1,5 @@
+-- Row versions for optimistic locking, incremented by every update
+ALTER TABLE Garage ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE Customer ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE Car ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE Job ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
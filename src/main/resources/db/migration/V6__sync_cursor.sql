@@ -0,0 +1,5 @@
+-- Last offline journal entry replayed from each local store
+CREATE TABLE IF NOT EXISTS SyncCursor (
+    storeId VARCHAR(36) PRIMARY KEY,
+    lastEntryId BIGINT NOT NULL
+);
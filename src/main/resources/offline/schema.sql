@@ -0,0 +1,122 @@
+-- Local store used in offline mode (H2 in MariaDB compatibility mode).
+-- Mirrors src/docker/init.sql. Generated IDs are drawn from one sequence counting down from
+-- LocalStore.FIRST_LOCAL_ID, so rows created offline never collide with IDs issued by the server or
+-- with each other; they are replaced with server IDs during sync.
+
+CREATE SEQUENCE IF NOT EXISTS LocalId START WITH -1000000000000 INCREMENT BY -1;
+
+CREATE TABLE IF NOT EXISTS Garage (
+    garageId BIGINT DEFAULT NEXT VALUE FOR LocalId PRIMARY KEY,
+    garageName VARCHAR(100) NOT NULL,
+    address VARCHAR(255) NOT NULL,
+    town VARCHAR(100) NOT NULL,
+    postCode VARCHAR(10) NOT NULL,
+    phoneNo VARCHAR(20) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS Customer (
+    customerId BIGINT DEFAULT NEXT VALUE FOR LocalId PRIMARY KEY,
+    forename VARCHAR(50) NOT NULL,
+    surname VARCHAR(50) NOT NULL,
+    address VARCHAR(255) NOT NULL,
+    postCode VARCHAR(10) NOT NULL,
+    phoneNo VARCHAR(20) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS Car (
+    regNo VARCHAR(20) PRIMARY KEY,
+    make VARCHAR(50) NOT NULL,
+    model VARCHAR(50) NOT NULL,
+    year INT NOT NULL,
+    customerId BIGINT NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    regNoKey VARCHAR(20),
+    FOREIGN KEY (customerId) REFERENCES Customer(customerId) ON DELETE CASCADE
+);
+
+-- Stores created before registration numbers were normalized gain the key here; their rows get it
+-- with the next snapshot
+ALTER TABLE Car ADD COLUMN IF NOT EXISTS regNoKey VARCHAR(20);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_car_regNoKey ON Car(regNoKey);
+
+CREATE TABLE IF NOT EXISTS Job (
+    jobId BIGINT DEFAULT NEXT VALUE FOR LocalId PRIMARY KEY,
+    garageId BIGINT NOT NULL,
+    dateIn DATETIME NOT NULL,
+    dateOut DATETIME,
+    regNo VARCHAR(20) NOT NULL,
+    cost DECIMAL(10,2),
+    version BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (garageId) REFERENCES Garage(garageId) ON DELETE RESTRICT,
+    FOREIGN KEY (regNo) REFERENCES Car(regNo) ON DELETE CASCADE
+);
+
+-- Activities, payments and summary rows are not copied from the server; locally they only hold
+-- what was written while offline, until it has been synced
+CREATE TABLE IF NOT EXISTS Activity (
+    activityId BIGINT DEFAULT NEXT VALUE FOR LocalId PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    action VARCHAR(50) NOT NULL,
+    description VARCHAR(500) NOT NULL,
+    timestamp DATETIME NOT NULL,
+    userId VARCHAR(100) NOT NULL
+);
+
+-- Never written offline; present so the schema matches the server's
+CREATE TABLE IF NOT EXISTS ActivityArchive (
+    activityId BIGINT PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    action VARCHAR(50) NOT NULL,
+    description VARCHAR(500) NOT NULL,
+    timestamp DATETIME NOT NULL,
+    userId VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS Payment (
+    paymentId BIGINT DEFAULT NEXT VALUE FOR LocalId PRIMARY KEY,
+    jobId BIGINT NOT NULL,
+    amount DOUBLE NOT NULL,
+    paymentDate DATETIME NOT NULL,
+    paymentMethod VARCHAR(50) NOT NULL,
+    paymentStatus VARCHAR(20) NOT NULL,
+    FOREIGN KEY (jobId) REFERENCES Job(jobId) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS DailyGarageSummary (
+    garageId BIGINT NOT NULL,
+    summaryDate DATE NOT NULL,
+    jobsOpened INT NOT NULL DEFAULT 0,
+    jobsClosed INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(12,2) NOT NULL DEFAULT 0,
+    serviceDays BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (garageId, summaryDate),
+    FOREIGN KEY (garageId) REFERENCES Garage(garageId) ON DELETE CASCADE
+);
+
+-- Writes made while offline, in the order they were made, waiting to be replayed on the server
+CREATE TABLE IF NOT EXISTS SyncJournal (
+    entryId BIGINT AUTO_INCREMENT PRIMARY KEY,
+    txId BIGINT NOT NULL,
+    sqlText VARCHAR(4000) NOT NULL,
+    params CLOB NOT NULL,
+    localKey BIGINT,
+    localRows INT NOT NULL
+);
+
+-- Server IDs issued for rows created offline, keyed by their local (negative) ID
+CREATE TABLE IF NOT EXISTS SyncIdMap (
+    localId BIGINT PRIMARY KEY,
+    serverId BIGINT NOT NULL
+);
+
+-- Identifies this store to the server, and records when the replicated tables were last copied
+CREATE TABLE IF NOT EXISTS SyncState (
+    storeId VARCHAR(36) NOT NULL,
+    snapshotAt DATETIME
+);
+
+CREATE INDEX IF NOT EXISTS idx_customer_surname ON Customer(surname);
+CREATE INDEX IF NOT EXISTS idx_car_customer ON Car(customerId);
+CREATE INDEX IF NOT EXISTS idx_job_garage ON Job(garageId);